@@ -17,16 +17,42 @@ dependencies {
 registerBenchmarkTask("runGetThroughput", "io.seriput.benchmark.GetThroughputBenchmark")
 registerBenchmarkTask("runPutThroughput", "io.seriput.benchmark.PutThroughputBenchmark")
 registerBenchmarkTask("runDeleteThroughput", "io.seriput.benchmark.DeleteThroughputBenchmark")
+registerBenchmarkTask("runIdleConnections", "io.seriput.benchmark.IdleConnectionsBenchmark")
+registerBenchmarkTask("runTransportComparison", "io.seriput.benchmark.TransportBenchmark")
+registerBenchmarkTask("runLocalSocketComparison", "io.seriput.benchmark.LocalSocketBenchmark")
+registerBenchmarkTask("runWaitStrategyComparison", "io.seriput.benchmark.WaitStrategyBenchmark")
+registerBenchmarkTask("runStorageComparison", "io.seriput.benchmark.StorageBenchmark")
+registerBenchmarkTask("runHitRateSimulation", "io.seriput.benchmark.HitRateSimulation")
+registerBenchmarkTask("runHashTableComparison", "io.seriput.benchmark.HashTableBenchmark")
 
 fun registerBenchmarkTask(name: String, mainClassName: String) {
     tasks.register<JavaExec>(name) {
         group = "benchmark"
         classpath = sourceSets["main"].runtimeClasspath
         mainClass.set(mainClassName)
+        // Needed by the IO_URING transport
+        jvmArgs("--enable-native-access=ALL-UNNAMED", "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED")
         args = listOfNotNull(
             project.findProperty("port")?.let { "port=$it" },
             project.findProperty("concurrency")?.let { "concurrency=$it" },
-            project.findProperty("targetRps")?.let { "targetRps=$it" }
+            project.findProperty("targetRps")?.let { "targetRps=$it" },
+            project.findProperty("eventLoops")?.let { "eventLoops=$it" },
+            project.findProperty("executionModel")?.let { "executionModel=$it" },
+            project.findProperty("directWrite")?.let { "directWrite=$it" },
+            project.findProperty("wakeupBatchingMicros")?.let { "wakeupBatchingMicros=$it" },
+            project.findProperty("idleConnections")?.let { "idleConnections=$it" },
+            project.findProperty("transports")?.let { "transports=$it" },
+            project.findProperty("waitStrategies")?.let { "waitStrategies=$it" },
+            project.findProperty("keys")?.let { "keys=$it" },
+            project.findProperty("valueSize")?.let { "valueSize=$it" },
+            project.findProperty("storages")?.let { "storages=$it" },
+            project.findProperty("reads")?.let { "reads=$it" },
+            project.findProperty("skew")?.let { "skew=$it" },
+            project.findProperty("cacheKeys")?.let { "cacheKeys=$it" },
+            project.findProperty("scanEvery")?.let { "scanEvery=$it" },
+            project.findProperty("scanLength")?.let { "scanLength=$it" },
+            project.findProperty("trace")?.let { "trace=$it" },
+            project.findProperty("evictions")?.let { "evictions=$it" }
         )
     }
 }
\ No newline at end of file
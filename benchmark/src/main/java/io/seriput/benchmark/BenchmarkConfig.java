@@ -1,5 +1,7 @@
 package io.seriput.benchmark;
 
+import io.seriput.server.SeriputServerConfig.ExecutionModel;
+
 /**
  * Configuration for throughput benchmarks.
  *
@@ -8,13 +10,28 @@ package io.seriput.benchmark;
  * @param warmupSec warm-up phase duration in seconds
  * @param testSec measurement phase duration in seconds
  * @param targetRps target requests per second
+ * @param eventLoops number of server event loops
+ * @param executionModel server request execution model
+ * @param directWrite whether the server's workers write the responses directly when possible
+ * @param wakeupBatchingMicros server's wakeup batching window in microseconds, 0 disables it
  */
-record BenchmarkConfig(int port, int concurrency, int warmupSec, int testSec, int targetRps) {
+record BenchmarkConfig(
+    int port,
+    int concurrency,
+    int warmupSec,
+    int testSec,
+    int targetRps,
+    int eventLoops,
+    ExecutionModel executionModel,
+    boolean directWrite,
+    int wakeupBatchingMicros) {
   static final int DEFAULT_PORT = 9090;
   static final int DEFAULT_CONCURRENCY = 128;
   static final int DEFAULT_WARMUP_SEC = 30;
   static final int DEFAULT_TEST_SEC = 120;
   static final int DEFAULT_TARGET_RPS = 120_000;
+  static final int DEFAULT_EVENT_LOOPS = 1;
+  static final ExecutionModel DEFAULT_EXECUTION_MODEL = ExecutionModel.THREAD_PER_CONNECTION;
 
   long intervalNanos() {
     return 1_000_000_000L / targetRps;
@@ -24,6 +41,10 @@ record BenchmarkConfig(int port, int concurrency, int warmupSec, int testSec, in
     int port = DEFAULT_PORT;
     int concurrency = DEFAULT_CONCURRENCY;
     int targetRps = DEFAULT_TARGET_RPS;
+    int eventLoops = DEFAULT_EVENT_LOOPS;
+    ExecutionModel executionModel = DEFAULT_EXECUTION_MODEL;
+    boolean directWrite = true;
+    int wakeupBatchingMicros = 0;
 
     for (String arg : args) {
       String[] parts = arg.split("=", 2);
@@ -31,10 +52,23 @@ record BenchmarkConfig(int port, int concurrency, int warmupSec, int testSec, in
         case "port" -> port = Integer.parseInt(parts[1]);
         case "concurrency" -> concurrency = Integer.parseInt(parts[1]);
         case "targetRps" -> targetRps = Integer.parseInt(parts[1]);
+        case "eventLoops" -> eventLoops = Integer.parseInt(parts[1]);
+        case "executionModel" -> executionModel = ExecutionModel.valueOf(parts[1]);
+        case "directWrite" -> directWrite = Boolean.parseBoolean(parts[1]);
+        case "wakeupBatchingMicros" -> wakeupBatchingMicros = Integer.parseInt(parts[1]);
         default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
       }
     }
 
-    return new BenchmarkConfig(port, concurrency, DEFAULT_WARMUP_SEC, DEFAULT_TEST_SEC, targetRps);
+    return new BenchmarkConfig(
+        port,
+        concurrency,
+        DEFAULT_WARMUP_SEC,
+        DEFAULT_TEST_SEC,
+        targetRps,
+        eventLoops,
+        executionModel,
+        directWrite,
+        wakeupBatchingMicros);
   }
 }
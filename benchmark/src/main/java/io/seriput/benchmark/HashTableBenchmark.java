@@ -0,0 +1,217 @@
+package io.seriput.benchmark;
+
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.SeriputServerConfig.Storage;
+import io.seriput.server.core.HeapStorageEngine;
+import io.seriput.server.core.Key;
+import io.seriput.server.core.KeyType;
+import io.seriput.server.core.OffHeapStorageEngine;
+import io.seriput.server.core.StorageEngine;
+import io.seriput.server.core.Value;
+import io.seriput.server.core.ValueType;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compares the get and put throughput of the storage engines' hash tables at growing numbers of
+ * keys, in process with no server, client nor serialization involved.
+ *
+ * <p>For each number of keys and storage, a fresh engine is loaded by a thread per core, each
+ * putting its own range of the keys, which measures the puts. Following a full collection, the
+ * retained heap is measured, and then the threads get random keys for the test duration. The heap
+ * engine is looked up by a view key as a request is, the off-heap engine by the key's bytes without
+ * a key object. The heap engine needs about 230 bytes of heap per entry of the default size, so a
+ * run of 100M keys, {@code keys=100000000}, needs a heap of about 24 GiB.
+ */
+final class HashTableBenchmark {
+  private static final Logger logger = LogManager.getLogger(HashTableBenchmark.class);
+  private static final String RESULT_FILE = "hash-table-result.jsonl";
+  private static final Storage[] DEFAULT_STORAGES = Storage.values();
+  private static final int[] DEFAULT_KEYS = {1_000_000, 10_000_000};
+  private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+  private static final int DEFAULT_VALUE_SIZE = 64;
+  private static final int DEFAULT_TEST_SEC = 10;
+  private static final byte[] KEY_PREFIX = "key:".getBytes(StandardCharsets.UTF_8);
+  private static final int KEY_DIGITS = 10;
+
+  private final int[] keyCounts;
+  private final int valueSize;
+  private final int threads;
+  private final Storage[] storages;
+
+  private HashTableBenchmark(int[] keyCounts, int valueSize, int threads, Storage[] storages) {
+    this.keyCounts = keyCounts;
+    this.valueSize = valueSize;
+    this.threads = threads;
+    this.storages = storages;
+  }
+
+  void run() throws InterruptedException {
+    for (int keys : this.keyCounts) {
+      for (Storage storage : this.storages) {
+        Result result = run(storage, keys);
+        persistResult(result);
+        logger.info(
+            "Storage: {}, keys: {}, puts/s: {}, gets/s: {}, heap used: {} MiB, off-heap: {} MiB",
+            result.storage(),
+            result.keys(),
+            String.format("%.0f", result.putsPerSec()),
+            String.format("%.0f", result.getsPerSec()),
+            result.heapUsedBytes() / (1024 * 1024),
+            result.offHeapBytes() / (1024 * 1024));
+      }
+    }
+  }
+
+  private Result run(Storage storage, int keys) throws InterruptedException {
+    try (StorageEngine engine =
+        switch (storage) {
+          case HEAP -> new HeapStorageEngine();
+          case OFF_HEAP -> new OffHeapStorageEngine();
+        }) {
+      long startNanos = System.nanoTime();
+      load(engine, keys);
+      double putsPerSec = keys / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+      System.gc();
+      long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+      long offHeap =
+          engine instanceof OffHeapStorageEngine offHeapEngine ? offHeapEngine.offHeapBytes() : 0;
+
+      var gets = new LongAdder();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DEFAULT_TEST_SEC);
+      startNanos = System.nanoTime();
+      runInParallel(thread -> gets.add(getUntil(engine, keys, deadline, thread)));
+      double getsPerSec = gets.sum() / ((System.nanoTime() - startNanos) / 1_000_000_000.0);
+      return new Result(
+          Instant.now().toString(),
+          storage.name(),
+          keys,
+          this.valueSize,
+          this.threads,
+          putsPerSec,
+          getsPerSec,
+          heapUsed,
+          offHeap);
+    }
+  }
+
+  // Puts all the keys, each thread its own range of them
+  private void load(StorageEngine engine, int keys) throws InterruptedException {
+    runInParallel(
+        thread -> {
+          byte[] key = newKey();
+          byte[] value = new byte[this.valueSize];
+          for (int i = thread; i < keys; i += this.threads) {
+            writeKey(key, i);
+            engine.put(
+                new Key(KeyType.UTF8, key.clone()), new Value(ValueType.JSON_UTF8, value.clone()));
+          }
+        });
+  }
+
+  // Gets random keys until the deadline, returns the number of gets
+  private static long getUntil(StorageEngine engine, int keys, long deadline, int thread) {
+    var random = new SplittableRandom(thread);
+    byte[] key = newKey();
+    long gets = 0;
+    long found = 0;
+    while ((gets & 0xFF) != 0 || System.nanoTime() < deadline) {
+      writeKey(key, random.nextInt(keys));
+      Value value =
+          engine instanceof OffHeapStorageEngine offHeapEngine
+              ? offHeapEngine.get(KeyType.UTF8, key, 0, key.length)
+              : engine.get(Key.view(KeyType.UTF8, key, 0, key.length));
+      if (value != null) {
+        found++;
+      }
+      gets++;
+    }
+    if (found != gets) {
+      throw new IllegalStateException("Missing keys: " + (gets - found));
+    }
+    return gets;
+  }
+
+  private void runInParallel(ThreadTask task) throws InterruptedException {
+    Thread[] workers = new Thread[this.threads];
+    for (int i = 0; i < this.threads; i++) {
+      int thread = i;
+      workers[i] = Thread.ofPlatform().start(() -> task.run(thread));
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+  }
+
+  private static byte[] newKey() {
+    byte[] key = Arrays.copyOf(KEY_PREFIX, KEY_PREFIX.length + KEY_DIGITS);
+    writeKey(key, 0);
+    return key;
+  }
+
+  // Writes the given index as the zero-padded digits following the key's prefix
+  private static void writeKey(byte[] key, int index) {
+    for (int i = key.length - 1; i >= KEY_PREFIX.length; i--) {
+      key[i] = (byte) ('0' + index % 10);
+      index /= 10;
+    }
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    int[] keyCounts = DEFAULT_KEYS;
+    int valueSize = DEFAULT_VALUE_SIZE;
+    int threads = DEFAULT_THREADS;
+    Storage[] storages = DEFAULT_STORAGES;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "keys" ->
+            keyCounts = Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+        case "valueSize" -> valueSize = Integer.parseInt(parts[1]);
+        case "concurrency" -> threads = Integer.parseInt(parts[1]);
+        case "storages" ->
+            storages =
+                Arrays.stream(parts[1].split(",")).map(Storage::valueOf).toArray(Storage[]::new);
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    new HashTableBenchmark(keyCounts, valueSize, threads, storages).run();
+  }
+
+  @FunctionalInterface
+  private interface ThreadTask {
+    void run(int thread);
+  }
+
+  record Result(
+      String timestamp,
+      String storage,
+      int keys,
+      int valueSize,
+      int threads,
+      double putsPerSec,
+      double getsPerSec,
+      long heapUsedBytes,
+      long offHeapBytes) {}
+}
@@ -0,0 +1,189 @@
+package io.seriput.benchmark;
+
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.core.BoundedStorageEngine;
+import io.seriput.server.core.BoundedStorageEngine.Eviction;
+import io.seriput.server.core.CacheMetrics;
+import io.seriput.server.core.Key;
+import io.seriput.server.core.KeyType;
+import io.seriput.server.core.Value;
+import io.seriput.server.core.ValueType;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compares the hit rates of the cache's eviction policies by replaying a trace of key reads
+ * against a memory-bounded storage engine, with no server or client involved.
+ *
+ * <p>Each read which misses writes the key as a read-through cache would. The trace is either read
+ * from a file of a key per line, or generated as Zipf distributed reads of a hot set interrupted by
+ * scans of keys read only once, the traffic which flushes an LRU cache.
+ */
+final class HitRateSimulation {
+  private static final Logger logger = LogManager.getLogger(HitRateSimulation.class);
+  private static final String RESULT_FILE = "hit-rate-result.jsonl";
+  private static final Eviction[] DEFAULT_EVICTIONS = Eviction.values();
+  private static final int DEFAULT_KEYS = 100_000;
+  private static final int DEFAULT_READS = 5_000_000;
+  private static final double DEFAULT_SKEW = 0.9;
+  private static final int DEFAULT_CACHE_KEYS = 2_000;
+  private static final int DEFAULT_SCAN_EVERY = 100_000;
+  private static final int DEFAULT_SCAN_LENGTH = 20_000;
+  private static final int VALUE_SIZE = 64;
+  private static final long SEED = 42;
+
+  private final List<byte[]> trace;
+  private final String traceName;
+  private final int cacheKeys;
+  private final Eviction[] evictions;
+
+  private HitRateSimulation(
+      List<byte[]> trace, String traceName, int cacheKeys, Eviction[] evictions) {
+    this.trace = trace;
+    this.traceName = traceName;
+    this.cacheKeys = cacheKeys;
+    this.evictions = evictions;
+  }
+
+  void run() {
+    for (Eviction eviction : this.evictions) {
+      Result result = run(eviction);
+      persistResult(result);
+      logger.info(
+          "Eviction: {}, trace: {}, reads: {}, hit rate: {}%, evictions: {}",
+          result.eviction(),
+          result.trace(),
+          result.reads(),
+          String.format("%.2f", result.hitRate() * 100),
+          result.evictions());
+    }
+  }
+
+  private Result run(Eviction eviction) {
+    var value = new Value(ValueType.JSON_UTF8, new byte[VALUE_SIZE]);
+    // Budgeted by the size of an entry of a typical key, as the engine accounts bytes
+    var typicalKey = new Key(KeyType.UTF8, this.trace.get(0));
+    long maxBytes = this.cacheKeys * BoundedStorageEngine.weigh(typicalKey, value);
+    var metrics = new CacheMetrics();
+    long hits = 0;
+    try (var engine = new BoundedStorageEngine(maxBytes, eviction, metrics)) {
+      for (byte[] keyBytes : this.trace) {
+        var key = new Key(KeyType.UTF8, keyBytes);
+        if (engine.get(key) != null) {
+          hits++;
+        } else {
+          engine.put(key, value);
+        }
+      }
+    }
+    return new Result(
+        Instant.now().toString(),
+        eviction.name(),
+        this.traceName,
+        this.trace.size(),
+        this.cacheKeys,
+        (double) hits / this.trace.size(),
+        metrics.evictions());
+  }
+
+  // Zipf distributed reads over the keys, with a scan of new keys every scanEvery reads
+  private static List<byte[]> zipfTrace(
+      int keys, int reads, double skew, int scanEvery, int scanLength) {
+    double[] cumulative = new double[keys];
+    double sum = 0;
+    for (int rank = 0; rank < keys; rank++) {
+      sum += 1 / Math.pow(rank + 1, skew);
+      cumulative[rank] = sum;
+    }
+    var random = new SplittableRandom(SEED);
+    byte[][] trace = new byte[reads][];
+    int scanned = 0;
+    for (int i = 0; i < reads; ) {
+      if (scanEvery > 0 && i > 0 && i % scanEvery == 0) {
+        for (int j = 0; j < scanLength && i < reads; j++) {
+          trace[i++] = ("scan:" + scanned++).getBytes(StandardCharsets.UTF_8);
+        }
+        if (i >= reads) {
+          break;
+        }
+      }
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+      trace[i++] = ("key:" + (rank >= 0 ? rank : -rank - 1)).getBytes(StandardCharsets.UTF_8);
+    }
+    return Arrays.asList(trace);
+  }
+
+  private static List<byte[]> fileTrace(Path path) throws IOException {
+    try (var lines = Files.lines(path)) {
+      return lines
+          .filter(line -> !line.isBlank())
+          .map(line -> line.strip().getBytes(StandardCharsets.UTF_8))
+          .toList();
+    }
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    int keys = DEFAULT_KEYS;
+    int reads = DEFAULT_READS;
+    double skew = DEFAULT_SKEW;
+    int cacheKeys = DEFAULT_CACHE_KEYS;
+    int scanEvery = DEFAULT_SCAN_EVERY;
+    int scanLength = DEFAULT_SCAN_LENGTH;
+    Path tracePath = null;
+    Eviction[] evictions = DEFAULT_EVICTIONS;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "keys" -> keys = Integer.parseInt(parts[1]);
+        case "reads" -> reads = Integer.parseInt(parts[1]);
+        case "skew" -> skew = Double.parseDouble(parts[1]);
+        case "cacheKeys" -> cacheKeys = Integer.parseInt(parts[1]);
+        case "scanEvery" -> scanEvery = Integer.parseInt(parts[1]);
+        case "scanLength" -> scanLength = Integer.parseInt(parts[1]);
+        case "trace" -> tracePath = Path.of(parts[1]);
+        case "evictions" ->
+            evictions =
+                Arrays.stream(parts[1].split(",")).map(Eviction::valueOf).toArray(Eviction[]::new);
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    var simulation =
+        tracePath != null
+            ? new HitRateSimulation(
+                fileTrace(tracePath), tracePath.getFileName().toString(), cacheKeys, evictions)
+            : new HitRateSimulation(
+                zipfTrace(keys, reads, skew, scanEvery, scanLength),
+                String.format("zipf(%.2f) over %d keys", skew, keys),
+                cacheKeys,
+                evictions);
+    simulation.run();
+  }
+
+  record Result(
+      String timestamp,
+      String eviction,
+      String trace,
+      int reads,
+      int cacheKeys,
+      double hitRate,
+      long evictions) {}
+}
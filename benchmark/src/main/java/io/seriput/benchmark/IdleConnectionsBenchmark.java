@@ -0,0 +1,170 @@
+package io.seriput.benchmark;
+
+import io.seriput.client.SeriputClient;
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.SeriputServer;
+import io.seriput.server.SeriputServerConfig;
+import io.seriput.server.ServerMetrics;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Measures the server's event loop cost per iteration while a growing number of idle connections
+ * stay open next to the active ones.
+ *
+ * <p>For each idle connection count, a fresh server is started, the idle connections are opened and
+ * left silent, and a fixed number of active connections send {@code GET}s for the test duration.
+ * The time the event loop spends on its own tasks per {@code select()} wakeup should stay flat as
+ * the idle connection count grows.
+ */
+final class IdleConnectionsBenchmark {
+  private static final Logger logger = LogManager.getLogger(IdleConnectionsBenchmark.class);
+  private static final String KEY = "k";
+  private static final String RESULT_FILE = "idle-connections-result.jsonl";
+  private static final int[] DEFAULT_IDLE_CONNECTIONS = {0, 1_000, 5_000, 20_000};
+  private static final int DEFAULT_CONCURRENCY = 16;
+  private static final int DEFAULT_TEST_SEC = 20;
+  // Max number of requests in flight per active connection
+  private static final int PIPELINE_DEPTH = 4;
+
+  private final int port;
+  private final int concurrency;
+  private final int[] idleConnectionCounts;
+  private final int testSec;
+
+  private IdleConnectionsBenchmark(
+      int port, int concurrency, int[] idleConnectionCounts, int testSec) {
+    this.port = port;
+    this.concurrency = concurrency;
+    this.idleConnectionCounts = idleConnectionCounts;
+    this.testSec = testSec;
+  }
+
+  void run() throws Exception {
+    for (int idleConnections : this.idleConnectionCounts) {
+      Result result = run(idleConnections);
+      persistResult(result);
+      logger.info(
+          "Idle connections: {}, loop iterations: {}, task ns/iteration: {}, RPS: {}",
+          result.idleConnections(),
+          result.eventLoopIterations(),
+          String.format("%.1f", result.taskNanosPerIteration()),
+          String.format("%.2f", result.rps()));
+    }
+  }
+
+  private Result run(int idleConnections) throws Exception {
+    try (SeriputServer server = new SeriputServer(SeriputServerConfig.builder(this.port).build())) {
+      server.start();
+      List<SocketChannel> idle = openIdleConnections(idleConnections);
+      try (SeriputClient client =
+          SeriputClient.builder("localhost", this.port).poolSize(this.concurrency).build()) {
+        client.put(KEY, "v").join();
+        runPhase(client, 5); // Warm-up
+
+        ServerMetrics metrics = server.metrics();
+        long iterationsBefore = metrics.eventLoopIterations();
+        long taskNanosBefore = metrics.eventLoopTaskNanos();
+        long startNanos = System.nanoTime();
+        long completed = runPhase(client, this.testSec);
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        long iterations = metrics.eventLoopIterations() - iterationsBefore;
+        long taskNanos = metrics.eventLoopTaskNanos() - taskNanosBefore;
+        return new Result(
+            Instant.now().toString(),
+            idleConnections,
+            this.concurrency,
+            iterations,
+            iterations > 0 ? (double) taskNanos / iterations : 0.0,
+            completed / seconds);
+      } finally {
+        for (SocketChannel channel : idle) {
+          channel.close();
+        }
+      }
+    }
+  }
+
+  private List<SocketChannel> openIdleConnections(int count)
+      throws IOException, InterruptedException {
+    logger.info("Opening {} idle connections...", count);
+    var channels = new ArrayList<SocketChannel>(count);
+    for (int i = 0; i < count; i++) {
+      channels.add(SocketChannel.open(new InetSocketAddress("localhost", this.port)));
+    }
+    // Let the event loop register them before measuring
+    Thread.sleep(1_000L + count / 10L);
+    return channels;
+  }
+
+  // Sends GETs with a bounded number in flight for the given duration, returns the completed ones
+  private long runPhase(SeriputClient client, int durationSec) throws InterruptedException {
+    var inFlight = new Semaphore(PIPELINE_DEPTH * this.concurrency);
+    var completed = new LongAdder();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+    while (System.nanoTime() < deadline) {
+      if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      client
+          .get(KEY, String.class)
+          .whenComplete(
+              (result, throwable) -> {
+                if (throwable == null) {
+                  completed.increment();
+                }
+                inFlight.release();
+              });
+    }
+    return completed.sum();
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = BenchmarkConfig.DEFAULT_PORT;
+    int concurrency = DEFAULT_CONCURRENCY;
+    int[] idleConnections = DEFAULT_IDLE_CONNECTIONS;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "port" -> port = Integer.parseInt(parts[1]);
+        case "concurrency" -> concurrency = Integer.parseInt(parts[1]);
+        case "idleConnections" ->
+            idleConnections =
+                Arrays.stream(parts[1].split(",")).mapToInt(Integer::parseInt).toArray();
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    new IdleConnectionsBenchmark(port, concurrency, idleConnections, DEFAULT_TEST_SEC).run();
+  }
+
+  record Result(
+      String timestamp,
+      int idleConnections,
+      int concurrency,
+      long eventLoopIterations,
+      double taskNanosPerIteration,
+      double rps) {}
+}
@@ -0,0 +1,177 @@
+package io.seriput.benchmark;
+
+import io.seriput.client.SeriputClient;
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.SeriputServer;
+import io.seriput.server.SeriputServerConfig;
+import io.seriput.server.SeriputServerConfig.ExecutionModel;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compares a co-located client connecting over a Unix domain socket with one connecting over
+ * loopback TCP, with one exchanging frames through shared memory, and with one in the same JVM
+ * using the in-process transport, by the {@code GET} throughput and latency.
+ *
+ * <p>A single server listens on both the TCP port and a Unix domain socket in a temporary
+ * directory, serves a shared memory file in the same directory, and is bound to an in-process
+ * name. For each transport, a fresh client sends {@code
+ * GET}s with a bounded number in flight for the test duration while the latency of each is
+ * recorded.
+ */
+final class LocalSocketBenchmark {
+  private static final Logger logger = LogManager.getLogger(LocalSocketBenchmark.class);
+  private static final String KEY = "k";
+  private static final String IN_PROCESS_NAME = "seriput-benchmark";
+  private static final String RESULT_FILE = "local-socket-result.jsonl";
+  private static final int DEFAULT_CONCURRENCY = 16;
+  private static final int DEFAULT_WARMUP_SEC = 10;
+  private static final int DEFAULT_TEST_SEC = 30;
+  // Max number of requests in flight per connection
+  private static final int PIPELINE_DEPTH = 8;
+
+  private final int port;
+  private final int concurrency;
+  private final int eventLoops;
+  private final ExecutionModel executionModel;
+
+  private LocalSocketBenchmark(
+      int port, int concurrency, int eventLoops, ExecutionModel executionModel) {
+    this.port = port;
+    this.concurrency = concurrency;
+    this.eventLoops = eventLoops;
+    this.executionModel = executionModel;
+  }
+
+  void run() throws Exception {
+    Path directory = Files.createTempDirectory("seriput-benchmark");
+    Path socketPath = directory.resolve("seriput.sock");
+    Path sharedMemoryPath = directory.resolve("seriput.shm");
+    var serverConfig =
+        SeriputServerConfig.builder(this.port)
+            .socketPath(socketPath)
+            .inProcessName(IN_PROCESS_NAME)
+            .sharedMemoryPath(sharedMemoryPath)
+            .eventLoopCount(this.eventLoops)
+            .executionModel(this.executionModel)
+            .build();
+    try (SeriputServer server = new SeriputServer(serverConfig)) {
+      logger.info("Starting Seriput server on port {} and at {}...", this.port, socketPath);
+      server.start();
+      for (String transport : new String[] {"TCP", "UDS", "SHARED_MEMORY", "IN_PROCESS"}) {
+        var clientBuilder =
+            switch (transport) {
+              case "UDS" -> SeriputClient.builder(socketPath);
+              case "SHARED_MEMORY" -> SeriputClient.sharedMemory(sharedMemoryPath);
+              case "IN_PROCESS" -> SeriputClient.inProcess(IN_PROCESS_NAME);
+              default -> SeriputClient.builder("localhost", this.port);
+            };
+        try (SeriputClient client = clientBuilder.poolSize(this.concurrency).build()) {
+          Result result = run(transport, client);
+          persistResult(result);
+          logger.info(
+              "Transport: {}, RPS: {}, p50: {} ms, p99: {} ms",
+              result.transport(),
+              String.format("%.2f", result.rps()),
+              String.format("%.3f", result.p50Ms()),
+              String.format("%.3f", result.p99Ms()));
+        }
+      }
+    } finally {
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  private Result run(String transport, SeriputClient client) throws InterruptedException {
+    client.put(KEY, "v").join();
+    var recorder = new Recorder(Measurement.MAX_LATENCY_MICROS, 3);
+    runPhase(client, recorder, DEFAULT_WARMUP_SEC);
+    recorder.reset();
+
+    long startNanos = System.nanoTime();
+    long completed = runPhase(client, recorder, DEFAULT_TEST_SEC);
+    double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+    Histogram histogram = recorder.getIntervalHistogram();
+    return new Result(
+        Instant.now().toString(),
+        transport,
+        this.concurrency,
+        this.eventLoops,
+        completed / seconds,
+        histogram.getValueAtPercentile(50.0) / 1_000.0,
+        histogram.getValueAtPercentile(99.0) / 1_000.0);
+  }
+
+  // Sends GETs with a bounded number in flight for the given duration, returns the completed ones
+  private long runPhase(SeriputClient client, Recorder recorder, int durationSec)
+      throws InterruptedException {
+    var inFlight = new Semaphore(PIPELINE_DEPTH * this.concurrency);
+    var completed = new LongAdder();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+    while (System.nanoTime() < deadline) {
+      if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      long sentNanos = System.nanoTime();
+      client
+          .get(KEY, String.class)
+          .whenComplete(
+              (result, throwable) -> {
+                if (throwable == null) {
+                  long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentNanos);
+                  recorder.recordValue(Math.min(micros, Measurement.MAX_LATENCY_MICROS));
+                  completed.increment();
+                }
+                inFlight.release();
+              });
+    }
+    return completed.sum();
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = BenchmarkConfig.DEFAULT_PORT;
+    int concurrency = DEFAULT_CONCURRENCY;
+    int eventLoops = BenchmarkConfig.DEFAULT_EVENT_LOOPS;
+    ExecutionModel executionModel = BenchmarkConfig.DEFAULT_EXECUTION_MODEL;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "port" -> port = Integer.parseInt(parts[1]);
+        case "concurrency" -> concurrency = Integer.parseInt(parts[1]);
+        case "eventLoops" -> eventLoops = Integer.parseInt(parts[1]);
+        case "executionModel" -> executionModel = ExecutionModel.valueOf(parts[1]);
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    new LocalSocketBenchmark(port, concurrency, eventLoops, executionModel).run();
+  }
+
+  record Result(
+      String timestamp,
+      String transport,
+      int concurrency,
+      int eventLoops,
+      double rps,
+      double p50Ms,
+      double p99Ms) {}
+}
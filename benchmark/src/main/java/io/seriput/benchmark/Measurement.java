@@ -15,16 +15,39 @@ final class Measurement {
   final LongAdder errors = new LongAdder();
   final AtomicInteger inFlight = new AtomicInteger();
   volatile long elapsedNanos;
+  volatile double writeSyscallsPerResponse;
+  volatile double directWritePct;
+  volatile long wakeups;
+  volatile double avgBatchSize;
+
+  void recordWrites(long writeSyscalls, long responsesWritten, long directWrites) {
+    this.writeSyscallsPerResponse =
+        responsesWritten > 0 ? ((double) writeSyscalls / responsesWritten) : 0.0;
+    this.directWritePct = responsesWritten > 0 ? (directWrites * 100.0 / responsesWritten) : 0.0;
+  }
+
+  void recordBatches(long batches, long frames) {
+    this.avgBatchSize = batches > 0 ? ((double) frames / batches) : 0.0;
+  }
 
   record BenchmarkResult(
       String timestamp,
       int concurrency,
+      int eventLoops,
+      String executionModel,
+      boolean directWrite,
+      int wakeupBatchingMicros,
       int targetRps,
       int durationSec,
       double rpsSuccess,
+      double p50Ms,
       double p95Ms,
       double p99Ms,
-      double errorRatePct) {
+      double errorRatePct,
+      double writeSyscallsPerResponse,
+      double directWritePct,
+      double wakeupsPerSec,
+      double avgBatchSize) {
 
     static BenchmarkResult of(Measurement m, BenchmarkConfig config) {
       long ok = m.success.sum();
@@ -34,17 +57,27 @@ final class Measurement {
       double rpsSuccess = seconds > 0 ? (ok / seconds) : 0.0;
       double errorRatePct = total > 0 ? (err * 100.0 / total) : 0.0;
       Histogram histogram = m.recorder.getIntervalHistogram();
+      double p50Ms = histogram.getValueAtPercentile(50.0) / 1_000.0;
       double p95Ms = histogram.getValueAtPercentile(95.0) / 1_000.0;
       double p99Ms = histogram.getValueAtPercentile(99.0) / 1_000.0;
       return new BenchmarkResult(
           Instant.now().toString(),
           config.concurrency(),
+          config.eventLoops(),
+          config.executionModel().name(),
+          config.directWrite(),
+          config.wakeupBatchingMicros(),
           config.targetRps(),
           config.testSec(),
           rpsSuccess,
+          p50Ms,
           p95Ms,
           p99Ms,
-          errorRatePct);
+          errorRatePct,
+          m.writeSyscallsPerResponse,
+          m.directWritePct,
+          seconds > 0 ? (m.wakeups / seconds) : 0.0,
+          m.avgBatchSize);
     }
   }
 }
@@ -0,0 +1,240 @@
+package io.seriput.benchmark;
+
+import io.seriput.client.SeriputClient;
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.SeriputServer;
+import io.seriput.server.SeriputServerConfig;
+import io.seriput.server.SeriputServerConfig.ExecutionModel;
+import io.seriput.server.SeriputServerConfig.Storage;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compares the storage engines of the cache by the heap and the off-heap memory they retain and by
+ * the garbage collection they cause under load.
+ *
+ * <p>For each storage, a fresh server is started and loaded with the given number of keys, after
+ * which the memory in use is measured following a full collection. Then a few connections send
+ * {@code GET}s of random keys, with every tenth request a {@code PUT} overwriting one, for the test
+ * duration while the collections and their accumulated pause are counted. Off-heap storage is
+ * expected to retain far less heap and so to cause shorter collections with a large data set.
+ */
+final class StorageBenchmark {
+  private static final Logger logger = LogManager.getLogger(StorageBenchmark.class);
+  private static final String RESULT_FILE = "storage-result.jsonl";
+  private static final Storage[] DEFAULT_STORAGES = Storage.values();
+  private static final int DEFAULT_CONCURRENCY = 64;
+  private static final int DEFAULT_KEYS = 1_000_000;
+  private static final int DEFAULT_VALUE_SIZE = 256;
+  private static final int DEFAULT_TEST_SEC = 30;
+  private static final int PUT_EVERY = 10;
+
+  private final int port;
+  private final int concurrency;
+  private final int eventLoops;
+  private final ExecutionModel executionModel;
+  private final int keys;
+  private final String value;
+  private final Storage[] storages;
+
+  private StorageBenchmark(
+      int port,
+      int concurrency,
+      int eventLoops,
+      ExecutionModel executionModel,
+      int keys,
+      int valueSize,
+      Storage[] storages) {
+    this.port = port;
+    this.concurrency = concurrency;
+    this.eventLoops = eventLoops;
+    this.executionModel = executionModel;
+    this.keys = keys;
+    this.value = "v".repeat(valueSize);
+    this.storages = storages;
+  }
+
+  void run() throws Exception {
+    for (Storage storage : this.storages) {
+      Result result = run(storage);
+      persistResult(result);
+      logger.info(
+          "Storage: {}, heap used: {} MiB, direct used: {} MiB, RPS: {}, p99: {} ms, GCs: {},"
+              + " GC time: {} ms",
+          result.storage(),
+          result.heapUsedBytes() / (1024 * 1024),
+          result.directUsedBytes() / (1024 * 1024),
+          String.format("%.2f", result.rps()),
+          String.format("%.3f", result.p99Ms()),
+          result.gcCount(),
+          result.gcTimeMs());
+    }
+  }
+
+  private Result run(Storage storage) throws Exception {
+    var serverConfig =
+        SeriputServerConfig.builder(this.port)
+            .eventLoopCount(this.eventLoops)
+            .executionModel(this.executionModel)
+            .storage(storage)
+            .build();
+    try (SeriputServer server = new SeriputServer(serverConfig)) {
+      logger.info("Starting Seriput server with the {} storage...", storage);
+      server.start();
+      try (SeriputClient client =
+          SeriputClient.builder("localhost", this.port).poolSize(this.concurrency).build()) {
+        load(client);
+        System.gc();
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long directUsed = directUsedBytes();
+
+        var recorder = new Recorder(Measurement.MAX_LATENCY_MICROS, 3);
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMs();
+        long startNanos = System.nanoTime();
+        long completed = runPhase(client, recorder, DEFAULT_TEST_SEC);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        Histogram histogram = recorder.getIntervalHistogram();
+        return new Result(
+            Instant.now().toString(),
+            storage.name(),
+            this.keys,
+            this.value.length(),
+            heapUsed,
+            directUsed,
+            completed / (elapsedNanos / 1_000_000_000.0),
+            histogram.getValueAtPercentile(99.0) / 1_000.0,
+            gcCount() - gcCountBefore,
+            gcTimeMs() - gcTimeBefore);
+      }
+    }
+  }
+
+  // Puts all the keys, with as many requests in flight as the connections
+  private void load(SeriputClient client) throws InterruptedException {
+    var inFlight = new Semaphore(this.concurrency);
+    for (int i = 0; i < this.keys; i++) {
+      inFlight.acquire();
+      client.put(key(i), this.value).whenComplete((result, throwable) -> inFlight.release());
+    }
+    inFlight.acquire(this.concurrency);
+  }
+
+  // Sends GETs and PUTs of random keys for the given duration, returns the completed ones
+  private long runPhase(SeriputClient client, Recorder recorder, int durationSec)
+      throws InterruptedException {
+    var inFlight = new Semaphore(this.concurrency);
+    var completed = new LongAdder();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+    for (long i = 0; System.nanoTime() < deadline; i++) {
+      if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      String key = key(ThreadLocalRandom.current().nextInt(this.keys));
+      long sentNanos = System.nanoTime();
+      var future =
+          i % PUT_EVERY == 0 ? client.put(key, this.value) : client.get(key, String.class);
+      future.whenComplete(
+          (result, throwable) -> {
+            if (throwable == null) {
+              long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentNanos);
+              recorder.recordValue(Math.min(micros, Measurement.MAX_LATENCY_MICROS));
+              completed.increment();
+            }
+            inFlight.release();
+          });
+    }
+    inFlight.acquire(this.concurrency);
+    return completed.sum();
+  }
+
+  private static String key(int i) {
+    return "key:" + i;
+  }
+
+  private static long gcCount() {
+    return gcBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+  }
+
+  private static long gcTimeMs() {
+    return gcBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+  }
+
+  private static List<GarbageCollectorMXBean> gcBeans() {
+    return ManagementFactory.getGarbageCollectorMXBeans();
+  }
+
+  // Native memory segments are accounted in the direct buffer pool as well
+  private static long directUsedBytes() {
+    return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+        .filter(pool -> pool.getName().equals("direct"))
+        .mapToLong(BufferPoolMXBean::getMemoryUsed)
+        .sum();
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = BenchmarkConfig.DEFAULT_PORT;
+    int concurrency = DEFAULT_CONCURRENCY;
+    int eventLoops = BenchmarkConfig.DEFAULT_EVENT_LOOPS;
+    ExecutionModel executionModel = BenchmarkConfig.DEFAULT_EXECUTION_MODEL;
+    int keys = DEFAULT_KEYS;
+    int valueSize = DEFAULT_VALUE_SIZE;
+    Storage[] storages = DEFAULT_STORAGES;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "port" -> port = Integer.parseInt(parts[1]);
+        case "concurrency" -> concurrency = Integer.parseInt(parts[1]);
+        case "eventLoops" -> eventLoops = Integer.parseInt(parts[1]);
+        case "executionModel" -> executionModel = ExecutionModel.valueOf(parts[1]);
+        case "keys" -> keys = Integer.parseInt(parts[1]);
+        case "valueSize" -> valueSize = Integer.parseInt(parts[1]);
+        case "storages" ->
+            storages =
+                Arrays.stream(parts[1].split(",")).map(Storage::valueOf).toArray(Storage[]::new);
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    new StorageBenchmark(
+            port, concurrency, eventLoops, executionModel, keys, valueSize, storages)
+        .run();
+  }
+
+  record Result(
+      String timestamp,
+      String storage,
+      int keys,
+      int valueSize,
+      long heapUsedBytes,
+      long directUsedBytes,
+      double rps,
+      double p99Ms,
+      long gcCount,
+      long gcTimeMs) {}
+}
@@ -4,10 +4,12 @@ import io.seriput.benchmark.Measurement.BenchmarkResult;
 import io.seriput.client.SeriputClient;
 import io.seriput.common.ObjectMapperProvider;
 import io.seriput.server.SeriputServer;
+import io.seriput.server.SeriputServerConfig;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.LockSupport;
@@ -31,8 +33,21 @@ abstract sealed class ThroughputBenchmark
   abstract void fireRequest(SeriputClient client, Measurement measurement);
 
   void run() throws Exception {
-    try (SeriputServer server = new SeriputServer(config.port())) {
-      logger.info("Starting Seriput server on port {}...", config.port());
+    var serverConfig =
+        SeriputServerConfig.builder(config.port())
+            .eventLoopCount(config.eventLoops())
+            .executionModel(config.executionModel())
+            .directWrite(config.directWrite())
+            .wakeupBatchingWindow(Duration.ofNanos(config.wakeupBatchingMicros() * 1_000L))
+            .build();
+    try (SeriputServer server = new SeriputServer(serverConfig)) {
+      logger.info(
+          "Starting Seriput server on port {} with {} event loops and {} execution model, direct"
+              + " write {}...",
+          config.port(),
+          config.eventLoops(),
+          config.executionModel(),
+          config.directWrite() ? "on" : "off");
       server.start();
       logger.info("Server started. Running benchmark...");
 
@@ -46,7 +61,21 @@ abstract sealed class ThroughputBenchmark
 
         logger.info("Starting measurement phase ({} s)...", config.testSec());
         Measurement m = new Measurement();
+        long writeSyscallsBefore = server.metrics().writeSyscalls();
+        long responsesWrittenBefore = server.metrics().responsesWritten();
+        long directWritesBefore = server.metrics().directWrites();
+        long wakeupsBefore = server.metrics().wakeups();
+        long batchesBefore = server.metrics().handledBatches();
+        long batchFramesBefore = server.metrics().handledBatchFrames();
         runPhase(client, config.testSec(), m);
+        m.wakeups = server.metrics().wakeups() - wakeupsBefore;
+        m.recordBatches(
+            server.metrics().handledBatches() - batchesBefore,
+            server.metrics().handledBatchFrames() - batchFramesBefore);
+        m.recordWrites(
+            server.metrics().writeSyscalls() - writeSyscallsBefore,
+            server.metrics().responsesWritten() - responsesWrittenBefore,
+            server.metrics().directWrites() - directWritesBefore);
         logger.info("Measurement phase complete.");
 
         BenchmarkResult result = BenchmarkResult.of(m, config);
@@ -127,11 +156,20 @@ abstract sealed class ThroughputBenchmark
   private void logSummary(BenchmarkResult result) {
     logger.info("=== Throughput Benchmark Result ===");
     logger.info("Connections:   {}", config.concurrency());
+    logger.info("Event loops:   {}", config.eventLoops());
+    logger.info("Execution:     {}", config.executionModel());
+    logger.info("Direct write:  {}", config.directWrite() ? "on" : "off");
+    logger.info("Wakeup window: {} µs", config.wakeupBatchingMicros());
     logger.info("Target RPS:    {}", config.targetRps());
     logger.info("Duration:      {} s", config.testSec());
     logger.info("RPS (success): {}", String.format("%.2f", result.rpsSuccess()));
+    logger.info("p50 latency:   {} ms", String.format("%.3f", result.p50Ms()));
     logger.info("p95 latency:   {} ms", String.format("%.3f", result.p95Ms()));
     logger.info("p99 latency:   {} ms", String.format("%.3f", result.p99Ms()));
     logger.info("Error rate:    {}%", String.format("%.2f", result.errorRatePct()));
+    logger.info("Syscalls/resp: {}", String.format("%.3f", result.writeSyscallsPerResponse()));
+    logger.info("Direct writes: {}%", String.format("%.2f", result.directWritePct()));
+    logger.info("Wakeups/s:     {}", String.format("%.2f", result.wakeupsPerSec()));
+    logger.info("Batch size:    {}", String.format("%.2f", result.avgBatchSize()));
   }
 }
@@ -0,0 +1,190 @@
+package io.seriput.benchmark;
+
+import io.seriput.client.SeriputClient;
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.SeriputServer;
+import io.seriput.server.SeriputServerConfig;
+import io.seriput.server.SeriputServerConfig.ExecutionModel;
+import io.seriput.server.SeriputServerConfig.Transport;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compares the server's transports by the {@code GET} throughput and the CPU time spent per
+ * request.
+ *
+ * <p>For each transport, a fresh server is started and a fixed number of connections send {@code
+ * GET}s with a bounded number in flight for the test duration. The CPU time is measured both for
+ * the whole process, which includes the in-process client and the kernel's {@code io_uring}
+ * workers, and for the event loop threads alone.
+ *
+ * <p>{@code IO_URING} needs the JVM flags {@code --enable-native-access=ALL-UNNAMED} and {@code
+ * --add-exports java.base/sun.nio.ch=ALL-UNNAMED}, which the Gradle task passes.
+ */
+final class TransportBenchmark {
+  private static final Logger logger = LogManager.getLogger(TransportBenchmark.class);
+  private static final String KEY = "k";
+  private static final String RESULT_FILE = "transport-result.jsonl";
+  private static final String EVENT_LOOP_THREAD_PREFIX = "seriput-event-loop-";
+  private static final Transport[] DEFAULT_TRANSPORTS = {Transport.NIO, Transport.IO_URING};
+  private static final int DEFAULT_CONCURRENCY = 16;
+  private static final int DEFAULT_WARMUP_SEC = 10;
+  private static final int DEFAULT_TEST_SEC = 30;
+  // Max number of requests in flight per connection
+  private static final int PIPELINE_DEPTH = 8;
+
+  private final int port;
+  private final int concurrency;
+  private final int eventLoops;
+  private final ExecutionModel executionModel;
+  private final Transport[] transports;
+  private final com.sun.management.OperatingSystemMXBean os =
+      (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  private TransportBenchmark(
+      int port,
+      int concurrency,
+      int eventLoops,
+      ExecutionModel executionModel,
+      Transport[] transports) {
+    this.port = port;
+    this.concurrency = concurrency;
+    this.eventLoops = eventLoops;
+    this.executionModel = executionModel;
+    this.transports = transports;
+  }
+
+  void run() throws Exception {
+    for (Transport transport : this.transports) {
+      Result result = run(transport);
+      persistResult(result);
+      logger.info(
+          "Transport: {}, RPS: {}, process CPU µs/request: {}, event loop CPU µs/request: {}",
+          result.transport(),
+          String.format("%.2f", result.rps()),
+          String.format("%.2f", result.processCpuMicrosPerRequest()),
+          String.format("%.2f", result.eventLoopCpuMicrosPerRequest()));
+    }
+  }
+
+  private Result run(Transport transport) throws Exception {
+    var serverConfig =
+        SeriputServerConfig.builder(this.port)
+            .eventLoopCount(this.eventLoops)
+            .executionModel(this.executionModel)
+            .transport(transport)
+            .build();
+    try (SeriputServer server = new SeriputServer(serverConfig)) {
+      logger.info("Starting Seriput server with the {} transport...", transport);
+      server.start();
+      try (SeriputClient client =
+          SeriputClient.builder("localhost", this.port).poolSize(this.concurrency).build()) {
+        client.put(KEY, "v").join();
+        runPhase(client, DEFAULT_WARMUP_SEC);
+
+        long processCpuBefore = this.os.getProcessCpuTime();
+        long eventLoopCpuBefore = eventLoopCpuNanos();
+        long startNanos = System.nanoTime();
+        long completed = runPhase(client, DEFAULT_TEST_SEC);
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        long processCpu = this.os.getProcessCpuTime() - processCpuBefore;
+        long eventLoopCpu = eventLoopCpuNanos() - eventLoopCpuBefore;
+        return new Result(
+            Instant.now().toString(),
+            transport.name(),
+            this.concurrency,
+            this.eventLoops,
+            completed / seconds,
+            completed > 0 ? processCpu / 1_000.0 / completed : 0.0,
+            completed > 0 ? eventLoopCpu / 1_000.0 / completed : 0.0);
+      }
+    }
+  }
+
+  // Sends GETs with a bounded number in flight for the given duration, returns the completed ones
+  private long runPhase(SeriputClient client, int durationSec) throws InterruptedException {
+    var inFlight = new Semaphore(PIPELINE_DEPTH * this.concurrency);
+    var completed = new LongAdder();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+    while (System.nanoTime() < deadline) {
+      if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      client
+          .get(KEY, String.class)
+          .whenComplete(
+              (result, throwable) -> {
+                if (throwable == null) {
+                  completed.increment();
+                }
+                inFlight.release();
+              });
+    }
+    return completed.sum();
+  }
+
+  private long eventLoopCpuNanos() {
+    long total = 0;
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (thread.getName().startsWith(EVENT_LOOP_THREAD_PREFIX)) {
+        total += Math.max(0, this.threads.getThreadCpuTime(thread.threadId()));
+      }
+    }
+    return total;
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = BenchmarkConfig.DEFAULT_PORT;
+    int concurrency = DEFAULT_CONCURRENCY;
+    int eventLoops = BenchmarkConfig.DEFAULT_EVENT_LOOPS;
+    ExecutionModel executionModel = BenchmarkConfig.DEFAULT_EXECUTION_MODEL;
+    Transport[] transports = DEFAULT_TRANSPORTS;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "port" -> port = Integer.parseInt(parts[1]);
+        case "concurrency" -> concurrency = Integer.parseInt(parts[1]);
+        case "eventLoops" -> eventLoops = Integer.parseInt(parts[1]);
+        case "executionModel" -> executionModel = ExecutionModel.valueOf(parts[1]);
+        case "transports" ->
+            transports =
+                Arrays.stream(parts[1].split(","))
+                    .map(Transport::valueOf)
+                    .toArray(Transport[]::new);
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    new TransportBenchmark(port, concurrency, eventLoops, executionModel, transports).run();
+  }
+
+  record Result(
+      String timestamp,
+      String transport,
+      int concurrency,
+      int eventLoops,
+      double rps,
+      double processCpuMicrosPerRequest,
+      double eventLoopCpuMicrosPerRequest) {}
+}
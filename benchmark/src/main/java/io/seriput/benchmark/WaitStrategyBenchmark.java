@@ -0,0 +1,191 @@
+package io.seriput.benchmark;
+
+import io.seriput.client.SeriputClient;
+import io.seriput.common.ObjectMapperProvider;
+import io.seriput.common.WaitStrategy;
+import io.seriput.server.SeriputServer;
+import io.seriput.server.SeriputServerConfig;
+import io.seriput.server.SeriputServerConfig.ExecutionModel;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compares the wait strategies of the server's event loops and the client's connection pool by
+ * the {@code GET} latency and the CPU time spent, both per request and per second.
+ *
+ * <p>For each strategy, a fresh server and client both using it are started, and a few
+ * connections send {@code GET}s one at a time each for the test duration while the latency of each
+ * is recorded. The polling strategies are expected to trade CPU time for lower latencies.
+ */
+final class WaitStrategyBenchmark {
+  private static final Logger logger = LogManager.getLogger(WaitStrategyBenchmark.class);
+  private static final String KEY = "k";
+  private static final String RESULT_FILE = "wait-strategy-result.jsonl";
+  private static final WaitStrategy.Kind[] DEFAULT_WAIT_STRATEGIES = WaitStrategy.Kind.values();
+  private static final int DEFAULT_CONCURRENCY = 4;
+  private static final int DEFAULT_WARMUP_SEC = 10;
+  private static final int DEFAULT_TEST_SEC = 30;
+
+  private final int port;
+  private final int concurrency;
+  private final int eventLoops;
+  private final ExecutionModel executionModel;
+  private final WaitStrategy.Kind[] waitStrategies;
+  private final com.sun.management.OperatingSystemMXBean os =
+      (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+  private WaitStrategyBenchmark(
+      int port,
+      int concurrency,
+      int eventLoops,
+      ExecutionModel executionModel,
+      WaitStrategy.Kind[] waitStrategies) {
+    this.port = port;
+    this.concurrency = concurrency;
+    this.eventLoops = eventLoops;
+    this.executionModel = executionModel;
+    this.waitStrategies = waitStrategies;
+  }
+
+  void run() throws Exception {
+    for (WaitStrategy.Kind kind : this.waitStrategies) {
+      Result result = run(WaitStrategy.of(kind));
+      persistResult(result);
+      logger.info(
+          "Wait strategy: {}, RPS: {}, p50: {} ms, p99: {} ms, p99.9: {} ms, CPU µs/request: {},"
+              + " CPU cores: {}",
+          result.waitStrategy(),
+          String.format("%.2f", result.rps()),
+          String.format("%.3f", result.p50Ms()),
+          String.format("%.3f", result.p99Ms()),
+          String.format("%.3f", result.p999Ms()),
+          String.format("%.2f", result.cpuMicrosPerRequest()),
+          String.format("%.2f", result.cpuCores()));
+    }
+  }
+
+  private Result run(WaitStrategy waitStrategy) throws Exception {
+    var serverConfig =
+        SeriputServerConfig.builder(this.port)
+            .eventLoopCount(this.eventLoops)
+            .executionModel(this.executionModel)
+            .waitStrategy(waitStrategy)
+            .build();
+    try (SeriputServer server = new SeriputServer(serverConfig)) {
+      logger.info("Starting Seriput server with the {} wait strategy...", waitStrategy.kind());
+      server.start();
+      try (SeriputClient client =
+          SeriputClient.builder("localhost", this.port)
+              .poolSize(this.concurrency)
+              .waitStrategy(waitStrategy)
+              .build()) {
+        client.put(KEY, "v").join();
+        var recorder = new Recorder(Measurement.MAX_LATENCY_MICROS, 3);
+        runPhase(client, recorder, DEFAULT_WARMUP_SEC);
+        recorder.reset();
+
+        long cpuBefore = this.os.getProcessCpuTime();
+        long startNanos = System.nanoTime();
+        long completed = runPhase(client, recorder, DEFAULT_TEST_SEC);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long cpu = this.os.getProcessCpuTime() - cpuBefore;
+        Histogram histogram = recorder.getIntervalHistogram();
+        return new Result(
+            Instant.now().toString(),
+            waitStrategy.kind().name(),
+            this.concurrency,
+            this.eventLoops,
+            completed / (elapsedNanos / 1_000_000_000.0),
+            histogram.getValueAtPercentile(50.0) / 1_000.0,
+            histogram.getValueAtPercentile(99.0) / 1_000.0,
+            histogram.getValueAtPercentile(99.9) / 1_000.0,
+            completed > 0 ? cpu / 1_000.0 / completed : 0.0,
+            (double) cpu / elapsedNanos);
+      }
+    }
+  }
+
+  // Sends a GET at a time per connection for the given duration, returns the completed ones
+  private long runPhase(SeriputClient client, Recorder recorder, int durationSec)
+      throws InterruptedException {
+    var inFlight = new Semaphore(this.concurrency);
+    var completed = new LongAdder();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSec);
+    while (System.nanoTime() < deadline) {
+      if (!inFlight.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+        continue;
+      }
+      long sentNanos = System.nanoTime();
+      client
+          .get(KEY, String.class)
+          .whenComplete(
+              (result, throwable) -> {
+                if (throwable == null) {
+                  long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sentNanos);
+                  recorder.recordValue(Math.min(micros, Measurement.MAX_LATENCY_MICROS));
+                  completed.increment();
+                }
+                inFlight.release();
+              });
+    }
+    return completed.sum();
+  }
+
+  private static void persistResult(Result result) {
+    try {
+      String json = ObjectMapperProvider.getInstance().writeValueAsString(result);
+      Files.writeString(
+          Path.of(RESULT_FILE), json + "\n", StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      logger.error("Failed to persist benchmark result to {}", RESULT_FILE, e);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    int port = BenchmarkConfig.DEFAULT_PORT;
+    int concurrency = DEFAULT_CONCURRENCY;
+    int eventLoops = BenchmarkConfig.DEFAULT_EVENT_LOOPS;
+    ExecutionModel executionModel = BenchmarkConfig.DEFAULT_EXECUTION_MODEL;
+    WaitStrategy.Kind[] waitStrategies = DEFAULT_WAIT_STRATEGIES;
+    for (String arg : args) {
+      String[] parts = arg.split("=", 2);
+      switch (parts[0]) {
+        case "port" -> port = Integer.parseInt(parts[1]);
+        case "concurrency" -> concurrency = Integer.parseInt(parts[1]);
+        case "eventLoops" -> eventLoops = Integer.parseInt(parts[1]);
+        case "executionModel" -> executionModel = ExecutionModel.valueOf(parts[1]);
+        case "waitStrategies" ->
+            waitStrategies =
+                Arrays.stream(parts[1].split(","))
+                    .map(WaitStrategy.Kind::valueOf)
+                    .toArray(WaitStrategy.Kind[]::new);
+        default -> throw new IllegalArgumentException("Unknown argument: " + parts[0]);
+      }
+    }
+    new WaitStrategyBenchmark(port, concurrency, eventLoops, executionModel, waitStrategies).run();
+  }
+
+  record Result(
+      String timestamp,
+      String waitStrategy,
+      int concurrency,
+      int eventLoops,
+      double rps,
+      double p50Ms,
+      double p99Ms,
+      double p999Ms,
+      double cpuMicrosPerRequest,
+      double cpuCores) {}
+}
@@ -0,0 +1,105 @@
+package io.seriput.client;
+
+import io.seriput.client.exception.ConnectionClosedException;
+import io.seriput.client.exception.RequestTimeoutException;
+import io.seriput.common.HashedWheelTimer;
+import io.seriput.common.InProcessEndpoint;
+import io.seriput.common.InProcessRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hands the requests to an embedded server in the same JVM through its {@link InProcessEndpoint},
+ * with no socket, connection pool thread or selector in between.
+ *
+ * <p>The futures are completed on the callback executor, and time out with {@link
+ * RequestTimeoutException}, the same way as over a {@link SeriputConnectionPool}, on a {@link
+ * RequestTimer}.
+ */
+final class InProcessTransport implements RequestTransport {
+  private static final Logger logger = LogManager.getLogger(InProcessTransport.class);
+
+  private final InProcessEndpoint endpoint;
+  private final ExecutorService callbackExecutor;
+  private final RequestTimer timer; // null if the requests don't time out
+  private final AtomicBoolean isRunning = new AtomicBoolean(false);
+
+  InProcessTransport(String name, ExecutorService callbackExecutor, Duration requestTimeout)
+      throws IOException {
+    this.endpoint = InProcessRegistry.lookup(name);
+    if (this.endpoint == null) {
+      throw new IOException("No in-process server is bound to: " + name);
+    }
+    this.callbackExecutor = callbackExecutor;
+    this.timer =
+        requestTimeout != null && !requestTimeout.isZero()
+            ? new RequestTimer("seriput-in-process-timer", requestTimeout, callbackExecutor)
+            : null;
+  }
+
+  @Override
+  public void start() {
+    if (this.isRunning.compareAndSet(false, true) && this.timer != null) {
+      this.timer.start();
+    }
+  }
+
+  @Override
+  public CompletableFuture<byte[]> enqueue(ByteBuffer request, Runnable onPayloadConsumed) {
+    CompletableFuture<byte[]> future = new CompletableFuture<>();
+    if (!this.isRunning.get()) {
+      onPayloadConsumed.run();
+      future.completeExceptionally(new IllegalStateException("Transport is not running!"));
+      return future;
+    }
+    // Scheduled before submitting, as the response may be received before submit() returns
+    HashedWheelTimer.Timeout timeout = this.timer != null ? this.timer.schedule(future) : null;
+    boolean isSubmitted =
+        this.endpoint.submit(
+            request,
+            response -> {
+              if (timeout != null) {
+                timeout.cancel();
+              }
+              onPayloadConsumed.run();
+              complete(future, response);
+            });
+    if (!isSubmitted) {
+      if (timeout != null) {
+        timeout.cancel();
+      }
+      onPayloadConsumed.run();
+      future.completeExceptionally(new ConnectionClosedException("In-process server is closed!"));
+    }
+    return future;
+  }
+
+  @Override
+  public void close() {
+    if (this.isRunning.compareAndSet(true, false)) {
+      // The requests already submitted are still responded by the server, or time out
+      if (this.timer != null) {
+        this.timer.close();
+      }
+      this.callbackExecutor.shutdown();
+      logger.info("In-process transport was shut down!");
+    }
+  }
+
+  // Called on the server's thread, which must not run the application's callbacks
+  private void complete(CompletableFuture<byte[]> future, byte[] response) {
+    try {
+      this.callbackExecutor.execute(() -> future.complete(response));
+    } catch (RejectedExecutionException e) {
+      logger.warn("Callback executor rejected completion; completing on the server's thread.", e);
+      future.complete(response);
+    }
+  }
+}
@@ -1,14 +1,48 @@
 package io.seriput.client;
 
+import io.seriput.common.HashedWheelTimer;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.Accessors;
 
 /**
  * Represents a request to be sent over a {@code SeriputConnection}.
  *
- * @param payload request payload
- * @param onPayloadConsumed callback to invoke once the payload buffer is no longer needed
- * @param onCompleted callback to invoke once the response payload has been received
+ * <p>Other than its timeout, it's mutated by the connection pool's event loop only.
  */
-record PendingRequest(
-    ByteBuffer payload, Runnable onPayloadConsumed, CompletableFuture<byte[]> onCompleted) {}
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+@Accessors(fluent = true)
+final class PendingRequest {
+  @Getter private final ByteBuffer payload;
+  // Invoked once the payload buffer is no longer needed
+  @Getter private final Runnable onPayloadConsumed;
+  // Completed once the response payload has been received
+  @Getter private final CompletableFuture<byte[]> onCompleted;
+
+  // Request timeout if enabled, cancelled once the response is received
+  @Getter @Setter private volatile HashedWheelTimer.Timeout timeout;
+
+  // Connection the request was written to in protocol v2, and its request ID there
+  @Getter @Setter private SeriputConnection connection;
+  @Getter @Setter private int requestId;
+
+  private boolean isExpired = false;
+
+  boolean isExpired() {
+    return this.isExpired;
+  }
+
+  void expire() {
+    this.isExpired = true;
+  }
+
+  void cancelTimeout() {
+    if (this.timeout != null) {
+      this.timeout.cancel();
+    }
+  }
+}
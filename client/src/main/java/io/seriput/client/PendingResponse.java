@@ -1,5 +1,6 @@
 package io.seriput.client;
 
+import io.seriput.common.HashedWheelTimer;
 import java.util.concurrent.CompletableFuture;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -15,6 +16,9 @@ final class PendingResponse {
 
   @Getter @Setter private byte[] payload;
 
+  // Timeout of the request, cancelled once its response is received
+  @Getter @Setter private HashedWheelTimer.Timeout timeout;
+
   boolean isReadyToBeCompleted() {
     return this.payload != null;
   }
@@ -0,0 +1,102 @@
+package io.seriput.client;
+
+import io.seriput.client.exception.RequestTimeoutException;
+import io.seriput.common.HashedWheelTimer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Times out the requests of a transport with no event loop to drive a {@link HashedWheelTimer}, on
+ * a daemon thread of its own, the same way as a {@link SeriputConnectionPool} does.
+ *
+ * <p>The thread advances the timer every tick while any timeout is scheduled, and parks otherwise
+ * until a request is scheduled. Once closed, it keeps running until the timeouts already scheduled
+ * are cancelled or expired, so that no request is left without its timeout.
+ */
+final class RequestTimer {
+  private static final Logger logger = LogManager.getLogger(RequestTimer.class);
+  private static final long TIMER_TICK_MILLIS = 10;
+  private static final int TIMER_TICKS_PER_WHEEL = 512;
+
+  private final ExecutorService callbackExecutor;
+  private final Duration requestTimeout;
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer(TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS, TIMER_TICKS_PER_WHEEL);
+  private final Thread thread;
+  private volatile boolean isRunning = true;
+  private final AtomicBoolean isParked = new AtomicBoolean(false);
+
+  RequestTimer(String threadName, Duration requestTimeout, ExecutorService callbackExecutor) {
+    this.callbackExecutor = callbackExecutor;
+    this.requestTimeout = requestTimeout;
+    this.thread = new Thread(this::run, threadName);
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Schedules the timeout of the request to be completed by the given {@code future}, which the
+   * caller cancels once the response is received. Thread-safe.
+   *
+   * @param future future of the request
+   * @return scheduled timeout
+   */
+  HashedWheelTimer.Timeout schedule(CompletableFuture<byte[]> future) {
+    HashedWheelTimer.Timeout timeout =
+        this.timer.schedule(
+            () -> expire(future), this.requestTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    if (this.isParked.get()) {
+      LockSupport.unpark(this.thread);
+    }
+    return timeout;
+  }
+
+  /** Stops the thread once the timeouts already scheduled are cancelled or expired. */
+  void close() {
+    this.isRunning = false;
+    LockSupport.unpark(this.thread);
+  }
+
+  private void run() {
+    while (true) {
+      this.timer.advance(System.nanoTime());
+      if (!this.timer.isEmpty()) {
+        LockSupport.parkNanos(this, this.timer.nanosUntilNextTick(System.nanoTime()));
+        continue;
+      }
+      if (!this.isRunning) {
+        return;
+      }
+      // Set before re-checking the timer, so that a caller either sees it or leaves a timeout
+      this.isParked.set(true);
+      if (this.timer.isEmpty() && this.isRunning) {
+        LockSupport.park(this);
+      }
+      this.isParked.set(false);
+    }
+  }
+
+  // Runs on the timer's thread, the exception is created only for the requests timing out
+  private void expire(CompletableFuture<byte[]> future) {
+    if (future.isDone()) {
+      return;
+    }
+    var cause = new RequestTimeoutException("No response received in " + this.requestTimeout + "!");
+    try {
+      this.callbackExecutor.execute(() -> future.completeExceptionally(cause));
+    } catch (RejectedExecutionException e) {
+      logger.debug("Callback executor rejected; completing on the timer's thread.", e);
+      future.completeExceptionally(cause);
+    }
+  }
+}
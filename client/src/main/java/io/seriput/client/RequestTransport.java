@@ -0,0 +1,19 @@
+package io.seriput.client;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/** Carries the request payloads of a {@link SeriputClientImpl} to the server. */
+interface RequestTransport extends AutoCloseable {
+  /** Starts carrying the enqueued requests. */
+  void start();
+
+  /**
+   * Enqueues the given request payload to be sent to the server.
+   *
+   * @param request request payload in the protocol v1 frame layout
+   * @param onPayloadConsumed invoked once the payload buffer is no longer needed
+   * @return a future completed with the response payload, on the callback executor
+   */
+  CompletableFuture<byte[]> enqueue(ByteBuffer request, Runnable onPayloadConsumed);
+}
@@ -1,5 +1,7 @@
 package io.seriput.client;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -30,6 +32,19 @@ public interface SeriputClient extends AutoCloseable {
    */
   <T> CompletableFuture<Void> put(String key, T value);
 
+  /**
+   * Associates the given value with given key in Seriput key-value store, for the given time to
+   * live. Once it has passed, the key is no longer associated with the value.
+   *
+   * @param key key with which the given value is to be associated
+   * @param value value to be associated with the given key
+   * @param ttl time to live of the association, at least a millisecond
+   * @return a {@link CompletableFuture} that, when completed, indicates that the operation has
+   *     finished
+   * @param <T> type of the value
+   */
+  <T> CompletableFuture<Void> put(String key, T value, Duration ttl);
+
   /**
    * Deletes the value associated with the given key from Seriput key-value store.
    *
@@ -42,4 +57,38 @@ public interface SeriputClient extends AutoCloseable {
   static SeriputClientImpl.SeriputClientImplBuilder builder(String host, int port) {
     return SeriputClientImpl.builder().host(host).port(port);
   }
+
+  /**
+   * Returns a builder of a client connected to a server on the same host over the Unix domain
+   * socket at the given path.
+   *
+   * @param socketPath path of the server's Unix domain socket
+   * @return builder instance
+   */
+  static SeriputClientImpl.SeriputClientImplBuilder builder(Path socketPath) {
+    return SeriputClientImpl.builder().socketPath(socketPath);
+  }
+
+  /**
+   * Returns a builder of a client connected to the server embedded in the same JVM under the given
+   * name, through the in-process transport with no socket in between.
+   *
+   * @param inProcessName name the server's {@code inProcessName} is configured with
+   * @return builder instance
+   */
+  static SeriputClientImpl.SeriputClientImplBuilder inProcess(String inProcessName) {
+    return SeriputClientImpl.builder().inProcessName(inProcessName);
+  }
+
+  /**
+   * Returns a builder of a client connected to a server on the same host through the rings in the
+   * shared memory file at the given path, with no syscall per request. Only a single client can be
+   * attached to the file at a time.
+   *
+   * @param sharedMemoryPath path of the server's shared memory file
+   * @return builder instance
+   */
+  static SeriputClientImpl.SeriputClientImplBuilder sharedMemory(Path sharedMemoryPath) {
+    return SeriputClientImpl.builder().sharedMemoryPath(sharedMemoryPath);
+  }
 }
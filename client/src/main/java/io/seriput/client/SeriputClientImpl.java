@@ -2,6 +2,7 @@ package io.seriput.client;
 
 import io.seriput.client.exception.SeriputClientException;
 import io.seriput.common.PooledByteBufferAllocator;
+import io.seriput.common.WaitStrategy;
 import io.seriput.common.serialization.request.KeyType;
 import io.seriput.common.serialization.request.RequestSerializer;
 import io.seriput.common.serialization.request.ValueType;
@@ -9,7 +10,11 @@ import io.seriput.common.serialization.response.ErrorResponse;
 import io.seriput.common.serialization.response.ResponseDeserializer;
 import io.seriput.common.serialization.response.SuccessResponse;
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -20,8 +25,9 @@ final class SeriputClientImpl implements SeriputClient {
   private static final int DEFAULT_POOL_SIZE = 10;
   private static final int DEFAULT_READ_BUFFER_SIZE = 8192;
   private static final int DEFAULT_MAX_OUTBOUND_QUEUE_SIZE = 1024;
+  private static final int DEFAULT_PROTOCOL_VERSION = RequestSerializer.PROTOCOL_V2;
 
-  private final SeriputConnectionPool connectionPool;
+  private final RequestTransport transport;
   private final AtomicBoolean isClosed = new AtomicBoolean(false);
   private final PooledByteBufferAllocator allocator = new PooledByteBufferAllocator();
   private final RequestSerializer<String, Object> requestSerializer =
@@ -29,30 +35,58 @@ final class SeriputClientImpl implements SeriputClient {
   private final ResponseDeserializer responseSerializer = ResponseDeserializer.build();
 
   // Visible for testing
-  SeriputClientImpl(SeriputConnectionPool connectionPool) {
-    this.connectionPool = connectionPool;
+  SeriputClientImpl(RequestTransport transport) {
+    this.transport = transport;
   }
 
+  // Connects to the embedded server bound to inProcessName if it's set, through the shared memory
+  // file at sharedMemoryPath if it's set, over the Unix domain socket at socketPath if it's set,
+  // over TCP to host:port otherwise
   @Builder
   SeriputClientImpl(
       String host,
       int port,
+      Path socketPath,
+      String inProcessName,
+      Path sharedMemoryPath,
       int poolSize,
       ExecutorService callbackExecutor,
       int readBufferSize,
-      int maxOutboundQueueSize)
+      int maxOutboundQueueSize,
+      int protocolVersion,
+      Duration requestTimeout,
+      WaitStrategy waitStrategy)
       throws IOException {
-    this.connectionPool =
-        new SeriputConnectionPool(
-            host,
-            port,
-            poolSize > 0 ? poolSize : DEFAULT_POOL_SIZE,
-            callbackExecutor != null
-                ? callbackExecutor
-                : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()),
-            readBufferSize > 0 ? readBufferSize : DEFAULT_READ_BUFFER_SIZE,
-            maxOutboundQueueSize > 0 ? maxOutboundQueueSize : DEFAULT_MAX_OUTBOUND_QUEUE_SIZE);
-    this.connectionPool.start();
+    if (protocolVersion < 0 || protocolVersion > RequestSerializer.PROTOCOL_V2) {
+      throw new IllegalArgumentException("'protocolVersion' is not supported: " + protocolVersion);
+    }
+    if (requestTimeout != null && requestTimeout.isNegative()) {
+      throw new IllegalArgumentException(
+          "'requestTimeout' must not be negative: " + requestTimeout);
+    }
+    if (callbackExecutor == null) {
+      callbackExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+    if (inProcessName != null) {
+      this.transport = new InProcessTransport(inProcessName, callbackExecutor, requestTimeout);
+    } else if (sharedMemoryPath != null) {
+      this.transport =
+          new SharedMemoryTransport(sharedMemoryPath, callbackExecutor, requestTimeout);
+    } else {
+      this.transport =
+          new SeriputConnectionPool(
+              socketPath != null
+                  ? UnixDomainSocketAddress.of(socketPath)
+                  : new InetSocketAddress(host, port),
+              poolSize > 0 ? poolSize : DEFAULT_POOL_SIZE,
+              callbackExecutor,
+              readBufferSize > 0 ? readBufferSize : DEFAULT_READ_BUFFER_SIZE,
+              maxOutboundQueueSize > 0 ? maxOutboundQueueSize : DEFAULT_MAX_OUTBOUND_QUEUE_SIZE,
+              protocolVersion > 0 ? protocolVersion : DEFAULT_PROTOCOL_VERSION,
+              requestTimeout,
+              waitStrategy != null ? waitStrategy : WaitStrategy.blocking());
+    }
+    this.transport.start();
   }
 
   public static SeriputClientImpl build(String host, int port, int poolSize) throws IOException {
@@ -62,7 +96,7 @@ final class SeriputClientImpl implements SeriputClient {
   @Override
   public void close() throws Exception {
     if (isClosed.compareAndSet(false, true)) {
-      this.connectionPool.close();
+      this.transport.close();
     }
   }
 
@@ -72,7 +106,7 @@ final class SeriputClientImpl implements SeriputClient {
       throw new IllegalStateException("SeriputClient is closed!");
     }
     ByteBuffer payload = requestSerializer.serializeGet(key);
-    return connectionPool
+    return transport
         .enqueue(payload, () -> allocator.release(payload))
         .thenApply(
             buffer -> {
@@ -92,8 +126,22 @@ final class SeriputClientImpl implements SeriputClient {
     if (isClosed.get()) {
       throw new IllegalStateException("SeriputClient is closed!");
     }
-    ByteBuffer payload = requestSerializer.serializePut(key, value);
-    return connectionPool
+    return put(requestSerializer.serializePut(key, value));
+  }
+
+  @Override
+  public <T> CompletableFuture<Void> put(String key, T value, Duration ttl) {
+    if (isClosed.get()) {
+      throw new IllegalStateException("SeriputClient is closed!");
+    }
+    if (ttl.toMillis() < 1) {
+      throw new IllegalArgumentException("'ttl' must be at least a millisecond: " + ttl);
+    }
+    return put(requestSerializer.serializePut(key, value, ttl.toMillis()));
+  }
+
+  private CompletableFuture<Void> put(ByteBuffer payload) {
+    return transport
         .enqueue(payload, () -> allocator.release(payload))
         .thenApply(
             buffer -> {
@@ -114,7 +162,7 @@ final class SeriputClientImpl implements SeriputClient {
       throw new IllegalStateException("SeriputClient is closed!");
     }
     ByteBuffer payload = requestSerializer.serializeDelete(key);
-    return connectionPool
+    return transport
         .enqueue(payload, () -> allocator.release(payload))
         .thenApply(
             buffer -> {
@@ -4,14 +4,22 @@ import static io.seriput.common.serialization.response.ResponseDeserializer.body
 import static io.seriput.common.serialization.response.ResponseDeserializer.headerSize;
 
 import io.seriput.client.exception.ConnectionClosedException;
+import io.seriput.common.serialization.request.RequestSerializer;
+import io.seriput.common.serialization.response.ResponseStatus;
+import java.io.EOFException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
 import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -25,6 +33,10 @@ import org.apache.logging.log4j.Logger;
 /**
  * Represents a single connection to the Seriput server.
  *
+ * <p>The protocol version is negotiated with a {@code HELLO} request right after connecting. In
+ * protocol v1 responses are matched to the requests by their order, in v2 each request is prefixed
+ * with a request ID and its response can arrive out of order.
+ *
  * <p>This class is <b>not thread-safe</b> and is intended to be used by the event loop thread.
  */
 @Accessors(fluent = true)
@@ -35,20 +47,42 @@ final class SeriputConnection implements AutoCloseable {
   @Getter private final SocketChannel channel;
   @Getter private final Queue<PendingRequest> pendingRequests = new ArrayDeque<>();
   private final Queue<PendingResponse> pendingResponses = new ArrayDeque<>();
+  // Requests written in protocol v2 by their request IDs
+  private final Map<Integer, PendingRequest> inFlightRequests = new HashMap<>();
+  @Getter private final int protocolVersion;
   private final ByteBuffer readBuffer;
+  // Response larger than readBuffer being assembled, if any
+  private ByteBuffer largeResponse;
+  private int largeResponseRequestId;
+  private int nextRequestId = 0;
+  // Request ID prefix of the request being written, used in protocol v2 only
+  private final ByteBuffer requestIdPrefix = ByteBuffer.allocate(RequestSerializer.REQUEST_ID_SIZE);
+  private boolean isRequestIdPrefixPrepared = false;
   @Getter private final SelectionKey selectionKey;
+  private final ByteBuffer[] writeBuffers = new ByteBuffer[2];
 
   private boolean isWriteInterested = false;
   @Getter @Setter private State state = State.OPEN;
 
   SeriputConnection(
-      String host, int port, Executor callbackExecutor, Selector selector, int readBufferSize)
+      SocketAddress address,
+      Executor callbackExecutor,
+      Selector selector,
+      int readBufferSize,
+      int protocolVersion)
       throws IOException {
     this.callbackExecutor = callbackExecutor;
-    this.channel = SocketChannel.open();
+    this.channel =
+        address instanceof UnixDomainSocketAddress
+            ? SocketChannel.open(StandardProtocolFamily.UNIX)
+            : SocketChannel.open();
     this.channel.configureBlocking(true);
-    this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
-    this.channel.connect(new InetSocketAddress(host, port));
+    if (address instanceof InetSocketAddress) {
+      // Unix domain sockets have no Nagle's algorithm to disable
+      this.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+    this.channel.connect(address);
+    this.protocolVersion = negotiate(this.channel, protocolVersion);
     this.channel.configureBlocking(false);
     this.readBuffer = ByteBuffer.allocate(readBufferSize);
     this.selectionKey = this.channel.register(selector, SelectionKey.OP_READ, this);
@@ -63,12 +97,19 @@ final class SeriputConnection implements AutoCloseable {
     PendingRequest req;
     while ((req = this.pendingRequests.poll()) != null) {
       req.onPayloadConsumed().run();
+      req.cancelTimeout();
       completeExceptionally(req.onCompleted(), cause);
     }
     PendingResponse resp;
     while ((resp = this.pendingResponses.poll()) != null) {
+      cancelTimeout(resp);
       completeExceptionally(resp.onCompleted(), cause);
     }
+    for (PendingRequest inFlight : this.inFlightRequests.values()) {
+      inFlight.cancelTimeout();
+      completeExceptionally(inFlight.onCompleted(), cause);
+    }
+    this.inFlightRequests.clear();
   }
 
   void enqueue(PendingRequest pendingRequest) {
@@ -76,6 +117,16 @@ final class SeriputConnection implements AutoCloseable {
     maybeSetWriteInterest(true);
   }
 
+  /**
+   * Drops the request written in protocol v2 with the given {@code requestId} whose timeout has
+   * expired, its response is ignored if it arrives later.
+   *
+   * @param requestId request ID of the expired request
+   */
+  void removeInFlight(int requestId) {
+    this.inFlightRequests.remove(requestId);
+  }
+
   void maybeSetWriteInterest(boolean isWriteInterested) {
     if (this.isWriteInterested != isWriteInterested) {
       this.isWriteInterested = isWriteInterested;
@@ -91,13 +142,32 @@ final class SeriputConnection implements AutoCloseable {
     try {
       while (!this.pendingRequests.isEmpty()) {
         PendingRequest request = this.pendingRequests.peek();
-        this.channel.write(request.payload());
+        if (request.isExpired() && !isWriteStarted(request)) {
+          // Timed out before being sent, no need to send it at all
+          this.pendingRequests.remove();
+          request.onPayloadConsumed().run();
+          continue;
+        }
+        if (this.protocolVersion == RequestSerializer.PROTOCOL_V2) {
+          writeWithRequestId(request);
+        } else {
+          this.channel.write(request.payload());
+        }
         if (request.payload().hasRemaining()) {
           break;
         } else {
           PendingRequest completed = this.pendingRequests.remove();
           completed.onPayloadConsumed().run();
-          this.pendingResponses.add(new PendingResponse(completed.onCompleted()));
+          if (this.protocolVersion == RequestSerializer.PROTOCOL_V2) {
+            completed.connection(this);
+            completed.requestId(this.nextRequestId);
+            this.inFlightRequests.put(this.nextRequestId++, completed);
+            this.isRequestIdPrefixPrepared = false;
+          } else {
+            var pendingResponse = new PendingResponse(completed.onCompleted());
+            pendingResponse.timeout(completed.timeout());
+            this.pendingResponses.add(pendingResponse);
+          }
         }
       }
     } catch (IOException e) {
@@ -108,6 +178,10 @@ final class SeriputConnection implements AutoCloseable {
 
   void read() {
     try {
+      if (this.largeResponse != null) {
+        readLargeResponse();
+        return;
+      }
       int bytesRead = this.channel.read(this.readBuffer);
       if (bytesRead == -1) {
         logger.debug("Connection {} closed by server", this);
@@ -116,31 +190,45 @@ final class SeriputConnection implements AutoCloseable {
       }
 
       this.readBuffer.flip(); // Switch to read mode
+      int requestIdSize =
+          this.protocolVersion == RequestSerializer.PROTOCOL_V2
+              ? RequestSerializer.REQUEST_ID_SIZE
+              : 0;
       // Complete as many responses as possible
-      while (!this.pendingResponses.isEmpty()) { // NOSONAR
-        if (this.readBuffer.remaining() < headerSize()) {
+      while (hasPendingResponses()) { // NOSONAR
+        if (this.readBuffer.remaining() < requestIdSize + headerSize()) {
           break;
         }
-        logger.info(
-            "Read buffer position: {}, remaining: {}",
-            this.readBuffer.position(),
-            this.readBuffer.remaining());
-
-        int bodySize = bodySize(this.readBuffer);
-        int frameSize = headerSize() + bodySize;
-        if (this.readBuffer.remaining() < frameSize) {
+
+        int frameStart = this.readBuffer.position();
+        int responseStart = frameStart + requestIdSize;
+        int requestId = requestIdSize > 0 ? this.readBuffer.getInt(frameStart) : 0;
+        int bodySize = bodySize(this.readBuffer, responseStart);
+        if (bodySize < 0 || bodySize > Integer.MAX_VALUE - headerSize() - requestIdSize) {
+          logger.error("Invalid response header received on connection {}", this);
+          this.state(State.CLOSING);
+          return;
+        }
+        int responseSize = headerSize() + bodySize;
+        if (this.readBuffer.remaining() < requestIdSize + responseSize) {
+          if (requestIdSize + responseSize > this.readBuffer.capacity()) {
+            // Continue reading the response into a buffer of its exact size
+            this.readBuffer.position(responseStart);
+            this.largeResponse = ByteBuffer.allocate(responseSize);
+            this.largeResponseRequestId = requestId;
+            this.largeResponse.put(this.readBuffer);
+          }
           break;
         }
 
-        // Extract the frame from readBuffer
-        int frameStart = this.readBuffer.position();
-        int frameEnd = frameStart + frameSize;
+        // Extract the response from readBuffer
+        int frameEnd = responseStart + responseSize;
         ByteBuffer view = this.readBuffer.duplicate(); // This isn't full copy!
-        view.position(frameStart);
+        view.position(responseStart);
         view.limit(frameEnd);
-        byte[] frame = new byte[frameSize];
-        view.get(frame);
-        tryToComplete(frame);
+        byte[] response = new byte[responseSize];
+        view.get(response);
+        complete(requestId, response);
 
         // Set to the next frame's start.
         this.readBuffer.position(frameEnd);
@@ -153,6 +241,69 @@ final class SeriputConnection implements AutoCloseable {
     }
   }
 
+  private void readLargeResponse() throws IOException {
+    int bytesRead = this.channel.read(this.largeResponse);
+    if (bytesRead == -1) {
+      logger.debug("Connection {} closed by server", this);
+      this.state(State.CLOSING);
+      return;
+    }
+    if (!this.largeResponse.hasRemaining()) {
+      byte[] response = this.largeResponse.array();
+      this.largeResponse = null;
+      complete(this.largeResponseRequestId, response);
+    }
+  }
+
+  // Writes the request prefixed with its request ID, both with a single gathering write
+  private void writeWithRequestId(PendingRequest request) throws IOException {
+    if (!this.isRequestIdPrefixPrepared) {
+      this.requestIdPrefix.clear();
+      this.requestIdPrefix.putInt(this.nextRequestId);
+      this.requestIdPrefix.flip();
+      this.isRequestIdPrefixPrepared = true;
+    }
+    this.writeBuffers[0] = this.requestIdPrefix;
+    this.writeBuffers[1] = request.payload();
+    this.channel.write(this.writeBuffers);
+    this.writeBuffers[1] = null;
+  }
+
+  private boolean isWriteStarted(PendingRequest request) {
+    return request.payload().position() > 0 || this.isRequestIdPrefixPrepared;
+  }
+
+  // In protocol v2, late responses of the expired requests are still read off the connection
+  private boolean hasPendingResponses() {
+    return this.protocolVersion == RequestSerializer.PROTOCOL_V2
+        || !this.pendingResponses.isEmpty();
+  }
+
+  private void complete(int requestId, byte[] responsePayload) {
+    if (this.protocolVersion == RequestSerializer.PROTOCOL_V2) {
+      completeById(requestId, responsePayload);
+    } else {
+      tryToComplete(responsePayload);
+    }
+  }
+
+  private void completeById(int requestId, byte[] responsePayload) {
+    PendingRequest request = this.inFlightRequests.remove(requestId);
+    if (request == null) {
+      // Possibly the late response of an expired request
+      logger.debug("Response received for an unknown request ID {} on {}", requestId, this);
+      return;
+    }
+    request.cancelTimeout();
+    CompletableFuture<byte[]> future = request.onCompleted();
+    try {
+      this.callbackExecutor.execute(() -> future.complete(responsePayload));
+    } catch (RejectedExecutionException e) {
+      logger.warn("Callback executor rejected completion; completing on the caller's thread.", e);
+      future.complete(responsePayload);
+    }
+  }
+
   private void tryToComplete(byte[] responsePayload) {
     drainPendingResponses();
     var pendingResponseToSet = firstNotReadyToBeCompleted();
@@ -171,6 +322,7 @@ final class SeriputConnection implements AutoCloseable {
         return; // Nothing to complete!
       }
 
+      cancelTimeout(nextToComplete);
       try {
         this.callbackExecutor.execute(
             () -> nextToComplete.onCompleted().complete(nextToComplete.payload()));
@@ -191,6 +343,12 @@ final class SeriputConnection implements AutoCloseable {
     return null;
   }
 
+  private static void cancelTimeout(PendingResponse response) {
+    if (response.timeout() != null) {
+      response.timeout().cancel();
+    }
+  }
+
   private void completeExceptionally(CompletableFuture<?> future, Exception cause) {
     try {
       this.callbackExecutor.execute(() -> future.completeExceptionally(cause));
@@ -200,6 +358,39 @@ final class SeriputConnection implements AutoCloseable {
     }
   }
 
+  // Sends a HELLO request for the given version over the still blocking channel, falls back to v1
+  // if the server rejects it
+  private static int negotiate(SocketChannel channel, int requestedVersion) throws IOException {
+    if (requestedVersion == RequestSerializer.PROTOCOL_V1) {
+      return RequestSerializer.PROTOCOL_V1; // Works with any server, no need to ask
+    }
+    ByteBuffer hello = RequestSerializer.serializeHello(requestedVersion);
+    while (hello.hasRemaining()) {
+      channel.write(hello);
+    }
+    ByteBuffer header = ByteBuffer.allocate(headerSize());
+    readFully(channel, header);
+    header.flip();
+    int bodySize = bodySize(header);
+    if (bodySize < 0) {
+      throw new IOException("Invalid HELLO response header received!");
+    }
+    readFully(channel, ByteBuffer.allocate(bodySize)); // Not used
+    if (header.get(0) != ResponseStatus.OK.status()) {
+      logger.info("Server rejected protocol v{}, falling back to v1", requestedVersion);
+      return RequestSerializer.PROTOCOL_V1;
+    }
+    return requestedVersion;
+  }
+
+  private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) == -1) {
+        throw new EOFException("Connection closed during the protocol negotiation!");
+      }
+    }
+  }
+
   enum State {
     OPEN,
     CLOSING,
@@ -1,19 +1,30 @@
 package io.seriput.client;
 
+import io.seriput.client.exception.RequestTimeoutException;
+import io.seriput.common.HashedWheelTimer;
+import io.seriput.common.SpinParkWaitStrategy;
+import io.seriput.common.WaitStrategy;
 import java.io.IOException;
+import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-final class SeriputConnectionPool implements AutoCloseable {
+final class SeriputConnectionPool implements RequestTransport {
   private static final Logger logger = LogManager.getLogger(SeriputConnectionPool.class.getName());
+  private static final long TIMER_TICK_MILLIS = 10;
+  private static final int TIMER_TICKS_PER_WHEEL = 512;
 
   private final ExecutorService callbackExecutor;
   private final ArrayList<SeriputConnection> connectionPool = new ArrayList<>();
@@ -22,24 +33,38 @@ final class SeriputConnectionPool implements AutoCloseable {
   // The pending requests to be dispatched to SeriputConnections.
   private final ConcurrentLinkedQueue<PendingRequest> outboundQueue = new ConcurrentLinkedQueue<>();
   private final Thread poolThread;
+  private final long requestTimeoutNanos; // 0 if disabled
   private final Selector selector;
+  // Driven by the pool's event loop, expires the requests which aren't responded in time
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer(TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS, TIMER_TICKS_PER_WHEEL);
+  // Polls with selectNow() and is unparked by enqueue() only while parked, unless it's blocking
+  private final WaitStrategy waitStrategy;
+  private final SpinParkWaitStrategy backoff; // Used by the pool's event loop only
+  private final AtomicBoolean isParked = new AtomicBoolean(false);
 
   SeriputConnectionPool(
-      String host,
-      int port,
+      SocketAddress address,
       int poolSize,
       ExecutorService callbackExecutor,
       int readBufferSize,
-      int maxOutboundQueueSize)
+      int maxOutboundQueueSize,
+      int protocolVersion,
+      Duration requestTimeout,
+      WaitStrategy waitStrategy)
       throws IOException {
     this.callbackExecutor = callbackExecutor;
+    this.waitStrategy = waitStrategy;
+    this.backoff = waitStrategy.newBackoff();
     this.maxOutboundQueueSize = maxOutboundQueueSize;
+    this.requestTimeoutNanos = requestTimeout != null ? requestTimeout.toNanos() : 0;
     this.poolThread = new Thread(this::startEventLoop, "seriput-connection-pool");
     this.poolThread.setDaemon(false);
     this.selector = Selector.open();
     for (int i = 0; i < poolSize; i++) {
       this.connectionPool.add(
-          new SeriputConnection(host, port, callbackExecutor, this.selector, readBufferSize));
+          new SeriputConnection(
+              address, callbackExecutor, this.selector, readBufferSize, protocolVersion));
     }
   }
 
@@ -50,6 +75,7 @@ final class SeriputConnectionPool implements AutoCloseable {
       this.clearOutboundQueue();
       this.connectionPool.forEach(conn -> conn.state(SeriputConnection.State.CLOSING));
       this.selector.wakeup();
+      LockSupport.unpark(this.poolThread);
       this.selector.close();
       logger.debug("Waiting for connection pool thread to shut down...");
       this.poolThread.join(1_000);
@@ -59,7 +85,8 @@ final class SeriputConnectionPool implements AutoCloseable {
   }
 
   // Starts the connection pool's event loop.
-  void start() {
+  @Override
+  public void start() {
     if (this.isRunning.compareAndSet(false, true)) {
       this.poolThread.start();
       logger.info(
@@ -68,21 +95,33 @@ final class SeriputConnectionPool implements AutoCloseable {
   }
 
   // Enqueue a request and return a future that will be completed with the response.
-  CompletableFuture<byte[]> enqueue(ByteBuffer request, Runnable onPayloadConsumed) {
+  @Override
+  public CompletableFuture<byte[]> enqueue(ByteBuffer request, Runnable onPayloadConsumed) {
     CompletableFuture<byte[]> future = new CompletableFuture<>();
     if (!this.isRunning.get()) {
       onPayloadConsumed.run();
       future.completeExceptionally(new IllegalStateException("Connection pool is not running!"));
       return future;
     }
-    this.outboundQueue.offer(new PendingRequest(request, onPayloadConsumed, future));
-    this.selector.wakeup();
+    var pendingRequest = new PendingRequest(request, onPayloadConsumed, future);
+    if (this.requestTimeoutNanos > 0) {
+      pendingRequest.timeout(
+          this.timer.schedule(
+              () -> expire(pendingRequest), this.requestTimeoutNanos, TimeUnit.NANOSECONDS));
+    }
+    this.outboundQueue.offer(pendingRequest);
+    if (!this.waitStrategy.isPolling()) {
+      this.selector.wakeup();
+    } else if (this.isParked.get()) {
+      LockSupport.unpark(this.poolThread);
+    }
     return future;
   }
 
   private void startEventLoop() {
     while (this.isRunning.get()) {
       select();
+      this.timer.advance(System.nanoTime());
       maybeClose();
       maybeRemoveWriteInterest();
       dispatch();
@@ -90,21 +129,36 @@ final class SeriputConnectionPool implements AutoCloseable {
   }
 
   private void select() {
+    Consumer<SelectionKey> action =
+        selectionKey -> {
+          if (!selectionKey.isValid()
+              || !(selectionKey.attachment() instanceof SeriputConnection conn)) {
+            return;
+          }
+
+          if (selectionKey.isWritable()) {
+            conn.write();
+          }
+          if (selectionKey.isReadable()) {
+            conn.read();
+          }
+        };
     try {
-      this.selector.select(
-          selectionKey -> {
-            if (!selectionKey.isValid()
-                || !(selectionKey.attachment() instanceof SeriputConnection conn)) {
-              return;
-            }
-
-            if (selectionKey.isWritable()) {
-              conn.write();
-            }
-            if (selectionKey.isReadable()) {
-              conn.read();
-            }
-          });
+      if (this.waitStrategy.isPolling()) {
+        poll(action);
+        return;
+      }
+      if (this.timer.isEmpty()) {
+        this.selector.select(action);
+        return;
+      }
+      long timeoutNanos = this.timer.nanosUntilNextTick(System.nanoTime());
+      if (timeoutNanos == 0) {
+        this.selector.selectNow(action);
+      } else {
+        // Rounded up, as select(action, 0) would block indefinitely
+        this.selector.select(action, TimeUnit.NANOSECONDS.toMillis(timeoutNanos + 999_999));
+      }
     } catch (ClosedSelectorException e) {
       logger.debug("Selector was closed...", e);
     } catch (IOException e) {
@@ -112,6 +166,22 @@ final class SeriputConnectionPool implements AutoCloseable {
     }
   }
 
+  // Polls without blocking, backs off if there is neither a readiness event nor a request
+  private void poll(Consumer<SelectionKey> action) throws IOException {
+    if (this.selector.selectNow(action) > 0 || !this.outboundQueue.isEmpty()) {
+      this.backoff.reset();
+    } else if (this.backoff.isParking()) {
+      // Set before re-checking the queue, so that a caller either sees it or leaves a request
+      this.isParked.set(true);
+      if (this.outboundQueue.isEmpty()) {
+        this.backoff.idle();
+      }
+      this.isParked.set(false);
+    } else {
+      this.backoff.idle();
+    }
+  }
+
   private void maybeClose() {
     Iterator<SeriputConnection> it = connectionPool.iterator();
     while (it.hasNext()) {
@@ -147,6 +217,10 @@ final class SeriputConnectionPool implements AutoCloseable {
     if (this.isRunning.get()) {
       PendingRequest pendingRequest;
       while ((pendingRequest = this.outboundQueue.poll()) != null) {
+        if (pendingRequest.isExpired()) {
+          pendingRequest.onPayloadConsumed().run(); // Timed out before being dispatched
+          continue;
+        }
         SeriputConnection conn = next();
         if (conn == null || conn.pendingRequests().size() >= this.maxOutboundQueueSize) {
           this.outboundQueue.offer(
@@ -159,6 +233,24 @@ final class SeriputConnectionPool implements AutoCloseable {
     }
   }
 
+  // Runs on the pool's event loop. An expired request is dropped if it isn't sent yet, its late
+  // response is ignored otherwise.
+  private void expire(PendingRequest request) {
+    request.expire();
+    if (request.connection() != null) {
+      request.connection().removeInFlight(request.requestId());
+    }
+    var cause =
+        new RequestTimeoutException(
+            "No response received in " + Duration.ofNanos(this.requestTimeoutNanos) + "!");
+    try {
+      this.callbackExecutor.execute(() -> request.onCompleted().completeExceptionally(cause));
+    } catch (RejectedExecutionException e) {
+      logger.warn("Callback executor rejected; completing on the event loop's thread.", e);
+      request.onCompleted().completeExceptionally(cause);
+    }
+  }
+
   private SeriputConnection next() {
     return this.connectionPool.stream()
         .filter(c -> SeriputConnection.State.OPEN.equals(c.state()))
@@ -174,6 +266,7 @@ final class SeriputConnectionPool implements AutoCloseable {
       final PendingRequest request = pendingRequest;
       try {
         request.onPayloadConsumed().run();
+        request.cancelTimeout();
         this.callbackExecutor.execute(
             () ->
                 request
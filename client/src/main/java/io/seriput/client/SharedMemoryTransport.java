@@ -0,0 +1,251 @@
+package io.seriput.client;
+
+import static io.seriput.common.serialization.response.ResponseDeserializer.bodySize;
+import static io.seriput.common.serialization.response.ResponseDeserializer.headerSize;
+
+import io.seriput.client.exception.ConnectionClosedException;
+import io.seriput.client.exception.RequestTimeoutException;
+import io.seriput.common.SharedMemoryChannel;
+import io.seriput.common.SpinParkWaitStrategy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Exchanges the requests with a server on the same host through the rings of a {@link
+ * SharedMemoryChannel}, with no syscall per request.
+ *
+ * <p>The requests are queued on a lock-free queue by the calling threads, and the {@code
+ * seriput-shared-memory} thread, as the single producer of the request ring and the single
+ * consumer of the response ring, writes them and reads their responses in the request order. The
+ * thread polls with a {@link SpinParkWaitStrategy}, and is unparked by the calling threads only
+ * while it's parked.
+ *
+ * <p>The futures are completed on the callback executor, and time out with {@link
+ * RequestTimeoutException}, the same way as over a {@link SeriputConnectionPool}, on a {@link
+ * RequestTimer}.
+ */
+final class SharedMemoryTransport implements RequestTransport {
+  private static final Logger logger = LogManager.getLogger(SharedMemoryTransport.class);
+
+  private final SharedMemoryChannel channel;
+  private final ExecutorService callbackExecutor;
+  private final RequestTimer timer; // null if the requests don't time out
+  private final AtomicBoolean isRunning = new AtomicBoolean(false);
+  // Set once the thread has stopped using the rings, due to closing or the server closing
+  private volatile boolean isDetached = false;
+  private final Queue<PendingRequest> outboundQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean isParked = new AtomicBoolean(false);
+  private final Thread thread = new Thread(this::run, "seriput-shared-memory");
+
+  // region Used by the thread only
+  private final SpinParkWaitStrategy waitStrategy = new SpinParkWaitStrategy();
+  // Requests written to the ring whose responses are awaited, in the request order
+  private final Queue<PendingRequest> inFlight = new ArrayDeque<>();
+  private PendingRequest writing; // Request being written, if any
+  private final ByteBuffer header = ByteBuffer.allocate(headerSize());
+  private ByteBuffer response; // Response being read, if any
+
+  // endregion
+
+  SharedMemoryTransport(Path path, ExecutorService callbackExecutor, Duration requestTimeout)
+      throws IOException {
+    this.channel = SharedMemoryChannel.attach(path);
+    this.callbackExecutor = callbackExecutor;
+    this.timer =
+        requestTimeout != null && !requestTimeout.isZero()
+            ? new RequestTimer("seriput-shared-memory-timer", requestTimeout, callbackExecutor)
+            : null;
+  }
+
+  @Override
+  public void start() {
+    if (this.isRunning.compareAndSet(false, true)) {
+      this.thread.start();
+      if (this.timer != null) {
+        this.timer.start();
+      }
+    }
+  }
+
+  @Override
+  public CompletableFuture<byte[]> enqueue(ByteBuffer request, Runnable onPayloadConsumed) {
+    CompletableFuture<byte[]> future = new CompletableFuture<>();
+    if (!this.isRunning.get()) {
+      onPayloadConsumed.run();
+      future.completeExceptionally(new IllegalStateException("Transport is not running!"));
+      return future;
+    }
+    var pendingRequest = new PendingRequest(request, onPayloadConsumed, future);
+    if (this.timer != null) {
+      pendingRequest.timeout(this.timer.schedule(future));
+    }
+    this.outboundQueue.offer(pendingRequest);
+    if (this.isDetached && this.outboundQueue.remove(pendingRequest)) {
+      // Detached in the meantime, and the thread hasn't taken it
+      pendingRequest.cancelTimeout();
+      onPayloadConsumed.run();
+      future.completeExceptionally(new ConnectionClosedException("Shared memory channel closed!"));
+      return future;
+    }
+    if (this.isParked.get()) {
+      LockSupport.unpark(this.thread);
+    }
+    return future;
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (this.isRunning.compareAndSet(true, false)) {
+      LockSupport.unpark(this.thread);
+      this.thread.join(1_000);
+      if (this.timer != null) {
+        this.timer.close();
+      }
+      this.callbackExecutor.shutdown();
+      logger.info("Shared memory transport was shut down!");
+    }
+  }
+
+  private void run() {
+    while (this.isRunning.get()) {
+      if (this.channel.state() != SharedMemoryChannel.STATE_ATTACHED) {
+        logger.warn("Shared memory channel was closed by the server!");
+        break;
+      }
+      boolean hasProgressed;
+      try {
+        hasProgressed = write() | read();
+      } catch (IOException e) {
+        logger.error("Exception occurred when reading from the shared memory channel!", e);
+        break;
+      }
+      if (hasProgressed) {
+        this.waitStrategy.reset();
+      } else if (this.waitStrategy.isParking()) {
+        // Set before re-checking the queue, so that a caller either sees it or leaves a request
+        this.isParked.set(true);
+        if (this.outboundQueue.isEmpty()) {
+          this.waitStrategy.idle();
+        }
+        this.isParked.set(false);
+      } else {
+        this.waitStrategy.idle();
+      }
+    }
+    detach();
+  }
+
+  // Writes the queued requests as long as the request ring has space
+  private boolean write() {
+    boolean hasProgressed = false;
+    while (true) {
+      if (this.writing == null) {
+        this.writing = this.outboundQueue.poll();
+        if (this.writing == null) {
+          return hasProgressed;
+        }
+        if (this.writing.onCompleted().isDone()) {
+          // Timed out before being written, no need to send it at all
+          this.writing.onPayloadConsumed().run();
+          this.writing = null;
+          continue;
+        }
+      }
+      hasProgressed |= this.channel.requests().write(this.writing.payload()) > 0;
+      if (this.writing.payload().hasRemaining()) {
+        return hasProgressed;
+      }
+      this.writing.onPayloadConsumed().run();
+      this.inFlight.add(this.writing);
+      this.writing = null;
+    }
+  }
+
+  // Reads the available responses and completes their requests in order
+  private boolean read() throws IOException {
+    boolean hasProgressed = false;
+    while (!this.inFlight.isEmpty()) {
+      if (this.response == null) {
+        hasProgressed |= this.channel.responses().read(this.header) > 0;
+        if (this.header.hasRemaining()) {
+          return hasProgressed;
+        }
+        int bodySize = bodySize(this.header, 0);
+        if (bodySize < 0 || bodySize > Integer.MAX_VALUE - headerSize()) {
+          throw new IOException("Invalid response header received!");
+        }
+        this.response = ByteBuffer.allocate(headerSize() + bodySize);
+        this.response.put(this.header.flip());
+        this.header.clear();
+      }
+      hasProgressed |= this.channel.responses().read(this.response) > 0;
+      if (this.response.hasRemaining()) {
+        return hasProgressed;
+      }
+      PendingRequest request = this.inFlight.remove();
+      request.cancelTimeout();
+      complete(request.onCompleted(), this.response.array());
+      this.response = null;
+    }
+    return hasProgressed;
+  }
+
+  private void complete(CompletableFuture<byte[]> future, byte[] response) {
+    try {
+      this.callbackExecutor.execute(() -> future.complete(response));
+    } catch (RejectedExecutionException e) {
+      logger.warn("Callback executor rejected completion; completing on the caller's thread.", e);
+      future.complete(response);
+    }
+  }
+
+  // Fails whatever is still pending, and hands the rings back to the server
+  private void detach() {
+    this.isDetached = true;
+    var cause = new ConnectionClosedException("Shared memory channel closed!");
+    if (this.writing != null) {
+      this.writing.onPayloadConsumed().run();
+      completeExceptionally(this.writing.onCompleted(), cause);
+    }
+    PendingRequest request;
+    while ((request = this.outboundQueue.poll()) != null) {
+      request.onPayloadConsumed().run();
+      completeExceptionally(request.onCompleted(), cause);
+    }
+    while ((request = this.inFlight.poll()) != null) {
+      completeExceptionally(request.onCompleted(), cause);
+    }
+    // Detaching from a failed channel lets the server free it as well
+    if (!this.channel.compareAndSetState(
+        SharedMemoryChannel.STATE_ATTACHED, SharedMemoryChannel.STATE_DETACHED)) {
+      this.channel.compareAndSetState(
+          SharedMemoryChannel.STATE_FAILED, SharedMemoryChannel.STATE_DETACHED);
+    }
+    try {
+      this.channel.close();
+    } catch (IOException e) {
+      logger.warn("Exception occurred when closing the shared memory channel!", e);
+    }
+  }
+
+  private void completeExceptionally(CompletableFuture<?> future, Exception cause) {
+    try {
+      this.callbackExecutor.execute(() -> future.completeExceptionally(cause));
+    } catch (RejectedExecutionException e) {
+      logger.warn("Callback executor rejected; completing on the caller's thread.", e);
+      future.completeExceptionally(cause);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package io.seriput.client.exception;
+
+import java.util.Objects;
+
+/** Exception thrown when no response is received for a request within the request timeout. */
+public final class RequestTimeoutException extends SeriputClientException {
+  public RequestTimeoutException(String message) {
+    super(message);
+  }
+
+  @Override
+  public boolean isRetryable() {
+    return true;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof RequestTimeoutException that)) return false;
+    return Objects.equals(getMessage(), that.getMessage())
+        && Objects.equals(getCause(), that.getCause());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getMessage(), getCause());
+  }
+
+  @Override
+  public String toString() {
+    return "RequestTimeoutException(" + "message=" + getMessage() + ", cause=" + getCause() + ')';
+  }
+}
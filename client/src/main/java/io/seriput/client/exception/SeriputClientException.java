@@ -9,7 +9,8 @@ public abstract sealed class SeriputClientException extends RuntimeException
     permits InternalErrorException,
         InvalidRequestException,
         NotFoundException,
-        ConnectionClosedException {
+        ConnectionClosedException,
+        RequestTimeoutException {
   protected SeriputClientException(String message) {
     super(message);
   }
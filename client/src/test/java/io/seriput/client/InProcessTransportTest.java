@@ -0,0 +1,123 @@
+package io.seriput.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.seriput.client.exception.ConnectionClosedException;
+import io.seriput.client.exception.RequestTimeoutException;
+import io.seriput.common.InProcessEndpoint;
+import io.seriput.common.InProcessRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+final class InProcessTransportTest {
+  private static final String NAME = "in-process-transport-test";
+
+  private InProcessEndpoint endpoint;
+  private InProcessTransport underTest;
+
+  @AfterEach
+  void cleanUp() {
+    if (this.underTest != null) {
+      this.underTest.close();
+    }
+    if (this.endpoint != null) {
+      InProcessRegistry.unbind(NAME, this.endpoint);
+    }
+  }
+
+  @Test
+  void should_Throw_IOException_When_No_Endpoint_Is_Bound() {
+    // given & when
+    var thrown =
+        assertThatThrownBy(
+            () -> new InProcessTransport(NAME, Executors.newSingleThreadExecutor(), null));
+
+    // then
+    thrown.isInstanceOf(IOException.class);
+  }
+
+  @Nested
+  class Enqueue {
+    @Test
+    void should_Complete_With_Response_When_Endpoint_Responds() throws IOException {
+      // given
+      byte[] response = {0, 0, 0, 0, 0, 0};
+      bind(
+          (frame, onResponse) -> {
+            onResponse.accept(response);
+            return true;
+          },
+          null);
+      var isPayloadConsumed = new AtomicBoolean(false);
+
+      // when
+      var actual =
+          underTest.enqueue(ByteBuffer.allocate(12), () -> isPayloadConsumed.set(true)).join();
+
+      // then
+      assertThat(actual).isEqualTo(response);
+      assertThat(isPayloadConsumed).isTrue();
+    }
+
+    @Test
+    void should_Throw_ConnectionClosedException_When_Endpoint_Is_Closed() throws IOException {
+      // given
+      bind((frame, onResponse) -> false, null);
+      var isPayloadConsumed = new AtomicBoolean(false);
+
+      // when
+      var future = underTest.enqueue(ByteBuffer.allocate(12), () -> isPayloadConsumed.set(true));
+
+      // then
+      assertThatThrownBy(future::join)
+          .isInstanceOf(CompletionException.class)
+          .hasCauseInstanceOf(ConnectionClosedException.class);
+      assertThat(isPayloadConsumed).isTrue();
+    }
+
+    @Test
+    void should_Throw_RequestTimeoutException_When_No_Response_In_Time() throws IOException {
+      // given
+      bind((frame, onResponse) -> true, Duration.ofMillis(50)); // Never responds
+
+      // when
+      var future = underTest.enqueue(ByteBuffer.allocate(12), () -> {});
+
+      // then
+      assertThatThrownBy(future::join)
+          .isInstanceOf(CompletionException.class)
+          .hasCauseInstanceOf(RequestTimeoutException.class);
+    }
+
+    @Test
+    void should_Throw_RequestTimeoutException_When_Closed_Before_Timeout() throws IOException {
+      // given
+      bind((frame, onResponse) -> true, Duration.ofMillis(50)); // Never responds
+      var future = underTest.enqueue(ByteBuffer.allocate(12), () -> {});
+
+      // when
+      underTest.close();
+
+      // then
+      assertThatThrownBy(future::join)
+          .isInstanceOf(CompletionException.class)
+          .hasCauseInstanceOf(RequestTimeoutException.class);
+    }
+  }
+
+  private void bind(InProcessEndpoint endpoint, Duration requestTimeout) throws IOException {
+    this.endpoint = endpoint;
+    InProcessRegistry.bind(NAME, endpoint);
+    this.underTest =
+        new InProcessTransport(NAME, Executors.newSingleThreadExecutor(), requestTimeout);
+    this.underTest.start();
+  }
+}
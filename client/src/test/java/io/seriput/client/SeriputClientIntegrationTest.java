@@ -115,4 +115,35 @@ final class SeriputClientIntegrationTest {
       assertThat(actual.get("i").asInt()).isEqualTo(i);
     }
   }
+
+  @Test
+  void should_Get_Value_When_It_Is_Larger_Than_ReadBuffer() {
+    // given
+    String largeText = "x".repeat(300_000);
+    client.put("large-key", Map.of("text", largeText)).join();
+
+    // when
+    var actual = client.get("large-key", ObjectNode.class).join();
+
+    // then
+    assertThat(actual.get("text").asString()).isEqualTo(largeText);
+  }
+
+  @Test
+  void should_Get_Value_Put_By_Another_Protocol_Version_When_Client_Speaks_V1() throws Exception {
+    // given
+    client.put("v1-key", Map.of("version", 2)).join();
+
+    try (var v1Client =
+        SeriputClient.builder(server.getHost(), server.getMappedPort(SERIPUT_PORT))
+            .poolSize(1)
+            .protocolVersion(1)
+            .build()) {
+      // when
+      var actual = v1Client.get("v1-key", ObjectNode.class).join();
+
+      // then
+      assertThat(actual.get("version").asInt()).isEqualTo(2);
+    }
+  }
 }
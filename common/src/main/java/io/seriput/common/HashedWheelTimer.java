@@ -0,0 +1,248 @@
+package io.seriput.common;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Hashed timing wheel which schedules and cancels timeouts in {@code O(1)}.
+ *
+ * <p>Timeouts are hashed by their deadline tick onto a fixed number of buckets, each a doubly
+ * linked list of the timeouts themselves, so that a timeout costs a single small object. A timeout
+ * more than a wheel turn away stays in its bucket for the remaining rounds.
+ *
+ * <p>The timer has no thread of its own, it's driven by the thread which calls {@link
+ * #advance(long)}, typically an event loop after each {@code select()}, which bounds its {@code
+ * select()} by {@link #nanosUntilNextTick(long)}. Timeout tasks run on that thread and must not
+ * block. {@link #schedule(Runnable, long, TimeUnit)} and {@link Timeout#cancel()} are thread-safe,
+ * the timeouts scheduled from other threads are placed onto the wheel on the next advance.
+ */
+public final class HashedWheelTimer {
+  private static final System.Logger logger =
+      System.getLogger(HashedWheelTimer.class.getName());
+
+  private final Timeout[] wheel; // Heads of the buckets
+  private final int mask;
+  private volatile Thread owner;
+  // Timeouts scheduled from threads other than the owner, to be placed onto the wheel
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+  private int size = 0; // Timeouts on the wheel, used by the owner only
+  private final long startNanos;
+  private long tick = 0; // Next tick to expire, used by the owner only
+  private final long tickNanos;
+
+  /**
+   * Creates a timer with the given tick duration and wheel size.
+   *
+   * @param tickDuration duration of a tick, i.e. the timer's precision
+   * @param unit unit of {@code tickDuration}
+   * @param ticksPerWheel number of buckets, rounded up to a power of two
+   */
+  public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException("'tickDuration' must be positive: " + tickDuration);
+    }
+    if (ticksPerWheel < 1 || ticksPerWheel > 1 << 30) {
+      throw new IllegalArgumentException("'ticksPerWheel' is out of range: " + ticksPerWheel);
+    }
+    int wheelSize = Integer.highestOneBit(ticksPerWheel);
+    if (wheelSize < ticksPerWheel) {
+      wheelSize <<= 1;
+    }
+    this.wheel = new Timeout[wheelSize];
+    this.mask = wheelSize - 1;
+    this.tickNanos = unit.toNanos(tickDuration);
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Schedules the given {@code task} to run once the given {@code delay} elapses, rounded up to the
+   * next tick. Thread-safe.
+   *
+   * @param task task to run on the thread advancing {@code this} timer
+   * @param delay delay after which the task runs
+   * @param unit unit of {@code delay}
+   * @return scheduled timeout which can be cancelled
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    if (delay < 0) {
+      throw new IllegalArgumentException("'delay' must not be negative: " + delay);
+    }
+    var timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(delay));
+    if (Thread.currentThread() == this.owner) {
+      place(timeout);
+    } else {
+      this.pendingTimeouts.add(timeout);
+    }
+    return timeout;
+  }
+
+  /**
+   * Expires the timeouts whose deadlines are at or before {@code nowNanos} and runs their tasks.
+   * The first caller becomes the owner of {@code this} timer, it must always be called from the
+   * same thread.
+   *
+   * @param nowNanos current {@link System#nanoTime()}
+   * @return number of expired timeouts
+   */
+  public int advance(long nowNanos) {
+    if (this.owner == null) {
+      this.owner = Thread.currentThread();
+    }
+    Timeout pending;
+    while ((pending = this.pendingTimeouts.poll()) != null) {
+      place(pending);
+    }
+    int expired = 0;
+    while (nowNanos - (this.startNanos + this.tick * this.tickNanos) >= 0) {
+      int ix = (int) (this.tick & this.mask);
+      this.tick++; // Timeouts scheduled by the tasks below land on the next tick at the earliest
+      expired += expireBucket(ix);
+    }
+    return expired;
+  }
+
+  /**
+   * Returns how long the owner can wait before calling {@link #advance(long)} again.
+   *
+   * @param nowNanos current {@link System#nanoTime()}
+   * @return nanoseconds until the next tick, or {@code 0} if it's already due
+   */
+  public long nanosUntilNextTick(long nowNanos) {
+    return Math.max(0, this.startNanos + this.tick * this.tickNanos - nowNanos);
+  }
+
+  /**
+   * Returns whether there is no timeout scheduled. Must be called by the owner.
+   *
+   * @return {@code true} if there is no timeout on the wheel or waiting to be placed onto it
+   */
+  public boolean isEmpty() {
+    return this.size == 0 && this.pendingTimeouts.isEmpty();
+  }
+
+  /**
+   * Returns the number of timeouts on the wheel, including the ones cancelled by other threads
+   * which aren't unlinked yet. Must be called by the owner.
+   *
+   * @return number of timeouts on the wheel
+   */
+  public int size() {
+    return this.size;
+  }
+
+  private void place(Timeout timeout) {
+    if (timeout.state != Timeout.PENDING) {
+      return; // Cancelled before being placed
+    }
+    long sinceStart = timeout.deadlineNanos - this.startNanos;
+    long deadlineTick = sinceStart <= 0 ? 0 : (sinceStart + this.tickNanos - 1) / this.tickNanos;
+    deadlineTick = Math.max(deadlineTick, this.tick);
+    timeout.remainingRounds = (deadlineTick - this.tick) / this.wheel.length;
+    timeout.bucket = (int) (deadlineTick & this.mask);
+    Timeout head = this.wheel[timeout.bucket];
+    timeout.next = head;
+    if (head != null) {
+      head.prev = timeout;
+    }
+    this.wheel[timeout.bucket] = timeout;
+    this.size++;
+  }
+
+  private void remove(Timeout timeout) {
+    if (timeout.bucket < 0) {
+      return; // Not placed yet, or already removed
+    }
+    if (timeout.prev != null) {
+      timeout.prev.next = timeout.next;
+    } else {
+      this.wheel[timeout.bucket] = timeout.next;
+    }
+    if (timeout.next != null) {
+      timeout.next.prev = timeout.prev;
+    }
+    timeout.prev = null;
+    timeout.next = null;
+    timeout.bucket = -1;
+    this.size--;
+  }
+
+  private int expireBucket(int ix) {
+    int expired = 0;
+    Timeout timeout = this.wheel[ix];
+    while (timeout != null) {
+      Timeout next = timeout.next;
+      if (timeout.state == Timeout.CANCELLED) {
+        remove(timeout); // Cancelled by another thread
+      } else if (timeout.remainingRounds <= 0) {
+        remove(timeout);
+        if (Timeout.STATE.compareAndSet(timeout, Timeout.PENDING, Timeout.EXPIRED)) {
+          expired++;
+          run(timeout.task);
+        }
+      } else {
+        timeout.remainingRounds--;
+      }
+      timeout = next;
+    }
+    return expired;
+  }
+
+  private static void run(Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      logger.log(System.Logger.Level.WARNING, "Timeout task threw an exception!", e);
+    }
+  }
+
+  /** Handle of a task scheduled on a {@link HashedWheelTimer}. */
+  public static final class Timeout {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+        AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+    private final HashedWheelTimer timer;
+    private final Runnable task;
+    private final long deadlineNanos;
+    private volatile int state = PENDING;
+    // Used by the timer's owner only
+    private long remainingRounds;
+    private int bucket = -1;
+    private Timeout prev;
+    private Timeout next;
+
+    private Timeout(HashedWheelTimer timer, Runnable task, long deadlineNanos) {
+      this.timer = timer;
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancels {@code this} timeout if it hasn't expired yet. Thread-safe, it's unlinked from the
+     * wheel right away on the timer's owner, lazily on the other threads.
+     *
+     * @return {@code true} if it's cancelled by this call
+     */
+    public boolean cancel() {
+      if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+        return false;
+      }
+      if (Thread.currentThread() == this.timer.owner) {
+        this.timer.remove(this);
+      }
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return this.state == CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return this.state == EXPIRED;
+    }
+  }
+}
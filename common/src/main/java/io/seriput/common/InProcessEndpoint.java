@@ -0,0 +1,28 @@
+package io.seriput.common;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Server side of the in-process transport, through which a client in the same JVM hands the
+ * request frames to an embedded server without going through a socket.
+ *
+ * <p>Frames keep the protocol v1 layout on both directions. Since the responses are matched to
+ * their requests by the callbacks, no request ID is needed.
+ *
+ * @see InProcessRegistry
+ */
+public interface InProcessEndpoint {
+  /**
+   * Enqueues the given request {@code frame} to be handled by the server. Thread-safe and doesn't
+   * block.
+   *
+   * <p>The frame must not be mutated or released until {@code onResponse} is invoked, which
+   * happens exactly once if this method returns {@code true}, never otherwise.
+   *
+   * @param frame request frame, from its position to its limit
+   * @param onResponse invoked with the response frame on the server's thread, must not block
+   * @return {@code false} if the endpoint is closed and the frame wasn't enqueued
+   */
+  boolean submit(ByteBuffer frame, Consumer<byte[]> onResponse);
+}
@@ -0,0 +1,47 @@
+package io.seriput.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JVM-wide registry of the {@link InProcessEndpoint}s by their names, through which a client finds
+ * the embedded server it's configured to connect to.
+ */
+public final class InProcessRegistry {
+  private static final Map<String, InProcessEndpoint> endpoints = new ConcurrentHashMap<>();
+
+  private InProcessRegistry() {}
+
+  /**
+   * Binds the given {@code endpoint} to the given {@code name}.
+   *
+   * @param name name to bind to
+   * @param endpoint endpoint to bind
+   * @throws IllegalStateException if another endpoint is already bound to {@code name}
+   */
+  public static void bind(String name, InProcessEndpoint endpoint) {
+    if (endpoints.putIfAbsent(name, endpoint) != null) {
+      throw new IllegalStateException("An in-process endpoint is already bound to: " + name);
+    }
+  }
+
+  /**
+   * Unbinds the given {@code endpoint} from the given {@code name}, if it's still bound.
+   *
+   * @param name name the endpoint was bound to
+   * @param endpoint endpoint to unbind
+   */
+  public static void unbind(String name, InProcessEndpoint endpoint) {
+    endpoints.remove(name, endpoint);
+  }
+
+  /**
+   * Returns the endpoint bound to the given {@code name}.
+   *
+   * @param name name of the endpoint
+   * @return bound endpoint, or {@code null} if there is none
+   */
+  public static InProcessEndpoint lookup(String name) {
+    return endpoints.get(name);
+  }
+}
@@ -0,0 +1,60 @@
+package io.seriput.common;
+
+import java.util.Objects;
+
+/**
+ * {@link RingQueue} for any number of producer threads and a single consumer thread.
+ *
+ * <p>A producer claims a slot with a CAS on the producer's index and then publishes its element
+ * into it, so the elements of each producer are polled in the order they were offered. The
+ * consumer needs no atomic read-modify-write, and may be handed over to another thread as long as
+ * the handover happens-before the new one's first call.
+ *
+ * <p>An element whose slot is claimed but not published yet isn't polled, {@link #poll()} returns
+ * {@code null} until it's published while {@link #isEmpty()} already returns {@code false}.
+ *
+ * @param <E> type of the elements
+ */
+public final class MpscRingQueue<E> extends RingQueue<E> {
+  /**
+   * Creates a queue of the given capacity.
+   *
+   * @param capacity min number of elements the queue holds, rounded up to a power of two
+   */
+  public MpscRingQueue(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public boolean offer(E element) {
+    Objects.requireNonNull(element, "element may not be null!");
+    long limit = (long) PRODUCER_LIMIT.getVolatile(this);
+    long index;
+    do {
+      index = (long) PRODUCER_INDEX.getVolatile(this);
+      if (index >= limit) {
+        limit = (long) CONSUMER_INDEX.getVolatile(this) + this.slots.length;
+        if (index >= limit) {
+          return false;
+        }
+        PRODUCER_LIMIT.setRelease(this, limit);
+      }
+    } while (!PRODUCER_INDEX.compareAndSet(this, index, index + 1));
+    SLOT.setRelease(this.slots, slotOf(index), element);
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    long index = this.consumerIndex;
+    int slot = slotOf(index);
+    E element = (E) SLOT.getAcquire(this.slots, slot);
+    if (element == null) {
+      return null; // Empty, or the producer which claimed the slot hasn't published yet
+    }
+    this.slots[slot] = null; // Published to the producers by the index below
+    CONSUMER_INDEX.setRelease(this, index + 1);
+    return element;
+  }
+}
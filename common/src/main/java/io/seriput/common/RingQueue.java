@@ -0,0 +1,103 @@
+package io.seriput.common;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bounded lock-free queue on a ring of slots, which allocates nothing per element unlike the
+ * linked queues.
+ *
+ * <p>The capacity is rounded up to a power of two. The producer's and the consumer's indexes are
+ * padded against false sharing, see {@link RingQueuePadding}. A slot is {@code null} until its
+ * element is published, so the consumer doesn't read the producer's index unless the ring looks
+ * empty.
+ *
+ * @param <E> type of the elements
+ */
+public abstract sealed class RingQueue<E> extends RingQueuePadding.ConsumerPad
+    permits SpscRingQueue, MpscRingQueue {
+  // Max capacity, as the slots are indexed by an int
+  public static final int MAX_CAPACITY = 1 << 30;
+
+  static final VarHandle PRODUCER_INDEX;
+  static final VarHandle PRODUCER_LIMIT;
+  static final VarHandle CONSUMER_INDEX;
+  static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+  static {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      PRODUCER_INDEX =
+          lookup.findVarHandle(RingQueuePadding.ProducerFields.class, "producerIndex", long.class);
+      PRODUCER_LIMIT =
+          lookup.findVarHandle(RingQueuePadding.ProducerFields.class, "producerLimit", long.class);
+      CONSUMER_INDEX =
+          lookup.findVarHandle(RingQueuePadding.ConsumerFields.class, "consumerIndex", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  final Object[] slots;
+  final int mask;
+
+  RingQueue(int capacity) {
+    if (capacity < 1 || capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("'capacity' must be in [1, 2^30]: " + capacity);
+    }
+    this.slots = new Object[1 << (Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1))];
+    this.mask = this.slots.length - 1;
+    this.producerLimit = this.slots.length;
+  }
+
+  /**
+   * Appends the given element to the tail of the queue if there is space.
+   *
+   * @param element element to append
+   * @return {@code false} if the queue is full
+   * @throws NullPointerException if {@code element} is {@code null}
+   */
+  public abstract boolean offer(E element);
+
+  /**
+   * Takes the element at the head of the queue off. Must only be called by the consumer.
+   *
+   * @return element at the head, or {@code null} if there is no published element
+   */
+  public abstract E poll();
+
+  /**
+   * Returns whether the queue is empty, which is exact only when called by the consumer while no
+   * producer is offering.
+   *
+   * @return {@code true} if no element was offered but not polled yet
+   */
+  public final boolean isEmpty() {
+    return (long) CONSUMER_INDEX.getVolatile(this) == (long) PRODUCER_INDEX.getVolatile(this);
+  }
+
+  /**
+   * Returns the number of elements offered but not polled yet, which is an estimate when called
+   * while the queue is in use.
+   *
+   * @return number of elements in the queue
+   */
+  public final int size() {
+    long consumerIndex = (long) CONSUMER_INDEX.getVolatile(this);
+    long producerIndex = (long) PRODUCER_INDEX.getVolatile(this);
+    return (int) Math.min(producerIndex - consumerIndex, this.slots.length);
+  }
+
+  /**
+   * Returns the number of slots, i.e. the requested capacity rounded up to a power of two.
+   *
+   * @return capacity of the queue
+   */
+  public final int capacity() {
+    return this.slots.length;
+  }
+
+  final int slotOf(long index) {
+    return (int) index & this.mask;
+  }
+}
@@ -0,0 +1,37 @@
+package io.seriput.common;
+
+/**
+ * Field layout of a {@link RingQueue}, which keeps the producer's and the consumer's fields on
+ * their own cache lines so that they don't invalidate each other's.
+ *
+ * <p>The JVM lays the fields of a superclass out before the ones of its subclasses, so each
+ * padding class puts 128 bytes, i.e. two cache lines as they're prefetched in pairs, between the
+ * fields around it.
+ */
+final class RingQueuePadding {
+  private RingQueuePadding() {}
+
+  abstract static class HeadPad {
+    long p00, p01, p02, p03, p04, p05, p06, p07, p08, p09, p0a, p0b, p0c, p0d, p0e, p0f;
+  }
+
+  abstract static class ProducerFields extends HeadPad {
+    // Index of the next slot to offer to
+    long producerIndex;
+    // Index the producers may offer up to without reading the consumer's index
+    long producerLimit;
+  }
+
+  abstract static class ProducerPad extends ProducerFields {
+    long p10, p11, p12, p13, p14, p15, p16, p17, p18, p19, p1a, p1b, p1c, p1d, p1e, p1f;
+  }
+
+  abstract static class ConsumerFields extends ProducerPad {
+    // Index of the next slot to poll from
+    long consumerIndex;
+  }
+
+  abstract static class ConsumerPad extends ConsumerFields {
+    long p20, p21, p22, p23, p24, p25, p26, p27, p28, p29, p2a, p2b, p2c, p2d, p2e, p2f;
+  }
+}
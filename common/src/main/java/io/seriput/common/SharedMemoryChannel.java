@@ -0,0 +1,345 @@
+package io.seriput.common;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A pair of single-producer/single-consumer byte rings in a memory-mapped file, through which a
+ * client process and the server on the same host exchange the protocol v1 frames without any
+ * syscall.
+ *
+ * <p>The server creates the file and serves a single attached client through it, the requests are
+ * written to the {@link #requests()} ring by the client and the responses to the {@link
+ * #responses()} ring by the server, in the request order. The file is laid out as:
+ *
+ * <pre>
+ * [magic, state, ringCapacity, clientPid][request tail][request head][response tail][response head]
+ * [request ring data][response ring data]
+ * </pre>
+ *
+ * <p>Each position sits on its own cache line so that the producer and the consumer of a ring don't
+ * contend on the same line. The positions only grow, the producer publishes the bytes it wrote with
+ * a release store of the tail, and the consumer frees the bytes it read with a release store of the
+ * head. Neither side ever wakes the other up, they poll their rings, e.g. with a {@link
+ * SpinParkWaitStrategy}.
+ *
+ * <p>An attached client writes its process ID to the file, so that the server can free the channel
+ * of a client which died without detaching.
+ *
+ * <p>Placing the file on a {@code tmpfs} like {@code /dev/shm} keeps the pages off the disk.
+ */
+public final class SharedMemoryChannel implements AutoCloseable {
+  public static final int DEFAULT_RING_CAPACITY = 1 << 20;
+  /** Set by the server, no client is attached. */
+  public static final int STATE_FREE = 0;
+  /** Set by a client when it attaches. */
+  public static final int STATE_ATTACHED = 1;
+  /** Set by a client when it detaches, the server resets the rings and frees the channel. */
+  public static final int STATE_DETACHED = 2;
+  /** Set by the server when it closes, no client can attach anymore. */
+  public static final int STATE_CLOSED = 3;
+  /**
+   * Set by the server on a protocol violation it can't recover the rings from, the client detaches
+   * as it does on {@link #STATE_CLOSED}, after which the server frees the channel.
+   */
+  public static final int STATE_FAILED = 4;
+  /** Client process ID of a channel no client has written its process ID to. */
+  public static final long NO_CLIENT_PID = 0;
+
+  private static final int MAGIC = 0x53525054; // "SRPT"
+  private static final long ATTACH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int CACHE_LINE_SIZE = 64;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int STATE_OFFSET = 4;
+  private static final int RING_CAPACITY_OFFSET = 8;
+  private static final int CLIENT_PID_OFFSET = 16;
+  private static final int REQUEST_TAIL_OFFSET = CACHE_LINE_SIZE;
+  private static final int REQUEST_HEAD_OFFSET = 2 * CACHE_LINE_SIZE;
+  private static final int RESPONSE_TAIL_OFFSET = 3 * CACHE_LINE_SIZE;
+  private static final int RESPONSE_HEAD_OFFSET = 4 * CACHE_LINE_SIZE;
+  private static final int HEADER_SIZE = 5 * CACHE_LINE_SIZE;
+  private static final VarHandle INT =
+      MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+  private static final VarHandle LONG =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  private final FileChannel file;
+  private final MappedByteBuffer buffer;
+  private final Ring requests;
+  private final Ring responses;
+
+  private SharedMemoryChannel(FileChannel file, MappedByteBuffer buffer, int ringCapacity) {
+    this.file = file;
+    this.buffer = buffer;
+    this.requests =
+        new Ring(buffer, REQUEST_TAIL_OFFSET, REQUEST_HEAD_OFFSET, HEADER_SIZE, ringCapacity);
+    this.responses =
+        new Ring(
+            buffer,
+            RESPONSE_TAIL_OFFSET,
+            RESPONSE_HEAD_OFFSET,
+            HEADER_SIZE + ringCapacity,
+            ringCapacity);
+  }
+
+  /**
+   * Creates the file at the given {@code path}, replacing any existing one, and maps it with empty
+   * rings of the given capacity. Called by the server.
+   *
+   * @param path path of the file to create
+   * @param ringCapacity capacity of each ring in bytes, must be a power of two
+   * @return created channel in the {@link #STATE_FREE} state
+   * @throws IOException if the file couldn't be created or mapped
+   */
+  public static SharedMemoryChannel create(Path path, int ringCapacity) throws IOException {
+    if (ringCapacity <= 0 || Integer.bitCount(ringCapacity) != 1) {
+      throw new IllegalArgumentException("'ringCapacity' must be a power of two: " + ringCapacity);
+    }
+    FileChannel file =
+        FileChannel.open(
+            path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    try {
+      MappedByteBuffer buffer =
+          file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * ringCapacity);
+      buffer.putInt(RING_CAPACITY_OFFSET, ringCapacity);
+      INT.setRelease(buffer, STATE_OFFSET, STATE_FREE);
+      INT.setRelease(buffer, MAGIC_OFFSET, MAGIC); // Written last, the file is ready once it's set
+      return new SharedMemoryChannel(file, buffer, ringCapacity);
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Maps the file at the given {@code path} created by a server, and attaches to it. Called by the
+   * client.
+   *
+   * @param path path of the server's file
+   * @return attached channel in the {@link #STATE_ATTACHED} state
+   * @throws IOException if the file couldn't be mapped, isn't created by a server, or another
+   *     client is already attached to it
+   */
+  public static SharedMemoryChannel attach(Path path) throws IOException {
+    FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      if (file.size() < HEADER_SIZE) {
+        throw new IOException("Not a Seriput shared memory file: " + path);
+      }
+      MappedByteBuffer header = file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+      if ((int) INT.getAcquire(header, MAGIC_OFFSET) != MAGIC) {
+        throw new IOException("Not a Seriput shared memory file: " + path);
+      }
+      int ringCapacity = header.getInt(RING_CAPACITY_OFFSET);
+      MappedByteBuffer buffer =
+          file.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * ringCapacity);
+      var channel = new SharedMemoryChannel(file, buffer, ringCapacity);
+      // The previous client may have just detached, give the server some time to reset the rings
+      long deadlineNanos = System.nanoTime() + ATTACH_TIMEOUT_NANOS;
+      while (!channel.compareAndSetState(STATE_FREE, STATE_ATTACHED)) {
+        if (channel.state() != STATE_DETACHED || System.nanoTime() - deadlineNanos > 0) {
+          throw new IOException("Shared memory channel isn't free to attach: " + path);
+        }
+        LockSupport.parkNanos(ATTACH_TIMEOUT_NANOS / 1_000);
+      }
+      channel.clientPid(ProcessHandle.current().pid());
+      return channel;
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the ring the client writes the request frames to, and the server reads them from.
+   *
+   * @return request ring
+   */
+  public Ring requests() {
+    return this.requests;
+  }
+
+  /**
+   * Returns the ring the server writes the response frames to, and the client reads them from.
+   *
+   * @return response ring
+   */
+  public Ring responses() {
+    return this.responses;
+  }
+
+  /**
+   * Returns the current state, one of the {@code STATE_} constants.
+   *
+   * @return current state
+   */
+  public int state() {
+    return (int) INT.getAcquire(this.buffer, STATE_OFFSET);
+  }
+
+  /**
+   * Sets the state to the given one.
+   *
+   * @param state one of the {@code STATE_} constants
+   */
+  public void state(int state) {
+    INT.setRelease(this.buffer, STATE_OFFSET, state);
+  }
+
+  /**
+   * Returns the process ID of the attached client, which is written right after it attaches.
+   *
+   * @return process ID of the attached client, or {@link #NO_CLIENT_PID} if not written yet
+   */
+  public long clientPid() {
+    return (long) LONG.getAcquire(this.buffer, CLIENT_PID_OFFSET);
+  }
+
+  /**
+   * Sets the process ID of the attached client, cleared by the server before it frees the channel.
+   *
+   * @param pid process ID of the attached client, or {@link #NO_CLIENT_PID}
+   */
+  public void clientPid(long pid) {
+    LONG.setRelease(this.buffer, CLIENT_PID_OFFSET, pid);
+  }
+
+  /**
+   * Atomically sets the state to {@code newState} if it's {@code expectedState}.
+   *
+   * @param expectedState state expected to be the current one
+   * @param newState state to set
+   * @return whether the state was set
+   */
+  public boolean compareAndSetState(int expectedState, int newState) {
+    return INT.compareAndSet(this.buffer, STATE_OFFSET, expectedState, newState);
+  }
+
+  /**
+   * Closes the file. The mapping stays valid until {@code this} channel is garbage collected, so
+   * the rings must not be used afterward.
+   */
+  @Override
+  public void close() throws IOException {
+    this.file.close();
+  }
+
+  /**
+   * A single-producer/single-consumer byte ring, used like a non-blocking byte channel by each
+   * side. Frames may wrap around the end of the ring, and may be larger than the ring as long as
+   * the consumer keeps reading.
+   */
+  public static final class Ring {
+    private final MappedByteBuffer buffer;
+    private final int tailOffset;
+    private final int headOffset;
+    private final int dataOffset;
+    private final int capacity;
+    private final int mask;
+    // Last head seen by the producer, refreshed only once the ring looks full
+    private long cachedHead;
+    // Last tail seen by the consumer, refreshed only once the ring looks empty
+    private long cachedTail;
+
+    private Ring(
+        MappedByteBuffer buffer, int tailOffset, int headOffset, int dataOffset, int capacity) {
+      this.buffer = buffer;
+      this.tailOffset = tailOffset;
+      this.headOffset = headOffset;
+      this.dataOffset = dataOffset;
+      this.capacity = capacity;
+      this.mask = capacity - 1;
+      this.cachedHead = (long) LONG.getAcquire(buffer, headOffset);
+      this.cachedTail = (long) LONG.getAcquire(buffer, tailOffset);
+    }
+
+    /**
+     * Writes as many bytes of the given {@code src} as there is free space for. Must be called by
+     * the producer only.
+     *
+     * @param src buffer to write from, its position is advanced by the bytes written
+     * @return number of bytes written, possibly {@code 0}
+     */
+    public int write(ByteBuffer src) {
+      long tail = (long) LONG.getOpaque(this.buffer, this.tailOffset);
+      if (this.capacity - (tail - this.cachedHead) < src.remaining()) {
+        this.cachedHead = (long) LONG.getAcquire(this.buffer, this.headOffset);
+      }
+      int length = (int) Math.min(this.capacity - (tail - this.cachedHead), src.remaining());
+      if (length == 0) {
+        return 0;
+      }
+      int index = (int) tail & this.mask;
+      int firstPart = Math.min(length, this.capacity - index);
+      this.buffer.put(this.dataOffset + index, src, src.position(), firstPart);
+      this.buffer.put(this.dataOffset, src, src.position() + firstPart, length - firstPart);
+      src.position(src.position() + length);
+      LONG.setRelease(this.buffer, this.tailOffset, tail + length);
+      return length;
+    }
+
+    /**
+     * Reads as many bytes into the given {@code dst} as are available. Must be called by the
+     * consumer only.
+     *
+     * @param dst buffer to read into, its position is advanced by the bytes read
+     * @return number of bytes read, possibly {@code 0}
+     */
+    public int read(ByteBuffer dst) {
+      long head = (long) LONG.getOpaque(this.buffer, this.headOffset);
+      int length = available(head, dst.remaining());
+      if (length == 0) {
+        return 0;
+      }
+      int index = (int) head & this.mask;
+      int firstPart = Math.min(length, this.capacity - index);
+      dst.put(dst.position(), this.buffer, this.dataOffset + index, firstPart);
+      dst.put(dst.position() + firstPart, this.buffer, this.dataOffset, length - firstPart);
+      dst.position(dst.position() + length);
+      LONG.setRelease(this.buffer, this.headOffset, head + length);
+      return length;
+    }
+
+    /**
+     * Skips up to {@code max} available bytes without copying them. Must be called by the consumer
+     * only.
+     *
+     * @param max max number of bytes to skip
+     * @return number of bytes skipped, possibly {@code 0}
+     */
+    public long skip(long max) {
+      long head = (long) LONG.getOpaque(this.buffer, this.headOffset);
+      int length = available(head, (int) Math.min(max, this.capacity));
+      LONG.setRelease(this.buffer, this.headOffset, head + length);
+      return length;
+    }
+
+    /** Empties the ring. Must be called only while neither side is using it. */
+    public void reset() {
+      LONG.setRelease(this.buffer, this.tailOffset, 0L);
+      LONG.setRelease(this.buffer, this.headOffset, 0L);
+      this.cachedHead = 0;
+      this.cachedTail = 0;
+    }
+
+    private int available(long head, int max) {
+      if (this.cachedTail - head < max) {
+        this.cachedTail = (long) LONG.getAcquire(this.buffer, this.tailOffset);
+      }
+      return (int) Math.min(this.cachedTail - head, max);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package io.seriput.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Backs off a thread polling for work which no other thread wakes up, like the consumer of a
+ * {@link SharedMemoryChannel.Ring} or an event loop polling with a {@link WaitStrategy}.
+ *
+ * <p>An idle thread first busy-spins, then yields, then parks for an exponentially growing
+ * duration capped at {@code maxParkNanos}. The producer never signals the consumer, so there is no
+ * futex wake-up on the hot path, and the worst-case latency of a request arriving to a parked
+ * thread is bounded by {@code maxParkNanos}.
+ *
+ * <p>Not thread-safe, each polling thread has its own instance.
+ */
+public final class SpinParkWaitStrategy {
+  public static final int DEFAULT_SPINS = 100;
+  public static final int DEFAULT_YIELDS = 10;
+  public static final long DEFAULT_MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  // Number of spins or yields which never ends
+  public static final int UNBOUNDED = Integer.MAX_VALUE;
+  static final long MIN_PARK_NANOS = 1_000;
+
+  private final long spins;
+  private final long yields;
+  private final long maxParkNanos;
+  private long idleCount = 0;
+  private long parkNanos = MIN_PARK_NANOS;
+
+  public SpinParkWaitStrategy() {
+    this(DEFAULT_SPINS, DEFAULT_YIELDS, DEFAULT_MAX_PARK_NANOS);
+  }
+
+  /**
+   * Creates a wait strategy with the given thresholds.
+   *
+   * @param spins number of idle iterations spent busy-spinning, or {@link #UNBOUNDED}
+   * @param yields number of idle iterations spent yielding after spinning, or {@link #UNBOUNDED}
+   * @param maxParkNanos max duration of a single park afterward
+   */
+  public SpinParkWaitStrategy(int spins, int yields, long maxParkNanos) {
+    if (spins < 0 || yields < 0 || maxParkNanos < MIN_PARK_NANOS) {
+      throw new IllegalArgumentException("Invalid wait strategy thresholds!");
+    }
+    this.spins = spins == UNBOUNDED ? Long.MAX_VALUE : spins;
+    this.yields = yields == UNBOUNDED ? Long.MAX_VALUE : yields;
+    this.maxParkNanos = maxParkNanos;
+  }
+
+  /** Backs off once after an iteration which found no work. */
+  public void idle() {
+    if (this.idleCount < this.spins) {
+      Thread.onSpinWait();
+    } else if (this.idleCount - this.spins < this.yields) {
+      Thread.yield();
+    } else {
+      LockSupport.parkNanos(this.parkNanos);
+      this.parkNanos = Math.min(this.parkNanos << 1, this.maxParkNanos);
+    }
+    if (this.idleCount < Long.MAX_VALUE) {
+      this.idleCount++;
+    }
+  }
+
+  /** Starts over with busy-spinning after an iteration which found work. */
+  public void reset() {
+    this.idleCount = 0;
+    this.parkNanos = MIN_PARK_NANOS;
+  }
+
+  /**
+   * Returns whether the next {@link #idle()} parks the thread, so that it can announce it to the
+   * threads in the same process which may unpark it.
+   *
+   * @return {@code true} if the thread is past spinning and yielding
+   */
+  public boolean isParking() {
+    return this.idleCount - this.spins >= this.yields;
+  }
+}
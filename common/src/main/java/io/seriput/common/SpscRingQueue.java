@@ -0,0 +1,54 @@
+package io.seriput.common;
+
+import java.util.Objects;
+
+/**
+ * {@link RingQueue} for a single producer thread and a single consumer thread, with no atomic
+ * read-modify-write on either side.
+ *
+ * <p>The producer caches the consumer's index and reads it again only once the cached one is
+ * reached, so the two threads don't touch each other's cache lines while the ring is neither full
+ * nor empty. The producer or the consumer may be handed over to another thread, as long as the
+ * handover happens-before the new one's first call.
+ *
+ * @param <E> type of the elements
+ */
+public final class SpscRingQueue<E> extends RingQueue<E> {
+  /**
+   * Creates a queue of the given capacity.
+   *
+   * @param capacity min number of elements the queue holds, rounded up to a power of two
+   */
+  public SpscRingQueue(int capacity) {
+    super(capacity);
+  }
+
+  @Override
+  public boolean offer(E element) {
+    Objects.requireNonNull(element, "element may not be null!");
+    long index = this.producerIndex;
+    if (index >= this.producerLimit) {
+      this.producerLimit = (long) CONSUMER_INDEX.getAcquire(this) + this.slots.length;
+      if (index >= this.producerLimit) {
+        return false;
+      }
+    }
+    SLOT.setRelease(this.slots, slotOf(index), element);
+    PRODUCER_INDEX.setRelease(this, index + 1);
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    long index = this.consumerIndex;
+    int slot = slotOf(index);
+    E element = (E) SLOT.getAcquire(this.slots, slot);
+    if (element == null) {
+      return null;
+    }
+    this.slots[slot] = null; // Published to the producer by the index below
+    CONSUMER_INDEX.setRelease(this, index + 1);
+    return element;
+  }
+}
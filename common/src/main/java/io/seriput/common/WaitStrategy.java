@@ -0,0 +1,128 @@
+package io.seriput.common;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How an event loop waits for its next readiness event or task, traded off between latency and the
+ * CPU burnt while idle.
+ *
+ * <p>Only {@link Kind#BLOCKING} sleeps in {@code select()} and is woken up by the kernel or {@code
+ * Selector.wakeup()}. The others poll with {@code selectNow()} and back off with a {@link
+ * SpinParkWaitStrategy} built by {@link #newBackoff()}, so they spare the wakeup syscalls at the
+ * expense of a core.
+ *
+ * @param kind how to wait
+ * @param spins number of idle iterations spent busy-spinning before yielding, {@link
+ *     SpinParkWaitStrategy#UNBOUNDED} spins forever
+ * @param yields number of idle iterations spent yielding before parking, {@link
+ *     SpinParkWaitStrategy#UNBOUNDED} yields forever
+ * @param maxPark max duration of a single park, which bounds the latency of an event arriving to
+ *     a parked event loop
+ */
+public record WaitStrategy(Kind kind, int spins, int yields, Duration maxPark) {
+  private static final WaitStrategy BLOCKING =
+      new WaitStrategy(
+          Kind.BLOCKING, 0, 0, Duration.ofNanos(SpinParkWaitStrategy.DEFAULT_MAX_PARK_NANOS));
+
+  public WaitStrategy {
+    Objects.requireNonNull(kind, "kind may not be null!");
+    Objects.requireNonNull(maxPark, "maxPark may not be null!");
+    if (spins < 0 || yields < 0 || maxPark.toNanos() < SpinParkWaitStrategy.MIN_PARK_NANOS) {
+      throw new IllegalArgumentException("Invalid wait strategy thresholds!");
+    }
+  }
+
+  /**
+   * Returns the strategy which blocks in {@code select()} until a readiness event or a wakeup.
+   *
+   * @return blocking wait strategy
+   */
+  public static WaitStrategy blocking() {
+    return BLOCKING;
+  }
+
+  /**
+   * Returns the strategy which busy-spins on {@code selectNow()} and never gives the core up.
+   *
+   * @return busy-spin wait strategy
+   */
+  public static WaitStrategy busySpin() {
+    return new WaitStrategy(Kind.BUSY_SPIN, SpinParkWaitStrategy.UNBOUNDED, 0, BLOCKING.maxPark());
+  }
+
+  /**
+   * Returns the strategy which busy-spins on {@code selectNow()} for the given number of idle
+   * iterations, and yields the core between the polls afterward.
+   *
+   * @param spins number of idle iterations spent busy-spinning
+   * @return spin-then-yield wait strategy
+   */
+  public static WaitStrategy spinYield(int spins) {
+    return new WaitStrategy(
+        Kind.SPIN_YIELD, spins, SpinParkWaitStrategy.UNBOUNDED, BLOCKING.maxPark());
+  }
+
+  /**
+   * Returns the strategy which busy-spins, then yields on {@code selectNow()}, and then parks for
+   * an exponentially growing duration between the polls, capped at {@code maxPark}.
+   *
+   * @param spins number of idle iterations spent busy-spinning
+   * @param yields number of idle iterations spent yielding
+   * @param maxPark max duration of a single park
+   * @return spin-then-park wait strategy
+   */
+  public static WaitStrategy spinPark(int spins, int yields, Duration maxPark) {
+    return new WaitStrategy(Kind.SPIN_PARK, spins, yields, maxPark);
+  }
+
+  /**
+   * Returns the strategy of the given {@code kind} with the default thresholds of {@link
+   * SpinParkWaitStrategy}.
+   *
+   * @param kind how to wait
+   * @return wait strategy
+   */
+  public static WaitStrategy of(Kind kind) {
+    return switch (kind) {
+      case BLOCKING -> blocking();
+      case BUSY_SPIN -> busySpin();
+      case SPIN_YIELD -> spinYield(SpinParkWaitStrategy.DEFAULT_SPINS);
+      case SPIN_PARK ->
+          spinPark(
+              SpinParkWaitStrategy.DEFAULT_SPINS,
+              SpinParkWaitStrategy.DEFAULT_YIELDS,
+              BLOCKING.maxPark());
+    };
+  }
+
+  /**
+   * Returns whether the event loop polls with {@code selectNow()} instead of blocking.
+   *
+   * @return {@code true} unless the kind is {@link Kind#BLOCKING}
+   */
+  public boolean isPolling() {
+    return this.kind != Kind.BLOCKING;
+  }
+
+  /**
+   * Builds the backoff of a single polling thread.
+   *
+   * @return new backoff
+   */
+  public SpinParkWaitStrategy newBackoff() {
+    return new SpinParkWaitStrategy(this.spins, this.yields, this.maxPark.toNanos());
+  }
+
+  /** Way of waiting. */
+  public enum Kind {
+    /** Blocks in {@code select()}, the default. */
+    BLOCKING,
+    /** Busy-spins on {@code selectNow()}. */
+    BUSY_SPIN,
+    /** Busy-spins, then yields between the {@code selectNow()} calls. */
+    SPIN_YIELD,
+    /** Busy-spins, yields, then parks with a growing duration between the {@code selectNow()}. */
+    SPIN_PARK,
+  }
+}
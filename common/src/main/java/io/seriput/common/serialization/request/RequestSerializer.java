@@ -6,12 +6,19 @@ import java.nio.ByteBuffer;
 /**
  * Request serializer for Seriput protocol v1.
  *
+ * <p>Protocol v2 frames are v1 frames prefixed with a 32-bit request ID, which is written by the
+ * connection once the version is negotiated with a {@code HELLO} request.
+ *
  * @param <K> key type
  * @param <V> value type
  */
 public final class RequestSerializer<K, V> {
+  public static final int PROTOCOL_V1 = 1;
+  public static final int PROTOCOL_V2 = 2;
+  public static final int REQUEST_ID_SIZE = 4;
   private static final int HEADER_SIZE =
       1 + 1 + 1 + 4 + 4; // op + keyTypeId + valueTypeId + keyLength + valueLength
+  private static final int TTL_SIZE = 8;
 
   private final KeySerializer<K> keySerializer;
   private final ValueSerializer<V> valueSerializer;
@@ -92,6 +99,32 @@ public final class RequestSerializer<K, V> {
     return buffer;
   }
 
+  /**
+   * Serializes a {@code PUT_TTL} request by the given key, value and time to live. The TTL is
+   * written as an int64 in front of the value and counted in the value's length.
+   *
+   * @param key key to serialize
+   * @param value value to serialize
+   * @param ttlMillis time to live of the value in milliseconds
+   * @return serialized {@code PUT_TTL} request in read-only {@code ByteBuffer}
+   */
+  public ByteBuffer serializePut(K key, V value, long ttlMillis) {
+    byte[] serializedKey = keySerializer.serialize(key);
+    byte[] serializedValue = valueSerializer.serialize(value);
+    ByteBuffer buffer =
+        allocator.allocate(HEADER_SIZE + serializedKey.length + TTL_SIZE + serializedValue.length);
+    buffer.put(RequestOp.PUT_TTL.op());
+    buffer.put(keySerializer.typeId());
+    buffer.put(valueSerializer.typeId());
+    buffer.putInt(serializedKey.length);
+    buffer.putInt(TTL_SIZE + serializedValue.length);
+    buffer.put(serializedKey);
+    buffer.putLong(ttlMillis);
+    buffer.put(serializedValue);
+    buffer.flip(); // Switch to read mode
+    return buffer;
+  }
+
   /**
    * Serializes a {@code DELETE} request by the given key.
    *
@@ -111,4 +144,23 @@ public final class RequestSerializer<K, V> {
     buffer.flip(); // Switch to read mode
     return buffer;
   }
+
+  /**
+   * Serializes a {@code HELLO} request which asks the server to switch the connection to the given
+   * protocol {@code version}. The request itself is always a v1 frame.
+   *
+   * @param version requested protocol version
+   * @return serialized {@code HELLO} request in a heap {@code ByteBuffer}
+   */
+  public static ByteBuffer serializeHello(int version) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 1);
+    buffer.put(RequestOp.HELLO.op());
+    buffer.put((byte) 0x00); // No key type for HELLO
+    buffer.put((byte) 0x00); // No value type for HELLO
+    buffer.putInt(0); // No key for HELLO
+    buffer.putInt(1); // Requested version
+    buffer.put((byte) version);
+    buffer.flip(); // Switch to read mode
+    return buffer;
+  }
 }
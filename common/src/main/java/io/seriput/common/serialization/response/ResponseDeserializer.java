@@ -48,6 +48,21 @@ public final class ResponseDeserializer {
     return buffer.getInt(buffer.position() + VALUE_LENGTH_OFFSET);
   }
 
+  /**
+   * Returns the size of the body of the response starting at the given {@code index}, e.g. after
+   * the request ID prefix of a protocol v2 response.
+   *
+   * @param buffer buffer to read the body size from
+   * @param index absolute index of the response's first byte
+   * @return size of the response body in bytes
+   * @throws IllegalArgumentException if {@code buffer} does not contain the full header yet
+   */
+  public static int bodySize(ByteBuffer buffer, int index) {
+    checkArgument(
+        buffer.limit() - index >= HEADER_SIZE, "Buffer does not contain the full header yet!");
+    return buffer.getInt(index + VALUE_LENGTH_OFFSET);
+  }
+
   /**
    * Deserializes the server response from given {@code buffer}.
    *
@@ -0,0 +1,175 @@
+package io.seriput.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+final class HashedWheelTimerTest {
+  private final HashedWheelTimer underTest = new HashedWheelTimer(10, TimeUnit.MILLISECONDS, 8);
+
+  @Nested
+  final class Advance {
+    @Test
+    void should_Run_Task_When_Its_Delay_Elapses() {
+      // given
+      var runs = new AtomicInteger();
+      underTest.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+
+      // when
+      int actual = underTest.advance(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+
+      // then
+      assertThat(actual).isEqualTo(1);
+      assertThat(runs).hasValue(1);
+      assertThat(underTest.isEmpty()).isTrue();
+    }
+
+    @Test
+    void should_Not_Run_Task_Before_Its_Delay_Elapses() {
+      // given
+      var runs = new AtomicInteger();
+      underTest.schedule(runs::incrementAndGet, 1, TimeUnit.HOURS);
+
+      // when
+      int actual = underTest.advance(System.nanoTime());
+
+      // then
+      assertThat(actual).isZero();
+      assertThat(runs).hasValue(0);
+      assertThat(underTest.size()).isEqualTo(1);
+    }
+
+    @Test
+    void should_Keep_Task_For_Remaining_Rounds_When_Its_Delay_Exceeds_A_Wheel_Turn() {
+      // given
+      var runs = new AtomicInteger();
+      long startNanos = System.nanoTime();
+      underTest.schedule(runs::incrementAndGet, 250, TimeUnit.MILLISECONDS); // ~3 turns of 80ms
+
+      // when
+      underTest.advance(startNanos + TimeUnit.MILLISECONDS.toNanos(150));
+
+      // then
+      assertThat(runs).hasValue(0);
+
+      // when
+      underTest.advance(startNanos + TimeUnit.MILLISECONDS.toNanos(300));
+
+      // then
+      assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void should_Run_Tasks_In_Deadline_Order() {
+      // given
+      List<Integer> order = new ArrayList<>();
+      underTest.schedule(() -> order.add(3), 70, TimeUnit.MILLISECONDS);
+      underTest.schedule(() -> order.add(1), 10, TimeUnit.MILLISECONDS);
+      underTest.schedule(() -> order.add(2), 40, TimeUnit.MILLISECONDS);
+
+      // when
+      underTest.advance(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+
+      // then
+      assertThat(order).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void should_Continue_When_Task_Throws() {
+      // given
+      var runs = new AtomicInteger();
+      underTest.schedule(
+          () -> {
+            throw new IllegalStateException("Failed!");
+          },
+          10,
+          TimeUnit.MILLISECONDS);
+      underTest.schedule(runs::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+
+      // when
+      int actual = underTest.advance(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+
+      // then
+      assertThat(actual).isEqualTo(2);
+      assertThat(runs).hasValue(1);
+    }
+  }
+
+  @Nested
+  final class Cancel {
+    @Test
+    void should_Not_Run_Task_When_Cancelled() {
+      // given
+      var runs = new AtomicInteger();
+      var timeout = underTest.schedule(runs::incrementAndGet, 10, TimeUnit.MILLISECONDS);
+
+      // when
+      boolean actual = timeout.cancel();
+
+      // then
+      underTest.advance(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+      assertThat(actual).isTrue();
+      assertThat(timeout.isCancelled()).isTrue();
+      assertThat(runs).hasValue(0);
+      assertThat(underTest.isEmpty()).isTrue();
+    }
+
+    @Test
+    void should_Unlink_Timeout_Right_Away_When_Cancelled_By_Owner() {
+      // given
+      underTest.advance(System.nanoTime()); // Binds the owner
+      var timeout = underTest.schedule(() -> {}, 1, TimeUnit.HOURS);
+      assertThat(underTest.size()).isEqualTo(1);
+
+      // when
+      timeout.cancel();
+
+      // then
+      assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void should_Return_False_When_Already_Expired() {
+      // given
+      var timeout = underTest.schedule(() -> {}, 10, TimeUnit.MILLISECONDS);
+      underTest.advance(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50));
+
+      // when
+      boolean actual = timeout.cancel();
+
+      // then
+      assertThat(actual).isFalse();
+      assertThat(timeout.isExpired()).isTrue();
+    }
+  }
+
+  @Nested
+  final class NanosUntilNextTick {
+    @Test
+    void should_Return_Zero_When_Tick_Is_Due() {
+      // when
+      long actual = underTest.nanosUntilNextTick(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+
+      // then
+      assertThat(actual).isZero();
+    }
+
+    @Test
+    void should_Not_Exceed_Tick_Duration() {
+      // given
+      long now = System.nanoTime();
+      underTest.advance(now);
+
+      // when
+      long actual = underTest.nanosUntilNextTick(now);
+
+      // then
+      assertThat(actual).isBetween(1L, TimeUnit.MILLISECONDS.toNanos(10));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package io.seriput.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+final class RingQueueTest {
+  static Stream<IntFunction<RingQueue<Integer>>> queues() {
+    return Stream.<IntFunction<RingQueue<Integer>>>of(SpscRingQueue::new, MpscRingQueue::new);
+  }
+
+  @Nested
+  final class Capacity {
+    @ParameterizedTest
+    @MethodSource("io.seriput.common.RingQueueTest#queues")
+    void should_Round_Capacity_Up_To_Power_Of_Two(IntFunction<RingQueue<Integer>> factory) {
+      // when
+      RingQueue<Integer> actual = factory.apply(5);
+
+      // then
+      assertThat(actual.capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void should_Throw_IllegalArgumentException_When_Capacity_Is_Not_Positive() {
+      // when
+      var thrown = assertThatThrownBy(() -> new SpscRingQueue<Integer>(0));
+
+      // then
+      thrown.isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  @Nested
+  final class OfferPoll {
+    @ParameterizedTest
+    @MethodSource("io.seriput.common.RingQueueTest#queues")
+    void should_Poll_Elements_In_Offer_Order(IntFunction<RingQueue<Integer>> factory) {
+      // given
+      RingQueue<Integer> underTest = factory.apply(4);
+      var actual = new ArrayList<Integer>();
+
+      // when
+      for (int i = 0; i < 10; i++) {
+        underTest.offer(i);
+        actual.add(underTest.poll());
+      }
+
+      // then
+      assertThat(actual).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+      assertThat(underTest.poll()).isNull();
+      assertThat(underTest.isEmpty()).isTrue();
+    }
+
+    @ParameterizedTest
+    @MethodSource("io.seriput.common.RingQueueTest#queues")
+    void should_Reject_Element_When_Queue_Is_Full(IntFunction<RingQueue<Integer>> factory) {
+      // given
+      RingQueue<Integer> underTest = factory.apply(2);
+      underTest.offer(1);
+      underTest.offer(2);
+
+      // when
+      boolean actual = underTest.offer(3);
+
+      // then
+      assertThat(actual).isFalse();
+      assertThat(underTest.size()).isEqualTo(2);
+      assertThat(underTest.poll()).isEqualTo(1);
+      assertThat(underTest.offer(3)).isTrue();
+    }
+
+    @Test
+    @Timeout(10)
+    void should_Keep_Each_Producers_Order_When_Producers_Offer_Concurrently() throws Exception {
+      // given
+      int producerCount = 4;
+      int perProducer = 100_000;
+      var underTest = new MpscRingQueue<Integer>(64);
+      List<Thread> producers = new ArrayList<>();
+      for (int p = 0; p < producerCount; p++) {
+        int producer = p;
+        var thread =
+            new Thread(
+                () -> {
+                  for (int i = 0; i < perProducer; i++) {
+                    while (!underTest.offer(producer * perProducer + i)) {
+                      Thread.yield();
+                    }
+                  }
+                });
+        thread.setDaemon(true);
+        thread.start();
+        producers.add(thread);
+      }
+
+      // when
+      int[] lastPolled = {-1, -1, -1, -1};
+      boolean isOrdered = true;
+      for (int polled = 0; polled < producerCount * perProducer; ) {
+        Integer element = underTest.poll();
+        if (element == null) {
+          Thread.yield();
+          continue;
+        }
+        isOrdered &= element % perProducer == lastPolled[element / perProducer] + 1;
+        lastPolled[element / perProducer] = element % perProducer;
+        polled++;
+      }
+      for (Thread producer : producers) {
+        producer.join();
+      }
+
+      // then
+      assertThat(isOrdered).isTrue();
+      assertThat(lastPolled).containsOnly(perProducer - 1);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package io.seriput.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class SharedMemoryChannelTest {
+  private static final int RING_CAPACITY = 16;
+
+  @TempDir Path directory;
+
+  private Path path;
+  private SharedMemoryChannel server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    path = directory.resolve("seriput.shm");
+    server = SharedMemoryChannel.create(path, RING_CAPACITY);
+  }
+
+  @AfterEach
+  void cleanUp() throws IOException {
+    server.close();
+  }
+
+  @Nested
+  final class Attach {
+    @Test
+    void should_Attach_When_Channel_Is_Free() throws IOException {
+      // when
+      try (var actual = SharedMemoryChannel.attach(path)) {
+        // then
+        assertThat(actual.state()).isEqualTo(SharedMemoryChannel.STATE_ATTACHED);
+        assertThat(server.state()).isEqualTo(SharedMemoryChannel.STATE_ATTACHED);
+      }
+    }
+
+    @Test
+    void should_Write_Client_Pid_When_Attached() throws IOException {
+      // when
+      try (var actual = SharedMemoryChannel.attach(path)) {
+        // then
+        assertThat(server.clientPid()).isEqualTo(ProcessHandle.current().pid());
+      }
+    }
+
+    @Test
+    void should_Throw_IOException_When_Another_Client_Is_Attached() throws IOException {
+      // given
+      try (var attached = SharedMemoryChannel.attach(path)) {
+        // when
+        var thrown = assertThatThrownBy(() -> SharedMemoryChannel.attach(path));
+
+        // then
+        thrown.isInstanceOf(IOException.class);
+      }
+    }
+  }
+
+  @Nested
+  final class ReadWrite {
+    @Test
+    void should_Write_Only_Free_Space_When_Ring_Is_Full() {
+      // given
+      var src = ByteBuffer.wrap(new byte[RING_CAPACITY + 4]);
+
+      // when
+      int actual = server.requests().write(src);
+
+      // then
+      assertThat(actual).isEqualTo(RING_CAPACITY);
+      assertThat(src.remaining()).isEqualTo(4);
+    }
+
+    @Test
+    void should_Read_Bytes_In_Order_When_They_Wrap_Around() throws IOException {
+      // given
+      try (var client = SharedMemoryChannel.attach(path)) {
+        client.requests().write(ByteBuffer.wrap(new byte[12]));
+        server.requests().read(ByteBuffer.allocate(12));
+        byte[] expected = {1, 2, 3, 4, 5, 6, 7, 8};
+        client.requests().write(ByteBuffer.wrap(expected)); // Wraps after the 4th byte
+
+        // when
+        var actual = ByteBuffer.allocate(expected.length);
+        int read = server.requests().read(actual);
+
+        // then
+        assertThat(read).isEqualTo(expected.length);
+        assertThat(actual.array()).isEqualTo(expected);
+      }
+    }
+
+    @Test
+    void should_Read_Nothing_When_Ring_Is_Empty() {
+      // when
+      int actual = server.responses().read(ByteBuffer.allocate(8));
+
+      // then
+      assertThat(actual).isZero();
+    }
+  }
+}
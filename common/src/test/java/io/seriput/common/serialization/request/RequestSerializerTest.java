@@ -3,6 +3,7 @@ package io.seriput.common.serialization.request;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
 import io.seriput.common.HeapByteBufferAllocator;
 import java.nio.charset.StandardCharsets;
 import org.junit.jupiter.api.Nested;
@@ -82,6 +83,43 @@ final class RequestSerializerTest {
               "{\"firstName\":\"John\",\"lastName\":\"Doe\"}".getBytes(StandardCharsets.UTF_8));
       assertThat(actualBytes).isEqualTo(expected);
     }
+
+    @Test
+    void should_Serialize_Put_Request_With_Ttl() {
+      // given
+      String key = "user:1234";
+      Object value =
+          new Object() {
+            public final String firstName = "John";
+            public final String lastName = "Doe";
+          };
+
+      // when
+      var actual = underTest.serializePut(key, value, 60_000);
+
+      // then
+      byte[] actualBytes = new byte[actual.remaining()];
+      actual.get(actualBytes);
+      byte[] expected =
+          Bytes.concat(
+              new byte[] { // headers
+                RequestOp.PUT_TTL.op(),
+                KeyType.UTF8.typeId(),
+                ValueType.JSON_UTF8.typeId(),
+                0,
+                0,
+                0,
+                9, // keyLength = 9
+                0,
+                0,
+                0,
+                45, // valueLength = 8 + 37
+              },
+              key.getBytes(),
+              Longs.toByteArray(60_000),
+              "{\"firstName\":\"John\",\"lastName\":\"Doe\"}".getBytes(StandardCharsets.UTF_8));
+      assertThat(actualBytes).isEqualTo(expected);
+    }
   }
 
   @Nested
@@ -5,6 +5,13 @@ plugins {
 
 application {
     mainClass = "io.seriput.server.Main"
+    // Needed by the IO_URING transport
+    applicationDefaultJvmArgs =
+        listOf("--enable-native-access=ALL-UNNAMED", "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED")
+}
+
+tasks.withType<Test> {
+    jvmArgs("--enable-native-access=ALL-UNNAMED", "--add-exports=java.base/sun.nio.ch=ALL-UNNAMED")
 }
 
 dependencies {
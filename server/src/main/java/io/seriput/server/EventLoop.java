@@ -0,0 +1,657 @@
+package io.seriput.server;
+
+import io.seriput.common.HashedWheelTimer;
+import io.seriput.common.PooledByteBufferAllocator;
+import io.seriput.common.SpinParkWaitStrategy;
+import io.seriput.common.WaitStrategy;
+import io.seriput.server.serialization.response.ResponseSerializer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * I/O event loop that owns a {@link Selector} and serves the Seriput connections assigned to it.
+ *
+ * <p>Connections are handed over by the acceptor via {@link #register(SocketChannel)}, which is
+ * thread-safe. Everything else runs on the event loop's own thread. In {@code reusePort} mode,
+ * each event loop accepts the connections of its own listening socket instead, see {@link
+ * #listen(InetSocketAddress)}.
+ *
+ * <p>With the {@code IO_URING} transport, the {@link Selector} is an {@link IoUringSelector} and
+ * the connections are read and written through the channels of its keys, so that the rest works
+ * the same regardless of the transport.
+ *
+ * <p>The other threads hand their tasks over through lock-free queues and wake the {@code select()}
+ * up via {@link #wakeup()}, which is coalesced: once a wakeup is pending, the next ones are skipped
+ * until the event loop takes its tasks. With a {@code wakeupBatchingWindow}, the event loop also
+ * waits that long after being woken up before taking them, so that the tasks of more connections
+ * are taken with a single wakeup.
+ *
+ * <p>With a polling {@link WaitStrategy}, the event loop calls {@code selectNow()} instead of
+ * blocking in {@code select()} and backs off while idle. It's unparked instead of being woken up,
+ * and only while it's parked.
+ *
+ * <p>Idle connections are closed by the timeouts of a {@link HashedWheelTimer} driven by the event
+ * loop, whose {@code select()} is bounded by the timer's next tick while any timeout is scheduled.
+ *
+ * <p>On shutdown, the event loop first drains via {@link #drain(Duration)}: it stops reading, lets
+ * the requests already read be handled and their responses written, and only then closes the
+ * connections, or once the drain deadline passes.
+ */
+final class EventLoop {
+  private static final Logger logger = LogManager.getLogger(EventLoop.class);
+  private static final long TIMER_TICK_MILLIS = 10;
+  private static final int TIMER_TICKS_PER_WHEEL = 512;
+  // Max connections accepted per readiness event, so that reading isn't starved by accept storms
+  static final int MAX_ACCEPTS_PER_SELECT = 64;
+
+  // region Fields
+  private final PooledByteBufferAllocator allocator;
+  private final Queue<SeriputConnection> closePendingConnections = new ConcurrentLinkedQueue<>();
+  private final SeriputServerConfig config;
+  private final AtomicInteger connectionCount = new AtomicInteger();
+  // Number of in-flight requests when draining started, used by the event loop only
+  private long drainInFlightRequests = -1;
+  // In-flight requests of the connections closed while draining, used by the event loop only
+  private long drainClosedInFlightRequests = 0;
+  private volatile boolean isDrainDeadlinePassed = false;
+  private volatile boolean isDraining = false;
+  private final HashMap<SeriputClient, Collection<SeriputConnection>> connections = new HashMap<>();
+  private final long idleTimeoutNanos;
+  private ServerSocketChannel listener; // Only in reusePort mode
+  private final AtomicBoolean isRunning = new AtomicBoolean(false);
+  private final ServerMetrics metrics;
+  private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+  // Read buffers of the event loop's connections, kept apart from the response buffers
+  private final ReadBufferPool readBufferPool = new ReadBufferPool();
+  private final Queue<SeriputConnection> readResumePendingConnections =
+      new ConcurrentLinkedQueue<>();
+  private final RequestExecutor requestExecutor;
+  private final RequestHandler requestHandler;
+  private final ResponseSerializer responseSerializer;
+  private final Selector selector;
+  private final Thread thread;
+  // Set by the first wakeup since the event loop last took its tasks, the next ones are skipped
+  private final AtomicBoolean isWakeupPending = new AtomicBoolean(false);
+  private final long wakeupBatchingWindowNanos;
+  private final WaitStrategy waitStrategy;
+  private final SpinParkWaitStrategy backoff; // Used by the event loop only
+  private final AtomicBoolean isParked = new AtomicBoolean(false);
+  private final HashedWheelTimer timer =
+      new HashedWheelTimer(TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS, TIMER_TICKS_PER_WHEEL);
+  private final Queue<SeriputConnection> writePendingConnections = new ConcurrentLinkedQueue<>();
+
+  // endregion
+
+  EventLoop(
+      int ix,
+      SeriputServerConfig config,
+      PooledByteBufferAllocator allocator,
+      RequestHandler requestHandler,
+      RequestExecutor requestExecutor,
+      ServerMetrics metrics)
+      throws IOException {
+    this.allocator = allocator;
+    this.config = config;
+    this.idleTimeoutNanos = config.idleTimeout().toNanos();
+    this.wakeupBatchingWindowNanos = config.wakeupBatchingWindow().toNanos();
+    this.waitStrategy = config.waitStrategy();
+    this.backoff = this.waitStrategy.newBackoff();
+    this.metrics = metrics;
+    this.requestExecutor = requestExecutor;
+    this.requestHandler = requestHandler;
+    this.responseSerializer = new ResponseSerializer(allocator);
+    this.selector =
+        config.transport() == SeriputServerConfig.Transport.IO_URING
+            ? IoUringSelector.create()
+            : Selector.open();
+    this.thread = new Thread(this::run, "seriput-event-loop-" + ix);
+    this.thread.setDaemon(false);
+  }
+
+  /**
+   * Opens a listening socket with {@code SO_REUSEPORT} bound to the given {@code address}, whose
+   * connections are accepted by {@code this} event loop. Must be called before {@link #start()}.
+   *
+   * @param address address to listen on
+   * @return bound address, which has the actual port if the given one is {@code 0}
+   * @throws IOException if the socket can't be opened or bound
+   */
+  InetSocketAddress listen(InetSocketAddress address) throws IOException {
+    var channel = ServerSocketChannel.open();
+    try {
+      if (!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+        throw new UnsupportedOperationException("SO_REUSEPORT isn't supported on this platform!");
+      }
+      channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+      channel.bind(address);
+      channel.configureBlocking(false);
+      channel.register(this.selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    this.listener = channel;
+    return (InetSocketAddress) channel.getLocalAddress();
+  }
+
+  void start() {
+    if (this.isRunning.compareAndSet(false, true)) {
+      this.thread.start();
+    }
+  }
+
+  /**
+   * Stops the event loop, closes its connections and waits for its thread to terminate. If it's
+   * draining, waits for the drain to finish first.
+   */
+  void close() throws InterruptedException {
+    if (!this.isDraining && this.isRunning.compareAndSet(true, false)) {
+      this.selector.wakeup();
+      LockSupport.unpark(this.thread);
+    }
+    Duration timeout = Duration.ofSeconds(5).plus(this.config.drainTimeout());
+    if (!this.thread.join(timeout)) {
+      logger.warn("{} could not be terminated in {}!", this.thread.getName(), timeout);
+    }
+  }
+
+  /**
+   * Starts draining: stops reading from the connections and registering the new ones, and stops
+   * the event loop once the requests already read are responded or the given {@code timeout}
+   * elapses, whichever comes first. Thread-safe.
+   *
+   * @param timeout max duration to wait for the in-flight requests
+   */
+  void drain(Duration timeout) {
+    if (!this.isRunning.get() || timeout.isZero()) {
+      return;
+    }
+    this.timer.schedule(
+        () -> this.isDrainDeadlinePassed = true, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    this.isDraining = true;
+    wakeup();
+  }
+
+  boolean isDraining() {
+    return this.isDraining;
+  }
+
+  /**
+   * Hands the given accepted {@code channel} over to {@code this} event loop.
+   *
+   * @param channel accepted connection
+   */
+  void register(SocketChannel channel) {
+    this.connectionCount.incrementAndGet();
+    this.pendingRegistrations.add(channel);
+    wakeup();
+  }
+
+  /**
+   * Schedules {@code OP_WRITE} to be set for the given {@code connection} on the event loop's
+   * thread. Thread-safe.
+   *
+   * @param connection connection which has responses to write
+   */
+  void scheduleWrite(SeriputConnection connection) {
+    this.writePendingConnections.add(connection);
+    wakeup();
+  }
+
+  /**
+   * Schedules the given {@code connection}, which has just moved to {@code CLOSING}, to be closed
+   * on the event loop's thread. Thread-safe.
+   *
+   * @param connection connection to close
+   */
+  void scheduleClose(SeriputConnection connection) {
+    this.closePendingConnections.add(connection);
+    wakeup();
+  }
+
+  /**
+   * Schedules {@code OP_READ} to be set back for the given throttled {@code connection} on the
+   * event loop's thread. Thread-safe.
+   *
+   * @param connection connection whose inbound queue was drained below the low-water mark
+   */
+  void scheduleReadResume(SeriputConnection connection) {
+    this.readResumePendingConnections.add(connection);
+    wakeup();
+  }
+
+  /**
+   * Wakes the event loop up to take the tasks handed over to it, unless a wakeup is already pending
+   * or it's called on the event loop's thread, which takes them before selecting again anyway.
+   * Thread-safe.
+   */
+  void wakeup() {
+    if (Thread.currentThread() == this.thread || !this.isWakeupPending.compareAndSet(false, true)) {
+      return;
+    }
+    if (!this.waitStrategy.isPolling()) {
+      this.metrics.recordWakeup();
+      this.selector.wakeup();
+    } else if (this.isParked.get()) {
+      this.metrics.recordWakeup();
+      LockSupport.unpark(this.thread);
+    }
+  }
+
+  // region Getter & setters
+  SeriputServerConfig config() {
+    return this.config;
+  }
+
+  ServerMetrics metrics() {
+    return this.metrics;
+  }
+
+  ReadBufferPool readBufferPool() {
+    return this.readBufferPool;
+  }
+
+  RequestExecutor requestExecutor() {
+    return this.requestExecutor;
+  }
+
+  ResponseSerializer responseSerializer() {
+    return this.responseSerializer;
+  }
+
+  int connectionCount() {
+    return this.connectionCount.get();
+  }
+
+  // Visible for testing
+  Map<SeriputClient, Collection<SeriputConnection>> connections() {
+    return this.connections;
+  }
+
+  // Visible for testing
+  Selector selector() {
+    return this.selector;
+  }
+
+  // Visible for testing
+  Thread thread() {
+    return this.thread;
+  }
+
+  // endregion
+
+  private void run() {
+    logger.debug("{} is being started...", this.thread.getName());
+    while (this.isRunning.get()) {
+      try {
+        select();
+        if (this.wakeupBatchingWindowNanos > 0 && this.isWakeupPending.get()) {
+          // Let the other connections hand their tasks over within the same wakeup
+          LockSupport.parkNanos(this.wakeupBatchingWindowNanos);
+        }
+        // Cleared before taking the tasks, so that a task handed over meanwhile wakes it up again
+        this.isWakeupPending.set(false);
+        long tasksStartNanos = System.nanoTime();
+        this.timer.advance(tasksStartNanos);
+        if (!this.isDraining) {
+          drainPendingRegistrations(); // The ones left are closed once the loop stops
+        }
+        drainPendingWriteInterests();
+        drainPendingReadResumes();
+        drainPendingCloses();
+        if (this.isDraining) {
+          maybeFinishDraining();
+        }
+        this.metrics.recordEventLoopIteration(System.nanoTime() - tasksStartNanos);
+      } catch (IOException e) {
+        logger.error("Exception occurred when selecting keys!", e);
+      }
+    }
+
+    logger.debug("{} is being stopped...", this.thread.getName());
+    closeListener();
+    if (this.drainInFlightRequests >= 0) {
+      recordDrain();
+    }
+    closePendingRegistrations();
+    closeConnections();
+    try {
+      this.selector.close();
+    } catch (IOException e) {
+      logger.warn("Exception occurred during stopping the event loop!", e);
+    }
+  }
+
+  private void select() throws IOException {
+    Consumer<SelectionKey> action =
+        key -> {
+          try {
+            if (!key.isValid()) {
+              return;
+            }
+            if (key.isAcceptable()) {
+              accept();
+              return;
+            }
+            if (!(key.attachment() instanceof SeriputConnection connection)) {
+              return;
+            }
+            if (key.isReadable()) {
+              connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+              connection.write();
+            }
+          } catch (Exception e) {
+            logger.error("Exception occurred when processing key: {}", e.getMessage(), e);
+          }
+        };
+    if (this.waitStrategy.isPolling()) {
+      poll(action);
+      return;
+    }
+    if (this.timer.isEmpty()) {
+      this.selector.select(action);
+      return;
+    }
+    long timeoutNanos = this.timer.nanosUntilNextTick(System.nanoTime());
+    if (timeoutNanos == 0) {
+      this.selector.selectNow(action);
+    } else {
+      // Rounded up, as select(action, 0) would block indefinitely
+      this.selector.select(action, TimeUnit.NANOSECONDS.toMillis(timeoutNanos + 999_999));
+    }
+  }
+
+  // Polls without blocking, backs off if there is neither a readiness event nor a task
+  private void poll(Consumer<SelectionKey> action) throws IOException {
+    if (this.selector.selectNow(action) > 0 || this.isWakeupPending.get()) {
+      this.backoff.reset();
+    } else if (this.backoff.isParking()) {
+      // Set before re-checking for tasks, so that a thread handing one over either sees it or
+      // leaves the wakeup pending
+      this.isParked.set(true);
+      if (!this.isWakeupPending.get()) {
+        this.backoff.idle();
+      }
+      this.isParked.set(false);
+    } else {
+      this.backoff.idle();
+    }
+  }
+
+  private void maybeFinishDraining() {
+    if (this.drainInFlightRequests < 0) {
+      // First iteration since draining started
+      long inFlight = 0;
+      for (Collection<SeriputConnection> clientConnections : this.connections.values()) {
+        for (SeriputConnection connection : clientConnections) {
+          connection.stopReading();
+          inFlight += connection.inFlightRequests();
+        }
+      }
+      this.drainInFlightRequests = inFlight;
+      closeListener();
+      logger.info("{} is draining {} in-flight requests...", this.thread.getName(), inFlight);
+    }
+    if (this.isDrainDeadlinePassed || isDrained()) {
+      this.isRunning.set(false);
+    }
+  }
+
+  private boolean isDrained() {
+    for (Collection<SeriputConnection> clientConnections : this.connections.values()) {
+      for (SeriputConnection connection : clientConnections) {
+        if (!connection.isDrained()) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  // Counts the requests still in flight as abandoned, called before the connections are closed
+  private void recordDrain() {
+    long abandoned = this.drainClosedInFlightRequests;
+    for (Collection<SeriputConnection> clientConnections : this.connections.values()) {
+      for (SeriputConnection connection : clientConnections) {
+        abandoned += connection.inFlightRequests();
+      }
+    }
+    long completed = Math.max(0, this.drainInFlightRequests - abandoned);
+    this.metrics.recordDrain(completed, abandoned);
+    logger.info(
+        "{} drained: {} requests completed, {} abandoned.",
+        this.thread.getName(),
+        completed,
+        abandoned);
+  }
+
+  private void drainPendingRegistrations() {
+    SocketChannel channel;
+    while ((channel = this.pendingRegistrations.poll()) != null) {
+      tryToRegister(channel);
+    }
+  }
+
+  // Accepts the pending connections of the listening socket, up to MAX_ACCEPTS_PER_SELECT
+  private void accept() {
+    for (int i = 0; i < MAX_ACCEPTS_PER_SELECT; i++) {
+      SocketChannel channel;
+      try {
+        channel = this.listener.accept();
+      } catch (IOException e) {
+        logger.error("Exception occurred when accepting a connection!", e);
+        return;
+      }
+      if (channel == null) {
+        return; // No more pending connections
+      }
+      this.connectionCount.incrementAndGet();
+      tryToRegister(channel);
+    }
+  }
+
+  private void tryToRegister(SocketChannel channel) {
+    try {
+      register0(channel);
+    } catch (IOException e) {
+      logger.error("Exception occurred when registering the connection {}!", channel, e);
+      this.connectionCount.decrementAndGet();
+      closeQuietly(channel);
+    }
+  }
+
+  private void register0(SocketChannel channel) throws IOException {
+    var client = SeriputClient.from(channel);
+    var clientConnections = this.connections.getOrDefault(client, new HashSet<>());
+    channel.configureBlocking(false);
+    if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+      channel.setOption(StandardSocketOptions.TCP_NODELAY, true); // Not for Unix domain sockets
+    }
+    SelectionKey connectionKey;
+    ByteChannel connection;
+    if (this.selector instanceof IoUringSelector ioUringSelector) {
+      var ioUringKey = ioUringSelector.register(channel, SelectionKey.OP_READ, null);
+      connectionKey = ioUringKey;
+      connection = ioUringKey.socket();
+    } else {
+      connectionKey = channel.register(this.selector, SelectionKey.OP_READ);
+      connection = channel;
+    }
+    var seriputConnection =
+        new SeriputConnection(
+            this.allocator,
+            client,
+            clientConnections.size(),
+            connection,
+            this.requestHandler,
+            connectionKey,
+            this);
+    connectionKey.attach(seriputConnection);
+    if (this.idleTimeoutNanos > 0) {
+      scheduleIdleCheck(seriputConnection, this.idleTimeoutNanos);
+    }
+    clientConnections.add(seriputConnection);
+    this.connections.put(client, clientConnections);
+    logger.info("Connection accepted on {}: {}", this.thread.getName(), client);
+  }
+
+  private void scheduleIdleCheck(SeriputConnection connection, long delayNanos) {
+    connection.idleTimeout(
+        this.timer.schedule(() -> checkIdle(connection), delayNanos, TimeUnit.NANOSECONDS));
+  }
+
+  // A single timeout per connection, rescheduled for the rest of the idle timeout on activity
+  // instead of being rescheduled on each read and write
+  private void checkIdle(SeriputConnection connection) {
+    if (connection.state() != SeriputConnection.State.OPEN) {
+      return;
+    }
+    long idleNanos = System.nanoTime() - connection.lastActivityNanos();
+    if (idleNanos < this.idleTimeoutNanos) {
+      scheduleIdleCheck(connection, this.idleTimeoutNanos - idleNanos);
+    } else if (!connection.isIdle()) {
+      // A request is being handled, its response counts as activity
+      scheduleIdleCheck(connection, this.idleTimeoutNanos);
+    } else {
+      logger.info("Closing the idle connection: {}", connection.client());
+      this.metrics.recordIdleEviction();
+      connection.markClosing();
+    }
+  }
+
+  private static void cancelIdleCheck(SeriputConnection connection) {
+    if (connection.idleTimeout() != null) {
+      connection.idleTimeout().cancel();
+      connection.idleTimeout(null);
+    }
+  }
+
+  // Closes the connections moved to CLOSING since the last iteration, instead of scanning all keys
+  private void drainPendingCloses() {
+    SeriputConnection seriputConnection;
+    while ((seriputConnection = this.closePendingConnections.poll()) != null) {
+      if (!SeriputConnection.State.CLOSING.equals(seriputConnection.state())) {
+        continue;
+      }
+      if (this.drainInFlightRequests >= 0) {
+        this.drainClosedInFlightRequests += seriputConnection.inFlightRequests();
+      }
+      try {
+        cancelIdleCheck(seriputConnection);
+        seriputConnection.selectionKey().cancel();
+        this.requestExecutor.deregister(seriputConnection, Duration.ZERO);
+        seriputConnection.connection().close();
+        seriputConnection.releaseBuffers();
+      } catch (InterruptedException | IOException e) {
+        logger.error(
+            "Exception occurred during closing the connection {}!",
+            seriputConnection.connection(),
+            e);
+      } finally {
+        seriputConnection.state(SeriputConnection.State.CLOSED);
+        removeConnection(seriputConnection);
+      }
+    }
+  }
+
+  private void drainPendingWriteInterests() {
+    SeriputConnection conn;
+    while ((conn = this.writePendingConnections.poll()) != null) {
+      conn.clearEnqueued();
+      SelectionKey key = conn.selectionKey();
+      if (key != null && key.isValid()) {
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+      }
+    }
+  }
+
+  private void drainPendingReadResumes() {
+    SeriputConnection conn;
+    while ((conn = this.readResumePendingConnections.poll()) != null) {
+      conn.resumeReading();
+    }
+  }
+
+  private void closeConnections() {
+    for (SelectionKey key : this.selector.keys()) {
+      if (!key.isValid()) continue;
+      if (!(key.attachment() instanceof SeriputConnection seriputConnection)) continue;
+      try {
+        seriputConnection.state(SeriputConnection.State.CLOSING);
+        cancelIdleCheck(seriputConnection);
+        key.cancel();
+        // Wait for the request being handled to finish, should it?
+        this.requestExecutor.deregister(seriputConnection, Duration.ofSeconds(1));
+        seriputConnection.connection().close();
+        seriputConnection.releaseBuffers();
+      } catch (InterruptedException | IOException e) {
+        logger.warn(
+            "Exception occurred during closing the connection {}!",
+            seriputConnection.connection(),
+            e);
+      } finally {
+        seriputConnection.state(SeriputConnection.State.CLOSED);
+        removeConnection(seriputConnection);
+        logger.debug("{} connection closed.", seriputConnection.connection());
+      }
+    }
+  }
+
+  private void closeListener() {
+    if (this.listener == null) {
+      return;
+    }
+    try {
+      this.listener.close(); // Also cancels its key
+    } catch (IOException e) {
+      logger.warn("Exception occurred during closing the listening socket!", e);
+    }
+    this.listener = null;
+  }
+
+  private void closePendingRegistrations() {
+    SocketChannel channel;
+    while ((channel = this.pendingRegistrations.poll()) != null) {
+      this.connectionCount.decrementAndGet();
+      closeQuietly(channel);
+    }
+  }
+
+  private void removeConnection(SeriputConnection seriputConnection) {
+    this.connectionCount.decrementAndGet();
+    this.connections.get(seriputConnection.client()).remove(seriputConnection);
+    if (this.connections.get(seriputConnection.client()).isEmpty()) {
+      this.connections.remove(seriputConnection.client());
+    }
+  }
+
+  private static void closeQuietly(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.warn("Exception occurred during closing the connection {}!", channel, e);
+    }
+  }
+}
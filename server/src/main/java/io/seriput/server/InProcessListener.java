@@ -0,0 +1,153 @@
+package io.seriput.server;
+
+import io.seriput.common.InProcessEndpoint;
+import io.seriput.common.InProcessRegistry;
+import io.seriput.common.PooledByteBufferAllocator;
+import io.seriput.server.serialization.response.ResponseSerializer;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves the clients in the same JVM through the in-process transport, bypassing the sockets and
+ * the event loops.
+ *
+ * <p>Submitted frames are queued on a lock-free queue and handled one after another on the {@code
+ * seriput-in-process} thread, which parks while the queue is empty. The responses are copied out
+ * of the pooled buffers and handed back through the submitters' callbacks on the same thread.
+ */
+final class InProcessListener implements InProcessEndpoint {
+  private static final Logger logger = LogManager.getLogger(InProcessListener.class);
+  // Upper bound of a park, in case an unpark is missed
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final String name;
+  private final PooledByteBufferAllocator allocator;
+  private final RequestHandler requestHandler;
+  private final ResponseSerializer responseSerializer;
+  private final ServerMetrics metrics;
+  private final long requestTimeoutNanos; // 0 if disabled
+  private final Queue<Submission> submissions = new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean isParked = new AtomicBoolean(false);
+  private final Thread thread = new Thread(this::run, "seriput-in-process");
+  private volatile boolean isRunning = false;
+
+  InProcessListener(
+      String name,
+      SeriputServerConfig config,
+      PooledByteBufferAllocator allocator,
+      RequestHandler requestHandler,
+      ServerMetrics metrics) {
+    this.name = name;
+    this.allocator = allocator;
+    this.requestHandler = requestHandler;
+    this.responseSerializer = new ResponseSerializer(allocator);
+    this.metrics = metrics;
+    this.requestTimeoutNanos = config.requestTimeout().toNanos();
+  }
+
+  @Override
+  public boolean submit(ByteBuffer frame, Consumer<byte[]> onResponse) {
+    if (!this.isRunning) {
+      return false;
+    }
+    long deadlineNanos =
+        this.requestTimeoutNanos > 0
+            ? System.nanoTime() + this.requestTimeoutNanos
+            : RequestFrame.NO_DEADLINE;
+    var submission = new Submission(frame, onResponse, deadlineNanos);
+    this.submissions.offer(submission);
+    if (!this.isRunning && this.submissions.remove(submission)) {
+      return false; // Closed in the meantime, and the thread hasn't taken it
+    }
+    if (this.isParked.get()) {
+      LockSupport.unpark(this.thread);
+    }
+    return true;
+  }
+
+  /** Starts the thread and binds {@code this} listener to its name. */
+  void start() {
+    this.isRunning = true;
+    this.thread.start();
+    InProcessRegistry.bind(this.name, this);
+    logger.info("In-process listener is bound to: {}", this.name);
+  }
+
+  /**
+   * Unbinds {@code this} listener, lets its thread handle the frames already submitted and waits
+   * for it to stop.
+   *
+   * @param timeout how long to wait for the thread to stop
+   * @throws InterruptedException if interrupted while waiting
+   */
+  void close(Duration timeout) throws InterruptedException {
+    InProcessRegistry.unbind(this.name, this);
+    this.isRunning = false;
+    LockSupport.unpark(this.thread);
+    if (!this.thread.join(timeout)) {
+      logger.warn("In-process listener thread could not be terminated in {}!", timeout);
+    }
+  }
+
+  private void run() {
+    while (this.isRunning) {
+      Submission submission = this.submissions.poll();
+      if (submission != null) {
+        handle(submission);
+        continue;
+      }
+      // Set before re-checking the queue, so that a submitter either sees it or leaves a frame
+      this.isParked.set(true);
+      if (this.submissions.isEmpty() && this.isRunning) {
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+      }
+      this.isParked.set(false);
+    }
+    // Handle what was submitted before closing, like the event loops drain their connections
+    Submission submission;
+    while ((submission = this.submissions.poll()) != null) {
+      handle(submission);
+    }
+  }
+
+  private void handle(Submission submission) {
+    ByteBuffer response;
+    if (submission.deadlineNanos() != RequestFrame.NO_DEADLINE
+        && System.nanoTime() - submission.deadlineNanos() > 0) {
+      response = this.responseSerializer.internalError();
+      this.metrics.recordExpiredRequest();
+    } else {
+      response = handle(submission.frame());
+    }
+    byte[] bytes = new byte[response.remaining()];
+    response.get(bytes);
+    this.allocator.release(response);
+    this.metrics.recordResponsesWritten(1);
+    try {
+      submission.onResponse().accept(bytes);
+    } catch (Exception e) {
+      logger.error("Exception occurred in the response callback of {}!", this.name, e);
+    }
+  }
+
+  // Responds with INTERNAL_ERROR to an unexpected failure, which would stop the listener's only
+  // thread otherwise
+  private ByteBuffer handle(ByteBuffer frame) {
+    try {
+      return this.requestHandler.handle(frame);
+    } catch (RuntimeException e) {
+      logger.error("Exception occurred during handling the request of {}!", this.name, e);
+      return this.responseSerializer.internalError();
+    }
+  }
+
+  private record Submission(ByteBuffer frame, Consumer<byte[]> onResponse, long deadlineNanos) {}
+}
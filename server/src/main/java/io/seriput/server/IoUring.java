@@ -0,0 +1,417 @@
+package io.seriput.server;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Minimal {@code io_uring} binding over {@code java.lang.foreign}, with no native library other
+ * than the C library.
+ *
+ * <p>It sets up a ring, maps its submission and completion queues, prepares submission queue
+ * entries in place and submits them along with waiting for completions through a single {@code
+ * io_uring_enter} call. NOT thread-safe, it's meant to be owned by a single event loop.
+ */
+final class IoUring implements AutoCloseable {
+  // region Kernel ABI, see include/uapi/linux/io_uring.h
+  static final byte IORING_OP_READ = 22;
+  static final byte IORING_OP_SEND = 26;
+  static final byte IORING_OP_RECV = 27;
+  static final byte IORING_OP_ASYNC_CANCEL = 14;
+  private static final long SYS_IO_URING_SETUP = 425;
+  private static final long SYS_IO_URING_ENTER = 426;
+  private static final int IORING_SETUP_CQSIZE = 1 << 3;
+  private static final int IORING_SETUP_SUBMIT_ALL = 1 << 7;
+  private static final int IORING_SETUP_COOP_TASKRUN = 1 << 8;
+  private static final int IORING_FEAT_NODROP = 1 << 1;
+  private static final int IORING_FEAT_EXT_ARG = 1 << 8;
+  private static final int IORING_ENTER_GETEVENTS = 1;
+  private static final int IORING_ENTER_EXT_ARG = 1 << 3;
+  private static final long IORING_OFF_SQ_RING = 0L;
+  private static final long IORING_OFF_CQ_RING = 0x8000000L;
+  private static final long IORING_OFF_SQES = 0x10000000L;
+  private static final int PARAMS_SIZE = 120;
+  private static final int PARAMS_SQ_OFF = 40;
+  private static final int PARAMS_CQ_OFF = 80;
+  private static final int SQE_SIZE = 64;
+  private static final int CQE_SIZE = 16;
+  private static final int GETEVENTS_ARG_SIZE = 24;
+  private static final int EINTR = 4;
+  private static final int EAGAIN = 11;
+  private static final int EBUSY = 16;
+  private static final int EINVAL = 22;
+  private static final int ETIME = 62;
+  private static final int PROT_READ_WRITE = 0x1 | 0x2;
+  private static final int MAP_SHARED_POPULATE = 0x01 | 0x8000;
+
+  // endregion
+
+  // region Fields
+  // Shared, as the ring is set up by the server's thread and then used by the event loop's
+  private final Arena arena = Arena.ofShared();
+  private final MemorySegment callState; // errno captured by the downcalls
+  private final MemorySegment cqRing;
+  private final MemorySegment cqes;
+  private final int cqHeadOffset;
+  private final int cqMask;
+  private final int cqTailOffset;
+  private final int fd;
+  private final MemorySegment getEventsArg; // struct io_uring_getevents_arg
+  private final MemorySegment sqRing;
+  private final MemorySegment sqes;
+  private final int sqEntries;
+  private final int sqHeadOffset;
+  private final int sqMask;
+  private final int sqTailOffset;
+  private final long sqRingSize;
+  private final long cqRingSize;
+  private int sqTail; // Local copy, published to the kernel on submission
+  private final MemorySegment timespec; // struct __kernel_timespec
+
+  // endregion
+
+  private IoUring(int entries) throws IOException {
+    this.callState = this.arena.allocate(Libc.CALL_STATE_LAYOUT);
+    var params = this.arena.allocate(PARAMS_SIZE, 8);
+    int fd = setup(entries, params, IORING_SETUP_SUBMIT_ALL | IORING_SETUP_COOP_TASKRUN);
+    if (fd < 0 && -fd == EINVAL) {
+      fd = setup(entries, params, 0); // Kernel older than 5.19
+    }
+    if (fd < 0) {
+      this.arena.close();
+      throw new UnsupportedOperationException("io_uring_setup failed, errno: " + -fd);
+    }
+    this.fd = fd;
+    int features = params.get(JAVA_INT, 20);
+    if ((features & IORING_FEAT_EXT_ARG) == 0 || (features & IORING_FEAT_NODROP) == 0) {
+      Libc.close(fd);
+      this.arena.close();
+      throw new UnsupportedOperationException("io_uring of this kernel is too old, 5.11+ needed!");
+    }
+    this.sqEntries = params.get(JAVA_INT, 0);
+    int cqEntries = params.get(JAVA_INT, 4);
+    this.sqHeadOffset = params.get(JAVA_INT, PARAMS_SQ_OFF);
+    this.sqTailOffset = params.get(JAVA_INT, PARAMS_SQ_OFF + 4);
+    int sqArrayOffset = params.get(JAVA_INT, PARAMS_SQ_OFF + 24);
+    this.cqHeadOffset = params.get(JAVA_INT, PARAMS_CQ_OFF);
+    this.cqTailOffset = params.get(JAVA_INT, PARAMS_CQ_OFF + 4);
+    int cqesOffset = params.get(JAVA_INT, PARAMS_CQ_OFF + 20);
+    this.sqRingSize = sqArrayOffset + (long) this.sqEntries * Integer.BYTES;
+    this.cqRingSize = cqesOffset + (long) cqEntries * CQE_SIZE;
+    try {
+      this.sqRing = Libc.mmap(this.sqRingSize, fd, IORING_OFF_SQ_RING);
+      this.cqRing = Libc.mmap(this.cqRingSize, fd, IORING_OFF_CQ_RING);
+      this.sqes = Libc.mmap((long) this.sqEntries * SQE_SIZE, fd, IORING_OFF_SQES);
+    } catch (IOException e) {
+      Libc.close(fd);
+      this.arena.close();
+      throw e;
+    }
+    this.sqMask = this.sqRing.get(JAVA_INT, params.get(JAVA_INT, PARAMS_SQ_OFF + 8));
+    this.cqMask = this.cqRing.get(JAVA_INT, params.get(JAVA_INT, PARAMS_CQ_OFF + 8));
+    this.cqes = this.cqRing.asSlice(cqesOffset);
+    // The entries are always submitted in order, so the indirection array is the identity
+    for (int i = 0; i < this.sqEntries; i++) {
+      this.sqRing.set(JAVA_INT, sqArrayOffset + (long) i * Integer.BYTES, i);
+    }
+    this.sqTail = this.sqRing.get(JAVA_INT, this.sqTailOffset);
+    this.timespec = this.arena.allocate(16, 8);
+    this.getEventsArg = this.arena.allocate(GETEVENTS_ARG_SIZE, 8);
+    this.getEventsArg.set(JAVA_LONG, 16, this.timespec.address());
+  }
+
+  /**
+   * Sets up a ring with the given number of submission queue entries, and four times as many
+   * completion queue entries.
+   *
+   * @param entries number of submission queue entries, rounded up to a power of two by the kernel
+   * @return ring instance
+   * @throws UnsupportedOperationException if {@code io_uring} isn't available
+   * @throws IOException if the ring can't be mapped
+   */
+  static IoUring open(int entries) throws IOException {
+    if (!System.getProperty("os.name", "").toLowerCase().contains("linux")) {
+      throw new UnsupportedOperationException("io_uring is supported on Linux only!");
+    }
+    return new IoUring(entries);
+  }
+
+  /**
+   * Prepares a submission queue entry, submitting the prepared ones first if the queue is full.
+   *
+   * @param opcode {@code IORING_OP_*}
+   * @param fd file descriptor to operate on
+   * @param address buffer address, or the {@code user_data} to cancel for {@code ASYNC_CANCEL}
+   * @param length buffer length
+   * @param userData value returned along with the completion
+   * @throws IOException if the queue is full and can't be submitted
+   */
+  void prepare(byte opcode, int fd, long address, int length, long userData) throws IOException {
+    if (this.sqTail - sqHead() == this.sqEntries) {
+      enter(0, -1);
+      if (this.sqTail - sqHead() == this.sqEntries) {
+        throw new IOException("io_uring submission queue is full!");
+      }
+    }
+    long sqe = (long) (this.sqTail & this.sqMask) * SQE_SIZE;
+    for (int i = 0; i < SQE_SIZE; i += Long.BYTES) {
+      this.sqes.set(JAVA_LONG, sqe + i, 0L);
+    }
+    this.sqes.set(JAVA_BYTE, sqe, opcode);
+    this.sqes.set(JAVA_INT, sqe + 4, fd);
+    this.sqes.set(JAVA_LONG, sqe + 16, address);
+    this.sqes.set(JAVA_INT, sqe + 24, length);
+    this.sqes.set(JAVA_LONG, sqe + 32, userData);
+    this.sqTail++;
+  }
+
+  /**
+   * Submits the prepared entries and waits for at least {@code minComplete} completions, with a
+   * single {@code io_uring_enter} call.
+   *
+   * @param minComplete number of completions to wait for, {@code 0} doesn't wait
+   * @param timeoutNanos max duration to wait, negative waits indefinitely
+   * @throws IOException if {@code io_uring_enter} fails
+   */
+  void submitAndWait(int minComplete, long timeoutNanos) throws IOException {
+    enter(minComplete, timeoutNanos);
+  }
+
+  /**
+   * Consumes the completions which have arrived so far.
+   *
+   * @param handler callback invoked for each completion
+   * @return number of completions consumed
+   */
+  int reap(CompletionHandler handler) {
+    int head = this.cqRing.get(JAVA_INT, this.cqHeadOffset);
+    int tail = this.cqRing.get(JAVA_INT, this.cqTailOffset);
+    VarHandle.acquireFence(); // The entries up to tail are visible once tail is
+    int count = 0;
+    for (; head != tail; head++, count++) {
+      long cqe = (long) (head & this.cqMask) * CQE_SIZE;
+      handler.complete(this.cqes.get(JAVA_LONG, cqe), this.cqes.get(JAVA_INT, cqe + 8));
+    }
+    VarHandle.releaseFence(); // The entries are read before the kernel may reuse them
+    this.cqRing.set(JAVA_INT, this.cqHeadOffset, head);
+    return count;
+  }
+
+  @Override
+  public void close() {
+    Libc.munmap(this.sqes, (long) this.sqEntries * SQE_SIZE);
+    Libc.munmap(this.cqRing, this.cqRingSize);
+    Libc.munmap(this.sqRing, this.sqRingSize);
+    Libc.close(this.fd);
+    this.arena.close();
+  }
+
+  private int sqHead() {
+    int head = this.sqRing.get(JAVA_INT, this.sqHeadOffset);
+    VarHandle.acquireFence();
+    return head;
+  }
+
+  private void enter(int minComplete, long timeoutNanos) throws IOException {
+    int toSubmit = this.sqTail - sqHead();
+    VarHandle.releaseFence(); // The entries are written before the kernel can see the new tail
+    this.sqRing.set(JAVA_INT, this.sqTailOffset, this.sqTail);
+    int flags = IORING_ENTER_GETEVENTS;
+    MemorySegment arg = MemorySegment.NULL;
+    long argSize = 0;
+    if (minComplete > 0 && timeoutNanos >= 0) {
+      this.timespec.set(JAVA_LONG, 0, timeoutNanos / 1_000_000_000L);
+      this.timespec.set(JAVA_LONG, 8, timeoutNanos % 1_000_000_000L);
+      flags |= IORING_ENTER_EXT_ARG;
+      arg = this.getEventsArg;
+      argSize = GETEVENTS_ARG_SIZE;
+    }
+    long result =
+        Libc.syscall(
+            this.callState,
+            SYS_IO_URING_ENTER,
+            this.fd,
+            toSubmit,
+            minComplete,
+            flags,
+            arg,
+            argSize);
+    if (result < 0) {
+      int errno = Libc.errno(this.callState);
+      // Interrupted, timed out, or completions to reap first
+      if (errno != EINTR && errno != ETIME && errno != EAGAIN && errno != EBUSY) {
+        throw new IOException("io_uring_enter failed, errno: " + errno);
+      }
+    }
+  }
+
+  // Returns the ring's file descriptor, or the negated errno
+  private int setup(int entries, MemorySegment params, int flags) {
+    params.fill((byte) 0);
+    params.set(JAVA_INT, 4, entries * 4);
+    params.set(JAVA_INT, 8, flags | IORING_SETUP_CQSIZE);
+    long fd = Libc.syscall(this.callState, SYS_IO_URING_SETUP, entries, params);
+    return fd < 0 ? -Libc.errno(this.callState) : (int) fd;
+  }
+
+  /** Callback of {@link #reap(CompletionHandler)}. */
+  @FunctionalInterface
+  interface CompletionHandler {
+    /**
+     * Called for each completion queue entry.
+     *
+     * @param userData {@code user_data} of the completed submission
+     * @param result result of the operation, the negated errno if it failed
+     */
+    void complete(long userData, int result);
+  }
+
+  /** Downcalls into the C library. */
+  static final class Libc {
+    private static final Linker LINKER = Linker.nativeLinker();
+    private static final Linker.Option CAPTURE_ERRNO = Linker.Option.captureCallState("errno");
+    static final StructLayout CALL_STATE_LAYOUT = Linker.Option.captureStateLayout();
+    private static final long ERRNO_OFFSET =
+        CALL_STATE_LAYOUT.byteOffset(MemoryLayout.PathElement.groupElement("errno"));
+    // syscall(2) is variadic, all arguments are passed as longs so that none is left half-set
+    private static final MethodHandle SYSCALL_2 =
+        downcall(
+            "syscall",
+            FunctionDescriptor.of(JAVA_LONG, JAVA_LONG, JAVA_LONG, ADDRESS),
+            Linker.Option.firstVariadicArg(1),
+            CAPTURE_ERRNO);
+    private static final MethodHandle SYSCALL_6 =
+        downcall(
+            "syscall",
+            FunctionDescriptor.of(
+                JAVA_LONG,
+                JAVA_LONG,
+                JAVA_LONG,
+                JAVA_LONG,
+                JAVA_LONG,
+                JAVA_LONG,
+                ADDRESS,
+                JAVA_LONG),
+            Linker.Option.firstVariadicArg(1),
+            CAPTURE_ERRNO);
+    private static final MethodHandle MMAP =
+        downcall(
+            "mmap",
+            FunctionDescriptor.of(
+                ADDRESS, ADDRESS, JAVA_LONG, JAVA_INT, JAVA_INT, JAVA_INT, JAVA_LONG));
+    private static final MethodHandle MUNMAP =
+        downcall("munmap", FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_LONG));
+    private static final MethodHandle CLOSE =
+        downcall("close", FunctionDescriptor.of(JAVA_INT, JAVA_INT));
+    private static final MethodHandle EVENTFD =
+        downcall("eventfd", FunctionDescriptor.of(JAVA_INT, JAVA_INT, JAVA_INT));
+    private static final MethodHandle WRITE =
+        downcall("write", FunctionDescriptor.of(JAVA_LONG, JAVA_INT, ADDRESS, JAVA_LONG));
+    private static final int EFD_CLOEXEC = 0x80000;
+
+    private Libc() {}
+
+    static long syscall(MemorySegment callState, long number, long arg0, MemorySegment arg1) {
+      try {
+        return (long) SYSCALL_2.invokeExact(callState, number, arg0, arg1);
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    static long syscall(
+        MemorySegment callState,
+        long number,
+        long arg0,
+        long arg1,
+        long arg2,
+        long arg3,
+        MemorySegment arg4,
+        long arg5) {
+      try {
+        return (long) SYSCALL_6.invokeExact(callState, number, arg0, arg1, arg2, arg3, arg4, arg5);
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    static int errno(MemorySegment callState) {
+      return callState.get(JAVA_INT, ERRNO_OFFSET);
+    }
+
+    static MemorySegment mmap(long size, int fd, long offset) throws IOException {
+      MemorySegment address;
+      try {
+        address =
+            (MemorySegment)
+                MMAP.invokeExact(
+                    MemorySegment.NULL, size, PROT_READ_WRITE, MAP_SHARED_POPULATE, fd, offset);
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+      if (address.address() == -1L) {
+        throw new IOException("mmap of io_uring failed, offset: " + offset);
+      }
+      return address.reinterpret(size);
+    }
+
+    static void munmap(MemorySegment address, long size) {
+      try {
+        int ignored = (int) MUNMAP.invokeExact(address, size);
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    static void close(int fd) {
+      try {
+        int ignored = (int) CLOSE.invokeExact(fd);
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    // Blocking, so that a READ on it is completed by io_uring's poll instead of failing with EAGAIN
+    static int eventfd() throws IOException {
+      int fd;
+      try {
+        fd = (int) EVENTFD.invokeExact(0, EFD_CLOEXEC);
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+      if (fd < 0) {
+        throw new IOException("eventfd failed!");
+      }
+      return fd;
+    }
+
+    static void write(int fd, MemorySegment buffer) {
+      try {
+        long ignored = (long) WRITE.invokeExact(fd, buffer, buffer.byteSize());
+      } catch (Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    private static MethodHandle downcall(
+        String name, FunctionDescriptor descriptor, Linker.Option... options) {
+      MemorySegment symbol =
+          LINKER
+              .defaultLookup()
+              .find(name)
+              .orElseThrow(() -> new UnsupportedOperationException(name + " isn't found!"));
+      return LINKER.downcallHandle(symbol, descriptor, options);
+    }
+  }
+}
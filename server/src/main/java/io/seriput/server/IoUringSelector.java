@@ -0,0 +1,674 @@
+package io.seriput.server;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.IllegalSelectorException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.spi.AbstractSelectableChannel;
+import java.nio.channels.spi.AbstractSelectionKey;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * {@link Selector} backed by an {@link IoUring}, so that the event loop and {@link
+ * SeriputConnection} work the same regardless of the transport.
+ *
+ * <p>Readiness is emulated over completions: a {@code RECV} is kept armed per connection reading,
+ * into a native buffer which the channel returned by {@link Key#socket()} is read from, and the
+ * writes to that channel are copied into a native buffer sent with {@code SEND}. So a connection is
+ * readable once its {@code RECV} completes, and writable while its send buffer has room. All the
+ * submissions of an iteration go along with waiting for the completions in a single {@code
+ * io_uring_enter} call.
+ *
+ * <p>Channels are registered with {@link #register(SocketChannel, int, Object)} instead of {@link
+ * SelectableChannel#register(Selector, int)}, and read, written and closed through {@link
+ * Key#socket()}. Everything but {@link #wakeup()} must be called on the event loop's thread.
+ */
+final class IoUringSelector extends AbstractSelector {
+  private static final Logger logger = LogManager.getLogger(IoUringSelector.class);
+  private static final int RING_ENTRIES = 4096;
+  static final int RECV_BUFFER_SIZE = 16 * 1024;
+  static final int SEND_BUFFER_SIZE = 64 * 1024;
+  // Max time to wait on close for the buffered writes to be sent and the operations to be cancelled
+  private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+  // user_data is the key's slot shifted left by 2, ORed with one of the following
+  private static final int OP_RECV = 0;
+  private static final int OP_SEND = 1;
+  private static final int OP_WAKEUP = 2;
+  private static final int OP_CANCEL = 3;
+  private static final int ECANCELED = 125;
+  private static final int EAGAIN = 11;
+  private static final MethodHandle FD_VAL = fdValHandle();
+
+  // region Fields
+  private final Arena arena = Arena.ofShared();
+  private boolean isWakeupArmed = false;
+  private final AtomicBoolean isWakeupPending = new AtomicBoolean(false);
+  private final MemorySegment wakeupReadBuffer;
+  private final int wakeupFd;
+  private final Object wakeupLock = new Object();
+  private final MemorySegment wakeupWriteBuffer;
+  private final Set<SelectionKey> keys = new HashSet<>();
+  private final Set<SelectionKey> publicKeys = Collections.unmodifiableSet(this.keys);
+  private final List<Key> readyKeys = new ArrayList<>();
+  private final IoUring ring;
+  private final Set<SelectionKey> selectedKeys = new HashSet<>();
+  private Key[] slots = new Key[64];
+  private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+  private int nextSlot = 0;
+  private final ArrayDeque<Key> updatedKeys = new ArrayDeque<>();
+
+  // endregion
+
+  private IoUringSelector(IoUring ring) throws IOException {
+    super(SelectorProvider.provider());
+    this.ring = ring;
+    this.wakeupFd = IoUring.Libc.eventfd();
+    this.wakeupReadBuffer = this.arena.allocate(Long.BYTES, Long.BYTES);
+    this.wakeupWriteBuffer = this.arena.allocate(Long.BYTES, Long.BYTES);
+    this.wakeupWriteBuffer.set(ValueLayout.JAVA_LONG, 0, 1L);
+  }
+
+  /**
+   * Opens a selector with its own ring.
+   *
+   * @return selector instance
+   * @throws UnsupportedOperationException if {@code io_uring} or the needed JVM flags aren't
+   *     available
+   * @throws IOException if the ring can't be set up
+   */
+  static IoUringSelector create() throws IOException {
+    if (FD_VAL == null) {
+      throw new UnsupportedOperationException(
+          "IO_URING transport requires '--add-exports java.base/sun.nio.ch=ALL-UNNAMED'!");
+    }
+    IoUring ring = IoUring.open(RING_ENTRIES);
+    try {
+      return new IoUringSelector(ring);
+    } catch (IOException | RuntimeException e) {
+      ring.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Registers the given connected, non-blocking {@code channel}.
+   *
+   * @param channel channel to serve
+   * @param ops initial interest set
+   * @param attachment object to attach to the key
+   * @return selection key of the channel, whose {@link Key#socket()} must be used to read, write
+   *     and close it from now on
+   * @throws IOException if the channel's file descriptor can't be resolved
+   */
+  Key register(SocketChannel channel, int ops, Object attachment) throws IOException {
+    if (!isOpen()) {
+      throw new ClosedSelectorException();
+    }
+    int fd;
+    try {
+      fd = (int) FD_VAL.invoke(channel);
+    } catch (Throwable t) {
+      throw new IOException("File descriptor of " + channel + " can't be resolved!", t);
+    }
+    Integer freeSlot = this.freeSlots.poll();
+    int slot = freeSlot != null ? freeSlot : this.nextSlot++;
+    if (slot == this.slots.length) {
+      this.slots = Arrays.copyOf(this.slots, slot * 2);
+    }
+    var key = new Key(this, channel, fd, slot);
+    this.slots[slot] = key;
+    key.interestOps(ops);
+    key.attach(attachment);
+    this.keys.add(key);
+    return key;
+  }
+
+  @Override
+  protected SelectionKey register(AbstractSelectableChannel channel, int ops, Object attachment) {
+    // SelectableChannel#register would close the channel's file descriptor on deregistration only
+    throw new IllegalSelectorException();
+  }
+
+  @Override
+  public Set<SelectionKey> keys() {
+    if (!isOpen()) {
+      throw new ClosedSelectorException();
+    }
+    return this.publicKeys;
+  }
+
+  @Override
+  public Set<SelectionKey> selectedKeys() {
+    if (!isOpen()) {
+      throw new ClosedSelectorException();
+    }
+    return this.selectedKeys;
+  }
+
+  @Override
+  public int selectNow() throws IOException {
+    return doSelect(this.selectedKeys::add, 0);
+  }
+
+  @Override
+  public int select(long timeout) throws IOException {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Negative timeout");
+    }
+    return doSelect(this.selectedKeys::add, timeout == 0 ? -1 : timeout);
+  }
+
+  @Override
+  public int select() throws IOException {
+    return doSelect(this.selectedKeys::add, -1);
+  }
+
+  @Override
+  public int select(Consumer<SelectionKey> action, long timeout) throws IOException {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Negative timeout");
+    }
+    return doSelect(action, timeout == 0 ? -1 : timeout);
+  }
+
+  @Override
+  public int select(Consumer<SelectionKey> action) throws IOException {
+    return doSelect(action, -1);
+  }
+
+  @Override
+  public int selectNow(Consumer<SelectionKey> action) throws IOException {
+    return doSelect(action, 0);
+  }
+
+  @Override
+  public Selector wakeup() {
+    if (this.isWakeupPending.compareAndSet(false, true)) {
+      synchronized (this.wakeupLock) {
+        if (isOpen()) { // Otherwise the eventfd may be closed already
+          IoUring.Libc.write(this.wakeupFd, this.wakeupWriteBuffer);
+        }
+      }
+    }
+    return this;
+  }
+
+  @Override
+  protected void implCloseSelector() {
+    Set<SelectionKey> cancelledKeys = cancelledKeys();
+    synchronized (cancelledKeys) {
+      cancelledKeys.clear();
+    }
+    for (Key key : this.slots) {
+      if (key != null) {
+        key.socket.close0();
+      }
+    }
+    // Lets the buffered writes be sent and the reads be cancelled, before unmapping the ring
+    long deadlineNanos = System.nanoTime() + CLOSE_TIMEOUT_NANOS;
+    try {
+      if (this.isWakeupArmed) {
+        this.ring.prepare(IoUring.IORING_OP_ASYNC_CANCEL, -1, OP_WAKEUP, 0, OP_CANCEL);
+      }
+      prepareUpdatedKeys();
+      while (hasInFlightOperations() && System.nanoTime() - deadlineNanos < 0) {
+        this.ring.submitAndWait(1, TimeUnit.MILLISECONDS.toNanos(10));
+        this.ring.reap(this::complete);
+        prepareUpdatedKeys();
+      }
+    } catch (IOException e) {
+      logger.warn("Exception occurred during closing the io_uring selector!", e);
+    }
+    this.ring.close();
+    // The buffers still referred by an operation are left to the GC, the kernel may write into them
+    for (Key key : this.slots) {
+      if (key != null) {
+        closeQuietly(key.channel);
+      }
+    }
+    synchronized (this.wakeupLock) {
+      IoUring.Libc.close(this.wakeupFd);
+      if (!this.isWakeupArmed) {
+        this.arena.close();
+      }
+    }
+    this.keys.clear();
+  }
+
+  // region Selection
+  // timeoutMillis: 0 doesn't block, -1 blocks indefinitely
+  private int doSelect(Consumer<SelectionKey> action, long timeoutMillis) throws IOException {
+    if (!isOpen()) {
+      throw new ClosedSelectorException();
+    }
+    processCancelledKeys();
+    prepareUpdatedKeys();
+    if (!this.readyKeys.isEmpty() || timeoutMillis == 0) {
+      this.ring.submitAndWait(0, 0);
+    } else {
+      long timeoutNanos = timeoutMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      this.ring.submitAndWait(1, timeoutNanos);
+    }
+    this.ring.reap(this::complete);
+    prepareUpdatedKeys();
+
+    int count = 0;
+    for (int i = 0; i < this.readyKeys.size(); i++) {
+      Key key = this.readyKeys.get(i);
+      key.isReady = false;
+      if (!key.isValid() || key.readyOps == 0) {
+        continue;
+      }
+      count++;
+      action.accept(key);
+      markUpdated(key); // Level-triggered, it's reported again as long as it's ready
+      if (!isOpen()) {
+        throw new ClosedSelectorException();
+      }
+    }
+    this.readyKeys.clear();
+    return count;
+  }
+
+  private void processCancelledKeys() {
+    Set<SelectionKey> cancelledKeys = cancelledKeys();
+    synchronized (cancelledKeys) {
+      for (SelectionKey cancelled : cancelledKeys) {
+        var key = (Key) cancelled;
+        this.keys.remove(key);
+        markUpdated(key);
+      }
+      cancelledKeys.clear();
+    }
+  }
+
+  // Submits the operations the updated keys need, and collects the ready ones
+  private void prepareUpdatedKeys() throws IOException {
+    if (!this.isWakeupArmed && isOpen()) {
+      this.ring.prepare(
+          IoUring.IORING_OP_READ,
+          this.wakeupFd,
+          this.wakeupReadBuffer.address(),
+          Long.BYTES,
+          OP_WAKEUP);
+      this.isWakeupArmed = true;
+    }
+    Key key;
+    while ((key = this.updatedKeys.poll()) != null) {
+      key.isUpdated = false;
+      prepare(key);
+    }
+  }
+
+  private void prepare(Key key) throws IOException {
+    Socket socket = key.socket;
+    if (!key.isValid() || !socket.isOpen) {
+      if (socket.isRecvInFlight && !socket.isRecvCancelled) {
+        this.ring.prepare(
+            IoUring.IORING_OP_ASYNC_CANCEL,
+            -1,
+            userData(key.slot, OP_RECV),
+            0,
+            userData(key.slot, OP_CANCEL));
+        socket.isRecvCancelled = true;
+      }
+    } else if ((key.interestOps & SelectionKey.OP_READ) != 0
+        && !socket.isRecvInFlight
+        && !socket.hasReadable()) {
+      socket.recvStart = 0;
+      socket.recvEnd = 0;
+      this.ring.prepare(
+          IoUring.IORING_OP_RECV,
+          key.fd,
+          socket.recvBuffer.address(),
+          RECV_BUFFER_SIZE,
+          userData(key.slot, OP_RECV));
+      socket.isRecvInFlight = true;
+    }
+    if (!socket.isSendInFlight && socket.sendErrno == 0 && socket.sendEnd > socket.sendStart) {
+      this.ring.prepare(
+          IoUring.IORING_OP_SEND,
+          key.fd,
+          socket.sendBuffer.address() + socket.sendStart,
+          socket.sendEnd - socket.sendStart,
+          userData(key.slot, OP_SEND));
+      socket.isSendInFlight = true;
+    }
+    if (!socket.isOpen && !socket.isRecvInFlight && !socket.isSendInFlight) {
+      if (!socket.hasUnsentBytes() || socket.sendErrno != 0 || !isOpen()) {
+        release(key);
+      }
+      return;
+    }
+    if (!key.isValid()) {
+      return;
+    }
+    int readyOps = 0;
+    if ((key.interestOps & SelectionKey.OP_READ) != 0 && socket.hasReadable()) {
+      readyOps |= SelectionKey.OP_READ;
+    }
+    if ((key.interestOps & SelectionKey.OP_WRITE) != 0 && socket.hasWritable()) {
+      readyOps |= SelectionKey.OP_WRITE;
+    }
+    key.readyOps = readyOps;
+    if (readyOps != 0 && !key.isReady) {
+      key.isReady = true;
+      this.readyKeys.add(key);
+    }
+  }
+
+  private void complete(long userData, int result) {
+    int op = (int) (userData & 3);
+    if (op == OP_CANCEL) {
+      return;
+    }
+    if (op == OP_WAKEUP) {
+      this.isWakeupArmed = false;
+      this.isWakeupPending.set(false);
+      return;
+    }
+    Key key = this.slots[(int) (userData >>> 2)];
+    Socket socket = key.socket;
+    if (op == OP_RECV) {
+      socket.isRecvInFlight = false;
+      if (result > 0) {
+        socket.recvEnd = result;
+      } else if (result == 0) {
+        socket.isEof = true;
+      } else if (result != -ECANCELED && result != -EAGAIN) {
+        socket.recvErrno = -result;
+      }
+    } else {
+      socket.isSendInFlight = false;
+      if (result >= 0) {
+        socket.sendStart += result;
+        if (socket.sendStart == socket.sendEnd) {
+          socket.sendStart = 0;
+          socket.sendEnd = 0;
+        }
+      } else if (result != -ECANCELED && result != -EAGAIN) {
+        socket.sendErrno = -result;
+      }
+    }
+    markUpdated(key);
+  }
+
+  private void markUpdated(Key key) {
+    if (!key.isUpdated) {
+      key.isUpdated = true;
+      this.updatedKeys.add(key);
+    }
+  }
+
+  private boolean hasInFlightOperations() {
+    for (Key key : this.slots) {
+      if (key != null && (key.socket.isRecvInFlight || key.socket.isSendInFlight)) {
+        return true;
+      }
+    }
+    return this.isWakeupArmed;
+  }
+
+  // Frees the key's slot and buffers once no operation refers to them, and closes its channel
+  private void release(Key key) {
+    if (this.slots[key.slot] != key) {
+      return;
+    }
+    this.slots[key.slot] = null;
+    this.freeSlots.push(key.slot);
+    key.socket.arena.close();
+    closeQuietly(key.channel);
+  }
+
+  private static void closeQuietly(SocketChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      logger.warn("Exception occurred during closing the connection {}!", channel, e);
+    }
+  }
+
+  private static long userData(int slot, int op) {
+    return ((long) slot << 2) | op;
+  }
+
+  // endregion
+
+  // sun.nio.ch.SelChImpl#getFDVal, null if sun.nio.ch isn't exported to this module
+  private static MethodHandle fdValHandle() {
+    try {
+      Class<?> selChImpl = Class.forName("sun.nio.ch.SelChImpl");
+      return MethodHandles.lookup()
+          .findVirtual(selChImpl, "getFDVal", MethodType.methodType(int.class));
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  /** Selection key of a channel registered with an {@link IoUringSelector}. */
+  static final class Key extends AbstractSelectionKey {
+    private final SocketChannel channel;
+    private final int fd;
+    private volatile int interestOps;
+    private boolean isReady = false;
+    private boolean isUpdated = false;
+    private int readyOps = 0;
+    private final IoUringSelector selector;
+    private final int slot;
+    private final Socket socket;
+
+    private Key(IoUringSelector selector, SocketChannel channel, int fd, int slot) {
+      this.selector = selector;
+      this.channel = channel;
+      this.fd = fd;
+      this.slot = slot;
+      this.socket = new Socket(this);
+    }
+
+    /**
+     * Returns the channel to read from, write to and close the registered channel with.
+     *
+     * @return channel backed by the ring's buffers
+     */
+    Socket socket() {
+      return this.socket;
+    }
+
+    @Override
+    public SelectableChannel channel() {
+      return this.channel;
+    }
+
+    @Override
+    public Selector selector() {
+      return this.selector;
+    }
+
+    @Override
+    public int interestOps() {
+      if (!isValid()) {
+        throw new CancelledKeyException();
+      }
+      return this.interestOps;
+    }
+
+    @Override
+    public SelectionKey interestOps(int ops) {
+      if (!isValid()) {
+        throw new CancelledKeyException();
+      }
+      if ((ops & ~(SelectionKey.OP_READ | SelectionKey.OP_WRITE)) != 0) {
+        throw new IllegalArgumentException("Invalid interest ops: " + ops);
+      }
+      this.interestOps = ops;
+      this.selector.markUpdated(this);
+      return this;
+    }
+
+    @Override
+    public int readyOps() {
+      if (!isValid()) {
+        throw new CancelledKeyException();
+      }
+      return this.readyOps;
+    }
+  }
+
+  /**
+   * Channel of a registered connection, backed by the native buffers the ring reads into and sends
+   * from.
+   */
+  static final class Socket implements ByteChannel, GatheringByteChannel {
+    private final Arena arena = Arena.ofShared();
+    private boolean isEof = false;
+    private boolean isOpen = true;
+    private boolean isRecvCancelled = false;
+    private boolean isRecvInFlight = false;
+    private boolean isSendInFlight = false;
+    private final Key key;
+    private final MemorySegment recvBuffer;
+    private int recvEnd = 0;
+    private int recvErrno = 0;
+    private int recvStart = 0;
+    private MemorySegment sendBuffer; // Allocated on the first write
+    private int sendEnd = 0;
+    private int sendErrno = 0;
+    private int sendStart = 0;
+
+    private Socket(Key key) {
+      this.key = key;
+      this.recvBuffer = this.arena.allocate(RECV_BUFFER_SIZE, Long.BYTES);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (!this.isOpen) {
+        throw new ClosedChannelException();
+      }
+      int available = this.recvEnd - this.recvStart;
+      if (available > 0) {
+        int length = Math.min(available, dst.remaining());
+        MemorySegment.copy(this.recvBuffer, this.recvStart, MemorySegment.ofBuffer(dst), 0, length);
+        dst.position(dst.position() + length);
+        this.recvStart += length;
+        if (this.recvStart == this.recvEnd) {
+          this.key.selector.markUpdated(this.key); // To arm the next RECV
+        }
+        return length;
+      }
+      if (this.recvErrno != 0) {
+        throw new IOException("recv failed, errno: " + this.recvErrno);
+      }
+      return this.isEof ? -1 : 0;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return (int) write(new ByteBuffer[] {src}, 0, 1);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+      return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      if (!this.isOpen) {
+        throw new ClosedChannelException();
+      }
+      if (this.sendErrno != 0) {
+        throw new IOException("send failed, errno: " + this.sendErrno);
+      }
+      if (this.sendBuffer == null) {
+        this.sendBuffer = this.arena.allocate(SEND_BUFFER_SIZE, Long.BYTES);
+      }
+      if (!this.isSendInFlight && this.sendStart > 0) {
+        // Compacts the unsent bytes, the in-flight ones must stay where they are
+        MemorySegment.copy(
+            this.sendBuffer, this.sendStart, this.sendBuffer, 0, this.sendEnd - this.sendStart);
+        this.sendEnd -= this.sendStart;
+        this.sendStart = 0;
+      }
+      long written = 0;
+      for (int i = offset; i < offset + length && this.sendEnd < SEND_BUFFER_SIZE; i++) {
+        ByteBuffer src = srcs[i];
+        int chunk = Math.min(src.remaining(), SEND_BUFFER_SIZE - this.sendEnd);
+        MemorySegment.copy(MemorySegment.ofBuffer(src), 0, this.sendBuffer, this.sendEnd, chunk);
+        src.position(src.position() + chunk);
+        this.sendEnd += chunk;
+        written += chunk;
+      }
+      if (written > 0) {
+        this.key.selector.markUpdated(this.key);
+      }
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return this.isOpen;
+    }
+
+    /**
+     * Closes {@code this} channel. The pending {@code RECV} is cancelled, and the registered
+     * channel is closed once the buffered bytes are sent.
+     */
+    @Override
+    public void close() {
+      if (this.key.selector.isOpen()) {
+        close0();
+      }
+    }
+
+    private void close0() {
+      if (this.isOpen) {
+        this.isOpen = false;
+        this.key.selector.markUpdated(this.key);
+      }
+    }
+
+    private boolean hasReadable() {
+      return this.recvEnd > this.recvStart || this.isEof || this.recvErrno != 0;
+    }
+
+    private boolean hasWritable() {
+      if (this.sendErrno != 0 || this.sendBuffer == null) {
+        return true;
+      }
+      int room = SEND_BUFFER_SIZE - this.sendEnd;
+      return room > 0 || (!this.isSendInFlight && this.sendStart > 0);
+    }
+
+    private boolean hasUnsentBytes() {
+      return this.sendEnd > this.sendStart;
+    }
+  }
+}
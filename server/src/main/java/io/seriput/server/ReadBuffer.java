@@ -0,0 +1,90 @@
+package io.seriput.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Direct buffer which a connection reads into, shared with the request frames sliced out of it.
+ *
+ * <p>The connection holds a reference while it reads into the buffer, and each dispatched frame
+ * holds one until it's handled. A pooled buffer goes back to its pool once all of them are
+ * released.
+ */
+final class ReadBuffer {
+  private final ReadBufferPool pool; // Null if not pooled
+  private final ByteBuffer buffer;
+  private final AtomicInteger refCount = new AtomicInteger(1);
+
+  /**
+   * Creates a read buffer of {@link ReadBufferPool#BUFFER_SIZE} bytes taken from the given pool.
+   *
+   * @param pool pool to take the buffer from
+   */
+  ReadBuffer(ReadBufferPool pool) {
+    this.pool = pool;
+    this.buffer = pool.take();
+  }
+
+  /**
+   * Creates a read buffer of the given {@code capacity} which isn't pooled, for a frame too large
+   * for a pooled one. It's left to the GC once released, so that a buffer of up to the max frame
+   * size is never kept around.
+   *
+   * @param capacity buffer capacity
+   */
+  ReadBuffer(int capacity) {
+    this.pool = null;
+    this.buffer = ByteBuffer.allocateDirect(capacity);
+  }
+
+  ByteBuffer buffer() {
+    return this.buffer;
+  }
+
+  /**
+   * Slices a request frame out of {@code this} buffer without copying, the frame holds a reference
+   * to {@code this} buffer until it's released.
+   *
+   * @param connection connection the frame was read from
+   * @param index absolute index of the frame's first byte
+   * @param length frame size
+   * @return request frame
+   */
+  RequestFrame slice(SeriputConnection connection, int index, int length) {
+    return slice(connection, index, length, RequestFrame.UNTAGGED, RequestFrame.NO_DEADLINE);
+  }
+
+  /**
+   * Slices a request frame tagged with the given {@code requestId} out of {@code this} buffer.
+   *
+   * @param connection connection the frame was read from
+   * @param index absolute index of the frame's first byte, after the request ID prefix
+   * @param length frame size, excluding the request ID prefix
+   * @param requestId request ID the frame was prefixed with, or {@link RequestFrame#UNTAGGED}
+   * @param deadlineNanos deadline of the frame, or {@link RequestFrame#NO_DEADLINE}
+   * @return request frame
+   */
+  RequestFrame slice(
+      SeriputConnection connection, int index, int length, long requestId, long deadlineNanos) {
+    this.refCount.incrementAndGet();
+    return new RequestFrame(
+        connection, this.buffer.slice(index, length), this, requestId, deadlineNanos);
+  }
+
+  /**
+   * Returns whether any frame sliced out of {@code this} buffer is still in use, in that case the
+   * buffer mustn't be compacted or cleared.
+   *
+   * @return {@code true} if there is any frame not released yet
+   */
+  boolean isShared() {
+    return this.refCount.get() > 1;
+  }
+
+  /** Releases a reference, the buffer goes back to its pool, if any, with the last one. */
+  void release() {
+    if (this.refCount.decrementAndGet() == 0 && this.pool != null) {
+      this.pool.offer(this.buffer);
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.seriput.server;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of the direct buffers of a single size which the connections of an event loop read into.
+ *
+ * <p>It's kept apart from the allocator of the response buffers, so that a read buffer is never
+ * handed out as a small response nor dropped for being too small for the next read. A read buffer
+ * is taken by the event loop but may be given back by any worker releasing its last frame, and the
+ * number of the pooled buffers is capped, the ones given back beyond are left to the GC.
+ */
+final class ReadBufferPool {
+  // TODO: 8KB buffer, make configurable
+  static final int BUFFER_SIZE = 8192;
+  // 2 MiB of idle buffers per event loop at most
+  private static final int MAX_POOLED_BUFFERS = 256;
+
+  private final Queue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+  /**
+   * Takes a cleared buffer of {@link #BUFFER_SIZE} bytes from the pool, or allocates one if the
+   * pool is empty.
+   *
+   * @return read buffer
+   */
+  ByteBuffer take() {
+    ByteBuffer buffer = this.pool.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+    this.pooledBuffers.decrementAndGet();
+    return buffer.clear();
+  }
+
+  /**
+   * Gives the given {@code buffer} taken by {@link #take()} back to the pool.
+   *
+   * @param buffer buffer to give back
+   */
+  void offer(ByteBuffer buffer) {
+    if (this.pooledBuffers.incrementAndGet() > MAX_POOLED_BUFFERS) {
+      this.pooledBuffers.decrementAndGet();
+      return;
+    }
+    this.pool.offer(buffer);
+  }
+}
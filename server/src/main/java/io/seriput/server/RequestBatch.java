@@ -0,0 +1,56 @@
+package io.seriput.server;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Untagged request frames a worker has taken off a connection's inbound queue to handle in a
+ * single pass with {@link RequestHandler#handleBatch(ByteBuffer[], ByteBuffer[], int)}.
+ *
+ * <p>Reused across the passes of the same worker, so it must not be shared between threads.
+ */
+final class RequestBatch {
+  private final RequestFrame[] frames;
+  // Payloads of the frames to handle and their responses, at the same indexes
+  private final ByteBuffer[] payloads;
+  private final ByteBuffer[] responses;
+  private int size = 0;
+
+  RequestBatch(int capacity) {
+    this.frames = new RequestFrame[capacity];
+    this.payloads = new ByteBuffer[capacity];
+    this.responses = new ByteBuffer[capacity];
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  boolean isFull() {
+    return this.size == this.frames.length;
+  }
+
+  RequestFrame frame(int index) {
+    return this.frames[index];
+  }
+
+  ByteBuffer[] payloads() {
+    return this.payloads;
+  }
+
+  ByteBuffer[] responses() {
+    return this.responses;
+  }
+
+  void add(RequestFrame frame) {
+    this.frames[this.size++] = frame;
+  }
+
+  /** Drops the references to the frames, their payloads and responses of the last pass. */
+  void clear() {
+    Arrays.fill(this.frames, 0, this.size, null);
+    Arrays.fill(this.payloads, 0, this.size, null);
+    Arrays.fill(this.responses, 0, this.size, null);
+    this.size = 0;
+  }
+}
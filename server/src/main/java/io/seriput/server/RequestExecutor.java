@@ -0,0 +1,63 @@
+package io.seriput.server;
+
+import java.time.Duration;
+
+/**
+ * Decides on which thread the request frames read from a {@link SeriputConnection} are handled.
+ *
+ * <p>Implementations must handle the untagged frames of a single connection one at a time and in
+ * the order they were read, so that the responses are written in the request order. Tagged frames,
+ * read in protocol v2, may be handled concurrently and in any order.
+ */
+sealed interface RequestExecutor
+    permits ThreadPerConnectionExecutor, ShardedRequestExecutor, RunToCompletionExecutor {
+  /**
+   * Creates the {@code RequestExecutor} of the execution model configured in given {@code config}.
+   *
+   * @param config server configuration
+   * @return created {@code RequestExecutor}
+   */
+  static RequestExecutor create(SeriputServerConfig config) {
+    return switch (config.executionModel()) {
+      case THREAD_PER_CONNECTION -> new ThreadPerConnectionExecutor();
+      case SHARDED ->
+          new ShardedRequestExecutor(config.workerShardCount(), config.waitStrategy().isPolling());
+      case RUN_TO_COMPLETION ->
+          new RunToCompletionExecutor(
+              new ShardedRequestExecutor(
+                  config.workerShardCount(), config.waitStrategy().isPolling()));
+    };
+  }
+
+  /** Starts the worker threads shared by the connections, if any. */
+  default void start() {}
+
+  /**
+   * Registers the given newly accepted {@code connection}. Called on the event loop's thread.
+   *
+   * @param connection connection to register
+   */
+  void register(SeriputConnection connection);
+
+  /**
+   * Dispatches the given request {@code frame} read from the given {@code connection} to be
+   * handled. Called on the event loop's thread.
+   *
+   * @param connection connection the frame was read from
+   * @param frame full request frame
+   */
+  void dispatch(SeriputConnection connection, RequestFrame frame);
+
+  /**
+   * Stops handling the frames of the given closing {@code connection}. Called on the event loop's
+   * thread.
+   *
+   * @param connection connection being closed
+   * @param timeout how long to wait for the request being handled to finish, if any
+   * @throws InterruptedException if interrupted while waiting
+   */
+  void deregister(SeriputConnection connection, Duration timeout) throws InterruptedException;
+
+  /** Stops the worker threads shared by the connections, if any. */
+  default void close() throws InterruptedException {}
+}
@@ -0,0 +1,55 @@
+package io.seriput.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A full request frame read from a connection.
+ *
+ * @param connection connection the frame was read from
+ * @param payload view of the v1 frame in the read buffer it was read into
+ * @param source read buffer the frame was sliced out of
+ * @param requestId request ID the frame was prefixed with in protocol v2, or {@link #UNTAGGED}
+ * @param deadlineNanos {@link System#nanoTime()} after which the frame isn't handled anymore, or
+ *     {@link #NO_DEADLINE}
+ */
+record RequestFrame(
+    SeriputConnection connection,
+    ByteBuffer payload,
+    ReadBuffer source,
+    long requestId,
+    long deadlineNanos) {
+  // Request ID of the frames read in protocol v1, which are responded in order
+  static final long UNTAGGED = -1;
+  static final long NO_DEADLINE = 0;
+
+  RequestFrame(SeriputConnection connection, ByteBuffer payload, ReadBuffer source) {
+    this(connection, payload, source, UNTAGGED, NO_DEADLINE);
+  }
+
+  int size() {
+    return this.payload.capacity();
+  }
+
+  /**
+   * Returns whether the frame carries a request ID, in which case it can be handled and responded
+   * out of order.
+   */
+  boolean isTagged() {
+    return this.requestId != UNTAGGED;
+  }
+
+  /**
+   * Returns whether the frame's deadline has passed, in which case it's responded without being
+   * handled.
+   *
+   * @param nowNanos current {@link System#nanoTime()}
+   */
+  boolean isExpired(long nowNanos) {
+    return this.deadlineNanos != NO_DEADLINE && nowNanos - this.deadlineNanos > 0;
+  }
+
+  /** Releases the frame's reference to its read buffer, the payload mustn't be used afterward. */
+  void release() {
+    this.source.release();
+  }
+}
@@ -7,10 +7,39 @@ public interface RequestHandler {
   /**
    * Handles the given request payload and returns the response payload.
    *
-   * @param requestPayload request payload sent by the Seriput client
+   * <p>The payload is a view of the connection's read buffer, it's valid only until this method
+   * returns. Implementations must copy whatever they keep beyond that, and must not mutate it.
+   *
+   * @param requestPayload request payload sent by the Seriput client, from its position to its
+   *     limit
    * @return server response
    * @implNote Note that, this method must not throw any exception! It should handle if there was an
    *     exception and return {@code INTERNAL_ERROR} response!
    */
-  ByteBuffer handle(byte[] requestPayload);
+  ByteBuffer handle(ByteBuffer requestPayload);
+
+  /**
+   * Handles the given request payloads in order and puts their responses at the same indexes of
+   * {@code responses}.
+   *
+   * <p>A worker calls this with all the frames it has taken off a connection's inbound queue at
+   * once, so that the per-request costs can be amortized across the pipelined requests. The same
+   * rules as {@link #handle(ByteBuffer)} apply to each payload, and a payload whose handling throws
+   * must not fail the others: its response is {@code INTERNAL_ERROR}, or left {@code null} for the
+   * connection to respond so. By default, they're simply handled one by one.
+   *
+   * @param requestPayloads request payloads sent by the Seriput client, valid only until this
+   *     method returns
+   * @param responses array to put the server responses into
+   * @param count number of request payloads, starting from index 0
+   */
+  default void handleBatch(ByteBuffer[] requestPayloads, ByteBuffer[] responses, int count) {
+    for (int i = 0; i < count; i++) {
+      try {
+        responses[i] = handle(requestPayloads[i]);
+      } catch (RuntimeException e) {
+        responses[i] = null;
+      }
+    }
+  }
 }
@@ -1,50 +1,147 @@
 package io.seriput.server;
 
 import io.seriput.server.core.Cache;
+import io.seriput.server.core.KeyType;
+import io.seriput.server.core.Value;
+import io.seriput.server.exception.ProtocolViolationException;
 import io.seriput.server.serialization.request.DeleteRequest;
 import io.seriput.server.serialization.request.GetRequest;
+import io.seriput.server.serialization.request.HelloRequest;
 import io.seriput.server.serialization.request.PutRequest;
+import io.seriput.server.serialization.request.Request;
 import io.seriput.server.serialization.request.RequestDeserializer;
 import io.seriput.server.serialization.response.ResponseSerializer;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 final class RequestHandlerImpl implements RequestHandler {
-  private final Cache cache = new Cache();
+  private static final Logger logger = LogManager.getLogger(RequestHandlerImpl.class);
+
+  private final Cache cache;
   private final ArrayList<RequestInterceptor> interceptors = new ArrayList<>();
   private final ResponseSerializer responseSerializer;
 
   RequestHandlerImpl(ResponseSerializer responseSerializer, List<RequestInterceptor> interceptors) {
+    this(responseSerializer, interceptors, new Cache());
+  }
+
+  RequestHandlerImpl(
+      ResponseSerializer responseSerializer, List<RequestInterceptor> interceptors, Cache cache) {
     this.responseSerializer = responseSerializer;
     this.interceptors.addAll(interceptors);
+    this.cache = cache;
   }
 
+  /**
+   * Handles the given request payload. A {@code GET} request's key is looked up in place, by its
+   * bytes in the payload, without deserializing the request.
+   */
   @Override
-  public ByteBuffer handle(byte[] requestPayload) {
-    var deserialized = RequestDeserializer.deserialize(requestPayload);
+  public ByteBuffer handle(ByteBuffer requestPayload) {
+    boolean isGet = RequestDeserializer.isGet(requestPayload);
+    KeyType getKeyType = null;
+    Request deserialized = null;
+    try {
+      if (isGet) {
+        getKeyType = RequestDeserializer.getKeyType(requestPayload);
+      } else {
+        deserialized = RequestDeserializer.deserialize(requestPayload);
+      }
+    } catch (ProtocolViolationException e) {
+      logger.debug("Invalid request received: {}", e.getMessage());
+      return responseSerializer.invalidRequest();
+    }
     this.interceptors.forEach(i -> i.before(requestPayload));
-    var response =
-        switch (deserialized) {
-          case GetRequest getRequest -> get(getRequest);
-          case PutRequest putRequest -> put(putRequest);
-          case DeleteRequest deleteRequest -> delete(deleteRequest);
-        };
+    var response = isGet ? toResponse(get(requestPayload, getKeyType)) : handle(deserialized);
     this.interceptors.forEach(i -> i.after(requestPayload, response));
     return response;
   }
 
-  private ByteBuffer get(GetRequest request) {
-    var value = cache.get(request.key());
-    if (value == null) {
-      return responseSerializer.notFound();
-    } else {
-      return responseSerializer.ok(value);
+  /**
+   * Handles the given request payloads one after the other, with the interceptors skipped
+   * altogether if there is none, and the value of a key read back-to-back by the consecutive
+   * {@code GET}s looked up only once. The {@code GET} requests' keys are looked up in place. A
+   * request whose handling throws is responded with {@code INTERNAL_ERROR}, without failing the
+   * others.
+   */
+  @Override
+  public void handleBatch(ByteBuffer[] requestPayloads, ByteBuffer[] responses, int count) {
+    boolean isIntercepted = !this.interceptors.isEmpty();
+    // Payload of the last GET and its value, as long as no write followed it in the batch
+    ByteBuffer lastGet = null;
+    Value lastValue = null;
+    for (int i = 0; i < count; i++) {
+      ByteBuffer requestPayload = requestPayloads[i];
+      boolean isGet = RequestDeserializer.isGet(requestPayload);
+      KeyType getKeyType = null;
+      Request deserialized = null;
+      try {
+        if (isGet) {
+          getKeyType = RequestDeserializer.getKeyType(requestPayload);
+        } else {
+          deserialized = RequestDeserializer.deserialize(requestPayload);
+        }
+      } catch (ProtocolViolationException e) {
+        logger.debug("Invalid request received: {}", e.getMessage());
+        responses[i] = responseSerializer.invalidRequest();
+        continue;
+      }
+      try {
+        if (isIntercepted) {
+          this.interceptors.forEach(interceptor -> interceptor.before(requestPayload));
+        }
+        ByteBuffer response;
+        if (isGet) {
+          if (lastGet == null || !RequestDeserializer.hasSameKey(requestPayload, lastGet)) {
+            lastValue = get(requestPayload, getKeyType);
+            lastGet = requestPayload; // Once its value is looked up
+          }
+          response = toResponse(lastValue);
+        } else {
+          lastGet = null;
+          response = handle(deserialized);
+        }
+        if (isIntercepted) {
+          this.interceptors.forEach(interceptor -> interceptor.after(requestPayload, response));
+        }
+        responses[i] = response;
+      } catch (RuntimeException e) {
+        logger.error("Exception occurred during handling the request!", e);
+        responses[i] = responseSerializer.internalError();
+      }
     }
   }
 
+  private ByteBuffer handle(Request request) {
+    return switch (request) {
+      case GetRequest getRequest -> get(getRequest);
+      case PutRequest putRequest -> put(putRequest);
+      case DeleteRequest deleteRequest -> delete(deleteRequest);
+      case HelloRequest helloRequest -> hello(helloRequest);
+    };
+  }
+
+  private ByteBuffer get(GetRequest request) {
+    return toResponse(cache.get(request.key()));
+  }
+
+  private Value get(ByteBuffer requestPayload, KeyType keyType) {
+    return cache.get(
+        keyType,
+        requestPayload,
+        RequestDeserializer.keyOffset(requestPayload),
+        RequestDeserializer.keyLength(requestPayload));
+  }
+
+  private ByteBuffer toResponse(Value value) {
+    return value == null ? responseSerializer.notFound() : responseSerializer.ok(value);
+  }
+
   private ByteBuffer put(PutRequest request) {
-    cache.put(request.key(), request.value());
+    cache.put(request.key(), request.value(), request.ttlMillis());
     return responseSerializer.ok();
   }
 
@@ -56,4 +153,13 @@ final class RequestHandlerImpl implements RequestHandler {
       return responseSerializer.ok();
     }
   }
+
+  private ByteBuffer hello(HelloRequest request) {
+    // The connection has already switched to the requested version if it's supported
+    if (RequestDeserializer.isSupportedVersion(request.version())) {
+      return responseSerializer.ok();
+    } else {
+      return responseSerializer.invalidRequest();
+    }
+  }
 }
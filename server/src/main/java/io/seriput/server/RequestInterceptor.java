@@ -12,15 +12,15 @@ interface RequestInterceptor {
   /**
    * Intercepts the given request payload before processing.
    *
-   * @param requestPayload raw bytes of the request payload
+   * @param requestPayload request payload, a view of the connection's read buffer
    */
-  void before(byte[] requestPayload);
+  void before(ByteBuffer requestPayload);
 
   /**
    * Intercepts the given request payload after processing.
    *
-   * @param requestPayload raw bytes of the request payload
+   * @param requestPayload request payload, a view of the connection's read buffer
    * @param responsePayload raw bytes of the response payload
    */
-  void after(byte[] requestPayload, ByteBuffer responsePayload);
+  void after(ByteBuffer requestPayload, ByteBuffer responsePayload);
 }
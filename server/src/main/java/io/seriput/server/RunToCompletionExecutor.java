@@ -0,0 +1,54 @@
+package io.seriput.server;
+
+import io.seriput.server.serialization.request.RequestDeserializer;
+import java.time.Duration;
+
+/**
+ * Handles tiny {@code GET} frames directly on the event loop's thread, and dispatches the rest to a
+ * fallback executor.
+ *
+ * <p>A frame is only handled inline while its connection is idle, i.e. no earlier frame of it is
+ * still queued or being handled by the fallback executor, so that the response order is kept.
+ */
+final class RunToCompletionExecutor implements RequestExecutor {
+  // Max size of a GET frame to be handled on the event loop's thread
+  static final int MAX_INLINE_FRAME_SIZE = 256;
+
+  private final RequestExecutor fallback;
+
+  RunToCompletionExecutor(RequestExecutor fallback) {
+    this.fallback = fallback;
+  }
+
+  @Override
+  public void start() {
+    this.fallback.start();
+  }
+
+  @Override
+  public void register(SeriputConnection connection) {
+    this.fallback.register(connection);
+  }
+
+  @Override
+  public void dispatch(SeriputConnection connection, RequestFrame frame) {
+    if (frame.size() <= MAX_INLINE_FRAME_SIZE
+        && RequestDeserializer.isGet(frame.payload())
+        && connection.isIdle()) {
+      connection.handleInline(frame);
+    } else {
+      this.fallback.dispatch(connection, frame);
+    }
+  }
+
+  @Override
+  public void deregister(SeriputConnection connection, Duration timeout)
+      throws InterruptedException {
+    this.fallback.deregister(connection, timeout);
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    this.fallback.close();
+  }
+}
@@ -4,17 +4,24 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
 import java.nio.channels.SocketChannel;
 
 /**
  * Represents the identifier for each Seriput clients.
  *
- * @param address client address
- * @param port client address port
+ * @param address client address, the loopback address for the Unix domain socket clients
+ * @param port client address port, {@link #UNIX_DOMAIN_SOCKET_PORT} for the Unix domain socket
+ *     clients, which have no address of their own
  */
 record SeriputClient(InetAddress address, int port) {
+  static final int UNIX_DOMAIN_SOCKET_PORT = -1;
+
   static SeriputClient from(SocketChannel channel) throws IOException {
     SocketAddress address = channel.getRemoteAddress();
+    if (address instanceof UnixDomainSocketAddress) {
+      return new SeriputClient(InetAddress.getLoopbackAddress(), UNIX_DOMAIN_SOCKET_PORT);
+    }
     if (!(address instanceof InetSocketAddress inet)) {
       throw new IllegalStateException("Unexpected SocketAddress: " + address.getClass().getName());
     }
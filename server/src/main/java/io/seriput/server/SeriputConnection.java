@@ -1,47 +1,115 @@
 package io.seriput.server;
 
 import static io.seriput.server.serialization.request.RequestDeserializer.bodySize;
+import static io.seriput.server.serialization.request.RequestDeserializer.PROTOCOL_V1;
+import static io.seriput.server.serialization.request.RequestDeserializer.PROTOCOL_V2;
 import static io.seriput.server.serialization.request.RequestDeserializer.headerSize;
+import static io.seriput.server.serialization.request.RequestDeserializer.helloVersion;
+import static io.seriput.server.serialization.request.RequestDeserializer.isSupportedVersion;
+import static io.seriput.server.serialization.request.RequestDeserializer.requestIdSize;
 
+import io.seriput.common.HashedWheelTimer;
+import io.seriput.common.MpscRingQueue;
 import io.seriput.common.PooledByteBufferAllocator;
+import io.seriput.common.SpinParkWaitStrategy;
+import io.seriput.common.SpscRingQueue;
 import java.io.IOException;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SelectionKey;
-import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
  * Manages a single Seriput connection lifecycle.
  *
- * <p>Note that this class is NOT thread-safe, and it is designed to be used within the event loop.
+ * <p>It's used by several threads, each owning its own part of the state as the field comments
+ * tell:
+ *
+ * <ul>
+ *   <li>The event loop reads from the connection, so the read buffers, the frame being assembled
+ *       or discarded and the idle timeout are its own. It's the producer of the inbound queue.
+ *   <li>The workers handle the dispatched frames, the one handling the untagged frames at a time
+ *       being the consumer of the inbound queue. Any of them produces to the outbound queue.
+ *   <li>The holder of {@code isWriting}, the event loop or a worker writing directly, consumes the
+ *       outbound queue and owns the write batch.
+ * </ul>
+ *
+ * <p>The state shared by them, such as the lifecycle state, the counters of the pending requests
+ * and the scheduling flags, is kept in atomics or volatile fields.
  */
 final class SeriputConnection {
   private static final Logger logger = LogManager.getLogger(SeriputConnection.class.getName());
+  // Max number of slots of the inbound and outbound rings, they spill over beyond
+  private static final int MAX_RING_CAPACITY = 256;
 
   // region Fields
   private final PooledByteBufferAllocator allocator;
   private final SeriputClient client;
   private final int clientConnectionIx;
   private final ByteChannel connection;
-  private final Queue<byte[]> frameBufferPool = new ConcurrentLinkedQueue<>();
-  private final BlockingQueue<byte[]> inboundQueue = new LinkedBlockingQueue<>();
+  private final EventLoop eventLoop;
+  private final AtomicLong inboundBytes = new AtomicLong();
+  // Number of frames dispatched but not taken by a worker yet, whether queued here or elsewhere
+  private final AtomicInteger inboundFrames = new AtomicInteger();
+  // Produced by the event loop, consumed by the worker handling the connection's untagged frames
+  private final SpillingQueue<RequestFrame> inboundQueue;
+  // Used by the worker only, null to park right away when the inbound queue is empty
+  private final SpinParkWaitStrategy inboundBackoff;
+  // Worker parked in takeInbound(), if any
+  private volatile Thread inboundTaker;
+  // Frame larger than readBuffer being assembled, if any
+  private ReadBuffer largeFrame;
+  // Remaining body bytes of a rejected frame to skip
+  private long bytesToDiscard = 0;
+  private HashedWheelTimer.Timeout idleTimeout; // Used by the event loop only
+  // Whether a worker may write a response itself, only a SocketChannel can be written to from
+  // any thread
+  private final boolean isDirectWriteEnabled;
   private final AtomicBoolean isEnqueued = new AtomicBoolean(false);
-  private final Queue<ByteBuffer> outboundQueue = new ConcurrentLinkedQueue<>();
-  // TODO: 8KB buffer, make configurable
-  private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+  private final AtomicBoolean isReadPaused = new AtomicBoolean(false);
+  private final AtomicBoolean isReadResumeEnqueued = new AtomicBoolean(false);
+  private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+  // Held while writing to the connection, by the event loop or by a worker writing directly
+  private final AtomicBoolean isWriting = new AtomicBoolean(false);
+  // Last time data was read from or written to the connection
+  private volatile long lastActivityNanos = System.nanoTime();
+  private final int maxFrameSize;
+  private final int maxInboundFrames;
+  private final long maxInboundBytes;
+  private final long maxWriteBatchBytes;
+  // Produced by the workers, consumed by the holder of isWriting
+  private final SpillingQueue<ByteBuffer> outboundQueue;
+  private ReadBuffer readBuffer;
   private final RequestHandler requestHandler;
+  private final RequestExecutor requestExecutor;
+  private final long requestTimeoutNanos;
+  // Deadline of the frames dispatched by the ongoing read, used by the event loop only
+  private long readDeadlineNanos = RequestFrame.NO_DEADLINE;
+  // Number of requests read but not yet responded, i.e. queued or being handled
+  private final AtomicInteger pendingRequests = new AtomicInteger();
+  // Switched by a HELLO frame, written by the event loop only
+  private volatile int protocolVersion = PROTOCOL_V1;
   private final SelectionKey selectionKey;
   private final AtomicReference<State> state = new AtomicReference<>(State.OPEN);
-  private final Queue<SeriputConnection> writePendingConnections; // From SeriputServer
-  private final Thread workerThread;
+  private volatile long throttleCount = 0; // Written by the event loop only
+  private volatile long throttleStartNanos = 0; // Written by the event loop only
+  private volatile long throttledNanos = 0; // Written by the event loop only
+  private volatile Thread workerThread; // Only for ExecutionModel.THREAD_PER_CONNECTION
+  // Responses taken off the outbound queue but not fully written yet, used by the holder of
+  // isWriting only
+  private final ByteBuffer[] writeBatch;
+  private volatile int writeBatchSize = 0;
 
   // endregion
 
@@ -52,15 +120,31 @@ final class SeriputConnection {
       ByteChannel connection,
       RequestHandler requestHandler,
       SelectionKey selectionKey,
-      Queue<SeriputConnection> writePendingConnections) {
+      EventLoop eventLoop) {
     this.allocator = allocator;
     this.client = client;
     this.clientConnectionIx = clientConnectionIx;
     this.connection = connection;
+    this.eventLoop = eventLoop;
+    this.maxFrameSize = eventLoop.config().maxFrameSize();
+    this.maxInboundFrames = eventLoop.config().maxInboundFrames();
+    this.maxInboundBytes = eventLoop.config().maxInboundBytes();
+    this.maxWriteBatchBytes = eventLoop.config().maxWriteBatchBytes();
+    this.writeBatch = new ByteBuffer[eventLoop.config().maxWriteBatchBuffers()];
+    int ringCapacity = Math.min(this.maxInboundFrames, MAX_RING_CAPACITY);
+    this.inboundQueue = new SpillingQueue<>(new SpscRingQueue<>(ringCapacity));
+    this.outboundQueue = new SpillingQueue<>(new MpscRingQueue<>(ringCapacity));
+    // Spins a while before parking only if the event loops poll as well
+    this.inboundBackoff =
+        eventLoop.config().waitStrategy().isPolling() ? new SpinParkWaitStrategy() : null;
+    this.isDirectWriteEnabled =
+        eventLoop.config().directWrite() && connection instanceof SocketChannel;
     this.requestHandler = requestHandler;
+    this.requestExecutor = eventLoop.requestExecutor();
+    this.requestTimeoutNanos = eventLoop.config().requestTimeout().toNanos();
     this.selectionKey = selectionKey;
-    this.writePendingConnections = writePendingConnections;
-    this.workerThread = this.startWorkerThread();
+    this.readBuffer = new ReadBuffer(eventLoop.readBufferPool());
+    this.requestExecutor.register(this);
   }
 
   // region Getter & setters
@@ -68,6 +152,10 @@ final class SeriputConnection {
     return this.client;
   }
 
+  int clientConnectionIx() {
+    return this.clientConnectionIx;
+  }
+
   ByteChannel connection() {
     return this.connection;
   }
@@ -88,6 +176,32 @@ final class SeriputConnection {
     return this.state.get();
   }
 
+  /**
+   * Moves {@code this} connection to {@code CLOSING} if it's open, and queues it to be closed on
+   * the event loop's thread. Thread-safe.
+   */
+  void markClosing() {
+    if (this.state.compareAndSet(State.OPEN, State.CLOSING)) {
+      this.eventLoop.scheduleClose(this);
+    }
+  }
+
+  int protocolVersion() {
+    return this.protocolVersion;
+  }
+
+  long lastActivityNanos() {
+    return this.lastActivityNanos;
+  }
+
+  HashedWheelTimer.Timeout idleTimeout() {
+    return this.idleTimeout;
+  }
+
+  void idleTimeout(HashedWheelTimer.Timeout idleTimeout) {
+    this.idleTimeout = idleTimeout;
+  }
+
   void state(State state) {
     this.state.set(state);
   }
@@ -96,143 +210,735 @@ final class SeriputConnection {
     return this.workerThread;
   }
 
+  void workerThread(Thread workerThread) {
+    this.workerThread = workerThread;
+  }
+
+  /**
+   * Returns whether {@code this} connection has no request that's queued or being handled.
+   *
+   * @return {@code true} if there is no pending request
+   */
+  boolean isIdle() {
+    return this.pendingRequests.get() == 0;
+  }
+
+  boolean hasInbound() {
+    return !this.inboundQueue.isEmpty();
+  }
+
+  /**
+   * Marks {@code this} connection as scheduled to a worker.
+   *
+   * @return {@code true} if it wasn't scheduled already
+   */
+  boolean tryMarkScheduled() {
+    return this.isScheduled.compareAndSet(false, true);
+  }
+
+  void clearScheduled() {
+    this.isScheduled.set(false);
+  }
+
+  boolean isReadPaused() {
+    return this.isReadPaused.get();
+  }
+
+  /**
+   * Returns the number of requests read but not fully responded yet, i.e. queued, being handled or
+   * with a response not fully written. Must be called on the event loop's thread.
+   *
+   * @return number of in-flight requests
+   */
+  int inFlightRequests() {
+    return this.pendingRequests.get() + this.outboundQueue.size() + this.writeBatchSize;
+  }
+
+  /**
+   * Returns whether every request read has been fully responded. Must be called on the event
+   * loop's thread.
+   *
+   * @return {@code true} if there is no in-flight request
+   */
+  boolean isDrained() {
+    return isIdle() && this.outboundQueue.isEmpty() && this.writeBatchSize == 0;
+  }
+
+  /**
+   * Returns how many times reading from {@code this} connection was paused due to a full inbound
+   * queue.
+   */
+  long throttleCount() {
+    return this.throttleCount;
+  }
+
+  /**
+   * Returns the total time reading from {@code this} connection was paused, including the ongoing
+   * throttle if any.
+   */
+  long throttledNanos() {
+    long ongoing = this.isReadPaused.get() ? System.nanoTime() - this.throttleStartNanos : 0;
+    return this.throttledNanos + ongoing;
+  }
+
   // endregion
 
-  /** Reads as much as data available from the connection open with the client. */
+  /**
+   * Reads as much as data available from the connection open with the client.
+   *
+   * <p>A frame larger than the read buffer is read into a buffer of its exact size across calls,
+   * and a frame larger than {@code maxFrameSize} is responded with {@code INVALID_REQUEST} while
+   * its body is skipped.
+   */
   void read() {
     if (this.state.get() != State.OPEN) {
       throw new IllegalStateException("Unexpected connection state: " + this.state.get());
     }
-    if (!doRead()) return;
-    maybeDispatch();
-    // TODO: Add readBuffer capacity check!
+    long nowNanos = System.nanoTime();
+    this.lastActivityNanos = nowNanos;
+    this.readDeadlineNanos =
+        this.requestTimeoutNanos > 0
+            ? nowNanos + this.requestTimeoutNanos
+            : RequestFrame.NO_DEADLINE;
+    if (this.largeFrame != null) {
+      if (!doRead(this.largeFrame.buffer())) return;
+      maybeDispatchLargeFrame();
+    } else {
+      if (!doRead(this.readBuffer.buffer())) return;
+      maybeDispatch();
+    }
+    maybePauseReading();
+  }
+
+  /**
+   * Clears {@code OP_READ} for good so that no more frames are read, the ones already read are
+   * still handled and responded. Must be called on the event loop's thread.
+   */
+  void stopReading() {
+    if (this.selectionKey.isValid()) {
+      this.selectionKey.interestOps(this.selectionKey.interestOps() & ~SelectionKey.OP_READ);
+    }
   }
 
-  /** Writes the pending responses to the connection open with the client. */
+  /**
+   * Sets {@code OP_READ} back if reading was paused and the inbound queue has been drained below
+   * the low-water mark. Must be called on the event loop's thread.
+   */
+  void resumeReading() {
+    this.isReadResumeEnqueued.set(false);
+    if (!isBelowLowWaterMark() || !this.isReadPaused.compareAndSet(true, false)) {
+      return;
+    }
+    long throttled = System.nanoTime() - this.throttleStartNanos;
+    this.throttledNanos += throttled;
+    this.eventLoop.metrics().recordInboundThrottleEnd(throttled);
+    if (State.OPEN.equals(this.state.get())
+        && !this.eventLoop.isDraining()
+        && this.selectionKey.isValid()) {
+      this.selectionKey.interestOps(this.selectionKey.interestOps() | SelectionKey.OP_READ);
+    }
+  }
+
+  /**
+   * Writes the pending responses to the connection open with the client.
+   *
+   * <p>Queued responses are written in batches of up to {@code maxWriteBatchBuffers} buffers or
+   * {@code maxWriteBatchBytes} bytes with a single gathering write. A response buffer is released
+   * only once it's fully written, the partially written ones stay in the batch for the next call.
+   *
+   * <p>If a worker is writing a response directly in the meantime, {@code OP_WRITE} is cleared and
+   * the worker schedules the write again once it's done, if anything is left.
+   */
   void write() {
     if (!State.OPEN.equals(this.state.get())) {
       throw new IllegalStateException("Unexpected connection state: " + this.state.get());
     }
+    while (!this.isWriting.compareAndSet(false, true)) {
+      clearWriteInterest();
+      if (this.isWriting.get()) {
+        return; // The worker sees the responses left once it's done
+      }
+    }
+    this.lastActivityNanos = System.nanoTime();
     try {
-      ByteBuffer response;
-      while ((response = this.outboundQueue.peek()) != null) {
-        this.connection.write(response);
-        if (response.hasRemaining()) {
+      while (fillWriteBatch() > 0) {
+        writeBatch0();
+        if (releaseWrittenBuffers() > 0) {
           // OS send buffer is full, stop writing but keep OP_WRITE enabled
           return;
         }
-        this.outboundQueue.remove();
-        this.allocator.release(response);
       }
 
       // No more buffers left to write: clear OP_WRITE directly and allow re-enqueuing
-      if (this.selectionKey.isValid()) {
-        this.selectionKey.interestOps(this.selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
-      }
-      this.isEnqueued.set(false);
+      clearWriteInterest();
     } catch (IOException e) {
-      if (e instanceof ClosedChannelException) {
-        logger.warn(
-            "Client closed the connection! Outbound queue size: {}", this.outboundQueue.size());
+      onWriteFailure(e);
+    } finally {
+      this.isWriting.set(false);
+    }
+  }
+
+  /**
+   * Appends the given request {@code frame} to the inbound queue. Must be called on the event
+   * loop's thread.
+   *
+   * @param frame full request frame
+   */
+  void enqueueInbound(RequestFrame frame) {
+    accountInbound(frame);
+    this.inboundQueue.offer(frame);
+    // Orders the offer before reading the taker, pairs with the re-check in takeInbound()
+    VarHandle.fullFence();
+    Thread taker = this.inboundTaker;
+    if (taker != null) {
+      LockSupport.unpark(taker);
+    }
+  }
+
+  /**
+   * Accounts for the given request {@code frame} as inbound without appending it to the inbound
+   * queue, for the executors which queue tagged frames on their own. {@link
+   * #onFrameTaken(RequestFrame)} must be called once a worker takes it. Must be called on the
+   * event loop's thread.
+   *
+   * @param frame full request frame
+   */
+  void accountInbound(RequestFrame frame) {
+    this.pendingRequests.incrementAndGet();
+    this.inboundFrames.incrementAndGet();
+    this.inboundBytes.addAndGet(frame.size());
+  }
+
+  /**
+   * Takes the next request frame off the inbound queue, waiting if necessary until one arrives.
+   *
+   * <p>The waiting worker spins and yields a while first if the event loops poll with their {@code
+   * waitStrategy}, and then parks until the event loop unparks it on the next frame.
+   *
+   * @return next request frame
+   * @throws InterruptedException if interrupted while waiting
+   */
+  RequestFrame takeInbound() throws InterruptedException {
+    RequestFrame frame;
+    while ((frame = this.inboundQueue.poll()) == null) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (this.inboundBackoff != null && !this.inboundBackoff.isParking()) {
+        this.inboundBackoff.idle();
+        continue;
+      }
+      // Set before re-checking the queue, so that the event loop either sees it or the frame
+      this.inboundTaker = Thread.currentThread();
+      if (this.inboundQueue.isEmpty()) {
+        LockSupport.park(this);
+      }
+      this.inboundTaker = null;
+    }
+    if (this.inboundBackoff != null) {
+      this.inboundBackoff.reset();
+    }
+    onFrameTaken(frame);
+    return frame;
+  }
+
+  /**
+   * Takes the next request frame off the inbound queue if there is any.
+   *
+   * @return next request frame, or {@code null} if the inbound queue is empty
+   */
+  RequestFrame pollInbound() {
+    RequestFrame frame = this.inboundQueue.poll();
+    if (frame != null) {
+      onFrameTaken(frame);
+    }
+    return frame;
+  }
+
+  /**
+   * Takes the request frames off the inbound queue into the given {@code batch}, until it's full
+   * or the inbound queue is empty.
+   *
+   * @param batch batch to add the frames to
+   * @return number of frames in the batch
+   */
+  int drainInbound(RequestBatch batch) {
+    RequestFrame frame;
+    while (!batch.isFull() && (frame = pollInbound()) != null) {
+      batch.add(frame);
+    }
+    return batch.size();
+  }
+
+  /**
+   * Called after a worker takes the given {@code frame}, off the inbound queue or off the queue of
+   * the executor which dispatched it.
+   *
+   * @param frame request frame taken
+   */
+  void onFrameTaken(RequestFrame frame) {
+    this.inboundFrames.decrementAndGet();
+    this.inboundBytes.addAndGet(-frame.size());
+    if (this.isReadPaused.get()
+        && isBelowLowWaterMark()
+        && this.isReadResumeEnqueued.compareAndSet(false, true)) {
+      this.eventLoop.scheduleReadResume(this);
+    }
+  }
+
+  /**
+   * Handles the given request {@code frame} taken off the inbound queue and queues its response
+   * to be written.
+   *
+   * <p>Note that the untagged frames of a connection must be handled one at a time and in the
+   * order they were read. Tagged frames can be handled concurrently, their responses are prefixed
+   * with their request IDs. A frame whose deadline has passed is responded with {@code
+   * INTERNAL_ERROR} without being handled.
+   *
+   * <p>If nothing else is pending to be written, the response is written to the connection right
+   * away on the calling thread instead of waking the event loop up, unless {@code directWrite} is
+   * disabled or the transport is {@code IO_URING}.
+   *
+   * @param frame full request frame
+   */
+  void handle(RequestFrame frame) {
+    try {
+      ByteBuffer response;
+      if (frame.isExpired(System.nanoTime())) {
+        response = this.eventLoop.responseSerializer().internalError();
+        this.eventLoop.metrics().recordExpiredRequest();
       } else {
-        logger.error("Exception occurred during writing: {}", e.getMessage(), e);
+        response = this.requestHandler.handle(frame.payload());
+      }
+      if (frame.isTagged()) {
+        response = tag(response, (int) frame.requestId());
       }
-      this.state.compareAndSet(
-          State.OPEN, State.CLOSING); // SeriputServer is going to close the connection
+      if (!tryWriteDirectly(response)) {
+        this.outboundQueue.offer(response);
+        scheduleWrite();
+      }
+    } catch (Exception e) {
+      logger.error("Exception occurred during handling the request!", e);
+    } finally {
+      frame.release();
+      this.pendingRequests.decrementAndGet();
     }
   }
 
-  private boolean doRead() {
+  /**
+   * Handles the untagged request frames of the given {@code batch} in a single pass with {@link
+   * RequestHandler#handleBatch(ByteBuffer[], ByteBuffer[], int)}, and queues their responses to be
+   * written with a single signal to the event loop. The batch is cleared afterward.
+   *
+   * <p>The frames whose deadline has passed are responded with {@code INTERNAL_ERROR} without being
+   * handled, and so are the frames left without a response by the handler, or all of them if the
+   * handler throws. If nothing else is being written, the responses are written to the connection
+   * right away on the calling thread with a gathering write instead, unless {@code directWrite} is
+   * disabled or the transport is {@code IO_URING}.
+   *
+   * @param batch frames taken off the inbound queue, in the order they were read
+   */
+  void handle(RequestBatch batch) {
+    int size = batch.size();
+    this.eventLoop.metrics().recordHandledBatch(size);
+    if (size == 1) {
+      handle(batch.frame(0));
+      batch.clear();
+      return;
+    }
+    long nowNanos = System.nanoTime();
+    int unexpired = 0;
     try {
-      int read = this.connection.read(this.readBuffer);
+      for (int i = 0; i < size; i++) {
+        RequestFrame frame = batch.frame(i);
+        if (!frame.isExpired(nowNanos)) {
+          batch.payloads()[unexpired++] = frame.payload();
+        }
+      }
+      this.requestHandler.handleBatch(batch.payloads(), batch.responses(), unexpired);
+    } catch (RuntimeException e) {
+      logger.error("Exception occurred during handling the requests!", e);
+      // Every frame of the batch is responded with INTERNAL_ERROR then
+      for (int i = 0; i < unexpired; i++) {
+        if (batch.responses()[i] != null) {
+          this.allocator.release(batch.responses()[i]);
+          batch.responses()[i] = null;
+        }
+      }
+    }
+    try {
+      for (int i = 0, j = 0; i < size; i++) {
+        if (batch.frame(i).isExpired(nowNanos)) {
+          this.outboundQueue.offer(this.eventLoop.responseSerializer().internalError());
+          this.eventLoop.metrics().recordExpiredRequest();
+          continue;
+        }
+        ByteBuffer response = batch.responses()[j++];
+        this.outboundQueue.offer(
+            response != null ? response : this.eventLoop.responseSerializer().internalError());
+      }
+      if (!tryFlushDirectly()) {
+        scheduleWrite();
+      }
+    } catch (Exception e) {
+      logger.error("Exception occurred during handling the requests!", e);
+    } finally {
+      for (int i = 0; i < size; i++) {
+        batch.frame(i).release();
+      }
+      this.pendingRequests.addAndGet(-size);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Handles the given request {@code frame} right away without queueing it. Must be called on the
+   * event loop's thread while {@code this} connection is idle.
+   *
+   * @param frame full request frame
+   */
+  void handleInline(RequestFrame frame) {
+    this.pendingRequests.incrementAndGet();
+    handle(frame);
+  }
+
+  /**
+   * Releases the request frames that are still on the inbound queue. Must be called by the worker
+   * consuming the inbound queue once {@code this} connection is closing, as the inbound queue has
+   * a single consumer.
+   */
+  void releaseInbound() {
+    RequestFrame frame;
+    while ((frame = this.inboundQueue.poll()) != null) {
+      frame.release();
+    }
+  }
+
+  /**
+   * Releases the read buffer. Must be called on the event loop's thread once {@code this}
+   * connection is closed, the queued request frames are released by {@link #releaseInbound()}.
+   */
+  void releaseBuffers() {
+    this.readBuffer.release();
+    if (this.largeFrame != null) {
+      this.largeFrame.release();
+      this.largeFrame = null;
+    }
+  }
+
+  // Copies the response after its request ID so that the responses of the concurrently handled
+  // frames can't interleave on the outbound queue
+  private ByteBuffer tag(ByteBuffer response, int requestId) {
+    ByteBuffer tagged = this.allocator.allocate(requestIdSize(PROTOCOL_V2) + response.remaining());
+    tagged.putInt(requestId);
+    tagged.put(response);
+    tagged.flip();
+    this.allocator.release(response);
+    return tagged;
+  }
+
+  // Writes the given response on the worker's thread if nothing else is pending to be written,
+  // which saves the event loop wakeup and the OP_WRITE round trip on an idle connection. A partial
+  // write leaves the rest in the write batch for the event loop. Returns false if nothing was
+  // written, the response must be queued then
+  private boolean tryWriteDirectly(ByteBuffer response) {
+    if (!this.isDirectWriteEnabled
+        || !this.outboundQueue.isEmpty()
+        || !State.OPEN.equals(this.state.get())
+        || !this.isWriting.compareAndSet(false, true)) {
+      return false;
+    }
+    boolean hasLeftover;
+    try {
+      if (this.writeBatchSize > 0 || !this.outboundQueue.isEmpty()) {
+        return false; // Must be written after the responses before it
+      }
+      this.lastActivityNanos = System.nanoTime();
+      this.connection.write(response);
+      this.eventLoop.metrics().recordWriteSyscall();
+      this.eventLoop.metrics().recordDirectWrites(1);
+      if (response.hasRemaining()) {
+        this.writeBatch[0] = response; // OS send buffer is full, the event loop writes the rest
+        this.writeBatchSize = 1;
+      } else {
+        this.allocator.release(response);
+        this.eventLoop.metrics().recordResponsesWritten(1);
+      }
+    } catch (IOException e) {
+      this.allocator.release(response);
+      onWriteFailure(e);
+      return true;
+    } finally {
+      hasLeftover = this.writeBatchSize > 0;
+      this.isWriting.set(false);
+    }
+    // The event loop may have skipped writing while this held isWriting, see write()
+    if (hasLeftover || !this.outboundQueue.isEmpty()) {
+      scheduleWrite();
+    }
+    return true;
+  }
+
+  // Writes the queued responses on the worker's thread if nothing else is being written, the same
+  // way write() does on the event loop. Returns false if nothing was written, the event loop must
+  // be signalled then
+  private boolean tryFlushDirectly() {
+    if (!this.isDirectWriteEnabled
+        || !State.OPEN.equals(this.state.get())
+        || !this.isWriting.compareAndSet(false, true)) {
+      return false;
+    }
+    boolean hasLeftover;
+    try {
+      if (this.writeBatchSize > 0) {
+        return false; // OS send buffer is full, the event loop is waiting for OP_WRITE
+      }
+      this.lastActivityNanos = System.nanoTime();
+      int batchSize;
+      while ((batchSize = fillWriteBatch()) > 0) {
+        writeBatch0();
+        int remaining = releaseWrittenBuffers();
+        this.eventLoop.metrics().recordDirectWrites(batchSize - remaining);
+        if (remaining > 0) {
+          break; // The event loop writes the rest
+        }
+      }
+    } catch (IOException e) {
+      onWriteFailure(e);
+      return true;
+    } finally {
+      hasLeftover = this.writeBatchSize > 0;
+      this.isWriting.set(false);
+    }
+    // The event loop may have skipped writing while this held isWriting, see write()
+    if (hasLeftover || !this.outboundQueue.isEmpty()) {
+      scheduleWrite();
+    }
+    return true;
+  }
+
+  // Enqueues once per empty→non-empty transition to avoid redundant wakeups
+  private void scheduleWrite() {
+    if (this.isEnqueued.compareAndSet(false, true)) {
+      this.eventLoop.scheduleWrite(this);
+    }
+  }
+
+  private void clearWriteInterest() {
+    if (this.selectionKey.isValid()) {
+      this.selectionKey.interestOps(this.selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+    this.isEnqueued.set(false);
+  }
+
+  private void onWriteFailure(IOException e) {
+    if (e instanceof ClosedChannelException) {
+      logger.warn(
+          "Client closed the connection! Outbound queue size: {}",
+          this.outboundQueue.size() + this.writeBatchSize);
+    } else {
+      logger.error("Exception occurred during writing: {}", e.getMessage(), e);
+    }
+    markClosing(); // The event loop is going to close the connection
+  }
+
+  // Moves the queued responses into the write batch, returns the batch size
+  private int fillWriteBatch() {
+    long batchBytes = 0;
+    for (int i = 0; i < this.writeBatchSize; i++) {
+      batchBytes += this.writeBatch[i].remaining();
+    }
+    ByteBuffer response;
+    while (this.writeBatchSize < this.writeBatch.length
+        && batchBytes < this.maxWriteBatchBytes
+        && (response = this.outboundQueue.poll()) != null) {
+      this.writeBatch[this.writeBatchSize++] = response;
+      batchBytes += response.remaining();
+    }
+    return this.writeBatchSize;
+  }
+
+  private void writeBatch0() throws IOException {
+    if (this.connection instanceof GatheringByteChannel gatheringConnection) {
+      gatheringConnection.write(this.writeBatch, 0, this.writeBatchSize);
+      this.eventLoop.metrics().recordWriteSyscall();
+      return;
+    }
+    for (int i = 0; i < this.writeBatchSize; i++) {
+      this.connection.write(this.writeBatch[i]);
+      this.eventLoop.metrics().recordWriteSyscall();
+      if (this.writeBatch[i].hasRemaining()) {
+        return;
+      }
+    }
+  }
+
+  // Releases the fully written responses off the write batch, returns the remaining batch size
+  private int releaseWrittenBuffers() {
+    int written = 0;
+    while (written < this.writeBatchSize && !this.writeBatch[written].hasRemaining()) {
+      this.allocator.release(this.writeBatch[written]);
+      written++;
+    }
+    this.eventLoop.metrics().recordResponsesWritten(written);
+    int remaining = this.writeBatchSize - written;
+    System.arraycopy(this.writeBatch, written, this.writeBatch, 0, remaining);
+    Arrays.fill(this.writeBatch, remaining, this.writeBatchSize, null);
+    this.writeBatchSize = remaining;
+    return remaining;
+  }
+
+  private boolean doRead(ByteBuffer target) {
+    try {
+      int read = this.connection.read(target);
       if (read == -1) {
-        this.state.compareAndSet(State.OPEN, State.CLOSING);
+        markClosing();
         return false;
       }
       return true;
     } catch (IOException e) {
       logger.error("Exception occurred during reading: {}", e.getMessage(), e);
-      this.state.compareAndSet(State.OPEN, State.CLOSING);
+      markClosing();
       return false;
     }
   }
 
   private void maybeDispatch() {
-    this.readBuffer.flip(); // Switch to read mode!
+    ByteBuffer buffer = this.readBuffer.buffer();
+    buffer.flip(); // Switch to read mode!
     // Dispatch as much as frame possible
     while (true) {
-      if (this.readBuffer.remaining() < headerSize()) {
+      if (this.bytesToDiscard > 0) {
+        int discarded = (int) Math.min(buffer.remaining(), this.bytesToDiscard);
+        buffer.position(buffer.position() + discarded);
+        this.bytesToDiscard -= discarded;
+        if (this.bytesToDiscard > 0) {
+          break;
+        }
+      }
+      int requestIdSize = requestIdSize(this.protocolVersion);
+      if (buffer.remaining() < requestIdSize + headerSize()) {
         break;
       }
 
-      int bodySize = bodySize(this.readBuffer);
-      int frameSize = headerSize() + bodySize;
-      if (this.readBuffer.remaining() < frameSize) {
+      int frameStart = buffer.position();
+      long requestId = requestId(buffer, frameStart, requestIdSize);
+      int headerStart = frameStart + requestIdSize;
+      long bodySize = bodySize(buffer, headerStart);
+      if (bodySize < 0) {
+        // There is no way to find the next frame's start
+        logger.warn("Invalid frame header received from {}, closing the connection!", this.client);
+        markClosing();
+        return;
+      }
+      long frameSize = headerSize() + bodySize;
+      if (frameSize > this.maxFrameSize) {
+        // Dispatch the header alone to be responded with INVALID_REQUEST in order, skip the body
+        RequestFrame header =
+            this.readBuffer.slice(
+                this, headerStart, headerSize(), requestId, this.readDeadlineNanos);
+        this.requestExecutor.dispatch(this, header);
+        this.eventLoop.metrics().recordRejectedFrame();
+        buffer.position(headerStart + headerSize());
+        this.bytesToDiscard = bodySize;
+        continue;
+      }
+      if (buffer.remaining() < requestIdSize + frameSize) {
+        if (requestIdSize + frameSize > buffer.capacity()) {
+          startLargeFrame((int) (requestIdSize + frameSize), buffer);
+        }
         break;
       }
 
-      // Extract the next frame from readBuffer
-      int frameStart = this.readBuffer.position();
-      int frameEnd = frameStart + frameSize;
-      ByteBuffer view = this.readBuffer.duplicate(); // This isn't full copy!
-      view.position(frameStart);
-      view.limit(frameEnd);
-      byte[] frame = acquireFrameBuffer(frameSize);
-      view.get(frame, 0, frameSize);
-      this.inboundQueue.add(frame); // Full request
+      // Slice the next frame out of readBuffer, it's decoded in place
+      RequestFrame frame =
+          this.readBuffer.slice(
+              this, headerStart, (int) frameSize, requestId, this.readDeadlineNanos);
+      if (!frame.isTagged()) {
+        maybeSwitchProtocolVersion(frame);
+      }
+      this.requestExecutor.dispatch(this, frame);
 
       // Set to the next frame's start.
-      this.readBuffer.position(frameEnd);
-    }
-    // Move any remaining bytes to the front, switch back to write mode
-    this.readBuffer.compact();
-  }
-
-  private Thread startWorkerThread() {
-    return Thread.ofVirtual()
-        .name(workerThreadName(this.client, this.clientConnectionIx))
-        .start(
-            () -> {
-              while (State.OPEN.equals(this.state.get())) {
-                try {
-                  byte[] request = this.inboundQueue.take();
-                  ByteBuffer response = this.requestHandler.handle(request);
-                  this.releaseFrameBuffer(request);
-                  this.outboundQueue.add(response);
-                  // Enqueue once per empty→non-empty transition to avoid redundant wakeups
-                  if (this.isEnqueued.compareAndSet(false, true)) {
-                    this.writePendingConnections.add(this);
-                    this.selectionKey.selector().wakeup();
-                  }
-                } catch (Exception e) {
-                  if (e instanceof InterruptedException && this.state.get().isClosureInProgress()) {
-                    logger.debug("Worked thread interrupted...");
-                    break; // Exit gracefully
-                  }
-                  logger.error("Exception occurred during handling the request!", e);
-                }
-              }
-              logger.info(
-                  "Worker thread is exiting, size of the inbound queue: {}",
-                  this.inboundQueue.size());
-            });
-  }
-
-  private byte[] acquireFrameBuffer(int frameSize) {
-    byte[] buffer = this.frameBufferPool.poll();
-    if (buffer != null && buffer.length >= frameSize) {
-      return buffer;
-    }
-    return new byte[frameSize];
-  }
-
-  private void releaseFrameBuffer(byte[] buffer) {
-    this.frameBufferPool.add(buffer);
-  }
-
-  private static String workerThreadName(SeriputClient client, int clientConnectionIx) {
-    return "seriput-worker[client=%s:%s,conn=%s]"
-        .formatted(client.address().getHostName(), client.port(), clientConnectionIx);
+      buffer.position(headerStart + (int) frameSize);
+    }
+    if (this.readBuffer.isShared()) {
+      // Dispatched frames still refer to readBuffer, continue with a new one and carry the partial
+      // frame over, if any
+      var next = new ReadBuffer(this.eventLoop.readBufferPool());
+      next.buffer().put(buffer);
+      this.readBuffer.release();
+      this.readBuffer = next;
+    } else {
+      // Move any remaining bytes to the front, switch back to write mode
+      buffer.compact();
+    }
+  }
+
+  // Continues reading the frame which doesn't fit in readBuffer into an unpooled buffer of its
+  // exact size
+  private void startLargeFrame(int frameSize, ByteBuffer buffer) {
+    this.largeFrame = new ReadBuffer(frameSize);
+    this.largeFrame.buffer().put(buffer); // Bytes of the frame read so far
+  }
+
+  private void maybeDispatchLargeFrame() {
+    ByteBuffer buffer = this.largeFrame.buffer();
+    if (buffer.hasRemaining()) {
+      return;
+    }
+    int requestIdSize = requestIdSize(this.protocolVersion);
+    long requestId = requestId(buffer, 0, requestIdSize);
+    RequestFrame frame =
+        this.largeFrame.slice(
+            this,
+            requestIdSize,
+            buffer.position() - requestIdSize,
+            requestId,
+            this.readDeadlineNanos);
+    this.requestExecutor.dispatch(this, frame);
+    this.largeFrame.release();
+    this.largeFrame = null;
+  }
+
+  private static long requestId(ByteBuffer buffer, int frameStart, int requestIdSize) {
+    return requestIdSize > 0
+        ? Integer.toUnsignedLong(buffer.getInt(frameStart))
+        : RequestFrame.UNTAGGED;
+  }
+
+  // Switches to the protocol version requested by a HELLO frame, the frames after it are read in
+  // that version while the HELLO itself is still responded in v1
+  private void maybeSwitchProtocolVersion(RequestFrame frame) {
+    int version = helloVersion(frame.payload());
+    if (isSupportedVersion(version)) {
+      this.protocolVersion = version;
+    }
+  }
+
+  // Clears OP_READ once the inbound queue hits its limits so that the kernel receive buffer fills
+  // up and TCP flow control pushes back on the client.
+  private void maybePauseReading() {
+    if (this.inboundFrames.get() < this.maxInboundFrames
+        && this.inboundBytes.get() < this.maxInboundBytes) {
+      return;
+    }
+    if (!this.isReadPaused.compareAndSet(false, true)) {
+      return;
+    }
+    this.throttleStartNanos = System.nanoTime();
+    this.throttleCount++;
+    this.eventLoop.metrics().recordInboundThrottle();
+    if (this.selectionKey.isValid()) {
+      this.selectionKey.interestOps(this.selectionKey.interestOps() & ~SelectionKey.OP_READ);
+    }
+    // The worker may have drained the queue before it could see the pause, resume right away then.
+    resumeReading();
+  }
+
+  private boolean isBelowLowWaterMark() {
+    return this.inboundFrames.get() <= this.maxInboundFrames / 2
+        && this.inboundBytes.get() <= this.maxInboundBytes / 2;
   }
 
   enum State {
@@ -1,53 +1,101 @@
 package io.seriput.server;
 
 import io.seriput.common.PooledByteBufferAllocator;
+import io.seriput.server.core.BoundedStorageEngine;
+import io.seriput.server.core.Cache;
+import io.seriput.server.core.HeapStorageEngine;
+import io.seriput.server.core.OffHeapStorageEngine;
+import io.seriput.server.core.StorageEngine;
 import io.seriput.server.serialization.response.ResponseSerializer;
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.StandardSocketOptions;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicReference;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-/** Seriput server that manages the Seriput connections and the event loop. */
+/**
+ * Seriput server that accepts the Seriput connections and distributes them over its event loops.
+ *
+ * <p>The {@code server} thread only accepts connections; reading, writing and closing them happens
+ * on the {@link EventLoop} each connection is assigned to. In {@code reusePort} mode, each event
+ * loop accepts on its own {@code SO_REUSEPORT} socket and the kernel spreads the connections over
+ * them, the {@code server} thread then only coordinates the shutdown. If a {@code socketPath} is
+ * configured, the {@code server} thread accepts on that Unix domain socket as well, whose
+ * connections are served by the event loops like the TCP ones. If an {@code inProcessName} is
+ * configured, the clients in the same JVM are served through an {@link InProcessListener} with no
+ * socket at all, and if a {@code sharedMemoryPath} is configured, a client process on the same
+ * host is served through the rings of a {@link SharedMemoryListener}.
+ *
+ * <p>On {@link #close()}, it stops accepting and lets the event loops drain for up to the
+ * configured drain timeout before closing the connections. The outcome is reported by {@link
+ * ServerMetrics#drainCompletedRequests()} and {@link ServerMetrics#drainAbandonedRequests()}.
+ */
 public final class SeriputServer implements AutoCloseable {
   private static final Logger logger = LogManager.getLogger(SeriputServer.class);
 
   // region Fields
   private final PooledByteBufferAllocator allocator;
   private final ServerSocketChannel channel;
-  private final HashMap<SeriputClient, Collection<SeriputConnection>> connections = new HashMap<>();
-  private final int port;
+  private ServerSocketChannel unixChannel; // Only if socketPath is set
+  private final SeriputServerConfig config;
+  private final List<EventLoop> eventLoops;
+  private final InProcessListener inProcessListener; // Only if inProcessName is set
+  private final SharedMemoryListener sharedMemoryListener; // Only if sharedMemoryPath is set
+  private final ServerMetrics metrics = new ServerMetrics();
+  private int nextEventLoopIx = 0;
+  private final RequestExecutor requestExecutor;
   private final RequestHandler requestHandler;
+  private final Cache cache; // Only if the request handler isn't given
   private final Selector selector;
-  private final Thread serverThread = new Thread(this::startEventLoop, "server");
+  private final Thread serverThread = new Thread(this::startAcceptLoop, "server");
   private final AtomicReference<State> state = new AtomicReference<>(State.READY);
-  private final Queue<SeriputConnection> writePendingConnections = new ConcurrentLinkedQueue<>();
 
   // endregion
 
   public SeriputServer(int port) throws IOException {
+    this(SeriputServerConfig.builder(port).build());
+  }
+
+  public SeriputServer(SeriputServerConfig config) throws IOException {
     this.allocator = new PooledByteBufferAllocator();
     this.channel = ServerSocketChannel.open();
-    this.port = port;
+    this.config = config;
+    this.cache = createCache();
     this.requestHandler =
-        new RequestHandlerImpl(new ResponseSerializer(this.allocator), Collections.emptyList());
+        new RequestHandlerImpl(
+            new ResponseSerializer(this.allocator), Collections.emptyList(), this.cache);
+    this.requestExecutor = RequestExecutor.create(config);
     this.selector = Selector.open();
+    this.eventLoops = createEventLoops();
+    this.inProcessListener = createInProcessListener();
+    this.sharedMemoryListener = createSharedMemoryListener();
   }
 
   SeriputServer(int port, RequestHandler requestHandler) throws IOException {
+    this(SeriputServerConfig.builder(port).build(), requestHandler);
+  }
+
+  SeriputServer(SeriputServerConfig config, RequestHandler requestHandler) throws IOException {
     this.allocator = new PooledByteBufferAllocator();
     this.channel = ServerSocketChannel.open();
-    this.port = port;
+    this.config = config;
+    this.cache = null;
     this.requestHandler = requestHandler;
+    this.requestExecutor = RequestExecutor.create(config);
     this.selector = Selector.open();
+    this.eventLoops = createEventLoops();
+    this.inProcessListener = createInProcessListener();
+    this.sharedMemoryListener = createSharedMemoryListener();
   }
 
   @Override
@@ -56,13 +104,15 @@ public final class SeriputServer implements AutoCloseable {
       return;
     }
     this.selector.wakeup();
-    if (!this.serverThread.join(Duration.ofSeconds(5))) { // Wait for connections to be closed...
-      logger.warn("Server thread could not be terminated in 5 seconds!");
+    // Wait for connections to be drained and closed...
+    Duration timeout = Duration.ofSeconds(5).plus(this.config.drainTimeout());
+    if (!this.serverThread.join(timeout)) {
+      logger.warn("Server thread could not be terminated in {}!", timeout);
     }
   }
 
   /**
-   * Starts the event loop if it's ready to start.
+   * Starts the event loops and the accept loop if it's ready to start.
    *
    * @throws IOException if {@code this} server's state is other than {@code READY}
    */
@@ -70,9 +120,24 @@ public final class SeriputServer implements AutoCloseable {
     if (!this.state.compareAndSet(State.READY, State.RUNNING)) {
       throw new IllegalStateException("Server isn't ready to start!");
     }
-    this.channel.configureBlocking(false);
-    this.channel.register(this.selector, SelectionKey.OP_ACCEPT);
-    this.channel.socket().bind(new InetSocketAddress(port));
+    if (this.config.reusePort()) {
+      listenOnEventLoops();
+    } else {
+      this.channel.configureBlocking(false);
+      this.channel.register(this.selector, SelectionKey.OP_ACCEPT);
+      this.channel.socket().bind(new InetSocketAddress(this.config.port()));
+    }
+    if (this.config.socketPath() != null) {
+      listenOnSocketPath();
+    }
+    this.requestExecutor.start();
+    this.eventLoops.forEach(EventLoop::start);
+    if (this.inProcessListener != null) {
+      this.inProcessListener.start();
+    }
+    if (this.sharedMemoryListener != null) {
+      this.sharedMemoryListener.start();
+    }
     this.serverThread.setDaemon(false);
     this.serverThread.start();
   }
@@ -87,14 +152,20 @@ public final class SeriputServer implements AutoCloseable {
   }
 
   // region Getter & setters
+  public ServerMetrics metrics() {
+    return this.metrics;
+  }
+
   // Visible for testing
   Map<SeriputClient, Collection<SeriputConnection>> connections() {
-    return this.connections;
+    var connections = new HashMap<SeriputClient, Collection<SeriputConnection>>();
+    this.eventLoops.forEach(eventLoop -> connections.putAll(eventLoop.connections()));
+    return connections;
   }
 
   // Visible for testing
-  Selector selector() {
-    return this.selector;
+  List<EventLoop> eventLoops() {
+    return this.eventLoops;
   }
 
   // Visible for testing
@@ -108,143 +179,184 @@ public final class SeriputServer implements AutoCloseable {
 
   // endregion
 
-  private void startEventLoop() {
-    logger.info("Event loop is being started on {}...", this.port);
+  private List<EventLoop> createEventLoops() throws IOException {
+    var eventLoops = new ArrayList<EventLoop>(this.config.eventLoopCount());
+    for (int i = 0; i < this.config.eventLoopCount(); i++) {
+      eventLoops.add(
+          new EventLoop(
+              i,
+              this.config,
+              this.allocator,
+              this.requestHandler,
+              this.requestExecutor,
+              this.metrics));
+    }
+    return List.copyOf(eventLoops);
+  }
+
+  private InProcessListener createInProcessListener() {
+    if (this.config.inProcessName() == null) {
+      return null;
+    }
+    return new InProcessListener(
+        this.config.inProcessName(),
+        this.config,
+        this.allocator,
+        this.requestHandler,
+        this.metrics);
+  }
+
+  private SharedMemoryListener createSharedMemoryListener() {
+    if (this.config.sharedMemoryPath() == null) {
+      return null;
+    }
+    return new SharedMemoryListener(
+        this.config.sharedMemoryPath(),
+        this.config,
+        this.allocator,
+        this.requestHandler,
+        this.metrics);
+  }
+
+  private void startAcceptLoop() {
+    logger.info(
+        "Accept loop is being started on {} with {} event loops...",
+        this.config.port(),
+        this.eventLoops.size());
     while (State.RUNNING.equals(this.state.get())) {
       try {
-        select();
-        drainPendingWriteInterests();
-        maybeClose();
+        this.selector.select(
+            key -> {
+              if (key.isValid() && key.isAcceptable()) {
+                accept(key);
+              }
+            });
       } catch (IOException e) {
         logger.error("Exception occurred when selecting keys!", e);
       }
     }
 
-    logger.info("Event loop is being stopped...");
-    closeConnections();
+    logger.info("Accept loop is being stopped...");
     try {
       this.channel.close();
+      if (this.unixChannel != null) {
+        this.unixChannel.close();
+        Files.deleteIfExists(this.config.socketPath());
+      }
       this.selector.close();
     } catch (IOException e) {
-      logger.warn("Exception occurred during stopping the event loop!", e);
-    } finally {
-      this.state.compareAndSet(State.CLOSING, State.CLOSED);
-      logger.info("Event loop stopped!");
-    }
-  }
-
-  private void select() throws IOException {
-    this.selector.select(
-        key -> {
-          try {
-            if (!key.isValid()) {
-              return;
-            }
-            if (key.isAcceptable()) {
-              accept(key);
-            }
-            if (key.isReadable() && key.attachment() instanceof SeriputConnection) {
-              ((SeriputConnection) key.attachment()).read();
-            }
-            if (key.isWritable() && key.attachment() instanceof SeriputConnection) {
-              ((SeriputConnection) key.attachment()).write();
-            }
-          } catch (Exception e) {
-            logger.error("Exception occurred when processing key: {}", e.getMessage(), e);
-          }
-        });
-  }
-
-  private void accept(SelectionKey key) throws IOException {
-    ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
-    SocketChannel connection = serverChannel.accept();
-    if (connection == null) {
-      return;
+      logger.warn("Exception occurred during stopping the accept loop!", e);
     }
-
-    var client = SeriputClient.from(connection);
-    var clientConnections = this.connections.getOrDefault(client, new HashSet<>());
-    connection.configureBlocking(false);
-    connection.setOption(StandardSocketOptions.TCP_NODELAY, true);
-    var connectionKey = connection.register(this.selector, SelectionKey.OP_READ);
-    var seriputConnection =
-        new SeriputConnection(
-            this.allocator,
-            client,
-            clientConnections.size(),
-            connection,
-            requestHandler,
-            connectionKey,
-            this.writePendingConnections);
-    connectionKey.attach(seriputConnection);
-    clientConnections.add(seriputConnection);
-    this.connections.put(client, clientConnections);
-    logger.info("Connection accepted: {}", client);
-  }
-
-  private void maybeClose() throws IOException {
-    for (SelectionKey key : this.selector.keys()) {
-      if (!key.isValid()) continue;
-      if (!(key.attachment() instanceof SeriputConnection seriputConnection)) continue;
-      if (SeriputConnection.State.CLOSING.equals(seriputConnection.state())) {
-        try {
-          key.cancel();
-          seriputConnection.workerThread().interrupt();
-          seriputConnection.connection().close();
-        } catch (IOException e) {
-          logger.error(
-              "Exception occurred during closing the connection {}!",
-              seriputConnection.connection(),
-              e);
-        } finally {
-          seriputConnection.state(SeriputConnection.State.CLOSED);
-          this.connections.get(seriputConnection.client()).remove(seriputConnection);
-          if (this.connections.get(seriputConnection.client()).isEmpty()) {
-            this.connections.remove(seriputConnection.client());
-          }
-        }
+    if (this.inProcessListener != null) {
+      try {
+        this.inProcessListener.close(this.config.drainTimeout());
+      } catch (InterruptedException e) {
+        logger.warn("Interrupted while waiting for the in-process listener to stop!", e);
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (this.sharedMemoryListener != null) {
+      try {
+        this.sharedMemoryListener.close(this.config.drainTimeout());
+      } catch (InterruptedException e) {
+        logger.warn("Interrupted while waiting for the shared memory listener to stop!", e);
+        Thread.currentThread().interrupt();
+      }
+    }
+    // Drain all event loops at once, so that the drain deadline is shared
+    this.eventLoops.forEach(eventLoop -> eventLoop.drain(this.config.drainTimeout()));
+    for (EventLoop eventLoop : this.eventLoops) {
+      try {
+        eventLoop.close();
+      } catch (InterruptedException e) {
+        logger.warn("Interrupted while waiting for the event loops to stop!", e);
+        Thread.currentThread().interrupt();
+        break;
       }
     }
+    try {
+      this.requestExecutor.close();
+    } catch (InterruptedException e) {
+      logger.warn("Interrupted while waiting for the workers to stop!", e);
+      Thread.currentThread().interrupt();
+    }
+    if (this.cache != null) {
+      this.cache.close();
+    }
+    this.state.compareAndSet(State.CLOSING, State.CLOSED);
+    logger.info("Server stopped!");
   }
 
-  private void drainPendingWriteInterests() {
-    SeriputConnection conn;
-    while ((conn = this.writePendingConnections.poll()) != null) {
-      conn.clearEnqueued();
-      SelectionKey key = conn.selectionKey();
-      if (key != null && key.isValid()) {
-        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
-      }
+  private Cache createCache() {
+    StorageEngine engine;
+    if (this.config.maxCacheBytes() > 0) {
+      engine =
+          new BoundedStorageEngine(
+              this.config.maxCacheBytes(), this.config.cacheEviction(), this.metrics.cache());
+    } else {
+      engine =
+          switch (this.config.storage()) {
+            case HEAP -> new HeapStorageEngine();
+            case OFF_HEAP -> new OffHeapStorageEngine();
+          };
+    }
+    return new Cache(engine, this.metrics.cache(), this.config.expirySweepInterval());
+  }
+
+  // Binds a listening socket per event loop to the same port, the first one picks it if it's 0
+  private void listenOnEventLoops() throws IOException {
+    var address = new InetSocketAddress(this.config.port());
+    for (EventLoop eventLoop : this.eventLoops) {
+      address = eventLoop.listen(address);
+    }
+  }
+
+  private void listenOnSocketPath() throws IOException {
+    Path socketPath = this.config.socketPath();
+    Files.deleteIfExists(socketPath); // Left over by a server which wasn't closed
+    var unixChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    try {
+      unixChannel.bind(UnixDomainSocketAddress.of(socketPath));
+      unixChannel.configureBlocking(false);
+      unixChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      unixChannel.close();
+      throw e;
     }
+    this.unixChannel = unixChannel;
   }
 
-  private void closeConnections() {
-    for (SelectionKey key : this.selector.keys()) {
-      if (!key.isValid()) continue;
-      if (!(key.attachment() instanceof SeriputConnection seriputConnection)) continue;
+  // Accepts all pending connections, up to MAX_ACCEPTS_PER_SELECT, per readiness event
+  private void accept(SelectionKey key) {
+    ServerSocketChannel serverChannel = (ServerSocketChannel) key.channel();
+    for (int i = 0; i < EventLoop.MAX_ACCEPTS_PER_SELECT; i++) {
       try {
-        seriputConnection.state(SeriputConnection.State.CLOSING);
-        key.cancel();
-        seriputConnection.workerThread().interrupt();
-        // Wait for the worker thread to finish, should it?
-        seriputConnection.workerThread().join(Duration.ofSeconds(1));
-        seriputConnection.connection().close();
-      } catch (InterruptedException | IOException e) {
-        logger.warn(
-            "Exception occurred during closing the connection {}!",
-            seriputConnection.connection(),
-            e);
-      } finally {
-        seriputConnection.state(SeriputConnection.State.CLOSED);
-        this.connections.get(seriputConnection.client()).remove(seriputConnection);
-        logger.debug("{} connection closed.", seriputConnection.connection());
-        if (this.connections.get(seriputConnection.client()).isEmpty()) {
-          this.connections.remove(seriputConnection.client());
+        SocketChannel connection = serverChannel.accept();
+        if (connection == null) {
+          return;
         }
+        nextEventLoop().register(connection);
+      } catch (IOException e) {
+        logger.error("Exception occurred when accepting a connection!", e);
+        return;
       }
     }
   }
 
+  private EventLoop nextEventLoop() {
+    return switch (this.config.connectionBalancing()) {
+      case ROUND_ROBIN -> {
+        EventLoop next = this.eventLoops.get(this.nextEventLoopIx);
+        this.nextEventLoopIx = (this.nextEventLoopIx + 1) % this.eventLoops.size();
+        yield next;
+      }
+      case LEAST_CONNECTIONS ->
+          this.eventLoops.stream()
+              .min(Comparator.comparingInt(EventLoop::connectionCount))
+              .orElseThrow();
+    };
+  }
+
   enum State {
     READY,
     RUNNING,
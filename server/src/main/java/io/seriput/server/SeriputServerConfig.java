@@ -0,0 +1,412 @@
+package io.seriput.server;
+
+import io.seriput.common.WaitStrategy;
+import io.seriput.server.core.BoundedStorageEngine.Eviction;
+import io.seriput.server.serialization.request.RequestDeserializer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Configuration of a {@link SeriputServer}.
+ *
+ * @param port port to listen on
+ * @param socketPath path of a Unix domain socket to listen on as well, so that the clients on the
+ *     same host can skip the TCP/IP stack, {@code null} disables it
+ * @param inProcessName name to serve the clients in the same JVM with, without any socket, through
+ *     the in-process transport, {@code null} disables it
+ * @param sharedMemoryPath path of a memory-mapped file to serve a client process on the same host
+ *     through, with no syscall per request, {@code null} disables it
+ * @param eventLoopCount number of I/O event loops, each with its own {@code Selector} and thread
+ * @param connectionBalancing how accepted connections are distributed over the event loops,
+ *     ignored if {@code reusePort} is set
+ * @param reusePort whether each event loop listens on the port with its own {@code
+ *     SO_REUSEPORT} socket, so that the kernel distributes the connections instead of a single
+ *     accept loop, supported on Linux only
+ * @param transport how the event loops read from and write to the connections
+ * @param maxInboundFrames number of queued request frames per connection at which reading from
+ *     the connection is paused, it's resumed once the queue is drained below the half of it
+ * @param maxInboundBytes number of queued request bytes per connection at which reading from the
+ *     connection is paused, it's resumed once the queue is drained below the half of it
+ * @param executionModel on which threads the request frames are handled
+ * @param workerShardCount number of worker threads shared by the connections, used by {@link
+ *     ExecutionModel#SHARDED} and {@link ExecutionModel#RUN_TO_COMPLETION}
+ * @param maxWriteBatchBuffers max number of queued responses written with a single gathering write
+ * @param maxWriteBatchBytes number of bytes at which no more queued responses are added to a
+ *     gathering write
+ * @param directWrite whether a worker writes a response to the connection itself when nothing else
+ *     is pending to be written, instead of handing it over to the event loop, ignored by the
+ *     {@code IO_URING} transport
+ * @param wakeupBatchingWindow how long an event loop waits after being woken up before taking the
+ *     tasks handed over to it, so that the tasks of more connections are taken with a single
+ *     wakeup at the expense of latency, {@link Duration#ZERO} takes them right away
+ * @param waitStrategy how the event loops wait for readiness events and tasks, they poll instead
+ *     of blocking in {@code select()} unless it's {@link WaitStrategy#blocking()}
+ * @param maxFrameSize max size of a request frame, larger ones are responded with {@code
+ *     INVALID_REQUEST}
+ * @param idleTimeout duration after which a connection with no traffic and no pending request is
+ *     closed, {@link Duration#ZERO} disables it
+ * @param requestTimeout max duration between reading a request frame and handling it, the frames
+ *     which wait longer are responded with {@code INTERNAL_ERROR} without being handled, {@link
+ *     Duration#ZERO} disables it
+ * @param drainTimeout max duration to wait on shutdown for the requests already read to be
+ *     responded before closing the connections, {@link Duration#ZERO} closes them right away
+ * @param storage where the cache keeps its entries
+ * @param maxCacheBytes memory budget of the cache's entries, i.e. the bytes of their keys and
+ *     values plus a fixed overhead per entry, beyond which the ones picked by {@code
+ *     cacheEviction} are evicted, {@code 0} leaves the cache unbounded, supported by the {@link
+ *     Storage#HEAP} storage only
+ * @param cacheEviction policy picking the entries to evict once {@code maxCacheBytes} is exceeded
+ * @param expirySweepInterval interval between the sweeps removing the entries expired by their
+ *     TTLs, which are swept about a second late at the earliest, {@link Duration#ZERO} expires
+ *     them on reads only
+ */
+public record SeriputServerConfig(
+    int port,
+    Path socketPath,
+    String inProcessName,
+    Path sharedMemoryPath,
+    int eventLoopCount,
+    ConnectionBalancing connectionBalancing,
+    boolean reusePort,
+    Transport transport,
+    int maxInboundFrames,
+    long maxInboundBytes,
+    ExecutionModel executionModel,
+    int workerShardCount,
+    int maxWriteBatchBuffers,
+    long maxWriteBatchBytes,
+    boolean directWrite,
+    Duration wakeupBatchingWindow,
+    WaitStrategy waitStrategy,
+    int maxFrameSize,
+    Duration idleTimeout,
+    Duration requestTimeout,
+    Duration drainTimeout,
+    Storage storage,
+    long maxCacheBytes,
+    Eviction cacheEviction,
+    Duration expirySweepInterval) {
+  public static final int DEFAULT_EVENT_LOOP_COUNT = 1;
+  public static final int DEFAULT_MAX_INBOUND_FRAMES = 1024;
+  public static final long DEFAULT_MAX_INBOUND_BYTES = 4L * 1024 * 1024;
+  public static final int DEFAULT_WORKER_SHARD_COUNT = Runtime.getRuntime().availableProcessors();
+  public static final int DEFAULT_MAX_WRITE_BATCH_BUFFERS = 64;
+  public static final long DEFAULT_MAX_WRITE_BATCH_BYTES = 64L * 1024;
+  public static final int DEFAULT_MAX_FRAME_SIZE = 8 * 1024 * 1024;
+  public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_EXPIRY_SWEEP_INTERVAL = Duration.ofMillis(100);
+
+  public SeriputServerConfig {
+    if (port < 0 || port > 0xFFFF) {
+      throw new IllegalArgumentException("'port' is out of range: " + port);
+    }
+    if (eventLoopCount < 1) {
+      throw new IllegalArgumentException("'eventLoopCount' must be positive: " + eventLoopCount);
+    }
+    Objects.requireNonNull(connectionBalancing, "connectionBalancing may not be null!");
+    Objects.requireNonNull(transport, "transport may not be null!");
+    if (reusePort && transport == Transport.IO_URING) {
+      throw new IllegalArgumentException("'reusePort' isn't supported by the IO_URING transport!");
+    }
+    if (maxInboundFrames < 1) {
+      throw new IllegalArgumentException(
+          "'maxInboundFrames' must be positive: " + maxInboundFrames);
+    }
+    if (maxInboundBytes < 1) {
+      throw new IllegalArgumentException("'maxInboundBytes' must be positive: " + maxInboundBytes);
+    }
+    Objects.requireNonNull(executionModel, "executionModel may not be null!");
+    if (workerShardCount < 1) {
+      throw new IllegalArgumentException(
+          "'workerShardCount' must be positive: " + workerShardCount);
+    }
+    if (maxWriteBatchBuffers < 1) {
+      throw new IllegalArgumentException(
+          "'maxWriteBatchBuffers' must be positive: " + maxWriteBatchBuffers);
+    }
+    if (maxWriteBatchBytes < 1) {
+      throw new IllegalArgumentException(
+          "'maxWriteBatchBytes' must be positive: " + maxWriteBatchBytes);
+    }
+    Objects.requireNonNull(wakeupBatchingWindow, "wakeupBatchingWindow may not be null!");
+    if (wakeupBatchingWindow.isNegative()) {
+      throw new IllegalArgumentException(
+          "'wakeupBatchingWindow' must not be negative: " + wakeupBatchingWindow);
+    }
+    Objects.requireNonNull(waitStrategy, "waitStrategy may not be null!");
+    if (maxFrameSize < RequestDeserializer.headerSize()) {
+      throw new IllegalArgumentException(
+          "'maxFrameSize' must be at least the header size: " + maxFrameSize);
+    }
+    Objects.requireNonNull(idleTimeout, "idleTimeout may not be null!");
+    if (idleTimeout.isNegative()) {
+      throw new IllegalArgumentException("'idleTimeout' must not be negative: " + idleTimeout);
+    }
+    Objects.requireNonNull(requestTimeout, "requestTimeout may not be null!");
+    if (requestTimeout.isNegative()) {
+      throw new IllegalArgumentException(
+          "'requestTimeout' must not be negative: " + requestTimeout);
+    }
+    Objects.requireNonNull(drainTimeout, "drainTimeout may not be null!");
+    if (drainTimeout.isNegative()) {
+      throw new IllegalArgumentException("'drainTimeout' must not be negative: " + drainTimeout);
+    }
+    Objects.requireNonNull(storage, "storage may not be null!");
+    if (maxCacheBytes < 0) {
+      throw new IllegalArgumentException("'maxCacheBytes' must not be negative: " + maxCacheBytes);
+    }
+    if (maxCacheBytes > 0 && storage != Storage.HEAP) {
+      throw new IllegalArgumentException("'maxCacheBytes' is supported by the HEAP storage only!");
+    }
+    Objects.requireNonNull(cacheEviction, "cacheEviction may not be null!");
+    Objects.requireNonNull(expirySweepInterval, "expirySweepInterval may not be null!");
+    if (expirySweepInterval.isNegative()) {
+      throw new IllegalArgumentException(
+          "'expirySweepInterval' must not be negative: " + expirySweepInterval);
+    }
+  }
+
+  /**
+   * Returns a builder initialized with the default values for the given {@code port}.
+   *
+   * @param port port to listen on
+   * @return builder instance
+   */
+  public static Builder builder(int port) {
+    return new Builder(port);
+  }
+
+  /** Strategy to pick the event loop that a newly accepted connection is assigned to. */
+  public enum ConnectionBalancing {
+    /** Event loops are picked one after another. */
+    ROUND_ROBIN,
+    /** The event loop serving the fewest connections is picked. */
+    LEAST_CONNECTIONS,
+  }
+
+  /** I/O mechanism the event loops serve the connections with. */
+  public enum Transport {
+    /** Readiness-based, a {@code java.nio.channels.Selector} with non-blocking socket calls. */
+    NIO,
+    /**
+     * Completion-based, the reads and writes of all connections of an event loop are submitted in
+     * batches to an {@code io_uring} through a single {@code io_uring_enter} call per iteration.
+     * Linux only, requires the JVM flags {@code --enable-native-access=ALL-UNNAMED} and {@code
+     * --add-exports java.base/sun.nio.ch=ALL-UNNAMED}.
+     */
+    IO_URING,
+  }
+
+  /**
+   * Threading model of the request handling. Regardless of the model, protocol v1 requests of a
+   * connection are handled one at a time and responded in order.
+   */
+  public enum ExecutionModel {
+    /** Each connection has its own virtual thread blocking on its inbound queue. */
+    THREAD_PER_CONNECTION,
+    /**
+     * Connections are hashed onto a fixed number of worker threads, protocol v2 requests are hashed
+     * by their keys and responded out of order.
+     */
+    SHARDED,
+    /**
+     * Tiny {@code GET} requests of idle connections are handled on the event loop's thread, the
+     * rest as in {@link #SHARDED}.
+     */
+    RUN_TO_COMPLETION,
+  }
+
+  /** Where the cache keeps its entries. */
+  public enum Storage {
+    /** On the heap, each entry as a key and a value object with their own byte arrays. */
+    HEAP,
+    /**
+     * Off-heap, in slabs of native memory split into size classes with a compact index on the
+     * heap, so the garbage collector doesn't trace nor copy the entries.
+     */
+    OFF_HEAP,
+  }
+
+  /** Builder for {@link SeriputServerConfig}. */
+  public static final class Builder {
+    private final int port;
+    private Path socketPath = null;
+    private String inProcessName = null;
+    private Path sharedMemoryPath = null;
+    private int eventLoopCount = DEFAULT_EVENT_LOOP_COUNT;
+    private ConnectionBalancing connectionBalancing = ConnectionBalancing.ROUND_ROBIN;
+    private boolean reusePort = false;
+    private Transport transport = Transport.NIO;
+    private int maxInboundFrames = DEFAULT_MAX_INBOUND_FRAMES;
+    private long maxInboundBytes = DEFAULT_MAX_INBOUND_BYTES;
+    private ExecutionModel executionModel = ExecutionModel.THREAD_PER_CONNECTION;
+    private int workerShardCount = DEFAULT_WORKER_SHARD_COUNT;
+    private int maxWriteBatchBuffers = DEFAULT_MAX_WRITE_BATCH_BUFFERS;
+    private long maxWriteBatchBytes = DEFAULT_MAX_WRITE_BATCH_BYTES;
+    private boolean directWrite = true;
+    private Duration wakeupBatchingWindow = Duration.ZERO;
+    private WaitStrategy waitStrategy = WaitStrategy.blocking();
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private Duration idleTimeout = Duration.ZERO;
+    private Duration requestTimeout = Duration.ZERO;
+    private Duration drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+    private Storage storage = Storage.HEAP;
+    private long maxCacheBytes = 0;
+    private Eviction cacheEviction = Eviction.LRU;
+    private Duration expirySweepInterval = DEFAULT_EXPIRY_SWEEP_INTERVAL;
+
+    private Builder(int port) {
+      this.port = port;
+    }
+
+    public Builder socketPath(Path socketPath) {
+      this.socketPath = socketPath;
+      return this;
+    }
+
+    public Builder inProcessName(String inProcessName) {
+      this.inProcessName = inProcessName;
+      return this;
+    }
+
+    public Builder sharedMemoryPath(Path sharedMemoryPath) {
+      this.sharedMemoryPath = sharedMemoryPath;
+      return this;
+    }
+
+    public Builder eventLoopCount(int eventLoopCount) {
+      this.eventLoopCount = eventLoopCount;
+      return this;
+    }
+
+    public Builder connectionBalancing(ConnectionBalancing connectionBalancing) {
+      this.connectionBalancing = connectionBalancing;
+      return this;
+    }
+
+    public Builder reusePort(boolean reusePort) {
+      this.reusePort = reusePort;
+      return this;
+    }
+
+    public Builder transport(Transport transport) {
+      this.transport = transport;
+      return this;
+    }
+
+    public Builder maxInboundFrames(int maxInboundFrames) {
+      this.maxInboundFrames = maxInboundFrames;
+      return this;
+    }
+
+    public Builder maxInboundBytes(long maxInboundBytes) {
+      this.maxInboundBytes = maxInboundBytes;
+      return this;
+    }
+
+    public Builder executionModel(ExecutionModel executionModel) {
+      this.executionModel = executionModel;
+      return this;
+    }
+
+    public Builder workerShardCount(int workerShardCount) {
+      this.workerShardCount = workerShardCount;
+      return this;
+    }
+
+    public Builder maxWriteBatchBuffers(int maxWriteBatchBuffers) {
+      this.maxWriteBatchBuffers = maxWriteBatchBuffers;
+      return this;
+    }
+
+    public Builder maxWriteBatchBytes(long maxWriteBatchBytes) {
+      this.maxWriteBatchBytes = maxWriteBatchBytes;
+      return this;
+    }
+
+    public Builder directWrite(boolean directWrite) {
+      this.directWrite = directWrite;
+      return this;
+    }
+
+    public Builder wakeupBatchingWindow(Duration wakeupBatchingWindow) {
+      this.wakeupBatchingWindow = wakeupBatchingWindow;
+      return this;
+    }
+
+    public Builder waitStrategy(WaitStrategy waitStrategy) {
+      this.waitStrategy = waitStrategy;
+      return this;
+    }
+
+    public Builder maxFrameSize(int maxFrameSize) {
+      this.maxFrameSize = maxFrameSize;
+      return this;
+    }
+
+    public Builder idleTimeout(Duration idleTimeout) {
+      this.idleTimeout = idleTimeout;
+      return this;
+    }
+
+    public Builder requestTimeout(Duration requestTimeout) {
+      this.requestTimeout = requestTimeout;
+      return this;
+    }
+
+    public Builder drainTimeout(Duration drainTimeout) {
+      this.drainTimeout = drainTimeout;
+      return this;
+    }
+
+    public Builder storage(Storage storage) {
+      this.storage = storage;
+      return this;
+    }
+
+    public Builder maxCacheBytes(long maxCacheBytes) {
+      this.maxCacheBytes = maxCacheBytes;
+      return this;
+    }
+
+    public Builder cacheEviction(Eviction cacheEviction) {
+      this.cacheEviction = cacheEviction;
+      return this;
+    }
+
+    public Builder expirySweepInterval(Duration expirySweepInterval) {
+      this.expirySweepInterval = expirySweepInterval;
+      return this;
+    }
+
+    public SeriputServerConfig build() {
+      return new SeriputServerConfig(
+          this.port,
+          this.socketPath,
+          this.inProcessName,
+          this.sharedMemoryPath,
+          this.eventLoopCount,
+          this.connectionBalancing,
+          this.reusePort,
+          this.transport,
+          this.maxInboundFrames,
+          this.maxInboundBytes,
+          this.executionModel,
+          this.workerShardCount,
+          this.maxWriteBatchBuffers,
+          this.maxWriteBatchBytes,
+          this.directWrite,
+          this.wakeupBatchingWindow,
+          this.waitStrategy,
+          this.maxFrameSize,
+          this.idleTimeout,
+          this.requestTimeout,
+          this.drainTimeout,
+          this.storage,
+          this.maxCacheBytes,
+          this.cacheEviction,
+          this.expirySweepInterval);
+    }
+  }
+}
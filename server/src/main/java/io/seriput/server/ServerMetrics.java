@@ -0,0 +1,271 @@
+package io.seriput.server;
+
+import io.seriput.server.core.CacheMetrics;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Server-wide counters of a {@link SeriputServer}.
+ *
+ * <p>Counters are updated by the event loops and worker threads, and can be read from any thread.
+ */
+public final class ServerMetrics {
+  // Number of buckets of the batch size histogram, the last one counts every larger batch
+  public static final int BATCH_SIZE_BUCKETS = 8;
+
+  private final CacheMetrics cache = new CacheMetrics();
+  private final LongAdder eventLoopIterations = new LongAdder();
+  private final LongAdder eventLoopTaskNanos = new LongAdder();
+  private final LongAdder directWrites = new LongAdder();
+  private final LongAdder drainAbandonedRequests = new LongAdder();
+  private final LongAdder drainCompletedRequests = new LongAdder();
+  private final LongAdder expiredRequests = new LongAdder();
+  private final LongAdder handledBatches = new LongAdder();
+  private final LongAdder handledBatchFrames = new LongAdder();
+  private final LongAdder[] handledBatchSizes =
+      Stream.generate(LongAdder::new).limit(BATCH_SIZE_BUCKETS).toArray(LongAdder[]::new);
+  private final LongAdder idleEvictions = new LongAdder();
+  private final LongAdder inboundThrottles = new LongAdder();
+  private final LongAdder inboundThrottledNanos = new LongAdder();
+  private final LongAdder rejectedFrames = new LongAdder();
+  private final LongAdder responsesWritten = new LongAdder();
+  private final LongAdder wakeups = new LongAdder();
+  private final LongAdder writeSyscalls = new LongAdder();
+
+  /**
+   * Returns the counters of the server's cache, like the evictions to stay within its memory
+   * budget.
+   *
+   * @return cache counters
+   */
+  public CacheMetrics cache() {
+    return this.cache;
+  }
+
+  /**
+   * Returns the number of event loop iterations, i.e. {@code select()} wakeups, across all event
+   * loops.
+   *
+   * @return number of event loop iterations
+   */
+  public long eventLoopIterations() {
+    return this.eventLoopIterations.sum();
+  }
+
+  /**
+   * Returns the total time the event loops spent on their own tasks after each {@code select()},
+   * like registering, closing and setting the interest ops of the connections. Reading and writing
+   * the ready connections isn't included.
+   *
+   * @return total event loop task time in nanoseconds
+   */
+  public long eventLoopTaskNanos() {
+    return this.eventLoopTaskNanos.sum();
+  }
+
+  /**
+   * Returns the number of responses written by the workers right after handling their requests,
+   * without being handed over to an event loop. A partially written one counts as well, its rest
+   * is written by the event loop.
+   *
+   * @return number of direct writes across all connections
+   */
+  public long directWrites() {
+    return this.directWrites.sum();
+  }
+
+  /**
+   * Returns the number of requests which were in flight when the server started draining on
+   * shutdown and were fully responded before the connections were closed.
+   *
+   * @return number of requests completed while draining
+   */
+  public long drainCompletedRequests() {
+    return this.drainCompletedRequests.sum();
+  }
+
+  /**
+   * Returns the number of requests which were still queued, being handled or being written when
+   * the drain deadline passed, and were dropped along with their connections.
+   *
+   * @return number of requests abandoned on shutdown
+   */
+  public long drainAbandonedRequests() {
+    return this.drainAbandonedRequests.sum();
+  }
+
+  /**
+   * Returns the number of requests responded with {@code INTERNAL_ERROR} without being handled
+   * because they waited longer than the configured request timeout.
+   *
+   * @return number of expired requests across all connections
+   */
+  public long expiredRequests() {
+    return this.expiredRequests.sum();
+  }
+
+  /**
+   * Returns the number of passes the workers took to handle the untagged frames they had taken off
+   * the inbound queues, each pass handles every frame queued at the time up to a limit.
+   *
+   * @return number of batches handled across all connections
+   */
+  public long handledBatches() {
+    return this.handledBatches.sum();
+  }
+
+  /**
+   * Returns the histogram of the batch sizes, which shows how deep the clients pipeline their
+   * requests. The count at index {@code i} is the number of batches of {@code (2^(i-1), 2^i]}
+   * frames, i.e. 1, 2, 3 to 4, 5 to 8 frames and so on.
+   *
+   * @return number of batches handled per size bucket, {@link #BATCH_SIZE_BUCKETS} long
+   * @see #handledBatches()
+   */
+  public long[] handledBatchSizes() {
+    return Arrays.stream(this.handledBatchSizes).mapToLong(LongAdder::sum).toArray();
+  }
+
+  /**
+   * Returns the number of frames handled in batches, which divided by {@link #handledBatches()}
+   * gives the average batch size.
+   *
+   * @return number of frames handled in batches across all connections
+   */
+  public long handledBatchFrames() {
+    return this.handledBatchFrames.sum();
+  }
+
+  /**
+   * Returns the number of connections closed for staying idle longer than the configured idle
+   * timeout.
+   *
+   * @return number of idle connections closed
+   */
+  public long idleEvictions() {
+    return this.idleEvictions.sum();
+  }
+
+  /**
+   * Returns how many times reading from a connection was paused because its inbound queue hit the
+   * configured limits.
+   *
+   * @return number of inbound throttles across all connections
+   */
+  public long inboundThrottles() {
+    return this.inboundThrottles.sum();
+  }
+
+  /**
+   * Returns the total time connections spent with reading paused, excluding throttles still in
+   * progress.
+   *
+   * @return total throttled time in nanoseconds across all connections
+   */
+  public long inboundThrottledNanos() {
+    return this.inboundThrottledNanos.sum();
+  }
+
+  /**
+   * Returns the number of request frames rejected for exceeding the configured max frame size.
+   *
+   * @return number of rejected frames across all connections
+   */
+  public long rejectedFrames() {
+    return this.rejectedFrames.sum();
+  }
+
+  /**
+   * Returns the number of responses fully written to the connections.
+   *
+   * @return number of written responses across all connections
+   */
+  public long responsesWritten() {
+    return this.responsesWritten.sum();
+  }
+
+  /**
+   * Returns the number of times the event loops were woken up by other threads to take the tasks
+   * handed over to them. Wakeups requested while one is already pending aren't counted, as they're
+   * coalesced into it.
+   *
+   * @return number of selector wakeups across all event loops
+   */
+  public long wakeups() {
+    return this.wakeups.sum();
+  }
+
+  /**
+   * Returns the number of write calls made on the connections, a gathering write counts as one.
+   *
+   * @return number of write syscalls across all connections
+   */
+  public long writeSyscalls() {
+    return this.writeSyscalls.sum();
+  }
+
+  /**
+   * Returns the average number of write syscalls made per written response, it's below 1 when
+   * responses are batched into gathering writes.
+   *
+   * @return write syscalls per response, or {@code 0} if no response has been written yet
+   */
+  public double writeSyscallsPerResponse() {
+    long responses = this.responsesWritten.sum();
+    return responses == 0 ? 0 : (double) this.writeSyscalls.sum() / responses;
+  }
+
+  void recordEventLoopIteration(long taskNanos) {
+    this.eventLoopIterations.increment();
+    this.eventLoopTaskNanos.add(taskNanos);
+  }
+
+  void recordDirectWrites(int count) {
+    this.directWrites.add(count);
+  }
+
+  void recordDrain(long completed, long abandoned) {
+    this.drainCompletedRequests.add(completed);
+    this.drainAbandonedRequests.add(abandoned);
+  }
+
+  void recordExpiredRequest() {
+    this.expiredRequests.increment();
+  }
+
+  void recordHandledBatch(int size) {
+    this.handledBatches.increment();
+    this.handledBatchFrames.add(size);
+    int bucket = Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+    this.handledBatchSizes[Math.min(bucket, BATCH_SIZE_BUCKETS - 1)].increment();
+  }
+
+  void recordIdleEviction() {
+    this.idleEvictions.increment();
+  }
+
+  void recordInboundThrottle() {
+    this.inboundThrottles.increment();
+  }
+
+  void recordInboundThrottleEnd(long throttledNanos) {
+    this.inboundThrottledNanos.add(throttledNanos);
+  }
+
+  void recordRejectedFrame() {
+    this.rejectedFrames.increment();
+  }
+
+  void recordResponsesWritten(int count) {
+    this.responsesWritten.add(count);
+  }
+
+  void recordWakeup() {
+    this.wakeups.increment();
+  }
+
+  void recordWriteSyscall() {
+    this.writeSyscalls.increment();
+  }
+}
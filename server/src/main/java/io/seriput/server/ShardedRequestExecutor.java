@@ -0,0 +1,204 @@
+package io.seriput.server;
+
+import io.seriput.common.MpscRingQueue;
+import io.seriput.common.SpinParkWaitStrategy;
+import io.seriput.server.serialization.request.RequestDeserializer;
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Handles the frames on a fixed number of worker shards, each connection is hashed onto one shard.
+ *
+ * <p>A connection with queued frames is put on its shard's ready queue once, the shard then handles
+ * up to {@link #FRAMES_PER_TURN} frames of it in a single pass before moving on to the next ready
+ * connection. Since a connection is only ever on a single shard's ready queue at a time, its
+ * frames are handled in order.
+ *
+ * <p>Tagged frames, read in protocol v2, skip the connection's inbound queue and are put on the
+ * ready queue of the shard their key is hashed onto. The frames of a connection are then handled
+ * concurrently across shards and responded out of order, while the frames of the same key are still
+ * handled in order.
+ *
+ * <p>A ready queue holds the connections and the tagged frames themselves on a ring, so nothing is
+ * allocated per frame unless the ring is full. An idle shard spins and yields a while first if the
+ * event loops poll with their {@code waitStrategy}, and then parks until the next dispatch.
+ */
+final class ShardedRequestExecutor implements RequestExecutor {
+  private static final Logger logger = LogManager.getLogger(ShardedRequestExecutor.class);
+  // Max number of frames handled from a connection before giving the turn to the next one
+  static final int FRAMES_PER_TURN = 64;
+  private static final int READY_RING_CAPACITY = 1024;
+
+  private final AtomicBoolean isRunning = new AtomicBoolean(false);
+  private final List<Shard> shards;
+
+  /**
+   * Creates an executor of the given number of shards.
+   *
+   * @param shardCount number of worker shards
+   * @param isPolling whether the event loops poll, in which case an idle shard spins a while before
+   *     parking too
+   */
+  ShardedRequestExecutor(int shardCount, boolean isPolling) {
+    if (shardCount < 1) {
+      throw new IllegalArgumentException("'shardCount' must be positive: " + shardCount);
+    }
+    this.shards = new ArrayList<>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      var shard = new Shard(isPolling ? new SpinParkWaitStrategy() : null);
+      Thread thread = new Thread(() -> work(shard), "seriput-worker-shard-" + i);
+      thread.setDaemon(true);
+      shard.thread = thread;
+      this.shards.add(shard);
+    }
+  }
+
+  @Override
+  public void start() {
+    if (this.isRunning.compareAndSet(false, true)) {
+      this.shards.forEach(shard -> shard.thread.start());
+    }
+  }
+
+  @Override
+  public void register(SeriputConnection connection) {
+    // Nothing to do, connections are assigned to their shard on dispatch
+  }
+
+  @Override
+  public void dispatch(SeriputConnection connection, RequestFrame frame) {
+    if (frame.isTagged()) {
+      connection.accountInbound(frame);
+      shardOf(RequestDeserializer.keyHash(frame.payload())).offer(frame);
+      return;
+    }
+    connection.enqueueInbound(frame);
+    if (connection.tryMarkScheduled()) {
+      shardOf(System.identityHashCode(connection)).offer(connection);
+    }
+  }
+
+  @Override
+  public void deregister(SeriputConnection connection, Duration timeout) {
+    // Shards skip the connections which aren't open anymore, no turn is in progress if marked
+    if (connection.tryMarkScheduled()) {
+      connection.releaseInbound();
+    }
+  }
+
+  @Override
+  public void close() throws InterruptedException {
+    if (!this.isRunning.compareAndSet(true, false)) {
+      return;
+    }
+    this.shards.forEach(shard -> shard.thread.interrupt());
+    for (Shard shard : this.shards) {
+      if (!shard.thread.join(Duration.ofSeconds(1))) {
+        logger.warn("{} could not be terminated in 1 second!", shard.thread.getName());
+      }
+    }
+  }
+
+  private Shard shardOf(int hash) {
+    return this.shards.get(Math.floorMod(hash, this.shards.size()));
+  }
+
+  private void work(Shard shard) {
+    while (this.isRunning.get()) {
+      Object task = shard.readyTasks.poll();
+      if (task == null) {
+        shard.idle();
+        continue;
+      }
+      shard.reset();
+      if (task instanceof RequestFrame frame) {
+        handle(frame);
+      } else {
+        takeTurn((SeriputConnection) task, shard);
+      }
+    }
+    logger.debug("{} is exiting...", Thread.currentThread().getName());
+  }
+
+  private static void handle(RequestFrame frame) {
+    SeriputConnection connection = frame.connection();
+    connection.onFrameTaken(frame);
+    if (SeriputConnection.State.OPEN.equals(connection.state())) {
+      connection.handle(frame);
+    } else {
+      frame.release();
+    }
+  }
+
+  private void takeTurn(SeriputConnection connection, Shard shard) {
+    if (SeriputConnection.State.OPEN.equals(connection.state())
+        && connection.drainInbound(shard.batch) > 0) {
+      connection.handle(shard.batch);
+    }
+    connection.clearScheduled();
+    if (!SeriputConnection.State.OPEN.equals(connection.state())) {
+      // Closing, whichever of this and deregister() marks it scheduled first releases the frames
+      if (connection.tryMarkScheduled()) {
+        connection.releaseInbound();
+      }
+    } else if (connection.hasInbound() && connection.tryMarkScheduled()) {
+      // Frames might have been dispatched after the last poll, or the turn might have ended early
+      shard.offer(connection);
+    }
+  }
+
+  // Worker thread with its ready queue, produced by the event loops and the shard itself
+  private static final class Shard {
+    // Ready connections, whose turn it is, and tagged frames to handle
+    private final SpillingQueue<Object> readyTasks =
+        new SpillingQueue<>(new MpscRingQueue<>(READY_RING_CAPACITY));
+    // Frames of the connection whose turn it is, used by the shard only
+    private final RequestBatch batch = new RequestBatch(FRAMES_PER_TURN);
+    // Used by the shard only, null to park right away when the ready queue is empty
+    private final SpinParkWaitStrategy backoff;
+    private Thread thread;
+    // Set while the shard is parked or about to be
+    private volatile boolean isParked = false;
+
+    private Shard(SpinParkWaitStrategy backoff) {
+      this.backoff = backoff;
+    }
+
+    private void offer(Object task) {
+      this.readyTasks.offer(task);
+      // Orders the offer before reading the flag, pairs with the re-check in idle()
+      VarHandle.fullFence();
+      if (this.isParked) {
+        LockSupport.unpark(this.thread);
+      }
+    }
+
+    private void idle() {
+      if (Thread.interrupted()) {
+        return; // The executor is closing
+      }
+      if (this.backoff != null && !this.backoff.isParking()) {
+        this.backoff.idle();
+        return;
+      }
+      // Set before re-checking the queue, so that a dispatcher either sees it or the task
+      this.isParked = true;
+      if (this.readyTasks.isEmpty()) {
+        LockSupport.park(this);
+      }
+      this.isParked = false;
+    }
+
+    private void reset() {
+      if (this.backoff != null) {
+        this.backoff.reset();
+      }
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package io.seriput.server;
+
+import static io.seriput.server.serialization.request.RequestDeserializer.bodySize;
+import static io.seriput.server.serialization.request.RequestDeserializer.headerSize;
+
+import io.seriput.common.PooledByteBufferAllocator;
+import io.seriput.common.SharedMemoryChannel;
+import io.seriput.common.SpinParkWaitStrategy;
+import io.seriput.server.serialization.response.ResponseSerializer;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Serves a client process on the same host through a {@link SharedMemoryChannel}, bypassing the
+ * sockets and the event loops.
+ *
+ * <p>The {@code seriput-shared-memory} thread polls the request ring with a {@link
+ * SpinParkWaitStrategy}, handles the v1 frames one after another and writes their responses to the
+ * response ring in the request order. Once the client detaches, the rings are reset so that the
+ * next client can attach. A client which died without detaching is found by its process ID while
+ * the thread idles, and its channel is freed the same way.
+ */
+final class SharedMemoryListener {
+  private static final Logger logger = LogManager.getLogger(SharedMemoryListener.class);
+  private static final long CLIENT_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Path path;
+  private final PooledByteBufferAllocator allocator;
+  private final RequestHandler requestHandler;
+  private final ResponseSerializer responseSerializer;
+  private final ServerMetrics metrics;
+  private final int maxFrameSize;
+  private final SpinParkWaitStrategy waitStrategy = new SpinParkWaitStrategy();
+  private final Thread thread = new Thread(this::run, "seriput-shared-memory");
+  private SharedMemoryChannel channel;
+  private volatile boolean isRunning = false;
+  private long nextClientCheckNanos = System.nanoTime(); // Used by the thread only
+
+  // region Frame being read, used by the thread only
+  private final ByteBuffer header = ByteBuffer.allocate(headerSize());
+  private ByteBuffer frame = ByteBuffer.allocate(256);
+  private boolean isReadingBody = false;
+  private long bytesToDiscard = 0; // Remaining body bytes of a rejected frame to skip
+  private ByteBuffer response; // Response being written, if any
+
+  // endregion
+
+  SharedMemoryListener(
+      Path path,
+      SeriputServerConfig config,
+      PooledByteBufferAllocator allocator,
+      RequestHandler requestHandler,
+      ServerMetrics metrics) {
+    this.path = path;
+    this.allocator = allocator;
+    this.requestHandler = requestHandler;
+    this.responseSerializer = new ResponseSerializer(allocator);
+    this.metrics = metrics;
+    this.maxFrameSize = config.maxFrameSize();
+  }
+
+  /**
+   * Creates the shared memory file and starts the thread.
+   *
+   * @throws IOException if the file couldn't be created
+   */
+  void start() throws IOException {
+    this.channel =
+        SharedMemoryChannel.create(this.path, SharedMemoryChannel.DEFAULT_RING_CAPACITY);
+    this.isRunning = true;
+    this.thread.start();
+    logger.info("Shared memory listener is ready at: {}", this.path);
+  }
+
+  /**
+   * Stops the thread, marks the channel as closed for the attached client and deletes the file.
+   *
+   * @param timeout how long to wait for the thread to stop
+   * @throws InterruptedException if interrupted while waiting
+   */
+  void close(Duration timeout) throws InterruptedException {
+    this.isRunning = false;
+    if (!this.thread.join(timeout)) {
+      logger.warn("Shared memory listener thread could not be terminated in {}!", timeout);
+    }
+    this.channel.state(SharedMemoryChannel.STATE_CLOSED);
+    try {
+      this.channel.close();
+      Files.deleteIfExists(this.path);
+    } catch (IOException e) {
+      logger.warn("Exception occurred when closing the shared memory file {}!", this.path, e);
+    }
+  }
+
+  private void run() {
+    while (this.isRunning) {
+      int state = this.channel.state();
+      boolean hasProgressed =
+          switch (state) {
+            case SharedMemoryChannel.STATE_ATTACHED -> serve();
+            case SharedMemoryChannel.STATE_DETACHED -> {
+              reset();
+              yield false;
+            }
+            default -> false;
+          };
+      if (hasProgressed) {
+        this.waitStrategy.reset();
+        continue;
+      }
+      if (state == SharedMemoryChannel.STATE_ATTACHED
+          || state == SharedMemoryChannel.STATE_FAILED) {
+        maybeFreeDeadClient();
+      }
+      this.waitStrategy.idle();
+    }
+    if (this.response != null) {
+      this.allocator.release(this.response);
+      this.response = null;
+    }
+  }
+
+  // Writes the pending response if any, reads and handles the next frame otherwise
+  private boolean serve() {
+    if (this.response != null) {
+      return writeResponse();
+    }
+    if (this.bytesToDiscard > 0) {
+      long skipped = this.channel.requests().skip(this.bytesToDiscard);
+      this.bytesToDiscard -= skipped;
+      return skipped > 0;
+    }
+    if (!this.isReadingBody) {
+      if (this.channel.requests().read(this.header) == 0) {
+        return false;
+      }
+      if (this.header.hasRemaining()) {
+        return true;
+      }
+      startBody();
+      return true;
+    }
+    if (this.frame.hasRemaining() && this.channel.requests().read(this.frame) == 0) {
+      return false;
+    }
+    if (!this.frame.hasRemaining()) {
+      this.isReadingBody = false;
+      handle(this.frame.flip());
+    }
+    return true;
+  }
+
+  private void startBody() {
+    this.header.flip();
+    long bodySize = bodySize(this.header, 0);
+    if (bodySize < 0) {
+      // There is no way to find the next frame's start, nor to reset the rings under the client,
+      // so the channel is freed once the client has detached
+      logger.error("Invalid frame header received over shared memory, failing the channel!");
+      this.channel.state(SharedMemoryChannel.STATE_FAILED);
+      return;
+    }
+    long frameSize = headerSize() + bodySize;
+    if (frameSize > this.maxFrameSize) {
+      // Handle the header alone to be responded with INVALID_REQUEST in order, skip the body
+      this.metrics.recordRejectedFrame();
+      this.bytesToDiscard = bodySize;
+      handle(this.header);
+      this.header.clear();
+      return;
+    }
+    if (this.frame.capacity() < frameSize) {
+      this.frame = ByteBuffer.allocate((int) frameSize);
+    }
+    this.frame.clear().limit((int) frameSize);
+    this.frame.put(this.header);
+    this.header.clear();
+    this.isReadingBody = true;
+  }
+
+  private void handle(ByteBuffer frame) {
+    try {
+      this.response = this.requestHandler.handle(frame);
+    } catch (RuntimeException e) {
+      // Responded in order like any other request, rather than stopping the listener's thread
+      logger.error("Exception occurred during handling the request over shared memory!", e);
+      this.response = this.responseSerializer.internalError();
+    }
+    writeResponse();
+  }
+
+  private boolean writeResponse() {
+    int written = this.channel.responses().write(this.response);
+    if (!this.response.hasRemaining()) {
+      this.allocator.release(this.response);
+      this.response = null;
+      this.metrics.recordResponsesWritten(1);
+    }
+    return written > 0;
+  }
+
+  // Frees the channel if its client has died without detaching, checked once an interval at most
+  private void maybeFreeDeadClient() {
+    long nowNanos = System.nanoTime();
+    if (nowNanos - this.nextClientCheckNanos < 0) {
+      return;
+    }
+    this.nextClientCheckNanos = nowNanos + CLIENT_CHECK_INTERVAL_NANOS;
+    long pid = this.channel.clientPid();
+    if (pid == SharedMemoryChannel.NO_CLIENT_PID
+        || ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
+      return;
+    }
+    logger.warn("Shared memory client {} died without detaching from: {}", pid, this.path);
+    reset();
+  }
+
+  // The client has stopped using the rings, so they can be emptied for the next one
+  private void reset() {
+    this.channel.requests().reset();
+    this.channel.responses().reset();
+    this.header.clear();
+    this.isReadingBody = false;
+    this.bytesToDiscard = 0;
+    if (this.response != null) {
+      this.allocator.release(this.response);
+      this.response = null;
+    }
+    this.channel.clientPid(SharedMemoryChannel.NO_CLIENT_PID);
+    this.channel.state(SharedMemoryChannel.STATE_FREE);
+    logger.info("Shared memory client detached from: {}", this.path);
+  }
+}
@@ -0,0 +1,51 @@
+package io.seriput.server;
+
+import io.seriput.common.RingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Unbounded single-consumer queue on top of a bounded {@link RingQueue}, which spills over to a
+ * linked queue only while the ring is full, so no node is allocated per element otherwise.
+ *
+ * <p>Once a producer's element has spilled over, its next ones spill over too until the consumer
+ * has drained the spill, and the consumer polls the spill only once the ring is empty, which keeps
+ * the order of each producer's elements.
+ *
+ * @param <E> type of the elements
+ */
+final class SpillingQueue<E> {
+  private final RingQueue<E> ring;
+  private final Queue<E> spill = new ConcurrentLinkedQueue<>();
+
+  SpillingQueue(RingQueue<E> ring) {
+    this.ring = ring;
+  }
+
+  void offer(E element) {
+    if (!this.spill.isEmpty() || !this.ring.offer(element)) {
+      this.spill.offer(element);
+    }
+  }
+
+  /**
+   * Takes the element at the head of the queue off. Must only be called by the consumer.
+   *
+   * @return element at the head, or {@code null} if there is no published element
+   */
+  E poll() {
+    E element = this.ring.poll();
+    if (element == null && this.ring.isEmpty()) {
+      element = this.spill.poll();
+    }
+    return element;
+  }
+
+  boolean isEmpty() {
+    return this.ring.isEmpty() && this.spill.isEmpty();
+  }
+
+  int size() {
+    return this.ring.size() + this.spill.size();
+  }
+}
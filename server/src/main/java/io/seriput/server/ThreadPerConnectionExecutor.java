@@ -0,0 +1,62 @@
+package io.seriput.server;
+
+import java.time.Duration;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Handles the frames of each connection on its own virtual thread, which blocks on the connection's
+ * inbound queue, and then handles every frame queued by then in a single pass.
+ */
+final class ThreadPerConnectionExecutor implements RequestExecutor {
+  private static final Logger logger = LogManager.getLogger(ThreadPerConnectionExecutor.class);
+  // Max number of frames handled in a single pass
+  static final int MAX_BATCH_SIZE = 64;
+
+  @Override
+  public void register(SeriputConnection connection) {
+    connection.workerThread(
+        Thread.ofVirtual().name(workerThreadName(connection)).start(() -> work(connection)));
+  }
+
+  @Override
+  public void dispatch(SeriputConnection connection, RequestFrame frame) {
+    connection.enqueueInbound(frame);
+  }
+
+  @Override
+  public void deregister(SeriputConnection connection, Duration timeout)
+      throws InterruptedException {
+    connection.workerThread().interrupt();
+    if (timeout.isPositive()) {
+      connection.workerThread().join(timeout);
+    }
+  }
+
+  private static void work(SeriputConnection connection) {
+    var batch = new RequestBatch(MAX_BATCH_SIZE);
+    while (SeriputConnection.State.OPEN.equals(connection.state())) {
+      try {
+        batch.add(connection.takeInbound());
+        connection.drainInbound(batch);
+        connection.handle(batch);
+      } catch (InterruptedException e) {
+        if (connection.state().isClosureInProgress()) {
+          logger.debug("Worker thread interrupted...");
+          break; // Exit gracefully
+        }
+        logger.warn("Worker thread interrupted while the connection is open!", e);
+      }
+    }
+    logger.info("Worker thread is exiting, inbound queue is empty: {}", !connection.hasInbound());
+    connection.releaseInbound();
+  }
+
+  private static String workerThreadName(SeriputConnection connection) {
+    return "seriput-worker[client=%s:%s,conn=%s]"
+        .formatted(
+            connection.client().address().getHostName(),
+            connection.client().port(),
+            connection.clientConnectionIx());
+  }
+}
@@ -0,0 +1,76 @@
+package io.seriput.server.core;
+
+import io.seriput.server.core.BoundedStorageEngine.Node;
+
+/**
+ * Doubly-linked list of {@link Node}s through their own links, so moving a node costs no
+ * allocation. The head is the least recently used node and the tail the most recently used one. A
+ * node is in at most one deque at a time.
+ */
+final class AccessOrderDeque {
+  private Node head;
+  private Node tail;
+  private long weight;
+
+  Node peekFirst() {
+    return this.head;
+  }
+
+  /**
+   * Returns the total weight of the nodes in the deque.
+   *
+   * @return sum of the nodes' weights
+   */
+  long weight() {
+    return this.weight;
+  }
+
+  void addLast(Node node) {
+    node.prev = this.tail;
+    node.next = null;
+    if (this.tail == null) {
+      this.head = node;
+    } else {
+      this.tail.next = node;
+    }
+    this.tail = node;
+    this.weight += node.weight;
+  }
+
+  void moveToLast(Node node) {
+    if (node != this.tail) {
+      remove(node);
+      addLast(node);
+    }
+  }
+
+  Node pollFirst() {
+    Node node = this.head;
+    if (node != null) {
+      remove(node);
+    }
+    return node;
+  }
+
+  void remove(Node node) {
+    if (node.prev == null) {
+      this.head = node.next;
+    } else {
+      node.prev.next = node.next;
+    }
+    if (node.next == null) {
+      this.tail = node.prev;
+    } else {
+      node.next.prev = node.prev;
+    }
+    node.prev = null;
+    node.next = null;
+    this.weight -= node.weight;
+  }
+
+  void clear() {
+    this.head = null;
+    this.tail = null;
+    this.weight = 0;
+  }
+}
@@ -0,0 +1,263 @@
+package io.seriput.server.core;
+
+import io.seriput.common.MpscRingQueue;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the entries on the heap within a memory budget, evicting the ones picked by an {@link
+ * EvictionPolicy} once the budget is exceeded.
+ *
+ * <p>Each entry is accounted by the exact size of its key's and value's arrays plus {@link
+ * #ENTRY_OVERHEAD}, so the total never drifts from what the entries hold. The writes update the
+ * map, the policy and the total while holding the eviction lock. A {@link #get(Key)} takes no lock
+ * though, it only offers the read entry to a read buffer of the thread's stripe, which is replayed
+ * to the policy by the next write or once the buffer fills up, if the lock is free. A read is
+ * dropped if its buffer is full, the policy needs only a sample of the reads.
+ */
+public final class BoundedStorageEngine implements StorageEngine {
+  // Bytes of an entry other than its arrays' with compressed references and a 12 byte object
+  // header, each object padded to 8 bytes:
+  // - Key: type, bytes, buffer, offset, length, hash = 12 + 6 * 4 = 36 -> 40
+  // - Value: type, bytes = 12 + 2 * 4, expiresAtNanos + 8 = 28 -> 32
+  // - Node: key, value, prev, next = 12 + 4 * 4, weight + 8, isAlive, queue + 2 = 38 -> 40
+  // - the map's node: hash, key, val, next = 12 + 4 * 4 = 28 -> 32
+  // - two slots of the map's table at most 0.75 full = 2 * 4 = 8
+  // BoundedStorageEngineTest checks it against the fields of Key, Value and Node.
+  static final int ENTRY_OVERHEAD = 40 + 32 + 40 + 32 + 8;
+
+  private static final int ARRAY_HEADER_SIZE = 16;
+  private static final int OBJECT_ALIGNMENT = 8;
+  private static final int READ_BUFFER_STRIPES =
+      Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+  private static final int READ_BUFFER_CAPACITY = 64;
+
+  private final ConcurrentHashMap<Key, Node> nodes = new ConcurrentHashMap<>();
+  private final long maxBytes;
+  private final CacheMetrics metrics;
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final MpscRingQueue<Node>[] readBuffers;
+  private volatile Consumer<Key> evictionListener = key -> {};
+  // region Guarded by evictionLock
+  private final EvictionPolicy policy;
+  private long usedBytes;
+  // endregion
+
+  /**
+   * Creates an engine evicting the entries picked by the given {@code eviction} policy.
+   *
+   * @param maxBytes memory budget of the entries, see {@link CacheMetrics#usedBytes()}
+   * @param eviction policy picking the entries to evict
+   * @param metrics counters to record the evictions in
+   */
+  @SuppressWarnings("unchecked")
+  public BoundedStorageEngine(long maxBytes, Eviction eviction, CacheMetrics metrics) {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("'maxBytes' must be positive: " + maxBytes);
+    }
+    this.maxBytes = maxBytes;
+    this.policy =
+        switch (Objects.requireNonNull(eviction, "eviction may not be null!")) {
+          case LRU -> new LruPolicy();
+          case W_TINY_LFU -> new WindowTinyLfuPolicy(maxBytes);
+        };
+    this.metrics = Objects.requireNonNull(metrics, "metrics may not be null!");
+    this.readBuffers = new MpscRingQueue[READ_BUFFER_STRIPES];
+    for (int i = 0; i < READ_BUFFER_STRIPES; i++) {
+      this.readBuffers[i] = new MpscRingQueue<>(READ_BUFFER_CAPACITY);
+    }
+  }
+
+  @Override
+  public Value get(Key key) {
+    Node node = this.nodes.get(key);
+    if (node == null) {
+      return null;
+    }
+    var readBuffer = this.readBuffers[stripe()];
+    if (!readBuffer.offer(node) && this.evictionLock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        this.evictionLock.unlock();
+      }
+    }
+    return node.value;
+  }
+
+  @Override
+  public void put(Key key, Value value) {
+    var node = new Node(key, value, weigh(key, value));
+    this.evictionLock.lock();
+    try {
+      drainReadBuffers();
+      Node replaced = this.nodes.put(key, node);
+      if (replaced != null) {
+        unlink(replaced);
+      }
+      if (node.weight > this.maxBytes) {
+        // Would evict every other entry to end up evicted itself
+        this.nodes.remove(key, node);
+        this.metrics.recordEviction(node.weight);
+        this.evictionListener.accept(key);
+      } else {
+        node.isAlive = true;
+        this.policy.onAdd(node);
+        this.usedBytes += node.weight;
+        evict();
+      }
+      this.metrics.recordUsedBytes(this.usedBytes);
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Value delete(Key key) {
+    this.evictionLock.lock();
+    try {
+      Node node = this.nodes.remove(key);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      this.metrics.recordUsedBytes(this.usedBytes);
+      return node.value;
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean removeExpired(Key key) {
+    this.evictionLock.lock();
+    try {
+      Node node = this.nodes.get(key);
+      if (node == null || !node.value.isExpired()) {
+        return false;
+      }
+      this.nodes.remove(key, node);
+      unlink(node);
+      this.metrics.recordUsedBytes(this.usedBytes);
+      return true;
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void evictionListener(Consumer<Key> listener) {
+    this.evictionListener = Objects.requireNonNull(listener, "listener may not be null!");
+  }
+
+  @Override
+  public void clear() {
+    this.evictionLock.lock();
+    try {
+      this.nodes.clear();
+      for (MpscRingQueue<Node> readBuffer : this.readBuffers) {
+        while (readBuffer.poll() != null) {
+          // Discard, the nodes are gone
+        }
+      }
+      this.policy.clear();
+      this.usedBytes = 0;
+      this.metrics.recordUsedBytes(0);
+    } finally {
+      this.evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    clear();
+  }
+
+  /**
+   * Returns the number of bytes an entry of the given {@code key} and {@code value} is accounted
+   * by against the memory budget.
+   *
+   * @param key key of the entry
+   * @param value value of the entry
+   * @return size of the entry in bytes
+   */
+  public static long weigh(Key key, Value value) {
+    // A key which isn't a view of a buffer keeps its whole array
+    int keyBytes = key.bytes() != null ? key.bytes().length : key.length();
+    return ENTRY_OVERHEAD + arraySize(keyBytes) + arraySize(value.bytes().length);
+  }
+
+  private void drainReadBuffers() {
+    for (MpscRingQueue<Node> readBuffer : this.readBuffers) {
+      Node node;
+      while ((node = readBuffer.poll()) != null) {
+        if (node.isAlive) { // Read before being replaced, deleted or evicted otherwise
+          this.policy.onAccess(node);
+        }
+      }
+    }
+  }
+
+  private void evict() {
+    while (this.usedBytes > this.maxBytes) {
+      Node victim = this.policy.evict();
+      if (victim == null) {
+        return;
+      }
+      this.nodes.remove(victim.key, victim);
+      victim.isAlive = false;
+      this.usedBytes -= victim.weight;
+      this.metrics.recordEviction(victim.weight);
+      this.evictionListener.accept(victim.key);
+    }
+  }
+
+  private void unlink(Node node) {
+    if (node.isAlive) {
+      node.isAlive = false;
+      this.policy.onRemove(node);
+      this.usedBytes -= node.weight;
+    }
+  }
+
+  private static int stripe() {
+    long id = Thread.currentThread().threadId();
+    return (int) (id ^ (id >>> 16)) * 0x9E3779B9 >>> 16 & (READ_BUFFER_STRIPES - 1);
+  }
+
+  private static long arraySize(int length) {
+    return (ARRAY_HEADER_SIZE + (long) length + OBJECT_ALIGNMENT - 1) & -OBJECT_ALIGNMENT;
+  }
+
+  /** Policy picking the entries to evict once the memory budget is exceeded. */
+  public enum Eviction {
+    /** The least recently read or written entry is evicted. */
+    LRU,
+    /**
+     * A new entry is admitted only if it's read more often than the entry it would evict, which
+     * keeps the frequently read entries through a burst of entries read once, like a scan.
+     */
+    W_TINY_LFU,
+  }
+
+  /** Entry of the engine, linked into the policy's deques through its own fields. */
+  static final class Node {
+    final Key key;
+    final Value value;
+    final long weight;
+    // region Guarded by the eviction lock
+    Node prev;
+    Node next;
+    boolean isAlive;
+    byte queue; // Which of the policy's deques it's in
+    // endregion
+
+    private Node(Key key, Value value, long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+}
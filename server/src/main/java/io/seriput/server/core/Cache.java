@@ -1,29 +1,246 @@
 package io.seriput.server.core;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
-/** A simple thread-safe cache implementation using {@code ConcurrentHashMap} under the hood. */
-public final class Cache {
-  private static final ConcurrentHashMap<Key, Value> cache = new ConcurrentHashMap<>();
+/**
+ * A simple thread-safe cache implementation on top of a {@link StorageEngine}.
+ *
+ * <p>An entry put with a TTL expires lazily, a read finding it expired removes it and misses. So
+ * that the expired entries which are never read again don't hold on to their memory, a cache
+ * created with a sweep interval schedules each of them on a {@link TimerWheel} too, which a
+ * background sweeper advances every interval to remove the ones expired by then. A key has a
+ * single timer at most, which is cancelled once the key is put again, deleted or evicted by the
+ * engine, so that the timers never outnumber the entries the engine keeps.
+ */
+public final class Cache implements AutoCloseable {
+  // Shared by the caches created without an engine
+  private static final StorageEngine sharedEngine = new HeapStorageEngine();
+  private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+  private final StorageEngine engine;
+  private final CacheMetrics metrics;
+  private final long sweepIntervalNanos;
+  private final Thread sweeper; // Only if the expired entries are swept
+  private final ReentrantLock wheelLock = new ReentrantLock();
+  private final TimerWheel wheel; // Guarded by wheelLock
+  // Timer of each key scheduled on the wheel, changed under wheelLock only
+  private final Map<Key, TimerWheel.Timer> timers = new ConcurrentHashMap<>();
+
+  /** Creates a cache on the {@link HeapStorageEngine} shared by the whole JVM. */
+  public Cache() {
+    this(sharedEngine, new CacheMetrics(), Duration.ZERO);
+  }
+
+  /**
+   * Creates a cache on the given storage {@code engine}, which it closes on {@link #close()}.
+   *
+   * @param engine engine to keep the entries in
+   */
+  public Cache(StorageEngine engine) {
+    this(engine, new CacheMetrics(), Duration.ZERO);
+  }
+
+  /**
+   * Creates a cache on the given storage {@code engine}, which it closes on {@link #close()},
+   * sweeping the expired entries every {@code sweepInterval}.
+   *
+   * @param engine engine to keep the entries in
+   * @param metrics counters to record the expirations in
+   * @param sweepInterval interval between the sweeps of the expired entries, {@link Duration#ZERO}
+   *     expires them on reads only
+   */
+  public Cache(StorageEngine engine, CacheMetrics metrics, Duration sweepInterval) {
+    this.engine = Objects.requireNonNull(engine, "engine may not be null!");
+    this.metrics = Objects.requireNonNull(metrics, "metrics may not be null!");
+    Objects.requireNonNull(sweepInterval, "sweepInterval may not be null!");
+    if (sweepInterval.isNegative()) {
+      throw new IllegalArgumentException(
+          "'sweepInterval' must not be negative: " + sweepInterval);
+    }
+    this.sweepIntervalNanos = sweepInterval.toNanos();
+    if (sweepInterval.isZero()) {
+      this.wheel = null;
+      this.sweeper = null;
+    } else {
+      this.wheel = new TimerWheel(System.nanoTime());
+      engine.evictionListener(this::cancelTimer);
+      this.sweeper = Thread.ofPlatform().name("expiry-sweeper").daemon().start(this::sweep);
+    }
+  }
 
   public Value get(Key key) {
     Objects.requireNonNull(key, "key may not be null!");
-    return cache.get(key);
+    Value value = this.engine.get(key);
+    if (value != null && value.isExpired()) {
+      if (this.engine.removeExpired(key)) {
+        this.metrics.recordExpiration();
+      }
+      return null;
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value stored by the key of the given type whose bytes are the given slice of a
+   * buffer, looked up in place as {@link StorageEngine#get(KeyType, ByteBuffer, int, int)} does.
+   *
+   * @param keyType type of the key
+   * @param buffer buffer holding the key's bytes, e.g. a request frame
+   * @param offset absolute index of the key's first byte in {@code buffer}
+   * @param length length of the key
+   * @return stored value, or {@code null} if there is none or it has expired
+   */
+  public Value get(KeyType keyType, ByteBuffer buffer, int offset, int length) {
+    Objects.requireNonNull(keyType, "keyType may not be null!");
+    Objects.requireNonNull(buffer, "buffer may not be null!");
+    Value value = this.engine.get(keyType, buffer, offset, length);
+    if (value != null && value.isExpired()) {
+      if (this.engine.removeExpired(Key.view(keyType, buffer, offset, length))) {
+        this.metrics.recordExpiration();
+      }
+      return null;
+    }
+    return value;
   }
 
   public void put(Key key, Value value) {
     Objects.requireNonNull(key, "key may not be null!");
     Objects.requireNonNull(value, "value may not be null!");
-    cache.put(key, value);
+    this.engine.put(key, value);
+    cancelTimer(key);
+  }
+
+  /**
+   * Stores the given {@code value} by the given {@code key} to expire after the given TTL.
+   *
+   * @param key key to store by, which must not be a view of a buffer if {@code ttlMillis} is set
+   * @param value value to store
+   * @param ttlMillis time to live of the value in milliseconds, {@code 0} never expires it
+   */
+  public void put(Key key, Value value, long ttlMillis) {
+    Objects.requireNonNull(key, "key may not be null!");
+    Objects.requireNonNull(value, "value may not be null!");
+    if (ttlMillis < 0) {
+      throw new IllegalArgumentException("'ttlMillis' must not be negative: " + ttlMillis);
+    }
+    if (ttlMillis == 0) {
+      put(key, value);
+      return;
+    }
+    long expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    if (expiresAtNanos == Value.NEVER) {
+      expiresAtNanos++;
+    }
+    if (this.wheel != null) {
+      // Scheduled first, so that the engine evicting the value on the put cancels its timer too
+      this.wheelLock.lock();
+      try {
+        TimerWheel.Timer previous = this.timers.put(key, this.wheel.schedule(key, expiresAtNanos));
+        if (previous != null) {
+          this.wheel.cancel(previous);
+        }
+      } finally {
+        this.wheelLock.unlock();
+      }
+    }
+    this.engine.put(key, new Value(value.type(), value.bytes(), expiresAtNanos));
   }
 
   public Value delete(Key key) {
     Objects.requireNonNull(key, "key may not be null!");
-    return cache.remove(key);
+    Value value = this.engine.delete(key);
+    cancelTimer(key);
+    if (value != null && value.isExpired()) {
+      this.metrics.recordExpiration();
+      return null;
+    }
+    return value;
+  }
+
+  @Override
+  public void close() {
+    if (this.sweeper != null) {
+      this.sweeper.interrupt();
+      try {
+        this.sweeper.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    if (this.engine != sharedEngine) {
+      this.engine.close();
+    }
   }
 
   void clear() {
-    cache.clear();
+    this.engine.clear();
+  }
+
+  int scheduledTimers() {
+    return this.timers.size();
+  }
+
+  private void sweep() {
+    List<Key> expired = new ArrayList<>();
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(this.sweepIntervalNanos);
+      } catch (InterruptedException e) {
+        return; // Closed
+      }
+      long cpuStartNanos = cpuTime();
+      this.wheelLock.lock();
+      try {
+        this.wheel.advance(
+            System.nanoTime(),
+            key -> {
+              this.timers.remove(key);
+              expired.add(key);
+            });
+      } finally {
+        this.wheelLock.unlock();
+      }
+      for (Key key : expired) {
+        if (this.engine.removeExpired(key)) {
+          this.metrics.recordExpiration();
+        }
+      }
+      expired.clear();
+      this.metrics.recordSweep(cpuTime() - cpuStartNanos);
+    }
+  }
+
+  // Cancels the key's timer, if any. Racing with a put with a TTL, a timer may be left for a value
+  // which doesn't expire or was evicted, it removes nothing once due and is cancelled by the key's
+  // next write. Called by the engine holding its own lock on evictions, it takes the wheel's only.
+  private void cancelTimer(Key key) {
+    if (this.wheel == null || !this.timers.containsKey(key)) {
+      return;
+    }
+    this.wheelLock.lock();
+    try {
+      TimerWheel.Timer timer = this.timers.remove(key);
+      if (timer != null) {
+        this.wheel.cancel(timer);
+      }
+    } finally {
+      this.wheelLock.unlock();
+    }
+  }
+
+  private static long cpuTime() {
+    return threadMXBean.isCurrentThreadCpuTimeSupported()
+        ? threadMXBean.getCurrentThreadCpuTime()
+        : 0;
   }
 }
@@ -0,0 +1,82 @@
+package io.seriput.server.core;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link Cache}, updated by its storage engine and readable from any thread.
+ *
+ * <p>Only the engines bounded by a memory budget evict, the counters of the others stay at zero.
+ * The expirations are recorded by the cache itself.
+ */
+public final class CacheMetrics {
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder evictedBytes = new LongAdder();
+  private final LongAdder expirations = new LongAdder();
+  private final LongAdder sweeperCpuNanos = new LongAdder();
+  private volatile long usedBytes;
+
+  /**
+   * Returns the number of entries evicted to keep the cache within its memory budget, including
+   * the ones larger than the whole budget, which are evicted right away.
+   *
+   * @return number of evicted entries
+   */
+  public long evictions() {
+    return this.evictions.sum();
+  }
+
+  /**
+   * Returns the total size of the evicted entries, as accounted against the memory budget.
+   *
+   * @return evicted bytes
+   */
+  public long evictedBytes() {
+    return this.evictedBytes.sum();
+  }
+
+  /**
+   * Returns the total size of the entries in the cache as accounted against the memory budget, i.e.
+   * the bytes of their keys and values plus a fixed overhead per entry.
+   *
+   * @return bytes in use by the entries, or {@code 0} if the cache isn't bounded
+   */
+  public long usedBytes() {
+    return this.usedBytes;
+  }
+
+  /**
+   * Returns the number of expired entries removed, either by a read finding them expired or by the
+   * background sweeper.
+   *
+   * @return number of expired entries
+   */
+  public long expirations() {
+    return this.expirations.sum();
+  }
+
+  /**
+   * Returns the CPU time the background sweeper spent removing the expired entries.
+   *
+   * @return CPU time in nanoseconds, or {@code 0} if the JVM doesn't measure the threads' CPU time
+   */
+  public long sweeperCpuNanos() {
+    return this.sweeperCpuNanos.sum();
+  }
+
+  void recordEviction(long bytes) {
+    this.evictions.increment();
+    this.evictedBytes.add(bytes);
+  }
+
+  void recordUsedBytes(long bytes) {
+    this.usedBytes = bytes;
+  }
+
+  void recordExpiration() {
+    this.expirations.increment();
+  }
+
+  void recordSweep(long cpuNanos) {
+    this.sweeperCpuNanos.add(cpuNanos);
+  }
+}
@@ -0,0 +1,39 @@
+package io.seriput.server.core;
+
+/**
+ * Decides which entry of a {@link BoundedStorageEngine} to evict once it exceeds its memory
+ * budget. Implementations aren't thread-safe, they're called only while holding the engine's
+ * eviction lock.
+ */
+interface EvictionPolicy {
+  /**
+   * Tracks the given {@code node} just added to the engine.
+   *
+   * @param node added node
+   */
+  void onAdd(BoundedStorageEngine.Node node);
+
+  /**
+   * Records a read of the given {@code node}, which is still in the engine.
+   *
+   * @param node read node
+   */
+  void onAccess(BoundedStorageEngine.Node node);
+
+  /**
+   * Stops tracking the given {@code node} just removed from the engine.
+   *
+   * @param node removed node
+   */
+  void onRemove(BoundedStorageEngine.Node node);
+
+  /**
+   * Picks the next node to evict and stops tracking it.
+   *
+   * @return node to evict, or {@code null} if no node is tracked
+   */
+  BoundedStorageEngine.Node evict();
+
+  /** Stops tracking every node. */
+  void clear();
+}
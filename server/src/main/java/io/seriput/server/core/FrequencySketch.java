@@ -0,0 +1,116 @@
+package io.seriput.server.core;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch estimating how often each key was seen, in 4-bit counters so that the sketch of
+ * a large cache stays a few bytes per entry.
+ *
+ * <p>A key has a counter in each of the 64-bit words picked by 4 differently seeded hashes, and its
+ * frequency is the smallest of them. Once as many increments as 10 times the
+ * capacity are made, every counter is halved, so the frequencies of the keys no longer read age
+ * away and a counter saturating at 15 is enough. Not thread-safe.
+ */
+final class FrequencySketch {
+  private static final long[] SEEDS = {
+    0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+  private static final int MAX_FREQUENCY = 15;
+  private static final int MIN_TABLE_LENGTH = 8;
+  private static final int MAX_TABLE_LENGTH = 1 << 30;
+  private static final int SAMPLE_SIZE_FACTOR = 10;
+
+  private long[] table = new long[MIN_TABLE_LENGTH];
+  private long sampleSize = (long) SAMPLE_SIZE_FACTOR * MIN_TABLE_LENGTH;
+  private long size;
+
+  /**
+   * Grows the sketch to count the given number of keys accurately, which resets every counter.
+   *
+   * @param capacity number of keys to count
+   */
+  void ensureCapacity(long capacity) {
+    if (capacity <= this.table.length || this.table.length == MAX_TABLE_LENGTH) {
+      return;
+    }
+    int length = (int) Math.min(Long.highestOneBit(capacity - 1) << 1, MAX_TABLE_LENGTH);
+    this.table = new long[length];
+    this.sampleSize = (long) SAMPLE_SIZE_FACTOR * length;
+    this.size = 0;
+  }
+
+  /**
+   * Returns the estimated number of times the key of the given {@code hash} was seen, capped at
+   * 15.
+   *
+   * @param hash hash code of the key
+   * @return estimated frequency of the key
+   */
+  int frequency(int hash) {
+    int h = spread(hash);
+    int start = (h & 3) << 2;
+    int frequency = MAX_FREQUENCY;
+    for (int i = 0; i < SEEDS.length; i++) {
+      int index = indexOf(h, i);
+      int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Counts an occurrence of the key of the given {@code hash}, halving every counter once the
+   * sample size is reached.
+   *
+   * @param hash hash code of the key
+   */
+  void increment(int hash) {
+    int h = spread(hash);
+    int start = (h & 3) << 2;
+    boolean isIncremented = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      isIncremented |= incrementAt(indexOf(h, i), start + i);
+    }
+    if (isIncremented && ++this.size == this.sampleSize) {
+      reset();
+    }
+  }
+
+  void clear() {
+    Arrays.fill(this.table, 0L);
+    this.size = 0;
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((this.table[index] & mask) != mask) {
+      this.table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  // Halves every counter, the increments lost to the odd counters' truncation are deducted too
+  private void reset() {
+    long oddCounters = 0;
+    for (int i = 0; i < this.table.length; i++) {
+      oddCounters += Long.bitCount(this.table[i] & ONE_MASK);
+      this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+    }
+    this.size = (this.size - (oddCounters >>> 2)) >>> 1;
+  }
+
+  private int indexOf(int hash, int i) {
+    long h = (hash + SEEDS[i]) * SEEDS[i];
+    h += h >>> 32;
+    return (int) h & (this.table.length - 1);
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x31848bab;
+    return h ^ (h >>> 14);
+  }
+}
@@ -0,0 +1,42 @@
+package io.seriput.server.core;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the entries on the heap in a {@code ConcurrentHashMap}, each as a {@link Key} and a {@link
+ * Value} with their own byte arrays.
+ */
+public final class HeapStorageEngine implements StorageEngine {
+  private final ConcurrentHashMap<Key, Value> entries = new ConcurrentHashMap<>();
+
+  @Override
+  public Value get(Key key) {
+    return this.entries.get(key);
+  }
+
+  @Override
+  public void put(Key key, Value value) {
+    this.entries.put(key, value);
+  }
+
+  @Override
+  public Value delete(Key key) {
+    return this.entries.remove(key);
+  }
+
+  @Override
+  public boolean removeExpired(Key key) {
+    Value value = this.entries.get(key);
+    return value != null && value.isExpired() && this.entries.remove(key, value);
+  }
+
+  @Override
+  public void clear() {
+    this.entries.clear();
+  }
+
+  @Override
+  public void close() {
+    // Nothing to release, the entries are garbage collected
+  }
+}
@@ -1,5 +1,10 @@
 package io.seriput.server.core;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 /**
  * Represents a key stored in the key-value store.
  *
@@ -8,14 +13,18 @@ package io.seriput.server.core;
  * <ul>
  *   <li><b>Owning mode</b> — created via {@link #Key(KeyType, byte[])}, the key owns the entire
  *       byte array. The hash code is computed eagerly at construction.
- *   <li><b>View mode</b> — created via {@link #view(KeyType, byte[], int, int)}, the key references
- *       a slice of a shared byte array without copying. The hash code is computed lazily on first
- *       access. Suitable for transient lookups (GET, DELETE) where the key is not stored.
+ *   <li><b>View mode</b> — created via {@link #view(KeyType, byte[], int, int)} or {@link
+ *       #view(KeyType, ByteBuffer, int, int)}, the key references a slice of a shared byte array or
+ *       buffer without copying. The hash code is computed lazily on first access. Suitable for
+ *       transient lookups (GET, DELETE) where the key is not stored.
  * </ul>
+ *
+ * <p>Keys of different modes are equal if their types and bytes are equal.
  */
 public final class Key {
   private final KeyType type;
-  private final byte[] bytes;
+  private final byte[] bytes; // null in buffer view mode
+  private final ByteBuffer buffer; // null unless in buffer view mode
   private final int offset;
   private final int length;
   private int hash;
@@ -23,6 +32,7 @@ public final class Key {
   public Key(KeyType type, byte[] bytes, int offset, int length) {
     this.type = type;
     this.bytes = bytes;
+    this.buffer = null;
     this.offset = offset;
     this.length = length;
   }
@@ -32,6 +42,14 @@ public final class Key {
     this.hash = computeHashCode();
   }
 
+  private Key(KeyType type, ByteBuffer buffer, int offset, int length) {
+    this.type = type;
+    this.bytes = null;
+    this.buffer = buffer;
+    this.offset = offset;
+    this.length = length;
+  }
+
   /**
    * Creates a view key that references a slice of the given byte array without copying.
    *
@@ -41,10 +59,40 @@ public final class Key {
     return new Key(type, bytes, offset, length);
   }
 
+  /**
+   * Creates a view key that references a slice of the given buffer without copying. The slice is
+   * addressed with absolute indexes, so the buffer's position and limit are irrelevant.
+   *
+   * <p>The caller must ensure the buffer is not mutated or released while this key is in use.
+   */
+  public static Key view(KeyType type, ByteBuffer buffer, int offset, int length) {
+    return new Key(type, buffer, offset, length);
+  }
+
+  /**
+   * Creates a key in owning mode by copying the given slice of the buffer.
+   *
+   * @param type type of the key
+   * @param buffer buffer to copy from
+   * @param offset absolute index of the key's first byte in the buffer
+   * @param length length of the key
+   * @return owning key
+   */
+  public static Key copyOf(KeyType type, ByteBuffer buffer, int offset, int length) {
+    byte[] bytes = new byte[length];
+    buffer.get(offset, bytes);
+    return new Key(type, bytes);
+  }
+
   public KeyType type() {
     return type;
   }
 
+  /**
+   * Returns the backing byte array of the key.
+   *
+   * @return backing byte array, or {@code null} if {@code this} key is a view of a buffer
+   */
   public byte[] bytes() {
     return bytes;
   }
@@ -57,13 +105,28 @@ public final class Key {
     return length;
   }
 
+  /**
+   * Returns the bytes of the key as a memory segment, without copying.
+   *
+   * @return segment of the key's bytes, valid as long as the backing array or buffer is
+   */
+  MemorySegment segment() {
+    return bytes != null
+        ? MemorySegment.ofArray(bytes).asSlice(offset, length)
+        : MemorySegment.ofBuffer(buffer.slice(offset, length));
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == null || getClass() != o.getClass()) return false;
     Key key = (Key) o;
     if (type != key.type || length != key.length) return false;
+    if (bytes != null && key.bytes != null) {
+      return Arrays.equals(
+          bytes, offset, offset + length, key.bytes, key.offset, key.offset + length);
+    }
     for (int i = 0; i < length; i++) {
-      if (bytes[offset + i] != key.bytes[key.offset + i]) return false;
+      if (byteAt(i) != key.byteAt(i)) return false;
     }
     return true;
   }
@@ -78,10 +141,30 @@ public final class Key {
     return h;
   }
 
+  /**
+   * Returns the hash code of a key of the given type and bytes, equal to the {@link #hashCode()}
+   * of such a key, without creating one.
+   *
+   * @param type type of the key
+   * @param bytes bytes of the key
+   * @return hash code of the key
+   */
+  static int hashCode(KeyType type, MemorySegment bytes) {
+    int h = 1;
+    for (long i = 0; i < bytes.byteSize(); i++) {
+      h = 31 * h + bytes.get(ValueLayout.JAVA_BYTE, i);
+    }
+    return 31 * type.hashCode() + h;
+  }
+
+  private byte byteAt(int i) {
+    return bytes != null ? bytes[offset + i] : buffer.get(offset + i);
+  }
+
   private int computeHashCode() {
     int h = 1;
-    for (int i = offset; i < offset + length; i++) {
-      h = 31 * h + bytes[i];
+    for (int i = 0; i < length; i++) {
+      h = 31 * h + byteAt(i);
     }
     return 31 * type.hashCode() + h;
   }
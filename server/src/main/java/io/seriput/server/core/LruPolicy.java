@@ -0,0 +1,33 @@
+package io.seriput.server.core;
+
+import io.seriput.server.core.BoundedStorageEngine.Node;
+
+/** Evicts the least recently added or read node. */
+final class LruPolicy implements EvictionPolicy {
+  private final AccessOrderDeque deque = new AccessOrderDeque();
+
+  @Override
+  public void onAdd(Node node) {
+    this.deque.addLast(node);
+  }
+
+  @Override
+  public void onAccess(Node node) {
+    this.deque.moveToLast(node);
+  }
+
+  @Override
+  public void onRemove(Node node) {
+    this.deque.remove(node);
+  }
+
+  @Override
+  public Node evict() {
+    return this.deque.pollFirst();
+  }
+
+  @Override
+  public void clear() {
+    this.deque.clear();
+  }
+}
@@ -0,0 +1,387 @@
+package io.seriput.server.core;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Keeps the entries off-heap in the chunks of a {@link SlabAllocator}, so the heap holds only the
+ * index and the garbage collector never traces nor copies the keys and the values.
+ *
+ * <p>An entry is laid out in its chunk as the key's type, the value's type, the key's length, the
+ * value's length, the value's expiry, the key's bytes and the value's bytes. The index is split
+ * into segments by the keys' hashes, each an open-addressing table with linear probing guarded by
+ * its own {@link StampedLock}, which keeps per entry only the key's hash in an {@code int[]} and
+ * the chunk's handle in a {@code long[]}.
+ *
+ * <p>A {@link #get(Key)} takes no lock unless it races with a write. It probes the table and
+ * copies the value onto the heap optimistically, then validates that no write took the segment's
+ * lock meanwhile, as a chunk is freed and may be reused as soon as its entry is replaced or
+ * removed. Only if the validation fails, the read is retried while holding the read lock. A key
+ * can be looked up by its bytes as well, see {@link #get(KeyType, MemorySegment, long, long)}.
+ */
+public final class OffHeapStorageEngine implements StorageEngine {
+  private static final int SEGMENT_COUNT_BITS = 6;
+  private static final int INITIAL_SEGMENT_CAPACITY = 16;
+  private static final int EMPTY = 0;
+  private static final long NO_HANDLE = -1;
+
+  // region Entry layout
+  private static final long KEY_TYPE_OFFSET = 0;
+  private static final long VALUE_TYPE_OFFSET = 1;
+  private static final long KEY_LENGTH_OFFSET = 2;
+  private static final long VALUE_LENGTH_OFFSET = 6;
+  private static final long EXPIRES_AT_OFFSET = 10;
+  private static final int HEADER_SIZE = 18;
+  // endregion
+
+  private final SlabAllocator allocator = new SlabAllocator();
+  private final Segment[] segments = new Segment[1 << SEGMENT_COUNT_BITS];
+
+  public OffHeapStorageEngine() {
+    for (int i = 0; i < this.segments.length; i++) {
+      this.segments[i] = new Segment();
+    }
+  }
+
+  @Override
+  public Value get(Key key) {
+    int hash = hash(key.hashCode());
+    return segmentOf(hash).get(key.segment(), key.type(), hash);
+  }
+
+  /**
+   * Looks the key up by the segment of the buffer's bytes from its position to its limit, which
+   * covers the key of a request frame, without creating a {@link Key} nor slicing the buffer.
+   */
+  @Override
+  public Value get(KeyType keyType, ByteBuffer buffer, int offset, int length) {
+    int position = buffer.position();
+    if (offset < position || offset + length > buffer.limit()) {
+      return StorageEngine.super.get(keyType, buffer, offset, length);
+    }
+    return get(keyType, MemorySegment.ofBuffer(buffer), offset - position, length);
+  }
+
+  /**
+   * Returns the value stored by the key of the given type and bytes, without creating a {@link
+   * Key}.
+   *
+   * @param keyType type of the key
+   * @param bytes segment holding the key's bytes
+   * @param offset offset of the key's first byte in {@code bytes}
+   * @param length length of the key
+   * @return stored value, or {@code null} if there is none
+   */
+  public Value get(KeyType keyType, MemorySegment bytes, long offset, long length) {
+    MemorySegment key = bytes.asSlice(offset, length);
+    int hash = hash(Key.hashCode(keyType, key));
+    return segmentOf(hash).get(key, keyType, hash);
+  }
+
+  /**
+   * Returns the value stored by the key of the given type and bytes, without creating a {@link
+   * Key}.
+   *
+   * @param keyType type of the key
+   * @param bytes array holding the key's bytes
+   * @param offset index of the key's first byte in {@code bytes}
+   * @param length length of the key
+   * @return stored value, or {@code null} if there is none
+   */
+  public Value get(KeyType keyType, byte[] bytes, int offset, int length) {
+    return get(keyType, MemorySegment.ofArray(bytes), offset, length);
+  }
+
+  @Override
+  public void put(Key key, Value value) {
+    int size = HEADER_SIZE + key.length() + value.bytes().length;
+    long handle = this.allocator.allocate(size);
+    MemorySegment slab = this.allocator.slab(handle);
+    long offset = SlabAllocator.offset(handle);
+    slab.set(ValueLayout.JAVA_BYTE, offset + KEY_TYPE_OFFSET, key.type().typeId());
+    slab.set(ValueLayout.JAVA_BYTE, offset + VALUE_TYPE_OFFSET, value.type().typeId());
+    slab.set(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET, key.length());
+    slab.set(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_LENGTH_OFFSET, value.bytes().length);
+    slab.set(ValueLayout.JAVA_LONG_UNALIGNED, offset + EXPIRES_AT_OFFSET, value.expiresAtNanos());
+    MemorySegment keySegment = key.segment();
+    MemorySegment.copy(keySegment, 0, slab, offset + HEADER_SIZE, key.length());
+    MemorySegment.copy(
+        value.bytes(),
+        0,
+        slab,
+        ValueLayout.JAVA_BYTE,
+        offset + HEADER_SIZE + key.length(),
+        value.bytes().length);
+
+    int hash = hash(key.hashCode());
+    long replaced = segmentOf(hash).put(keySegment, key.type(), hash, handle);
+    if (replaced != NO_HANDLE) {
+      free(replaced); // Unreachable by now, but by the reads which fail their validation
+    }
+  }
+
+  @Override
+  public Value delete(Key key) {
+    int hash = hash(key.hashCode());
+    return segmentOf(hash).delete(key.segment(), key.type(), hash);
+  }
+
+  @Override
+  public boolean removeExpired(Key key) {
+    int hash = hash(key.hashCode());
+    return segmentOf(hash).removeExpired(key.segment(), key.type(), hash);
+  }
+
+  @Override
+  public void clear() {
+    for (Segment segment : this.segments) {
+      segment.clear();
+    }
+  }
+
+  @Override
+  public void close() {
+    this.allocator.close();
+  }
+
+  /**
+   * Returns the number of off-heap bytes reserved for the entries, including the free chunks.
+   *
+   * @return reserved off-heap bytes
+   */
+  public long offHeapBytes() {
+    return this.allocator.reservedBytes();
+  }
+
+  private Segment segmentOf(int hash) {
+    return this.segments[hash >>> (Integer.SIZE - SEGMENT_COUNT_BITS)];
+  }
+
+  private boolean matches(long handle, MemorySegment key, KeyType keyType) {
+    MemorySegment slab = this.allocator.slab(handle);
+    long offset = SlabAllocator.offset(handle);
+    if (slab.get(ValueLayout.JAVA_BYTE, offset + KEY_TYPE_OFFSET) != keyType.typeId()) {
+      return false;
+    }
+    long keyLength = slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET);
+    long keyOffset = offset + HEADER_SIZE;
+    return keyLength == key.byteSize()
+        && MemorySegment.mismatch(slab, keyOffset, keyOffset + keyLength, key, 0, keyLength) == -1;
+  }
+
+  private Value read(long handle) {
+    MemorySegment slab = this.allocator.slab(handle);
+    long offset = SlabAllocator.offset(handle);
+    int keyLength = slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET);
+    byte[] bytes = new byte[slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_LENGTH_OFFSET)];
+    MemorySegment.copy(
+        slab, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE + keyLength, bytes, 0, bytes.length);
+    return new Value(
+        ValueType.fromByte(slab.get(ValueLayout.JAVA_BYTE, offset + VALUE_TYPE_OFFSET)),
+        bytes,
+        slab.get(ValueLayout.JAVA_LONG_UNALIGNED, offset + EXPIRES_AT_OFFSET));
+  }
+
+  private boolean isExpired(long handle) {
+    long expiresAtNanos =
+        this.allocator
+            .slab(handle)
+            .get(ValueLayout.JAVA_LONG_UNALIGNED, SlabAllocator.offset(handle) + EXPIRES_AT_OFFSET);
+    return Value.isExpired(expiresAtNanos);
+  }
+
+  private void free(long handle) {
+    MemorySegment slab = this.allocator.slab(handle);
+    long offset = SlabAllocator.offset(handle);
+    int size =
+        HEADER_SIZE
+            + slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET)
+            + slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_LENGTH_OFFSET);
+    this.allocator.free(handle, size);
+  }
+
+  // Spreads the key's hash over the segments' bits, never EMPTY
+  private static int hash(int keyHash) {
+    int h = keyHash * 0x9E3779B9;
+    h ^= h >>> 16;
+    return h != EMPTY ? h : 1;
+  }
+
+  private final class Segment {
+    private final StampedLock lock = new StampedLock();
+    // region Guarded by lock, read optimistically by get
+    private int[] hashes = new int[INITIAL_SEGMENT_CAPACITY];
+    private long[] handles = new long[INITIAL_SEGMENT_CAPACITY];
+    private int size;
+    // endregion
+
+    private Value get(MemorySegment key, KeyType keyType, int hash) {
+      long stamp = this.lock.tryOptimisticRead();
+      if (stamp != 0) { // Not write-locked
+        try {
+          Value value = readOptimistically(key, keyType, hash, stamp);
+          if (this.lock.validate(stamp)) {
+            return value;
+          }
+        } catch (RuntimeException e) {
+          // Racing with a write, the index may have been inconsistent or the chunk freed
+        }
+      }
+      stamp = this.lock.readLock();
+      try {
+        int slot = find(key, keyType, hash);
+        return slot >= 0 ? read(this.handles[slot]) : null;
+      } finally {
+        this.lock.unlockRead(stamp);
+      }
+    }
+
+    // Returns the handle of the replaced entry, or NO_HANDLE
+    private long put(MemorySegment key, KeyType keyType, int hash, long handle) {
+      long stamp = this.lock.writeLock();
+      try {
+        int slot = find(key, keyType, hash);
+        if (slot >= 0) {
+          long replaced = this.handles[slot];
+          this.handles[slot] = handle;
+          return replaced;
+        }
+        slot = -slot - 1;
+        this.hashes[slot] = hash;
+        this.handles[slot] = handle;
+        if (++this.size > this.hashes.length * 3 / 4) {
+          resize();
+        }
+        return NO_HANDLE;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    private Value delete(MemorySegment key, KeyType keyType, int hash) {
+      long stamp = this.lock.writeLock();
+      try {
+        int slot = find(key, keyType, hash);
+        if (slot < 0) {
+          return null;
+        }
+        long handle = this.handles[slot];
+        Value value = read(handle);
+        remove(slot);
+        free(handle);
+        return value;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    private boolean removeExpired(MemorySegment key, KeyType keyType, int hash) {
+      long stamp = this.lock.writeLock();
+      try {
+        int slot = find(key, keyType, hash);
+        if (slot < 0 || !isExpired(this.handles[slot])) {
+          return false;
+        }
+        long handle = this.handles[slot];
+        remove(slot);
+        free(handle);
+        return true;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    private void clear() {
+      long stamp = this.lock.writeLock();
+      try {
+        for (int slot = 0; slot < this.hashes.length; slot++) {
+          if (this.hashes[slot] != EMPTY) {
+            free(this.handles[slot]);
+          }
+        }
+        this.hashes = new int[INITIAL_SEGMENT_CAPACITY];
+        this.handles = new long[INITIAL_SEGMENT_CAPACITY];
+        this.size = 0;
+      } finally {
+        this.lock.unlockWrite(stamp);
+      }
+    }
+
+    // Reads the value without the lock, it's valid only if the stamp is still valid afterward
+    private Value readOptimistically(MemorySegment key, KeyType keyType, int hash, long stamp) {
+      int slot = find(key, keyType, hash);
+      if (slot < 0) {
+        return null;
+      }
+      long handle = this.handles[slot];
+      MemorySegment slab = allocator.slab(handle);
+      long offset = SlabAllocator.offset(handle);
+      byte valueTypeId = slab.get(ValueLayout.JAVA_BYTE, offset + VALUE_TYPE_OFFSET);
+      int keyLength = slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + KEY_LENGTH_OFFSET);
+      int valueLength = slab.get(ValueLayout.JAVA_INT_UNALIGNED, offset + VALUE_LENGTH_OFFSET);
+      long expiresAtNanos = slab.get(ValueLayout.JAVA_LONG_UNALIGNED, offset + EXPIRES_AT_OFFSET);
+      if (!this.lock.validate(stamp)) {
+        return null; // The lengths may be garbage, not to be allocated by
+      }
+      byte[] bytes = new byte[valueLength];
+      MemorySegment.copy(
+          slab, ValueLayout.JAVA_BYTE, offset + HEADER_SIZE + keyLength, bytes, 0, valueLength);
+      return new Value(ValueType.fromByte(valueTypeId), bytes, expiresAtNanos);
+    }
+
+    // Returns the slot of the key, or -(slot to insert it at) - 1
+    private int find(MemorySegment key, KeyType keyType, int hash) {
+      // Read once, as an optimistic read may race with a resize
+      int[] hashes = this.hashes;
+      long[] handles = this.handles;
+      int mask = hashes.length - 1;
+      for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+        int slotHash = hashes[slot];
+        if (slotHash == EMPTY) {
+          return -slot - 1;
+        }
+        if (slotHash == hash && matches(handles[slot], key, keyType)) {
+          return slot;
+        }
+      }
+    }
+
+    // Shifts the following entries of the probe sequence back, so no tombstone is needed
+    private void remove(int slot) {
+      int mask = this.hashes.length - 1;
+      int hole = slot;
+      for (int next = (hole + 1) & mask; this.hashes[next] != EMPTY; next = (next + 1) & mask) {
+        int home = this.hashes[next] & mask;
+        // Movable unless its home slot is cyclically in (hole, next]
+        if (((next - home) & mask) >= ((next - hole) & mask)) {
+          this.hashes[hole] = this.hashes[next];
+          this.handles[hole] = this.handles[next];
+          hole = next;
+        }
+      }
+      this.hashes[hole] = EMPTY;
+      this.handles[hole] = NO_HANDLE;
+      this.size--;
+    }
+
+    private void resize() {
+      int[] oldHashes = this.hashes;
+      long[] oldHandles = this.handles;
+      this.hashes = new int[oldHashes.length * 2];
+      this.handles = new long[oldHandles.length * 2];
+      int mask = this.hashes.length - 1;
+      for (int i = 0; i < oldHashes.length; i++) {
+        if (oldHashes[i] != EMPTY) {
+          int slot = oldHashes[i] & mask;
+          while (this.hashes[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+          }
+          this.hashes[slot] = oldHashes[i];
+          this.handles[slot] = oldHandles[i];
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package io.seriput.server.core;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocates chunks of off-heap memory out of fixed size slabs, memcached style.
+ *
+ * <p>The chunk sizes are split into classes growing by {@link #GROWTH_FACTOR}, and each slab is
+ * carved into chunks of a single class. A freed chunk is kept on its class's free list for the next
+ * allocation of that class, so the slabs are never returned until {@link #close()}. A chunk larger
+ * than a slab gets a dedicated segment instead, which is returned as soon as it's freed.
+ *
+ * <p>A chunk is addressed by a handle holding the index of its slab and its offset in the slab, see
+ * {@link #slab(long)} and {@link #offset(long)}. Reading a chunk must happen-after its allocation,
+ * which the caller ensures by publishing the handle through a lock.
+ */
+final class SlabAllocator implements AutoCloseable {
+  static final int SLAB_SIZE = 1 << 20;
+
+  private static final int MIN_CHUNK_SIZE = 64;
+  private static final double GROWTH_FACTOR = 1.25;
+  private static final int ALIGNMENT = Long.BYTES;
+
+  private final Arena arena = Arena.ofShared();
+  private final int[] chunkSizes;
+  private final SizeClass[] sizeClasses;
+  private final AtomicLong reservedBytes = new AtomicLong();
+
+  // Copy-on-grow, written while holding the lock of this allocator
+  private volatile MemorySegment[] slabs = new MemorySegment[16];
+  // region Guarded by this
+  private Arena[] dedicatedArenas = new Arena[16];
+  private int slabCount;
+  private int[] freeSlabIndexes = new int[16];
+  private int freeSlabIndexCount;
+  // endregion
+
+  SlabAllocator() {
+    int[] sizes = new int[64];
+    int count = 0;
+    for (int size = MIN_CHUNK_SIZE; size < SLAB_SIZE; ) {
+      sizes[count++] = size;
+      size = Math.max(size + ALIGNMENT, align((int) (size * GROWTH_FACTOR)));
+    }
+    sizes[count++] = SLAB_SIZE;
+    this.chunkSizes = Arrays.copyOf(sizes, count);
+    this.sizeClasses = new SizeClass[count];
+    for (int i = 0; i < count; i++) {
+      this.sizeClasses[i] = new SizeClass(this.chunkSizes[i]);
+    }
+  }
+
+  /**
+   * Allocates a chunk of at least the given {@code size}.
+   *
+   * @param size min number of bytes of the chunk
+   * @return handle of the allocated chunk
+   */
+  long allocate(int size) {
+    if (size > SLAB_SIZE) {
+      return allocateDedicated(size);
+    }
+    return this.sizeClasses[sizeClassOf(size)].allocate();
+  }
+
+  /**
+   * Frees the chunk of the given {@code handle}, which mustn't be read afterward.
+   *
+   * @param handle handle of the chunk
+   * @param size size the chunk was allocated with
+   */
+  void free(long handle, int size) {
+    if (size > SLAB_SIZE) {
+      freeDedicated(slabIndex(handle), size);
+    } else {
+      this.sizeClasses[sizeClassOf(size)].free(handle);
+    }
+  }
+
+  /**
+   * Returns the slab of the chunk of the given {@code handle}, to be read at {@link
+   * #offset(long)}.
+   *
+   * @param handle handle of the chunk
+   * @return slab of the chunk
+   */
+  MemorySegment slab(long handle) {
+    return this.slabs[slabIndex(handle)];
+  }
+
+  /**
+   * Returns the offset of the chunk of the given {@code handle} in its {@link #slab(long)}.
+   *
+   * @param handle handle of the chunk
+   * @return offset of the chunk
+   */
+  static long offset(long handle) {
+    return (int) handle;
+  }
+
+  /**
+   * Returns the number of off-heap bytes reserved by the slabs and the dedicated segments.
+   *
+   * @return reserved bytes
+   */
+  long reservedBytes() {
+    return this.reservedBytes.get();
+  }
+
+  @Override
+  public synchronized void close() {
+    for (int i = 0; i < this.slabCount; i++) {
+      if (this.dedicatedArenas[i] != null) {
+        this.dedicatedArenas[i].close();
+        this.dedicatedArenas[i] = null;
+      }
+    }
+    this.arena.close();
+    this.reservedBytes.set(0);
+  }
+
+  private int sizeClassOf(int size) {
+    int index = Arrays.binarySearch(this.chunkSizes, size);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  private synchronized long allocateDedicated(int size) {
+    Arena dedicatedArena = Arena.ofShared();
+    int index = addSlab(dedicatedArena.allocate(size, ALIGNMENT));
+    this.dedicatedArenas[index] = dedicatedArena;
+    this.reservedBytes.addAndGet(size);
+    return handle(index, 0);
+  }
+
+  private synchronized void freeDedicated(int index, int size) {
+    this.dedicatedArenas[index].close();
+    this.dedicatedArenas[index] = null;
+    this.slabs[index] = null;
+    if (this.freeSlabIndexCount == this.freeSlabIndexes.length) {
+      this.freeSlabIndexes = Arrays.copyOf(this.freeSlabIndexes, this.freeSlabIndexCount * 2);
+    }
+    this.freeSlabIndexes[this.freeSlabIndexCount++] = index;
+    this.reservedBytes.addAndGet(-size);
+  }
+
+  private synchronized int allocateSlab() {
+    int index = addSlab(this.arena.allocate(SLAB_SIZE, ALIGNMENT));
+    this.reservedBytes.addAndGet(SLAB_SIZE);
+    return index;
+  }
+
+  private int addSlab(MemorySegment slab) {
+    if (this.freeSlabIndexCount > 0) {
+      int index = this.freeSlabIndexes[--this.freeSlabIndexCount];
+      this.slabs[index] = slab;
+      return index;
+    }
+    if (this.slabCount == this.slabs.length) {
+      this.slabs = Arrays.copyOf(this.slabs, this.slabCount * 2);
+      this.dedicatedArenas = Arrays.copyOf(this.dedicatedArenas, this.slabCount * 2);
+    }
+    this.slabs[this.slabCount] = slab;
+    return this.slabCount++;
+  }
+
+  private static long handle(int slabIndex, int offset) {
+    return (long) slabIndex << Integer.SIZE | offset;
+  }
+
+  private static int slabIndex(long handle) {
+    return (int) (handle >>> Integer.SIZE);
+  }
+
+  private static int align(int size) {
+    return (size + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  private final class SizeClass {
+    private final int chunkSize;
+    private long[] freeChunks = new long[16];
+    private int freeChunkCount;
+    private int slabIndex = -1;
+    private int nextOffset = SLAB_SIZE; // Makes the first allocation take a slab
+
+    private SizeClass(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+
+    private synchronized long allocate() {
+      if (this.freeChunkCount > 0) {
+        return this.freeChunks[--this.freeChunkCount];
+      }
+      if (this.nextOffset + this.chunkSize > SLAB_SIZE) {
+        this.slabIndex = allocateSlab();
+        this.nextOffset = 0;
+      }
+      long handle = handle(this.slabIndex, this.nextOffset);
+      this.nextOffset += this.chunkSize;
+      return handle;
+    }
+
+    private synchronized void free(long handle) {
+      if (this.freeChunkCount == this.freeChunks.length) {
+        this.freeChunks = Arrays.copyOf(this.freeChunks, this.freeChunkCount * 2);
+      }
+      this.freeChunks[this.freeChunkCount++] = handle;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package io.seriput.server.core;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Where a {@link Cache} keeps its entries. Implementations must be thread-safe.
+ *
+ * <p>The keys given may be views of a connection's read buffer, see {@link Key}, so an engine
+ * copies whatever it keeps.
+ */
+public interface StorageEngine extends AutoCloseable {
+  /**
+   * Returns the value stored by the given {@code key}.
+   *
+   * @param key key to look up
+   * @return stored value, or {@code null} if there is none
+   */
+  Value get(Key key);
+
+  /**
+   * Returns the value stored by the key of the given type whose bytes are the given slice of a
+   * buffer, e.g. of a request frame. An engine which can look a key up by its bytes does so without
+   * creating a {@link Key}, by default it's looked up by a view of the slice.
+   *
+   * @param keyType type of the key
+   * @param buffer buffer holding the key's bytes
+   * @param offset absolute index of the key's first byte in {@code buffer}
+   * @param length length of the key
+   * @return stored value, or {@code null} if there is none
+   */
+  default Value get(KeyType keyType, ByteBuffer buffer, int offset, int length) {
+    return get(Key.view(keyType, buffer, offset, length));
+  }
+
+  /**
+   * Stores the given {@code value} by the given {@code key}, replacing the previous one if any.
+   *
+   * @param key key to store by
+   * @param value value to store
+   */
+  void put(Key key, Value value);
+
+  /**
+   * Removes the value stored by the given {@code key}.
+   *
+   * @param key key to remove
+   * @return removed value, or {@code null} if there was none
+   */
+  Value delete(Key key);
+
+  /**
+   * Removes the value stored by the given {@code key} if it has expired, leaving a value stored
+   * by it meanwhile in place.
+   *
+   * @param key key to remove
+   * @return {@code true} if an expired value was removed
+   */
+  boolean removeExpired(Key key);
+
+  /**
+   * Sets the listener to tell the key of each entry the engine evicts on its own, e.g. to keep
+   * within a memory budget. It may be called while the engine holds a lock, so it must be quick and
+   * mustn't call the engine back. By default an engine evicts nothing.
+   *
+   * @param listener listener of the evicted entries' keys
+   */
+  default void evictionListener(Consumer<Key> listener) {}
+
+  /** Removes every entry. */
+  void clear();
+
+  /** Releases the memory held by the engine, it mustn't be used afterward. */
+  @Override
+  void close();
+}
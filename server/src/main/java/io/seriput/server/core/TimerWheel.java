@@ -0,0 +1,183 @@
+package io.seriput.server.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel of the keys to expire, scheduling and expiring each in constant time
+ * instead of scanning the entries for the expired ones.
+ *
+ * <p>Each wheel is an array of buckets spanning a power of two nanoseconds, roughly a second, a
+ * minute, an hour and a day, plus an overflow bucket beyond. A key is scheduled into the bucket of
+ * the coarsest wheel its expiry fits, and as the time advances past a bucket, its keys are either
+ * expired or scheduled again into a finer wheel. So a key is expired at most a bucket of the
+ * finest wheel, about a second, late. A timer can be cancelled, unlinking it from its bucket, so
+ * that a key which is put again or deleted keeps no timer behind. Not thread-safe.
+ */
+final class TimerWheel {
+  private static final int[] BUCKETS = {64, 64, 32, 4, 1};
+  private static final long[] SPANS = {
+    ceilingPowerOfTwo(TimeUnit.SECONDS.toNanos(1)), // 1.07s
+    ceilingPowerOfTwo(TimeUnit.MINUTES.toNanos(1)), // 1.14m
+    ceilingPowerOfTwo(TimeUnit.HOURS.toNanos(1)), // 1.22h
+    ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 1.63d
+    BUCKETS[3] * ceilingPowerOfTwo(TimeUnit.DAYS.toNanos(1)), // 6.5d
+  };
+  private static final long[] SHIFT = {
+    Long.numberOfTrailingZeros(SPANS[0]),
+    Long.numberOfTrailingZeros(SPANS[1]),
+    Long.numberOfTrailingZeros(SPANS[2]),
+    Long.numberOfTrailingZeros(SPANS[3]),
+    Long.numberOfTrailingZeros(SPANS[4]),
+  };
+
+  private final Timer[][] wheels = new Timer[BUCKETS.length][];
+  // The times are relative to it, so they stay positive whatever System.nanoTime() starts at
+  private final long originNanos;
+  private long nanos;
+  private int size = 0;
+
+  /**
+   * Creates an empty wheel.
+   *
+   * @param nowNanos current {@link System#nanoTime()}
+   */
+  TimerWheel(long nowNanos) {
+    this.originNanos = nowNanos;
+    for (int i = 0; i < this.wheels.length; i++) {
+      this.wheels[i] = new Timer[BUCKETS[i]];
+      for (int j = 0; j < BUCKETS[i]; j++) {
+        this.wheels[i][j] = new Timer(null, 0); // Sentinel of the bucket's circular list
+      }
+    }
+  }
+
+  /**
+   * Schedules the given {@code key} to be expired at the given time.
+   *
+   * @param key key to expire, which must not be a view of a buffer
+   * @param expiresAtNanos {@link System#nanoTime()} to expire the key at
+   * @return scheduled timer, which can be cancelled until it's expired
+   */
+  Timer schedule(Key key, long expiresAtNanos) {
+    var timer = new Timer(key, expiresAtNanos - this.originNanos);
+    schedule(timer);
+    this.size++;
+    return timer;
+  }
+
+  /**
+   * Cancels the given {@code timer}, it's a no-op if the timer has already expired or been
+   * cancelled.
+   *
+   * @param timer timer to cancel
+   */
+  void cancel(Timer timer) {
+    if (timer.next == timer) {
+      return; // Not on the wheel
+    }
+    unlink(timer);
+    this.size--;
+  }
+
+  /**
+   * Returns the number of the timers neither expired nor cancelled yet.
+   *
+   * @return number of scheduled timers
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Advances the wheel to the given time, passing the keys expired by then to {@code onExpired}.
+   *
+   * @param nowNanos current {@link System#nanoTime()}
+   * @param onExpired consumer of the expired keys
+   */
+  void advance(long nowNanos, Consumer<Key> onExpired) {
+    long previousNanos = this.nanos;
+    this.nanos = nowNanos - this.originNanos;
+    for (int i = 0; i < SHIFT.length; i++) {
+      long previousTicks = previousNanos >>> SHIFT[i];
+      long currentTicks = this.nanos >>> SHIFT[i];
+      if (currentTicks - previousTicks <= 0) {
+        break; // The coarser wheels haven't turned either
+      }
+      expire(i, previousTicks, currentTicks - previousTicks, onExpired);
+    }
+  }
+
+  // Empties the buckets of the wheel passed by the ticks, expiring or rescheduling their timers
+  private void expire(int index, long previousTicks, long delta, Consumer<Key> onExpired) {
+    Timer[] wheel = this.wheels[index];
+    int mask = wheel.length - 1;
+    // The bucket of the previous tick is included, as it holds the timers due later in its span
+    int steps = (int) Math.min(1 + delta, wheel.length);
+    int start = (int) (previousTicks & mask);
+    for (int i = start; i < start + steps; i++) {
+      Timer sentinel = wheel[i & mask];
+      Timer timer = sentinel.next;
+      sentinel.prev = sentinel;
+      sentinel.next = sentinel;
+      while (timer != sentinel) {
+        Timer next = timer.next;
+        if (timer.nanos - this.nanos <= 0) {
+          // Detached alone, its neighbours are either expired or rescheduled as well
+          timer.prev = timer;
+          timer.next = timer;
+          this.size--;
+          onExpired.accept(timer.key);
+        } else {
+          schedule(timer);
+        }
+        timer = next;
+      }
+    }
+  }
+
+  private void schedule(Timer timer) {
+    Timer sentinel = bucketOf(timer.nanos);
+    timer.prev = sentinel.prev;
+    timer.next = sentinel;
+    sentinel.prev.next = timer;
+    sentinel.prev = timer;
+  }
+
+  private static void unlink(Timer timer) {
+    timer.prev.next = timer.next;
+    timer.next.prev = timer.prev;
+    timer.prev = timer;
+    timer.next = timer;
+  }
+
+  private Timer bucketOf(long timerNanos) {
+    long duration = timerNanos - this.nanos;
+    int last = this.wheels.length - 1;
+    for (int i = 0; i < last; i++) {
+      if (duration < SPANS[i + 1]) {
+        // A timer already due goes to the current bucket, which is expired by the next advance
+        long ticks = Math.max(timerNanos, this.nanos) >>> SHIFT[i];
+        return this.wheels[i][(int) (ticks & (this.wheels[i].length - 1))];
+      }
+    }
+    return this.wheels[last][0];
+  }
+
+  private static long ceilingPowerOfTwo(long x) {
+    return 1L << -Long.numberOfLeadingZeros(x - 1);
+  }
+
+  /** Handle of a key scheduled on a {@link TimerWheel}. */
+  static final class Timer {
+    private final Key key;
+    private final long nanos; // Relative to the wheel's origin
+    private Timer prev = this;
+    private Timer next = this;
+
+    private Timer(Key key, long nanos) {
+      this.key = key;
+      this.nanos = nanos;
+    }
+  }
+}
@@ -8,17 +8,46 @@ import java.util.Objects;
  *
  * @param type type of the value
  * @param bytes raw bytes of the value
+ * @param expiresAtNanos {@link System#nanoTime()} at which the value expires, or {@link #NEVER}
  */
-public record Value(ValueType type, byte[] bytes) {
+public record Value(ValueType type, byte[] bytes, long expiresAtNanos) {
+  /** {@link #expiresAtNanos()} of a value which never expires. */
+  public static final long NEVER = 0;
+
+  /**
+   * Creates a value which never expires.
+   *
+   * @param type type of the value
+   * @param bytes raw bytes of the value
+   */
+  public Value(ValueType type, byte[] bytes) {
+    this(type, bytes, NEVER);
+  }
+
+  /**
+   * Returns whether the value has expired by now.
+   *
+   * @return {@code true} if it has expired
+   */
+  public boolean isExpired() {
+    return isExpired(this.expiresAtNanos);
+  }
+
+  static boolean isExpired(long expiresAtNanos) {
+    return expiresAtNanos != NEVER && System.nanoTime() - expiresAtNanos >= 0;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (o == null || getClass() != o.getClass()) return false;
     Value value = (Value) o;
-    return type == value.type && Objects.deepEquals(bytes, value.bytes);
+    return type == value.type
+        && expiresAtNanos == value.expiresAtNanos
+        && Objects.deepEquals(bytes, value.bytes);
   }
 
   @Override
   public int hashCode() {
-    return 31 * type.hashCode() + Arrays.hashCode(bytes);
+    return 31 * (31 * type.hashCode() + Arrays.hashCode(bytes)) + Long.hashCode(expiresAtNanos);
   }
 }
@@ -0,0 +1,147 @@
+package io.seriput.server.core;
+
+import io.seriput.server.core.BoundedStorageEngine.Node;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * W-TinyLFU, which admits a new node into the main region only if it's read more often than the
+ * node it would evict, so a burst of nodes read once, like a scan, can't flush the frequently read
+ * ones.
+ *
+ * <p>A new node enters a small LRU window, 1% of the budget, which lets a burst of reads build up
+ * its frequency. The nodes overflowing the window become candidates to the main region, a
+ * segmented LRU of a probation segment and a protected one, 80% of the main region, into which a
+ * probation node is promoted once read. While over the budget, each candidate is compared with
+ * the probation segment's LRU node by their frequencies in a {@link FrequencySketch}, and the less
+ * frequent one is evicted.
+ */
+final class WindowTinyLfuPolicy implements EvictionPolicy {
+  private static final double WINDOW_RATIO = 0.01;
+  private static final double PROTECTED_RATIO = 0.8;
+  // Frequency from which a losing candidate is admitted at random now and then, so that an attacker
+  // can't keep a key out by colliding it with a frequent one
+  private static final int ADMIT_HASH_DOS_THRESHOLD = 6;
+  private static final int ADMIT_HASH_DOS_ODDS = 128;
+
+  // region Queues of the nodes
+  private static final byte WINDOW = 0;
+  private static final byte PROBATION = 1;
+  private static final byte PROTECTED = 2;
+  // endregion
+
+  private final long maxWindowBytes;
+  private final long maxProtectedBytes;
+  private final FrequencySketch sketch = new FrequencySketch();
+  private final AccessOrderDeque window = new AccessOrderDeque();
+  private final AccessOrderDeque probation = new AccessOrderDeque();
+  private final AccessOrderDeque protectedDeque = new AccessOrderDeque();
+  private long size;
+  // First of the nodes moved to probation by the last add which wasn't compared yet, the engine
+  // evicts only right after adding
+  private Node candidate;
+
+  WindowTinyLfuPolicy(long maxBytes) {
+    this.maxWindowBytes = (long) (maxBytes * WINDOW_RATIO);
+    this.maxProtectedBytes = (long) ((maxBytes - this.maxWindowBytes) * PROTECTED_RATIO);
+  }
+
+  @Override
+  public void onAdd(Node node) {
+    this.sketch.ensureCapacity(++this.size);
+    this.sketch.increment(node.key.hashCode());
+    node.queue = WINDOW;
+    this.window.addLast(node);
+    this.candidate = null;
+    while (this.window.weight() > this.maxWindowBytes && this.window.peekFirst() != null) {
+      Node overflown = this.window.pollFirst();
+      overflown.queue = PROBATION;
+      this.probation.addLast(overflown);
+      if (this.candidate == null) {
+        this.candidate = overflown;
+      }
+    }
+  }
+
+  @Override
+  public void onAccess(Node node) {
+    this.sketch.increment(node.key.hashCode());
+    switch (node.queue) {
+      case WINDOW -> this.window.moveToLast(node);
+      case PROBATION -> {
+        this.probation.remove(node);
+        node.queue = PROTECTED;
+        this.protectedDeque.addLast(node);
+        while (this.protectedDeque.weight() > this.maxProtectedBytes) {
+          Node demoted = this.protectedDeque.pollFirst();
+          demoted.queue = PROBATION;
+          this.probation.addLast(demoted);
+        }
+      }
+      default -> this.protectedDeque.moveToLast(node);
+    }
+  }
+
+  @Override
+  public void onRemove(Node node) {
+    dequeOf(node).remove(node);
+    this.size--;
+  }
+
+  @Override
+  public Node evict() {
+    Node victim;
+    Node candidate = this.candidate;
+    if (candidate != null) {
+      this.candidate = candidate.next; // The following ones were moved to probation after it
+      victim = this.probation.peekFirst();
+      if (victim == candidate) {
+        victim = this.protectedDeque.peekFirst(); // Only the candidates are on probation
+      }
+      if (victim == null || !admit(candidate, victim)) {
+        victim = candidate;
+      }
+    } else {
+      victim = this.probation.peekFirst();
+      if (victim == null) {
+        victim = this.protectedDeque.peekFirst();
+      }
+      if (victim == null) {
+        victim = this.window.peekFirst();
+      }
+      if (victim == null) {
+        return null;
+      }
+    }
+    dequeOf(victim).remove(victim);
+    this.size--;
+    return victim;
+  }
+
+  @Override
+  public void clear() {
+    this.window.clear();
+    this.probation.clear();
+    this.protectedDeque.clear();
+    this.sketch.clear();
+    this.size = 0;
+    this.candidate = null;
+  }
+
+  private boolean admit(Node candidate, Node victim) {
+    int candidateFrequency = this.sketch.frequency(candidate.key.hashCode());
+    int victimFrequency = this.sketch.frequency(victim.key.hashCode());
+    if (candidateFrequency > victimFrequency) {
+      return true;
+    }
+    return candidateFrequency >= ADMIT_HASH_DOS_THRESHOLD
+        && ThreadLocalRandom.current().nextInt(ADMIT_HASH_DOS_ODDS) == 0;
+  }
+
+  private AccessOrderDeque dequeOf(Node node) {
+    return switch (node.queue) {
+      case WINDOW -> this.window;
+      case PROBATION -> this.probation;
+      default -> this.protectedDeque;
+    };
+  }
+}
@@ -0,0 +1,8 @@
+package io.seriput.server.serialization.request;
+
+/**
+ * Represent the HELLO request payload, which negotiates the protocol version of a connection.
+ *
+ * @param version protocol version requested by the client
+ */
+public record HelloRequest(int version) implements Request {}
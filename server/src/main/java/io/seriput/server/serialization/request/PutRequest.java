@@ -8,5 +8,10 @@ import io.seriput.server.core.Value;
  *
  * @param key key to put
  * @param value value to put
+ * @param ttlMillis time to live of the value in milliseconds, {@code 0} if it never expires
  */
-public record PutRequest(Key key, Value value) implements Request {}
+public record PutRequest(Key key, Value value, long ttlMillis) implements Request {
+  public PutRequest(Key key, Value value) {
+    this(key, value, 0);
+  }
+}
@@ -6,10 +6,17 @@ import io.seriput.server.core.Value;
 import io.seriput.server.core.ValueType;
 import io.seriput.server.exception.ProtocolViolationException;
 import java.nio.ByteBuffer;
-import java.util.Arrays;
 
-/** Request deserializer for the Seriput protocol v1. */
+/**
+ * Request deserializer for the Seriput protocol v1.
+ *
+ * <p>A protocol v2 frame is a v1 frame prefixed with a 32-bit request ID, the connection strips the
+ * prefix off before the frame gets here.
+ */
 public final class RequestDeserializer {
+  public static final int PROTOCOL_V1 = 1;
+  public static final int PROTOCOL_V2 = 2;
+  private static final int REQUEST_ID_SIZE = 4;
   private static final int OP_OFFSET = 0;
   private static final int KEY_TYPE_OFFSET = 1;
   private static final int VALUE_TYPE_OFFSET = 2;
@@ -17,11 +24,32 @@ public final class RequestDeserializer {
   private static final int VALUE_LENGTH_OFFSET = 7;
   private static final int HEADER_SIZE =
       1 + 1 + 1 + 4 + 4; // op + keyTypeId + valueTypeId + keyLength + valueLength
+  private static final int TTL_SIZE = 8;
 
   public static int headerSize() {
     return HEADER_SIZE;
   }
 
+  /**
+   * Returns the size of the request ID prefix of the frames in the given protocol {@code version}.
+   *
+   * @param version protocol version of the connection
+   * @return size of the request ID prefix in bytes, {@code 0} for v1
+   */
+  public static int requestIdSize(int version) {
+    return version >= PROTOCOL_V2 ? REQUEST_ID_SIZE : 0;
+  }
+
+  /**
+   * Returns whether the given protocol {@code version} is supported.
+   *
+   * @param version protocol version requested by the client
+   * @return {@code true} if it's supported
+   */
+  public static boolean isSupportedVersion(int version) {
+    return version == PROTOCOL_V1 || version == PROTOCOL_V2;
+  }
+
   /**
    * Returns the size of the body by given {@code buffer}.
    *
@@ -29,55 +57,209 @@ public final class RequestDeserializer {
    * least the full header!
    *
    * @param buffer request payload buffer
-   * @return size of the request body
+   * @return size of the request body, or {@code -1} if the key or value length is negative
+   */
+  public static long bodySize(ByteBuffer buffer) {
+    return bodySize(buffer, buffer.position());
+  }
+
+  /**
+   * Returns the size of the body of the frame starting at the given {@code index}.
+   *
+   * @param buffer request payload buffer containing at least the full header at {@code index}
+   * @param index absolute index of the frame's first byte
+   * @return size of the request body, or {@code -1} if the key or value length is negative
    */
-  public static int bodySize(ByteBuffer buffer) {
-    return buffer.getInt(buffer.position() + KEY_LENGTH_OFFSET)
-        + buffer.getInt(buffer.position() + VALUE_LENGTH_OFFSET);
+  public static long bodySize(ByteBuffer buffer, int index) {
+    int keyLength = buffer.getInt(index + KEY_LENGTH_OFFSET);
+    int valueLength = buffer.getInt(index + VALUE_LENGTH_OFFSET);
+    if (keyLength < 0 || valueLength < 0) {
+      return -1;
+    }
+    return (long) keyLength + valueLength;
+  }
+
+  /**
+   * Returns whether the given {@code buffer} holds a {@code GET} request.
+   *
+   * @param buffer request frame buffer in read mode
+   * @return {@code true} if it's a {@code GET} request
+   */
+  public static boolean isGet(ByteBuffer buffer) {
+    return buffer.hasRemaining() && buffer.get(buffer.position() + OP_OFFSET) == RequestOp.GET.op();
+  }
+
+  /**
+   * Validates the given {@code GET} request as {@link #deserialize(ByteBuffer)} does and returns
+   * its key's type, so that its key can be looked up in place, {@link #keyLength(ByteBuffer)} bytes
+   * at {@link #keyOffset(ByteBuffer)}, without deserializing it into a {@link GetRequest}.
+   *
+   * @param buffer full {@code GET} request frame buffer in read mode, see {@link
+   *     #isGet(ByteBuffer)}
+   * @return type of the request's key
+   * @throws ProtocolViolationException if the request is malformed
+   */
+  public static KeyType getKeyType(ByteBuffer buffer) {
+    assertOrThrow(buffer.remaining() >= HEADER_SIZE, "'buffer' too small: " + buffer.remaining());
+    assertBodyFits(buffer);
+    return keyType(buffer, buffer.position());
+  }
+
+  /**
+   * Returns the absolute index of the first key byte of the given {@code buffer}.
+   *
+   * @param buffer request frame buffer in read mode, containing at least the full header
+   * @return absolute index of the key's first byte
+   */
+  public static int keyOffset(ByteBuffer buffer) {
+    return buffer.position() + HEADER_SIZE;
+  }
+
+  /**
+   * Returns the key length of the given {@code buffer}.
+   *
+   * @param buffer request frame buffer in read mode, containing at least the full header
+   * @return key length
+   */
+  public static int keyLength(ByteBuffer buffer) {
+    return buffer.getInt(buffer.position() + KEY_LENGTH_OFFSET);
+  }
+
+  /**
+   * Returns whether the given validated requests have the same key, i.e. of the same type and
+   * bytes, without deserializing them.
+   *
+   * @param buffer full request frame buffer in read mode
+   * @param other other full request frame buffer in read mode
+   * @return {@code true} if their keys are equal
+   */
+  public static boolean hasSameKey(ByteBuffer buffer, ByteBuffer other) {
+    int frameStart = buffer.position();
+    int otherFrameStart = other.position();
+    int keyLength = keyLength(buffer);
+    if (buffer.get(frameStart + KEY_TYPE_OFFSET) != other.get(otherFrameStart + KEY_TYPE_OFFSET)
+        || keyLength != keyLength(other)) {
+      return false;
+    }
+    for (int i = HEADER_SIZE; i < HEADER_SIZE + keyLength; i++) {
+      if (buffer.get(frameStart + i) != other.get(otherFrameStart + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the protocol version requested by the given {@code buffer} if it holds a well-formed
+   * {@code HELLO} request.
+   *
+   * @param buffer full request frame buffer in read mode
+   * @return requested protocol version, or {@code -1} if it's not a {@code HELLO} request
+   */
+  public static int helloVersion(ByteBuffer buffer) {
+    int frameStart = buffer.position();
+    if (buffer.remaining() != HEADER_SIZE + 1
+        || buffer.get(frameStart + OP_OFFSET) != RequestOp.HELLO.op()
+        || buffer.getInt(frameStart + KEY_LENGTH_OFFSET) != 0) {
+      return -1;
+    }
+    return Byte.toUnsignedInt(buffer.get(frameStart + HEADER_SIZE));
+  }
+
+  /**
+   * Returns the hash of the key bytes of the given {@code buffer}, without deserializing it.
+   *
+   * @param buffer full request frame buffer in read mode
+   * @return hash of the key bytes
+   */
+  public static int keyHash(ByteBuffer buffer) {
+    int frameStart = buffer.position();
+    int keyLength = buffer.getInt(frameStart + KEY_LENGTH_OFFSET);
+    // A rejected frame is dispatched without its body
+    int keyEnd = (int) Math.min((long) HEADER_SIZE + keyLength, buffer.remaining());
+    int h = 1;
+    for (int i = HEADER_SIZE; i < keyEnd; i++) {
+      h = 31 * h + buffer.get(frameStart + i);
+    }
+    return h;
   }
 
   /**
    * Deserializes the given {@code buffer} into a {@link Request}.
    *
-   * @param buffer request payload buffer
+   * <p>The header is read in place. Keys of {@code GET} and {@code DELETE} requests are views of
+   * the given buffer, so the buffer must not be mutated or released while the request is in use. A
+   * {@code PUT} request copies its key and value once, into the representation to be stored. A
+   * {@code PUT_TTL} request is a {@code PUT} request whose value is prefixed with its TTL.
+   *
+   * <p>Note that the buffer's position and limit are left untouched.
+   *
+   * @param buffer request frame buffer in read mode, from its position to its limit
    * @return deserialized request
    */
-  public static Request deserialize(byte[] buffer) {
-    assertOrThrow(buffer.length >= HEADER_SIZE, "'buffer' too small: " + buffer.length);
-    RequestOp requestOp = RequestOp.fromByte(buffer[OP_OFFSET]);
-    assertOrThrow(requestOp != null, "Unknown request op: " + buffer[OP_OFFSET]);
+  public static Request deserialize(ByteBuffer buffer) {
+    assertOrThrow(buffer.remaining() >= HEADER_SIZE, "'buffer' too small: " + buffer.remaining());
+    int frameStart = buffer.position();
+    byte op = buffer.get(frameStart + OP_OFFSET);
+    RequestOp requestOp = RequestOp.fromByte(op);
+    assertOrThrow(requestOp != null, "Unknown request op: " + op);
+    assertBodyFits(buffer);
     return switch (requestOp) {
-      case GET -> deserializeGet(buffer);
-      case PUT -> deserializePut(buffer);
-      case DELETE -> deserializeDelete(buffer);
+      case GET -> new GetRequest(keyView(buffer, frameStart));
+      case PUT -> deserializePut(buffer, frameStart, 0);
+      case PUT_TTL -> deserializePut(buffer, frameStart, TTL_SIZE);
+      case DELETE -> new DeleteRequest(keyView(buffer, frameStart));
+      case HELLO -> deserializeHello(buffer, frameStart);
     };
   }
 
-  private static GetRequest deserializeGet(byte[] buffer) {
-    KeyType keyType = KeyType.fromByte(buffer[KEY_TYPE_OFFSET]);
-    assertOrThrow(keyType != null, "Unknown key type: " + buffer[KEY_TYPE_OFFSET]);
-    int keyLength = toIntBigEndian(buffer, KEY_LENGTH_OFFSET);
-    return new GetRequest(Key.view(keyType, buffer, HEADER_SIZE, keyLength));
+  private static Key keyView(ByteBuffer buffer, int frameStart) {
+    KeyType keyType = keyType(buffer, frameStart);
+    int keyLength = buffer.getInt(frameStart + KEY_LENGTH_OFFSET);
+    return Key.view(keyType, buffer, frameStart + HEADER_SIZE, keyLength);
+  }
+
+  // The TTL is counted in the value's length, but isn't part of the value
+  private static PutRequest deserializePut(ByteBuffer buffer, int frameStart, int ttlSize) {
+    KeyType keyType = keyType(buffer, frameStart);
+    byte valueTypeId = buffer.get(frameStart + VALUE_TYPE_OFFSET);
+    ValueType valueType = ValueType.fromByte(valueTypeId);
+    assertOrThrow(valueType != null, "Unknown value type: " + valueTypeId);
+    int keyLength = buffer.getInt(frameStart + KEY_LENGTH_OFFSET);
+    int valueLength = buffer.getInt(frameStart + VALUE_LENGTH_OFFSET) - ttlSize;
+    assertOrThrow(valueLength >= 0, "PUT_TTL value must start with an int64 TTL!");
+    long ttlMillis = 0;
+    if (ttlSize > 0) {
+      ttlMillis = buffer.getLong(frameStart + HEADER_SIZE + keyLength);
+      assertOrThrow(ttlMillis > 0, "TTL must be positive: " + ttlMillis);
+    }
+    Key key = Key.copyOf(keyType, buffer, frameStart + HEADER_SIZE, keyLength);
+    byte[] valueBytes = new byte[valueLength];
+    buffer.get(frameStart + HEADER_SIZE + keyLength + ttlSize, valueBytes);
+    return new PutRequest(key, new Value(valueType, valueBytes), ttlMillis);
+  }
+
+  private static HelloRequest deserializeHello(ByteBuffer buffer, int frameStart) {
+    assertOrThrow(
+        buffer.getInt(frameStart + KEY_LENGTH_OFFSET) == 0
+            && buffer.getInt(frameStart + VALUE_LENGTH_OFFSET) == 1,
+        "HELLO must have no key and a single byte value!");
+    return new HelloRequest(Byte.toUnsignedInt(buffer.get(frameStart + HEADER_SIZE)));
   }
 
-  private static PutRequest deserializePut(byte[] buffer) {
-    KeyType keyType = KeyType.fromByte(buffer[KEY_TYPE_OFFSET]);
-    assertOrThrow(keyType != null, "Unknown key type: " + buffer[KEY_TYPE_OFFSET]);
-    ValueType valueType = ValueType.fromByte(buffer[VALUE_TYPE_OFFSET]);
-    assertOrThrow(valueType != null, "Unknown value type: " + buffer[VALUE_TYPE_OFFSET]);
-    int keyLength = toIntBigEndian(buffer, KEY_LENGTH_OFFSET);
-    int valueLength = toIntBigEndian(buffer, VALUE_LENGTH_OFFSET);
-    byte[] keyBytes = Arrays.copyOfRange(buffer, HEADER_SIZE, HEADER_SIZE + keyLength);
-    byte[] valueBytes =
-        Arrays.copyOfRange(buffer, HEADER_SIZE + keyLength, HEADER_SIZE + keyLength + valueLength);
-    return new PutRequest(new Key(keyType, keyBytes), new Value(valueType, valueBytes));
+  private static void assertBodyFits(ByteBuffer buffer) {
+    long bodySize = bodySize(buffer);
+    assertOrThrow(bodySize >= 0, "Negative key or value length!");
+    assertOrThrow(
+        buffer.remaining() - HEADER_SIZE >= bodySize,
+        "'buffer' too small for the body: " + buffer.remaining());
   }
 
-  private static DeleteRequest deserializeDelete(byte[] buffer) {
-    KeyType keyType = KeyType.fromByte(buffer[KEY_TYPE_OFFSET]);
-    assertOrThrow(keyType != null, "Unknown key type: " + buffer[KEY_TYPE_OFFSET]);
-    int keyLength = toIntBigEndian(buffer, KEY_LENGTH_OFFSET);
-    return new DeleteRequest(Key.view(keyType, buffer, HEADER_SIZE, keyLength));
+  private static KeyType keyType(ByteBuffer buffer, int frameStart) {
+    byte keyTypeId = buffer.get(frameStart + KEY_TYPE_OFFSET);
+    KeyType keyType = KeyType.fromByte(keyTypeId);
+    assertOrThrow(keyType != null, "Unknown key type: " + keyTypeId);
+    return keyType;
   }
 
   private static void assertOrThrow(boolean condition, String message) {
@@ -85,11 +267,4 @@ public final class RequestDeserializer {
       throw new ProtocolViolationException(message);
     }
   }
-
-  private static int toIntBigEndian(byte[] bytes, int startingIx) {
-    return ((bytes[startingIx] & 0xFF) << 24)
-        | ((bytes[startingIx + 1] & 0xFF) << 16)
-        | ((bytes[startingIx + 2] & 0xFF) << 8)
-        | ((bytes[startingIx + 3] & 0xFF));
-  }
 }
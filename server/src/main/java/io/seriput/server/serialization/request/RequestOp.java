@@ -4,7 +4,9 @@ package io.seriput.server.serialization.request;
 enum RequestOp {
   GET(0x01),
   PUT(0x02),
-  DELETE(0x03);
+  DELETE(0x03),
+  HELLO(0x04),
+  PUT_TTL(0x05);
 
   private final byte op;
 
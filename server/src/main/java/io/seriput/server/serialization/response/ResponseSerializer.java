@@ -15,6 +15,10 @@ public final class ResponseSerializer {
       new byte[] {OK.status(), VOID.typeId(), 0x00, 0x00, 0x00, 0x00 /* valueLength */};
   private static final byte[] notExistResponse =
       new byte[] {NOT_FOUND.status(), VOID.typeId(), 0x00, 0x00, 0x00, 0x00 /* valueLength */};
+  private static final byte[] invalidRequestResponse =
+      new byte[] {
+        INVALID_REQUEST.status(), VOID.typeId(), 0x00, 0x00, 0x00, 0x00 /* valueLength */
+      };
   private static final byte[] voidInternalErrorResponse =
       new byte[] {INTERNAL_ERROR.status(), VOID.typeId(), 0x00, 0x00, 0x00, 0x00 /* valueLength */};
   public static int HEADER_SIZE = VALUE_OFFSET;
@@ -60,6 +64,15 @@ public final class ResponseSerializer {
     return wrapStatic(notExistResponse);
   }
 
+  /**
+   * Serializes an {@code INVALID_REQUEST} response.
+   *
+   * @return serialized response
+   */
+  public ByteBuffer invalidRequest() {
+    return wrapStatic(invalidRequestResponse);
+  }
+
   /**
    * Serializes an {@code INTERNAL_ERROR} response.
    *
@@ -4,11 +4,15 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 import io.seriput.common.HeapByteBufferAllocator;
 import io.seriput.common.ObjectMapperProvider;
+import io.seriput.server.core.Cache;
+import io.seriput.server.core.OffHeapStorageEngine;
 import io.seriput.server.core.Value;
 import io.seriput.server.core.ValueType;
 import io.seriput.server.fixture.RequestFixtures;
 import io.seriput.server.serialization.response.ResponseSerializer;
+import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.List;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
@@ -29,11 +33,11 @@ final class RequestHandlerImplTest {
             public final String name = "John Doe";
             public final int age = 30;
           };
-      underTest.handle(RequestFixtures.serializePut(key, value));
+      underTest.handle(ByteBuffer.wrap(RequestFixtures.serializePut(key, value)));
       var requestPayload = RequestFixtures.serializeGet(key);
 
       // when
-      var actual = underTest.handle(requestPayload);
+      var actual = underTest.handle(ByteBuffer.wrap(requestPayload));
 
       // then
       var expectedValue =
@@ -43,6 +47,35 @@ final class RequestHandlerImplTest {
       assertThat(actual.array()).isEqualTo(expected.array());
     }
 
+    @Test
+    void should_Return_Ok_Response_When_Value_Is_Looked_Up_Off_Heap_In_Place() {
+      // given
+      var underTest =
+          new RequestHandlerImpl(
+              responseSerializer,
+              Collections.emptyList(),
+              new Cache(new OffHeapStorageEngine()));
+      String key = "user:1";
+      String value = "John Doe";
+      underTest.handle(ByteBuffer.wrap(RequestFixtures.serializePut(key, value)));
+      byte[] getRequestPayload = RequestFixtures.serializeGet(key);
+      var requestPayload =
+          ByteBuffer.allocateDirect(getRequestPayload.length + 3)
+              .position(3)
+              .put(getRequestPayload)
+              .position(3);
+
+      // when
+      var actual = underTest.handle(requestPayload);
+
+      // then
+      var expectedValue =
+          new Value(
+              ValueType.JSON_UTF8, ObjectMapperProvider.getInstance().writeValueAsBytes(value));
+      assertThat(actual.array()).isEqualTo(responseSerializer.ok(expectedValue).array());
+      assertThat(requestPayload.position()).isEqualTo(3);
+    }
+
     @Test
     void should_Return_NotFound_Response_When_There_Is_No_Value_By_GivenKey() {
       // given
@@ -50,7 +83,7 @@ final class RequestHandlerImplTest {
       var requestPayload = RequestFixtures.serializeGet(key);
 
       // when
-      var actual = underTest.handle(requestPayload);
+      var actual = underTest.handle(ByteBuffer.wrap(requestPayload));
 
       // then
       var expected = responseSerializer.notFound();
@@ -72,12 +105,12 @@ final class RequestHandlerImplTest {
       var requestPayload = RequestFixtures.serializePut(key, value);
 
       // when
-      var actual = underTest.handle(requestPayload);
+      var actual = underTest.handle(ByteBuffer.wrap(requestPayload));
 
       // then
       var expected = responseSerializer.ok();
       assertThat(actual.array()).isEqualTo(expected.array());
-      var stored = underTest.handle(RequestFixtures.serializeGet(key));
+      var stored = underTest.handle(ByteBuffer.wrap(RequestFixtures.serializeGet(key)));
       var expectedStoredValue =
           new Value(
               ValueType.JSON_UTF8, ObjectMapperProvider.getInstance().writeValueAsBytes(value));
@@ -96,16 +129,16 @@ final class RequestHandlerImplTest {
             public final String name = "John Doe";
             public final int age = 30;
           };
-      underTest.handle(RequestFixtures.serializePut(key, value));
+      underTest.handle(ByteBuffer.wrap(RequestFixtures.serializePut(key, value)));
       var requestPayload = RequestFixtures.serializeDelete(key);
 
       // when
-      var actual = underTest.handle(requestPayload);
+      var actual = underTest.handle(ByteBuffer.wrap(requestPayload));
 
       // then
       var expected = responseSerializer.ok();
       assertThat(actual.array()).isEqualTo(expected.array());
-      var deleted = underTest.handle(RequestFixtures.serializeGet(key));
+      var deleted = underTest.handle(ByteBuffer.wrap(RequestFixtures.serializeGet(key)));
       var expectedDeleted = responseSerializer.notFound();
       assertThat(deleted.array()).isEqualTo(expectedDeleted.array());
     }
@@ -117,11 +150,89 @@ final class RequestHandlerImplTest {
       var requestPayload = RequestFixtures.serializeDelete(key);
 
       // when
-      var actual = underTest.handle(requestPayload);
+      var actual = underTest.handle(ByteBuffer.wrap(requestPayload));
 
       // then
       var expected = responseSerializer.notFound();
       assertThat(actual.array()).isEqualTo(expected.array());
     }
   }
+
+  @Nested
+  class HandleBatch {
+    @Test
+    void should_Respond_Each_Request_In_Order_When_Gets_Surround_A_Put_Of_The_Same_Key() {
+      // given
+      String key = "batch:1";
+      String value = "v";
+      ByteBuffer[] requestPayloads = {
+        ByteBuffer.wrap(RequestFixtures.serializeDelete(key)),
+        ByteBuffer.wrap(RequestFixtures.serializeGet(key)),
+        ByteBuffer.wrap(RequestFixtures.serializePut(key, value)),
+        ByteBuffer.wrap(RequestFixtures.serializeGet(key)),
+        ByteBuffer.wrap(RequestFixtures.serializeGet(key))
+      };
+      var responses = new ByteBuffer[requestPayloads.length];
+
+      // when
+      underTest.handleBatch(requestPayloads, responses, requestPayloads.length);
+
+      // then
+      var expectedValue =
+          new Value(
+              ValueType.JSON_UTF8, ObjectMapperProvider.getInstance().writeValueAsBytes(value));
+      assertThat(responses[1].array()).isEqualTo(responseSerializer.notFound().array());
+      assertThat(responses[2].array()).isEqualTo(responseSerializer.ok().array());
+      assertThat(responses[3].array()).isEqualTo(responseSerializer.ok(expectedValue).array());
+      assertThat(responses[4].array()).isEqualTo(responseSerializer.ok(expectedValue).array());
+    }
+
+    @Test
+    void should_Respond_InternalError_Only_To_Request_Whose_Handling_Throws() {
+      // given
+      String key = "batch:2";
+      byte[] failingPayload = RequestFixtures.serializePut(key, "v");
+      RequestInterceptor interceptor =
+          new RequestInterceptor() {
+            @Override
+            public void before(ByteBuffer requestPayload) {
+              if (requestPayload.equals(ByteBuffer.wrap(failingPayload))) {
+                throw new IllegalStateException("Test exception");
+              }
+            }
+
+            @Override
+            public void after(ByteBuffer requestPayload, ByteBuffer responsePayload) {}
+          };
+      var underTest = new RequestHandlerImpl(responseSerializer, List.of(interceptor));
+      ByteBuffer[] requestPayloads = {
+        ByteBuffer.wrap(RequestFixtures.serializeDelete(key)),
+        ByteBuffer.wrap(failingPayload),
+        ByteBuffer.wrap(RequestFixtures.serializeGet(key))
+      };
+      var responses = new ByteBuffer[requestPayloads.length];
+
+      // when
+      underTest.handleBatch(requestPayloads, responses, requestPayloads.length);
+
+      // then
+      assertThat(responses[0].array()).isEqualTo(responseSerializer.notFound().array());
+      assertThat(responses[1].array()).isEqualTo(responseSerializer.internalError().array());
+      assertThat(responses[2].array()).isEqualTo(responseSerializer.notFound().array());
+    }
+  }
+
+  @Test
+  void should_Return_InvalidRequest_Response_When_Request_Is_Malformed() {
+    // given
+    byte[] getRequestPayload = RequestFixtures.serializeGet("user:1");
+    var truncatedPayload = ByteBuffer.wrap(getRequestPayload, 0, getRequestPayload.length - 1);
+
+    // when
+    var actual = underTest.handle(truncatedPayload);
+
+    // then
+    var expected = responseSerializer.invalidRequest();
+    assertThat(actual.array()).isEqualTo(expected.array());
+  }
 }
@@ -17,19 +17,26 @@ import io.seriput.common.serialization.response.Response;
 import io.seriput.common.serialization.response.ResponseStatus;
 import io.seriput.server.fixture.PartialWritePipeByteChannel;
 import io.seriput.server.fixture.PipeByteChannel;
+import io.seriput.server.fixture.RequestFixtures;
+import io.seriput.server.serialization.request.RequestDeserializer;
 import io.seriput.server.serialization.response.ResponseSerializer;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.Pipe;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.time.Duration;
 import java.util.Arrays;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -55,9 +62,12 @@ final class SeriputConnectionTest {
   }
 
   private ByteChannel connection;
+  private EventLoop eventLoop;
   private Selector selector;
   private Pipe.SinkChannel sinkChannel;
+  private Pipe.SourceChannel sourceChannel;
   private SelectionKey selectionKey;
+  private SelectionKey readableSelectionKey;
 
   @BeforeEach
   void setUp() throws IOException {
@@ -67,6 +77,23 @@ final class SeriputConnectionTest {
     this.sinkChannel = pipe.sink();
     this.sinkChannel.configureBlocking(false);
     this.selectionKey = this.sinkChannel.register(this.selector, 0);
+    this.sourceChannel = pipe.source();
+    this.sourceChannel.configureBlocking(false);
+    this.readableSelectionKey =
+        this.sourceChannel.register(this.selector, SelectionKey.OP_READ);
+    this.eventLoop = eventLoop(SeriputServerConfig.builder(0).build());
+  }
+
+  private static EventLoop eventLoop(SeriputServerConfig config) throws IOException {
+    var requestExecutor = RequestExecutor.create(config);
+    requestExecutor.start();
+    return new EventLoop(
+        0,
+        config,
+        allocator,
+        mock(RequestHandler.class, CALLS_REAL_METHODS),
+        requestExecutor,
+        new ServerMetrics());
   }
 
   @AfterEach
@@ -74,6 +101,7 @@ final class SeriputConnectionTest {
     this.connection.close();
     this.selector.close();
     this.sinkChannel.close();
+    this.sourceChannel.close();
   }
 
   @Nested
@@ -83,7 +111,7 @@ final class SeriputConnectionTest {
     void should_Read_From_Connection_Open(int numOfBytesToReadAtFirst /* Partial reads */)
         throws IOException {
       // given
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
       var underTest =
           new SeriputConnection(
@@ -93,7 +121,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
 
       byte[] requestPart1 = new byte[numOfBytesToReadAtFirst];
       byte[] requestPart2 = new byte[testPutRequestPayload.length - numOfBytesToReadAtFirst];
@@ -112,16 +140,135 @@ final class SeriputConnectionTest {
           .atMost(Duration.ofSeconds(1))
           .untilAsserted(
               () -> {
-                var requestCaptor = ArgumentCaptor.forClass(byte[].class);
+                var requestCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
                 verify(requestHandler, times(1)).handle(requestCaptor.capture());
-                assertThat(requestCaptor.getValue()).isEqualTo(testPutRequestPayload);
+                assertThat(requestCaptor.getValue())
+                    .isEqualTo(ByteBuffer.wrap(testPutRequestPayload));
+              });
+    }
+
+    @Test
+    void should_Not_Overwrite_Dispatched_Frames_When_Reading_Next_Ones() throws Exception {
+      // given
+      var handlerLatch = new CountDownLatch(1);
+      var handled = new CopyOnWriteArrayList<ByteBuffer>();
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                handlerLatch.await();
+                var request = invocation.getArgument(0, ByteBuffer.class);
+                handled.add(ByteBuffer.allocate(request.remaining()).put(request).flip());
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      // 1st frame and a part of the 2nd one
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(testGetRequestPayload, Arrays.copyOf(testPutRequestPayload, 5))));
+      underTest.read();
+
+      // when
+      connection.write(
+          ByteBuffer.wrap(
+              Arrays.copyOfRange(testPutRequestPayload, 5, testPutRequestPayload.length)));
+      underTest.read();
+      handlerLatch.countDown();
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .untilAsserted(() -> assertThat(handled.size()).isEqualTo(2));
+      assertThat(handled.getFirst()).isEqualTo(ByteBuffer.wrap(testGetRequestPayload));
+      assertThat(handled.getLast()).isEqualTo(ByteBuffer.wrap(testPutRequestPayload));
+    }
+
+    @Test
+    void should_Assemble_Frame_Larger_Than_ReadBuffer_Across_Reads() throws IOException {
+      // given
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      byte[] largePutRequestPayload = RequestFixtures.serializePut(TEST_KEY, "x".repeat(20_000));
+      var requests = ByteBuffer.wrap(Bytes.concat(largePutRequestPayload, testGetRequestPayload));
+
+      // when
+      while (requests.hasRemaining()) {
+        int limit = requests.limit();
+        requests.limit(Math.min(limit, requests.position() + 4096)); // Arrives in pieces
+        connection.write(requests);
+        requests.limit(limit);
+        underTest.read();
+      }
+      underTest.read();
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .untilAsserted(
+              () -> {
+                var requestCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
+                verify(requestHandler, times(2)).handle(requestCaptor.capture());
+                assertThat(requestCaptor.getAllValues().getFirst())
+                    .isEqualTo(ByteBuffer.wrap(largePutRequestPayload));
+                assertThat(requestCaptor.getAllValues().getLast())
+                    .isEqualTo(ByteBuffer.wrap(testGetRequestPayload));
+              });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_Respond_InvalidRequest_When_Frame_Exceeds_MaxFrameSize() throws IOException {
+      // given
+      var eventLoop = eventLoop(SeriputServerConfig.builder(0).maxFrameSize(64).build());
+      var underTest =
+          new SeriputConnection(
+              allocator,
+              client,
+              0,
+              connection,
+              new RequestHandlerImpl(responseSerializer, emptyList()),
+              selectionKey,
+              eventLoop);
+      byte[] largePutRequestPayload = RequestFixtures.serializePut(TEST_KEY, "x".repeat(20_000));
+      var requests =
+          ByteBuffer.wrap(Bytes.concat(largePutRequestPayload, testDeleteRequestPayload));
+      while (requests.hasRemaining()) {
+        connection.write(requests);
+        underTest.read();
+      }
+      underTest.read();
+
+      // when
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 2;
               });
+
+      // then
+      var responsePayloads = ByteBuffer.wrap(new byte[1024]);
+      connection.read(responsePayloads);
+      var responses =
+          deserialize(new ByteArrayInputStream(responsePayloads.array()), 2, ObjectNode.class);
+      assertThat(((Response<ObjectNode>) responses[0]).status())
+          .isEqualTo(ResponseStatus.INVALID_REQUEST);
+      assertThat(((Response<ObjectNode>) responses[1]).status())
+          .isIn(ResponseStatus.OK, ResponseStatus.NOT_FOUND); // Connection is still in sync
+      assertThat(eventLoop.metrics().rejectedFrames()).isEqualTo(1);
+      assertThat(underTest.state()).isEqualTo(SeriputConnection.State.OPEN);
     }
 
     @Test
     void should_Not_Do_Anything_When_No_DataAvailable_To_Read() throws IOException {
       // given
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
       var underTest =
           new SeriputConnection(
@@ -131,7 +278,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
       connection.write(ByteBuffer.wrap(testPutRequestPayload));
 
       // when
@@ -150,7 +297,7 @@ final class SeriputConnectionTest {
     @Test
     void should_Set_State_As_CLOSING_When_Client_Closes_The_Connection() throws IOException {
       // given
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
       var underTest =
           new SeriputConnection(
@@ -160,7 +307,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
       connection.close();
 
       // when
@@ -178,7 +325,7 @@ final class SeriputConnectionTest {
     void should_Throw_IllegalStateException_When_ConnectionState_Is_Other_Than_OPEN(
         SeriputConnection.State state) {
       // given
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
       var underTest =
           new SeriputConnection(
@@ -188,7 +335,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
       underTest.state(state);
 
       // when & then
@@ -212,7 +359,7 @@ final class SeriputConnectionTest {
               connection,
               new RequestHandlerImpl(responseSerializer, emptyList()),
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
 
       var requests =
           ByteBuffer.wrap(
@@ -262,7 +409,7 @@ final class SeriputConnectionTest {
     void should_Handle_Full_Tcp_SendBuffer() throws IOException {
       // given
       var connection = new PartialWritePipeByteChannel(3);
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any()))
           .thenReturn(responseSerializer.notFound(), responseSerializer.notFound());
       var underTest =
@@ -273,7 +420,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
 
       var requests = ByteBuffer.wrap(Bytes.concat(testGetRequestPayload, testDeleteRequestPayload));
       while (connection.write(requests) > 0) { // Client writes the full requests
@@ -305,10 +452,104 @@ final class SeriputConnectionTest {
       assertThat(deleteResponse.value()).isEqualTo(null);
     }
 
+    @Test
+    void should_Write_Queued_Responses_With_Single_Gathering_Write() throws IOException {
+      // given
+      var underTest =
+          new SeriputConnection(
+              allocator,
+              client,
+              0,
+              connection,
+              new RequestHandlerImpl(responseSerializer, emptyList()),
+              selectionKey,
+              eventLoop);
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  testGetRequestPayload,
+                  testGetRequestPayload,
+                  testDeleteRequestPayload,
+                  testGetRequestPayload)));
+      underTest.read();
+      await().atMost(Duration.ofSeconds(1)).until(underTest::isIdle); // All responses are queued
+
+      // when
+      underTest.write();
+
+      // then
+      assertThat(eventLoop.metrics().writeSyscalls()).isEqualTo(1);
+      assertThat(eventLoop.metrics().responsesWritten()).isEqualTo(4);
+      assertThat(eventLoop.metrics().writeSyscallsPerResponse()).isEqualTo(0.25);
+      assertThat(underTest.isEnqueued()).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3})
+    void should_Limit_Gathering_Write_By_Buffer_Count(int maxWriteBatchBuffers)
+        throws IOException {
+      // given
+      var eventLoop =
+          eventLoop(
+              SeriputServerConfig.builder(0).maxWriteBatchBuffers(maxWriteBatchBuffers).build());
+      var underTest =
+          new SeriputConnection(
+              allocator,
+              client,
+              0,
+              connection,
+              new RequestHandlerImpl(responseSerializer, emptyList()),
+              selectionKey,
+              eventLoop);
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  testDeleteRequestPayload,
+                  testDeleteRequestPayload,
+                  testDeleteRequestPayload,
+                  testDeleteRequestPayload)));
+      underTest.read();
+      await().atMost(Duration.ofSeconds(1)).until(underTest::isIdle); // All responses are queued
+
+      // when
+      underTest.write();
+
+      // then
+      assertThat(eventLoop.metrics().writeSyscalls())
+          .isEqualTo((4 + maxWriteBatchBuffers - 1) / maxWriteBatchBuffers);
+      assertThat(eventLoop.metrics().responsesWritten()).isEqualTo(4);
+    }
+
+    @Test
+    void should_Count_Response_As_Written_Only_When_Fully_Written() throws IOException {
+      // given
+      var connection = new PartialWritePipeByteChannel(4); // Response header is 6 bytes
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenReturn(responseSerializer.notFound(), responseSerializer.notFound());
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(
+          ByteBuffer.wrap(Bytes.concat(testGetRequestPayload, testDeleteRequestPayload)));
+      underTest.read();
+      await().atMost(Duration.ofSeconds(1)).until(underTest::isIdle); // All responses are queued
+
+      // when & then
+      underTest.write(); // 4 bytes of the 1st response
+      assertThat(eventLoop.metrics().responsesWritten()).isZero();
+      underTest.write(); // 2 bytes of the 1st, 2 bytes of the 2nd response
+      assertThat(eventLoop.metrics().responsesWritten()).isEqualTo(1);
+      underTest.write(); // 4 bytes of the 2nd response
+      assertThat(eventLoop.metrics().responsesWritten()).isEqualTo(2);
+      assertThat(eventLoop.metrics().writeSyscalls()).isEqualTo(3);
+      assertThat(underTest.isEnqueued()).isFalse();
+    }
+
     @Test
     void should_Set_State_As_CLOSING_When_Client_Closes_The_Connection() throws IOException {
       // given
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any())).thenReturn(responseSerializer.notFound());
       var underTest =
           new SeriputConnection(
@@ -318,7 +559,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
 
       var requests = ByteBuffer.wrap(Bytes.concat(testGetRequestPayload, testDeleteRequestPayload));
       connection.write(requests); // Client writes the full requests
@@ -348,7 +589,7 @@ final class SeriputConnectionTest {
               connection,
               new RequestHandlerImpl(responseSerializer, emptyList()),
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
       connection.write(ByteBuffer.wrap(testGetRequestPayload));
       underTest.read();
       await().atMost(Duration.ofSeconds(1)).until(underTest::isEnqueued);
@@ -360,6 +601,47 @@ final class SeriputConnectionTest {
       assertThat(underTest.isEnqueued()).isFalse();
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_Write_Response_From_Worker_When_Nothing_Else_Is_Pending() throws IOException {
+      // given
+      try (var listener = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0));
+          var clientChannel = SocketChannel.open(listener.getLocalAddress());
+          var serverChannel = listener.accept()) {
+        serverChannel.configureBlocking(false);
+        var underTest =
+            new SeriputConnection(
+                allocator,
+                client,
+                0,
+                serverChannel,
+                new RequestHandlerImpl(responseSerializer, emptyList()),
+                serverChannel.register(selector, SelectionKey.OP_READ),
+                eventLoop);
+        clientChannel.write(ByteBuffer.wrap(testGetRequestPayload));
+
+        // when
+        await()
+            .atMost(Duration.ofSeconds(1))
+            .until(
+                () -> {
+                  underTest.read(); // Server reads the request once it arrives
+                  return eventLoop.metrics().responsesWritten() == 1;
+                });
+
+        // then
+        var responsePayload = ByteBuffer.allocate(testGetRequestPayload.length);
+        clientChannel.read(responsePayload); // Written without calling write()
+        var responses =
+            deserialize(new ByteArrayInputStream(responsePayload.array()), 1, ObjectNode.class);
+        assertThat(((Response<ObjectNode>) responses[0]).status())
+            .isEqualTo(ResponseStatus.NOT_FOUND);
+        assertThat(underTest.isEnqueued()).isFalse();
+        assertThat(eventLoop.metrics().directWrites()).isEqualTo(1);
+        assertThat(eventLoop.metrics().responsesWritten()).isEqualTo(1);
+      }
+    }
+
     @ParameterizedTest
     @EnumSource(
         value = SeriputConnection.State.class,
@@ -368,7 +650,7 @@ final class SeriputConnectionTest {
     void should_Throw_IllegalStateException_When_ConnectionState_Is_Other_Than_OPEN(
         SeriputConnection.State state) {
       // given
-      var requestHandler = mock(RequestHandler.class);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
       when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
       var underTest =
           new SeriputConnection(
@@ -378,7 +660,7 @@ final class SeriputConnectionTest {
               connection,
               requestHandler,
               selectionKey,
-              new ConcurrentLinkedQueue<>());
+              eventLoop);
       underTest.state(state);
 
       // when & then
@@ -388,16 +670,530 @@ final class SeriputConnectionTest {
     }
   }
 
+  @Nested
+  final class Backpressure {
+    @Test
+    void should_Pause_Reading_When_InboundQueue_Hits_Frame_Limit() throws Exception {
+      // given
+      var eventLoop = eventLoop(SeriputServerConfig.builder(0).maxInboundFrames(2).build());
+      var handlerLatch = new CountDownLatch(1);
+      var requestHandler = blockingRequestHandler(handlerLatch);
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, readableSelectionKey, eventLoop);
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  testGetRequestPayload,
+                  testGetRequestPayload,
+                  testGetRequestPayload,
+                  testGetRequestPayload)));
+
+      // when
+      underTest.read();
+
+      // then
+      assertThat(underTest.isReadPaused()).isTrue();
+      assertThat(readableSelectionKey.interestOps() & SelectionKey.OP_READ).isZero();
+      assertThat(underTest.throttleCount()).isEqualTo(1);
+      assertThat(eventLoop.metrics().inboundThrottles()).isEqualTo(1);
+      handlerLatch.countDown();
+    }
+
+    @Test
+    void should_Pause_Reading_When_InboundQueue_Hits_Byte_Limit() throws Exception {
+      // given
+      var eventLoop = eventLoop(SeriputServerConfig.builder(0).maxInboundBytes(1).build());
+      var handlerLatch = new CountDownLatch(1);
+      var requestHandler = blockingRequestHandler(handlerLatch);
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, readableSelectionKey, eventLoop);
+      connection.write(
+          ByteBuffer.wrap(Bytes.concat(testPutRequestPayload, testPutRequestPayload)));
+
+      // when
+      underTest.read();
+
+      // then
+      assertThat(underTest.isReadPaused()).isTrue();
+      assertThat(readableSelectionKey.interestOps() & SelectionKey.OP_READ).isZero();
+      handlerLatch.countDown();
+    }
+
+    @Test
+    void should_Resume_Reading_When_InboundQueue_Drained_Below_LowWaterMark() throws Exception {
+      // given
+      var eventLoop = eventLoop(SeriputServerConfig.builder(0).maxInboundFrames(2).build());
+      var handlerLatch = new CountDownLatch(1);
+      var requestHandler = blockingRequestHandler(handlerLatch);
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, readableSelectionKey, eventLoop);
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  testGetRequestPayload,
+                  testGetRequestPayload,
+                  testGetRequestPayload,
+                  testGetRequestPayload)));
+      underTest.read();
+      assertThat(underTest.isReadPaused()).isTrue();
+
+      // when
+      handlerLatch.countDown();
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .untilAsserted(
+              () -> {
+                underTest.resumeReading(); // Event loop drains the pending read resumes
+                assertThat(underTest.isReadPaused()).isFalse();
+              });
+      assertThat(readableSelectionKey.interestOps() & SelectionKey.OP_READ).isNotZero();
+      assertThat(underTest.throttleCount()).isEqualTo(1);
+      assertThat(underTest.throttledNanos()).isPositive();
+      assertThat(eventLoop.metrics().inboundThrottledNanos()).isPositive();
+    }
+
+    @Test
+    void should_Not_Pause_Reading_When_InboundQueue_Is_Below_Limits() throws IOException {
+      // given
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, readableSelectionKey, eventLoop);
+      connection.write(ByteBuffer.wrap(testGetRequestPayload));
+
+      // when
+      underTest.read();
+
+      // then
+      assertThat(underTest.isReadPaused()).isFalse();
+      assertThat(readableSelectionKey.interestOps() & SelectionKey.OP_READ).isNotZero();
+      assertThat(underTest.throttleCount()).isZero();
+    }
+
+    private static RequestHandler blockingRequestHandler(CountDownLatch latch) {
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              _ -> {
+                latch.await();
+                return responseSerializer.ok();
+              });
+      return requestHandler;
+    }
+  }
+
+  @Nested
+  final class ExecutionModels {
+    @ParameterizedTest
+    @EnumSource(SeriputServerConfig.ExecutionModel.class)
+    void should_Handle_Requests_In_Order(SeriputServerConfig.ExecutionModel executionModel)
+        throws IOException {
+      // given
+      var eventLoop =
+          eventLoop(
+              SeriputServerConfig.builder(0)
+                  .executionModel(executionModel)
+                  .workerShardCount(2)
+                  .build());
+      var handledOps = new CopyOnWriteArrayList<Byte>();
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                handledOps.add(invocation.getArgument(0, ByteBuffer.class).get(0));
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  testGetRequestPayload,
+                  testPutRequestPayload,
+                  testGetRequestPayload,
+                  testDeleteRequestPayload)));
+
+      // when
+      underTest.read();
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .untilAsserted(() -> assertThat(handledOps.size()).isEqualTo(4));
+      assertThat(handledOps.toArray())
+          .isEqualTo(
+              new Byte[] {
+                testGetRequestPayload[0],
+                testPutRequestPayload[0],
+                testGetRequestPayload[0],
+                testDeleteRequestPayload[0]
+              });
+      await().atMost(Duration.ofSeconds(1)).until(underTest::isIdle);
+    }
+
+    @ParameterizedTest
+    @EnumSource(
+        value = SeriputServerConfig.ExecutionModel.class,
+        names = {"THREAD_PER_CONNECTION", "SHARDED"})
+    void should_Handle_Frames_Queued_Meanwhile_In_Single_Batch(
+        SeriputServerConfig.ExecutionModel executionModel) throws Exception {
+      // given
+      var eventLoop =
+          eventLoop(SeriputServerConfig.builder(0).executionModel(executionModel).build());
+      var isHandling = new CountDownLatch(1);
+      var canProceed = new CountDownLatch(1);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                isHandling.countDown();
+                canProceed.await();
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(ByteBuffer.wrap(testPutRequestPayload));
+      underTest.read();
+      assertThat(isHandling.await(1, TimeUnit.SECONDS)).isTrue();
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(testGetRequestPayload, testGetRequestPayload, testGetRequestPayload)));
+      underTest.read();
+
+      // when
+      canProceed.countDown();
+
+      // then
+      await().atMost(Duration.ofSeconds(1)).until(underTest::isIdle);
+      verify(requestHandler, times(1)).handleBatch(any(), any(), eq(3));
+      verify(requestHandler, times(4)).handle(any());
+      assertThat(eventLoop.metrics().handledBatchSizes())
+          .isEqualTo(new long[] {1, 0, 1, 0, 0, 0, 0, 0});
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_Respond_InternalError_To_Each_Frame_Of_Batch_When_Handler_Throws()
+        throws Exception {
+      // given
+      var eventLoop = eventLoop(SeriputServerConfig.builder(0).build());
+      var isHandling = new CountDownLatch(1);
+      var canProceed = new CountDownLatch(1);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                isHandling.countDown();
+                canProceed.await();
+                return responseSerializer.ok();
+              });
+      doThrow(new IllegalStateException("Test exception"))
+          .when(requestHandler)
+          .handleBatch(any(), any(), anyInt());
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(ByteBuffer.wrap(testPutRequestPayload));
+      underTest.read();
+      assertThat(isHandling.await(1, TimeUnit.SECONDS)).isTrue();
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(testGetRequestPayload, testGetRequestPayload, testGetRequestPayload)));
+      underTest.read();
+
+      // when
+      canProceed.countDown();
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 4;
+              });
+      var responsePayloads = ByteBuffer.wrap(new byte[1024]);
+      connection.read(responsePayloads);
+      var responses =
+          deserialize(new ByteArrayInputStream(responsePayloads.array()), 4, ObjectNode.class);
+      assertThat(((Response<ObjectNode>) responses[0]).status()).isEqualTo(ResponseStatus.OK);
+      for (int i = 1; i < 4; i++) {
+        assertThat(((Response<ObjectNode>) responses[i]).status())
+            .isEqualTo(ResponseStatus.INTERNAL_ERROR);
+      }
+      assertThat(underTest.isIdle()).isTrue();
+    }
+
+    @Test
+    void should_Handle_Tiny_Get_On_EventLoop_Thread_When_RunToCompletion() throws IOException {
+      // given
+      var eventLoop =
+          eventLoop(
+              SeriputServerConfig.builder(0)
+                  .executionModel(SeriputServerConfig.ExecutionModel.RUN_TO_COMPLETION)
+                  .build());
+      var handlerThreads = new CopyOnWriteArrayList<Thread>();
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              _ -> {
+                handlerThreads.add(Thread.currentThread());
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(ByteBuffer.wrap(testGetRequestPayload));
+
+      // when
+      underTest.read();
+
+      // then
+      assertThat(handlerThreads.size()).isEqualTo(1);
+      assertThat(handlerThreads.getFirst()).isSameAs(Thread.currentThread());
+      assertThat(underTest.isIdle()).isTrue();
+    }
+
+    @Test
+    void should_Not_Handle_Put_On_EventLoop_Thread_When_RunToCompletion() throws IOException {
+      // given
+      var eventLoop =
+          eventLoop(
+              SeriputServerConfig.builder(0)
+                  .executionModel(SeriputServerConfig.ExecutionModel.RUN_TO_COMPLETION)
+                  .build());
+      var handlerThreads = new CopyOnWriteArrayList<Thread>();
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              _ -> {
+                handlerThreads.add(Thread.currentThread());
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(ByteBuffer.wrap(testPutRequestPayload));
+
+      // when
+      underTest.read();
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .untilAsserted(() -> assertThat(handlerThreads.size()).isEqualTo(1));
+      assertThat(handlerThreads.getFirst()).isNotSameAs(Thread.currentThread());
+    }
+  }
+
+  @Nested
+  final class ProtocolV2 {
+    @Test
+    void should_Prefix_Responses_With_Request_Ids_When_Switched_To_V2() throws IOException {
+      // given
+      var underTest =
+          new SeriputConnection(
+              allocator,
+              client,
+              0,
+              connection,
+              new RequestHandlerImpl(responseSerializer, emptyList()),
+              selectionKey,
+              eventLoop);
+      connection.write(
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  serializeHello(2),
+                  tagged(7, testPutRequestPayload),
+                  tagged(-1, testGetRequestPayload))));
+
+      // when
+      underTest.read();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 3;
+              });
+
+      // then
+      var responses = ByteBuffer.wrap(new byte[1024]);
+      connection.read(responses);
+      responses.flip();
+      assertThat(underTest.protocolVersion()).isEqualTo(2);
+      assertThat(responses.get(0)).isEqualTo(ResponseStatus.OK.status()); // HELLO, in v1
+      assertThat(responses.getInt(6)).isEqualTo(7);
+      assertThat(responses.get(10)).isEqualTo(ResponseStatus.OK.status());
+      assertThat(responses.getInt(16)).isEqualTo(-1);
+      assertThat(responses.get(20)).isEqualTo(ResponseStatus.OK.status());
+    }
+
+    @Test
+    void should_Stay_On_V1_When_Requested_Version_Is_Not_Supported() throws IOException {
+      // given
+      var underTest =
+          new SeriputConnection(
+              allocator,
+              client,
+              0,
+              connection,
+              new RequestHandlerImpl(responseSerializer, emptyList()),
+              selectionKey,
+              eventLoop);
+      connection.write(
+          ByteBuffer.wrap(Bytes.concat(serializeHello(9), serializeGet(testKey()))));
+
+      // when
+      underTest.read();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 2;
+              });
+
+      // then
+      var responses = ByteBuffer.wrap(new byte[1024]);
+      connection.read(responses);
+      assertThat(underTest.protocolVersion()).isEqualTo(1);
+      assertThat(responses.get(0)).isEqualTo(ResponseStatus.INVALID_REQUEST.status());
+      assertThat(responses.get(6)).isEqualTo(ResponseStatus.NOT_FOUND.status());
+    }
+
+    @Test
+    void should_Respond_Out_Of_Order_When_Earlier_Request_Is_Slow() throws IOException {
+      // given
+      var eventLoop =
+          eventLoop(
+              SeriputServerConfig.builder(0)
+                  .executionModel(SeriputServerConfig.ExecutionModel.SHARDED)
+                  .workerShardCount(2)
+                  .build());
+      byte[] slowPut = serializePut("slow", testValue);
+      byte[] fastGet = serializeGet(keyOnOtherShard(slowPut));
+      var fastGetHandled = new CountDownLatch(1);
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                byte op = invocation.getArgument(0, ByteBuffer.class).get(0);
+                if (op == slowPut[0]) {
+                  // Slow until the GET behind it is handled
+                  fastGetHandled.await(1, TimeUnit.SECONDS);
+                } else if (op == fastGet[0]) {
+                  fastGetHandled.countDown();
+                  return responseSerializer.notFound();
+                }
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(ByteBuffer.wrap(serializeHello(2)));
+      underTest.read();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 1;
+              });
+      connection.write(ByteBuffer.wrap(Bytes.concat(tagged(1, slowPut), tagged(2, fastGet))));
+
+      // when
+      underTest.read();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 3;
+              });
+
+      // then
+      var responses = ByteBuffer.wrap(new byte[1024]);
+      connection.read(responses);
+      assertThat(responses.getInt(6)).isEqualTo(2);
+      assertThat(responses.get(10)).isEqualTo(ResponseStatus.NOT_FOUND.status());
+      assertThat(responses.getInt(16)).isEqualTo(1);
+      assertThat(responses.get(20)).isEqualTo(ResponseStatus.OK.status());
+    }
+
+    // Finds a key which isn't hashed onto the same one of 2 shards as the given request's key
+    private static String keyOnOtherShard(byte[] request) {
+      int shard = Math.floorMod(RequestDeserializer.keyHash(ByteBuffer.wrap(request)), 2);
+      for (int i = 0; ; i++) {
+        String key = "fast-" + i;
+        byte[] candidate = serializeGet(key);
+        if (Math.floorMod(RequestDeserializer.keyHash(ByteBuffer.wrap(candidate)), 2) != shard) {
+          return key;
+        }
+      }
+    }
+  }
+
+  @Nested
+  final class RequestTimeout {
+    @Test
+    void should_Respond_InternalError_When_Request_Waits_Longer_Than_RequestTimeout()
+        throws IOException {
+      // given
+      var eventLoop =
+          eventLoop(SeriputServerConfig.builder(0).requestTimeout(Duration.ofMillis(50)).build());
+      var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                Thread.sleep(200); // The next request waits behind this one
+                return responseSerializer.ok();
+              });
+      var underTest =
+          new SeriputConnection(
+              allocator, client, 0, connection, requestHandler, selectionKey, eventLoop);
+      connection.write(
+          ByteBuffer.wrap(Bytes.concat(testPutRequestPayload, testGetRequestPayload)));
+
+      // when
+      underTest.read();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                underTest.write();
+                return eventLoop.metrics().responsesWritten() == 2;
+              });
+
+      // then
+      var responses = ByteBuffer.wrap(new byte[1024]);
+      connection.read(responses);
+      responses.flip();
+      assertThat(responses.get(0)).isEqualTo(ResponseStatus.OK.status());
+      assertThat(responses.get(6)).isEqualTo(ResponseStatus.INTERNAL_ERROR.status());
+      verify(requestHandler, times(1)).handle(any());
+      assertThat(eventLoop.metrics().expiredRequests()).isEqualTo(1);
+    }
+  }
+
   @Test
   @SuppressWarnings("unchecked")
   void should_Not_Exit_When_RequestHandler_Throws_Exception() throws IOException {
     // given
-    var requestHandler = mock(RequestHandler.class);
+    var requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
     when(requestHandler.handle(any()))
         .thenAnswer(
             invocation -> {
-              var request = invocation.getArgument(0, byte[].class);
-              if (Arrays.equals(request, testPutRequestPayload)) {
+              var request = invocation.getArgument(0, ByteBuffer.class);
+              if (request.equals(ByteBuffer.wrap(testPutRequestPayload))) {
                 Thread.sleep(250);
                 throw new RuntimeException("Something went wrong!");
               } else {
@@ -412,7 +1208,7 @@ final class SeriputConnectionTest {
             connection,
             requestHandler,
             selectionKey,
-            new ConcurrentLinkedQueue<>());
+            eventLoop);
     // Client writes the full requests
     connection.write(ByteBuffer.wrap(Bytes.concat(testPutRequestPayload, testGetRequestPayload)));
 
@@ -425,10 +1221,12 @@ final class SeriputConnectionTest {
               underTest.write();
 
               // then
-              var requestCaptor = ArgumentCaptor.forClass(byte[].class);
+              var requestCaptor = ArgumentCaptor.forClass(ByteBuffer.class);
               verify(requestHandler, times(2)).handle(requestCaptor.capture());
-              assertThat(requestCaptor.getAllValues().getFirst()).isEqualTo(testPutRequestPayload);
-              assertThat(requestCaptor.getAllValues().getLast()).isEqualTo(testGetRequestPayload);
+              assertThat(requestCaptor.getAllValues().getFirst())
+                  .isEqualTo(ByteBuffer.wrap(testPutRequestPayload));
+              assertThat(requestCaptor.getAllValues().getLast())
+                  .isEqualTo(ByteBuffer.wrap(testGetRequestPayload));
               ByteBuffer responsePayloads = ByteBuffer.wrap(new byte[testGetRequestPayload.length]);
               connection.read(responsePayloads);
               var responses =
@@ -66,6 +66,25 @@ final class SeriputServerIntegrationTest {
     }
   }
 
+  @Test
+  void should_Handle_Value_Larger_Than_ReadBuffer_EndToEnd() throws Exception {
+    // given
+    try (SeriputClient client = SeriputClient.of("localhost", SERVER_PORT)) {
+      await().until(client::tryToConnect);
+      String key = testKey();
+      String largeText = "x".repeat(300_000);
+
+      // when
+      Response<?> putResponse = client.put(key, largeText);
+      Response<?> getResponse = client.get(key, String.class);
+
+      // then
+      assertThat(putResponse.status()).isEqualTo(ResponseStatus.OK);
+      assertThat(getResponse.status()).isEqualTo(ResponseStatus.OK);
+      assertThat(getResponse.value()).isEqualTo(largeText);
+    }
+  }
+
   @Test
   void should_Handle_Multiple_Requests_From_Same_Client() throws Exception {
     // given
@@ -1,25 +1,42 @@
 package io.seriput.server;
 
 import static org.assertj.core.api.AssertionsForClassTypes.*;
+import static org.assertj.core.api.Assumptions.assumeThatCode;
 import static org.awaitility.Awaitility.await;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import io.seriput.common.HeapByteBufferAllocator;
+import io.seriput.common.InProcessRegistry;
+import io.seriput.common.SharedMemoryChannel;
+import io.seriput.common.WaitStrategy;
 import io.seriput.common.serialization.request.KeyType;
 import io.seriput.common.serialization.request.RequestSerializer;
 import io.seriput.common.serialization.request.ValueType;
+import io.seriput.common.serialization.response.ResponseStatus;
 import io.seriput.server.fixture.SeriputClient;
 import io.seriput.server.serialization.response.ResponseSerializer;
 import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import tools.jackson.databind.node.ObjectNode;
@@ -37,7 +54,7 @@ final class SeriputServerTest {
 
   @BeforeEach
   void setUp() throws Exception {
-    this.requestHandler = mock(RequestHandler.class);
+    this.requestHandler = mock(RequestHandler.class, CALLS_REAL_METHODS);
     when(requestHandler.handle(any())).thenReturn(responseSerializer.ok());
     this.underTest = new SeriputServer(SERVER_PORT, requestHandler);
   }
@@ -157,10 +174,7 @@ final class SeriputServerTest {
           .until(
               () -> {
                 client.tryToConnect();
-                var registered =
-                    underTest.selector().keys().stream()
-                        .filter(k -> k.attachment() instanceof SeriputConnection)
-                        .findFirst();
+                var registered = connectionKeys().findFirst();
                 if (registered.isPresent()) {
                   assertThat(registered.get().isValid()).isTrue();
                   assertThat(registered.get().interestOps()).isEqualTo(SelectionKey.OP_READ);
@@ -170,6 +184,31 @@ final class SeriputServerTest {
               });
       client.close();
     }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void should_Accept_Connections_On_Each_EventLoop_When_ReusePort_Is_Enabled() throws Exception {
+      // given
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).eventLoopCount(2).reusePort(true).build(),
+              requestHandler);
+      underTest.start();
+      var clients =
+          IntStream.range(0, 32).mapToObj(_ -> SeriputClient.of("localhost", SERVER_PORT)).toList();
+
+      // when
+      await().until(() -> clients.stream().allMatch(SeriputClient::tryToConnect));
+
+      // then
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .untilAsserted(() -> assertThat(connectionKeys().count()).isEqualTo(32));
+      assertThat(underTest.eventLoops().stream().allMatch(e -> e.connectionCount() > 0)).isTrue();
+      for (var client : clients) {
+        client.close();
+      }
+    }
   }
 
   @Nested
@@ -191,7 +230,8 @@ final class SeriputServerTest {
       // then
       await()
           .atMost(Duration.ofSeconds(1))
-          .untilAsserted(() -> verify(requestHandler, times(1)).handle(requestBytes));
+          .untilAsserted(
+              () -> verify(requestHandler, times(1)).handle(ByteBuffer.wrap(requestBytes)));
       client.close();
     }
 
@@ -229,6 +269,188 @@ final class SeriputServerTest {
               });
       client.close();
     }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void should_Respond_Through_IoUring_When_Transport_Is_IO_URING() throws Exception {
+      // given
+      // Blocked by the default seccomp profile of Docker or by kernel.io_uring_disabled
+      assumeThatCode(() -> IoUringSelector.create().close()).doesNotThrowAnyException();
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT)
+                  .transport(SeriputServerConfig.Transport.IO_URING)
+                  .build(),
+              requestHandler);
+      underTest.start();
+      var client = SeriputClient.of("localhost", SERVER_PORT);
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.notFound());
+
+      // when
+      await().until(client::tryToConnect);
+      var requestBuffer = serializer.serializeGet("user:1");
+      var requestBytes = new byte[requestBuffer.limit()];
+      requestBuffer.get(requestBytes);
+      client.write(requestBytes);
+
+      // then
+      var expectedBuffer = responseSerializer.notFound();
+      var expectedBytes = new byte[expectedBuffer.limit()];
+      expectedBuffer.get(expectedBytes);
+      await().atMost(Duration.ofSeconds(1)).until(() -> client.available() >= expectedBytes.length);
+      var actualBuffer = client.read(expectedBytes.length);
+      var actualBytes = new byte[actualBuffer.limit()];
+      actualBuffer.get(actualBytes);
+      assertThat(actualBytes).isEqualTo(expectedBytes);
+      var connectionKey = connectionKeys().findFirst().orElseThrow();
+      assertThat(connectionKey).isInstanceOf(IoUringSelector.Key.class);
+      client.close();
+    }
+
+    @ParameterizedTest
+    @EnumSource(
+        value = WaitStrategy.Kind.class,
+        names = {"BUSY_SPIN", "SPIN_YIELD", "SPIN_PARK"})
+    void should_Respond_When_EventLoop_Polls(WaitStrategy.Kind kind) throws Exception {
+      // given
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).waitStrategy(WaitStrategy.of(kind)).build(),
+              requestHandler);
+      underTest.start();
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.notFound());
+      var client = SeriputClient.of("localhost", SERVER_PORT);
+      await().until(client::tryToConnect);
+      Thread.sleep(10); // Lets the event loop back off to parking, if it does
+
+      // when
+      var request = serializer.serializeGet("user:1");
+      var requestBytes = new byte[request.limit()];
+      request.get(requestBytes);
+      client.write(requestBytes);
+
+      // then
+      var expectedResponse = responseSerializer.notFound();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(() -> client.available() >= expectedResponse.limit());
+      client.close();
+    }
+
+    @Test
+    void should_Respond_Over_Unix_Domain_Socket_When_SocketPath_Is_Set() throws Exception {
+      // given
+      Path socketPath = Files.createTempDirectory("seriput-test").resolve("seriput.sock");
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).socketPath(socketPath).build(),
+              requestHandler);
+      underTest.start();
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.notFound());
+
+      // when
+      try (var channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+        channel.connect(UnixDomainSocketAddress.of(socketPath));
+        channel.write(serializer.serializeGet("user:1"));
+
+        // then
+        var expectedBuffer = responseSerializer.notFound();
+        var actualBuffer = ByteBuffer.allocate(expectedBuffer.limit());
+        while (actualBuffer.hasRemaining()) {
+          channel.read(actualBuffer);
+        }
+        assertThat(actualBuffer.flip()).isEqualTo(expectedBuffer);
+      }
+      underTest.close();
+      assertThat(Files.exists(socketPath)).isFalse();
+    }
+
+    @Test
+    void should_Respond_In_Process_When_InProcessName_Is_Set() throws Exception {
+      // given
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).inProcessName("seriput-test").build(),
+              requestHandler);
+      underTest.start();
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.notFound());
+      var actual = new CompletableFuture<byte[]>();
+
+      // when
+      var isSubmitted =
+          InProcessRegistry.lookup("seriput-test")
+              .submit(serializer.serializeGet("user:1"), actual::complete);
+
+      // then
+      var expectedBuffer = responseSerializer.notFound();
+      var expectedBytes = new byte[expectedBuffer.limit()];
+      expectedBuffer.get(expectedBytes);
+      assertThat(isSubmitted).isTrue();
+      assertThat(actual.get(1, TimeUnit.SECONDS)).isEqualTo(expectedBytes);
+      underTest.close();
+      assertThat(InProcessRegistry.lookup("seriput-test")).isNull();
+    }
+
+    @Test
+    void should_Respond_Over_Shared_Memory_When_SharedMemoryPath_Is_Set() throws Exception {
+      // given
+      Path sharedMemoryPath = Files.createTempDirectory("seriput-test").resolve("seriput.shm");
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).sharedMemoryPath(sharedMemoryPath).build(),
+              requestHandler);
+      underTest.start();
+      when(requestHandler.handle(any())).thenReturn(responseSerializer.notFound());
+
+      // when
+      try (var channel = SharedMemoryChannel.attach(sharedMemoryPath)) {
+        var request = serializer.serializeGet("user:1");
+        while (request.hasRemaining()) {
+          channel.requests().write(request);
+        }
+
+        // then
+        var expectedBuffer = responseSerializer.notFound();
+        var actualBuffer = ByteBuffer.allocate(expectedBuffer.limit());
+        await()
+            .atMost(Duration.ofSeconds(1))
+            .until(
+                () -> {
+                  channel.responses().read(actualBuffer);
+                  return !actualBuffer.hasRemaining();
+                });
+        assertThat(actualBuffer.flip()).isEqualTo(expectedBuffer);
+      }
+      underTest.close();
+      assertThat(Files.exists(sharedMemoryPath)).isFalse();
+    }
+
+    @Test
+    void should_Free_Shared_Memory_Channel_When_Client_Dies_Without_Detaching() throws Exception {
+      // given
+      Path sharedMemoryPath = Files.createTempDirectory("seriput-test").resolve("seriput.shm");
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).sharedMemoryPath(sharedMemoryPath).build(),
+              requestHandler);
+      underTest.start();
+      Process deadClient = new ProcessBuilder("true").start();
+      deadClient.waitFor();
+
+      // when
+      try (var channel = SharedMemoryChannel.attach(sharedMemoryPath)) {
+        channel.clientPid(deadClient.pid());
+
+        // then
+        await()
+            .atMost(Duration.ofSeconds(3))
+            .until(() -> channel.state() == SharedMemoryChannel.STATE_FREE);
+      }
+      try (var channel = SharedMemoryChannel.attach(sharedMemoryPath)) {
+        assertThat(channel.state()).isEqualTo(SharedMemoryChannel.STATE_ATTACHED);
+      }
+      underTest.close();
+    }
   }
 
   @Nested
@@ -252,14 +474,32 @@ final class SeriputServerTest {
           .until(() -> client.available() >= expectedResponse.limit());
 
       // then: OP_WRITE is cleared after write() drains the response
-      var connectionKey =
-          underTest.selector().keys().stream()
-              .filter(k -> k.attachment() instanceof SeriputConnection)
-              .findFirst()
-              .orElseThrow();
+      var connectionKey = connectionKeys().findFirst().orElseThrow();
       assertThat(connectionKey.interestOps() & SelectionKey.OP_WRITE).isZero();
       client.close();
     }
+
+    @Test
+    void should_Coalesce_Wakeups_Until_EventLoop_Takes_Its_Tasks() throws IOException {
+      // given
+      var eventLoop = underTest.eventLoops().getFirst();
+
+      // when
+      eventLoop.wakeup();
+      eventLoop.wakeup();
+      eventLoop.wakeup();
+
+      // then
+      assertThat(underTest.metrics().wakeups()).isEqualTo(1);
+      underTest.start();
+      await()
+          .atMost(Duration.ofSeconds(1))
+          .until(
+              () -> {
+                eventLoop.wakeup(); // Not coalesced once the pending one is taken
+                return underTest.metrics().wakeups() > 1;
+              });
+    }
   }
 
   @Nested
@@ -278,14 +518,14 @@ final class SeriputServerTest {
                   var connections =
                       underTest.connections().values().stream().findFirst().orElseThrow();
                   connection.set(connections.stream().findFirst().orElseThrow());
-                  connection.get().state(SeriputConnection.State.CLOSING);
+                  connection.get().markClosing();
                   return true;
                 }
                 return false;
               });
 
       // when
-      underTest.selector().wakeup();
+      wakeupEventLoops();
 
       // then
       await()
@@ -303,26 +543,20 @@ final class SeriputServerTest {
       // given
       underTest.start();
       var client = SeriputClient.of("localhost", SERVER_PORT);
-      var serverSelector = underTest.selector();
       await()
           .until(
               () -> {
                 if (client.tryToConnect()) {
-                  return serverSelector.keys().stream()
-                      .anyMatch(k -> k.attachment() instanceof SeriputConnection);
+                  return connectionKeys().findAny().isPresent();
                 }
                 return false;
               });
-      var selectionKey =
-          serverSelector.keys().stream()
-              .filter(k -> k.attachment() instanceof SeriputConnection)
-              .findFirst()
-              .orElseThrow();
+      var selectionKey = connectionKeys().findFirst().orElseThrow();
       var connection = (SeriputConnection) selectionKey.attachment();
 
       // when
-      connection.state(SeriputConnection.State.CLOSING);
-      serverSelector.wakeup();
+      connection.markClosing();
+      wakeupEventLoops();
 
       // then
       await().untilAsserted(() -> assertThat(selectionKey.isValid()).isFalse());
@@ -334,35 +568,122 @@ final class SeriputServerTest {
       // given
       underTest.start();
       var client = SeriputClient.of("localhost", SERVER_PORT);
-      var serverSelector = underTest.selector();
       await()
           .until(
               () -> {
                 if (client.tryToConnect()) {
-                  return serverSelector.keys().stream()
-                      .anyMatch(k -> k.attachment() instanceof SeriputConnection);
+                  return connectionKeys().findAny().isPresent();
                 }
                 return false;
               });
-      var selectionKey =
-          serverSelector.keys().stream()
-              .filter(k -> k.attachment() instanceof SeriputConnection)
-              .findFirst()
-              .orElseThrow();
+      var selectionKey = connectionKeys().findFirst().orElseThrow();
       var connection = (SeriputConnection) selectionKey.attachment();
 
       // when
-      serverSelector.wakeup();
+      wakeupEventLoops();
 
       // then
       assertThat(selectionKey.isValid()).isTrue();
       assertThat(connection.state()).isEqualTo(SeriputConnection.State.OPEN);
       client.close();
     }
+
+    @Test
+    void should_Close_Connection_When_It_Stays_Idle_Longer_Than_IdleTimeout() throws Exception {
+      // given
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).idleTimeout(Duration.ofMillis(200)).build(),
+              requestHandler);
+      underTest.start();
+      var client = SeriputClient.of("localhost", SERVER_PORT);
+      await().until(() -> client.tryToConnect() && connectionKeys().findAny().isPresent());
+      var connection = (SeriputConnection) connectionKeys().findFirst().orElseThrow().attachment();
+
+      // when & then
+      await()
+          .atMost(Duration.ofSeconds(2))
+          .untilAsserted(
+              () -> {
+                assertThat(connection.state()).isEqualTo(SeriputConnection.State.CLOSED);
+                assertThat(underTest.metrics().idleEvictions()).isEqualTo(1);
+              });
+      client.close();
+    }
   }
 
   @Nested
   class ServerShutdown {
+    @Test
+    void should_Respond_InFlight_Request_Before_Closing_On_Shutdown() throws Exception {
+      // given
+      var handlerStarted = new CountDownLatch(1);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                handlerStarted.countDown();
+                Thread.sleep(300);
+                return responseSerializer.notFound();
+              });
+      underTest.start();
+      var client = SeriputClient.of("localhost", SERVER_PORT);
+      await().until(client::tryToConnect);
+      var request = serializer.serializeGet("user:1");
+      var requestBytes = new byte[request.limit()];
+      request.get(requestBytes);
+      client.write(requestBytes);
+      assertThat(handlerStarted.await(1, TimeUnit.SECONDS)).isTrue();
+
+      // when
+      underTest.close();
+
+      // then
+      underTest.awaitShutdown();
+      var response = client.read(ResponseSerializer.HEADER_SIZE);
+      assertThat(response.limit()).isEqualTo(ResponseSerializer.HEADER_SIZE);
+      assertThat(response.get(0)).isEqualTo(ResponseStatus.NOT_FOUND.status());
+      assertThat(underTest.metrics().drainCompletedRequests()).isEqualTo(1);
+      assertThat(underTest.metrics().drainAbandonedRequests()).isZero();
+      client.close();
+    }
+
+    @Test
+    void should_Abandon_InFlight_Request_When_DrainTimeout_Elapses() throws Exception {
+      // given
+      var handlerStarted = new CountDownLatch(1);
+      when(requestHandler.handle(any()))
+          .thenAnswer(
+              invocation -> {
+                handlerStarted.countDown();
+                Thread.sleep(2_000);
+                return responseSerializer.notFound();
+              });
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT)
+                  .drainTimeout(Duration.ofMillis(100))
+                  .build(),
+              requestHandler);
+      underTest.start();
+      var client = SeriputClient.of("localhost", SERVER_PORT);
+      await().until(client::tryToConnect);
+      var request = serializer.serializeGet("user:1");
+      var requestBytes = new byte[request.limit()];
+      request.get(requestBytes);
+      client.write(requestBytes);
+      assertThat(handlerStarted.await(1, TimeUnit.SECONDS)).isTrue();
+
+      // when
+      underTest.close();
+
+      // then
+      underTest.awaitShutdown();
+      assertThat(client.read(ResponseSerializer.HEADER_SIZE).limit()).isZero();
+      assertThat(underTest.metrics().drainCompletedRequests()).isZero();
+      assertThat(underTest.metrics().drainAbandonedRequests()).isEqualTo(1);
+      client.close();
+    }
+
     @Test
     void should_Close_All_Connections_On_Server_Shutdown() throws Exception {
       // given
@@ -370,16 +691,8 @@ final class SeriputServerTest {
       var clients =
           IntStream.range(0, 3).mapToObj(_ -> SeriputClient.of("localhost", SERVER_PORT)).toList();
       await().until(() -> clients.stream().allMatch(SeriputClient::tryToConnect));
-      var serverSelector = underTest.selector();
-      await()
-          .untilAsserted(
-              () ->
-                  assertThat(
-                          serverSelector.keys().stream()
-                              .filter(k -> k.attachment() instanceof SeriputConnection)
-                              .count())
-                      .isEqualTo(3));
-      var selectionKeys = serverSelector.keys().stream().toList();
+      await().untilAsserted(() -> assertThat(connectionKeys().count()).isEqualTo(3));
+      var selectionKeys = connectionKeys().toList();
 
       // when
       underTest.close();
@@ -400,20 +713,9 @@ final class SeriputServerTest {
       var clients =
           IntStream.range(0, 3).mapToObj(_ -> SeriputClient.of("localhost", SERVER_PORT)).toList();
       await().until(() -> clients.stream().allMatch(SeriputClient::tryToConnect));
-      var serverSelector = underTest.selector();
-      await()
-          .untilAsserted(
-              () -> // All connections are established
-              assertThat(
-                          serverSelector.keys().stream()
-                              .filter(k -> k.attachment() instanceof SeriputConnection)
-                              .count())
-                      .isEqualTo(3));
-      var connections =
-          serverSelector.keys().stream()
-              .filter(k -> k.attachment() instanceof SeriputConnection)
-              .map(k -> (SeriputConnection) k.attachment())
-              .toList();
+      await() // All connections are established
+          .untilAsserted(() -> assertThat(connectionKeys().count()).isEqualTo(3));
+      var connections = connectionKeys().map(k -> (SeriputConnection) k.attachment()).toList();
 
       // when
       underTest.close();
@@ -449,4 +751,70 @@ final class SeriputServerTest {
       assertThat(underTest.state()).isEqualTo(SeriputServer.State.CLOSED);
     }
   }
+
+  @Nested
+  class EventLoops {
+    @ParameterizedTest
+    @EnumSource(SeriputServerConfig.ConnectionBalancing.class)
+    void should_Distribute_Connections_Over_EventLoops(
+        SeriputServerConfig.ConnectionBalancing connectionBalancing) throws Exception {
+      // given
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT)
+                  .eventLoopCount(2)
+                  .connectionBalancing(connectionBalancing)
+                  .build(),
+              requestHandler);
+      underTest.start();
+      var clients =
+          IntStream.range(0, 4).mapToObj(_ -> SeriputClient.of("localhost", SERVER_PORT)).toList();
+
+      // when
+      for (var client : clients) {
+        await().until(client::tryToConnect);
+      }
+
+      // then
+      await()
+          .untilAsserted(
+              () -> {
+                for (var eventLoop : underTest.eventLoops()) {
+                  assertThat(eventLoop.connectionCount()).isEqualTo(2);
+                  assertThat(
+                          eventLoop.connections().values().stream().mapToInt(c -> c.size()).sum())
+                      .isEqualTo(2);
+                }
+              });
+      for (var client : clients) {
+        client.close();
+      }
+    }
+
+    @Test
+    void should_Stop_All_EventLoops_On_Close() throws Exception {
+      // given
+      underTest =
+          new SeriputServer(
+              SeriputServerConfig.builder(SERVER_PORT).eventLoopCount(3).build(), requestHandler);
+      underTest.start();
+
+      // when
+      underTest.close();
+
+      // then
+      underTest.awaitShutdown();
+      assertThat(underTest.eventLoops().stream().noneMatch(l -> l.thread().isAlive())).isTrue();
+    }
+  }
+
+  private Stream<SelectionKey> connectionKeys() {
+    return underTest.eventLoops().stream()
+        .flatMap(eventLoop -> eventLoop.selector().keys().stream())
+        .filter(k -> k.attachment() instanceof SeriputConnection);
+  }
+
+  private void wakeupEventLoops() {
+    underTest.eventLoops().forEach(eventLoop -> eventLoop.selector().wakeup());
+  }
 }
@@ -0,0 +1,164 @@
+package io.seriput.server.core;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+import io.seriput.server.core.BoundedStorageEngine.Eviction;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+final class BoundedStorageEngineTest {
+  private static final Value VALUE = new Value(ValueType.JSON_UTF8, "{\"id\":1}".getBytes());
+  private static final long ENTRY_SIZE = BoundedStorageEngine.weigh(key("user:1"), VALUE);
+
+  private CacheMetrics metrics;
+  private BoundedStorageEngine underTest;
+
+  @BeforeEach
+  void setUp() {
+    metrics = new CacheMetrics();
+    underTest = new BoundedStorageEngine(3 * ENTRY_SIZE, Eviction.LRU, metrics);
+  }
+
+  @Nested
+  class Put {
+    @Test
+    void should_Evict_Least_Recently_Used_Entry_When_Budget_Exceeded() {
+      // given
+      underTest.put(key("user:1"), VALUE);
+      underTest.put(key("user:2"), VALUE);
+      underTest.put(key("user:3"), VALUE);
+      underTest.get(key("user:1"));
+
+      // when
+      underTest.put(key("user:4"), VALUE);
+
+      // then
+      assertThat(underTest.get(key("user:1"))).isEqualTo(VALUE);
+      assertThat(underTest.get(key("user:2"))).isNull();
+      assertThat(underTest.get(key("user:3"))).isEqualTo(VALUE);
+      assertThat(underTest.get(key("user:4"))).isEqualTo(VALUE);
+      assertThat(metrics.evictions()).isEqualTo(1);
+      assertThat(metrics.evictedBytes()).isEqualTo(ENTRY_SIZE);
+      assertThat(metrics.usedBytes()).isEqualTo(3 * ENTRY_SIZE);
+    }
+
+    @Test
+    void should_Account_Replaced_Entry_Once() {
+      // given
+      underTest.put(key("user:1"), VALUE);
+
+      // when
+      underTest.put(key("user:1"), VALUE);
+      underTest.put(key("user:1"), VALUE);
+
+      // then
+      assertThat(metrics.usedBytes()).isEqualTo(ENTRY_SIZE);
+      assertThat(metrics.evictions()).isEqualTo(0);
+    }
+
+    @Test
+    void should_Evict_Entry_Larger_Than_Budget_Right_Away() {
+      // given
+      underTest.put(key("user:1"), VALUE);
+      var value = new Value(ValueType.JSON_UTF8, new byte[(int) (3 * ENTRY_SIZE)]);
+
+      // when
+      underTest.put(key("user:2"), value);
+
+      // then
+      assertThat(underTest.get(key("user:1"))).isEqualTo(VALUE);
+      assertThat(underTest.get(key("user:2"))).isNull();
+      assertThat(metrics.evictions()).isEqualTo(1);
+      assertThat(metrics.usedBytes()).isEqualTo(ENTRY_SIZE);
+    }
+  }
+
+  @Nested
+  class Delete {
+    @Test
+    void should_Release_Bytes_Of_Deleted_Entry() {
+      // given
+      underTest.put(key("user:1"), VALUE);
+      underTest.put(key("user:2"), VALUE);
+
+      // when
+      var actual = underTest.delete(key("user:1"));
+
+      // then
+      assertThat(actual).isEqualTo(VALUE);
+      assertThat(metrics.usedBytes()).isEqualTo(ENTRY_SIZE);
+      assertThat(metrics.evictions()).isEqualTo(0);
+    }
+  }
+
+  @Nested
+  class WindowTinyLfu {
+    @Test
+    void should_Keep_Frequently_Read_Entry_When_Keys_Read_Once_Are_Scanned() {
+      // given
+      var underTest = new BoundedStorageEngine(100 * ENTRY_SIZE, Eviction.W_TINY_LFU, metrics);
+      underTest.put(key("hot"), VALUE);
+      for (int i = 0; i < 10; i++) {
+        underTest.get(key("hot"));
+        underTest.put(key("warmup:" + i), VALUE); // Replays the reads to the policy
+      }
+
+      // when
+      for (int i = 0; i < 1_000; i++) {
+        underTest.put(key("scan:" + i), VALUE);
+      }
+
+      // then
+      assertThat(underTest.get(key("hot"))).isEqualTo(VALUE);
+      assertThat(metrics.usedBytes()).isLessThanOrEqualTo(100 * ENTRY_SIZE);
+    }
+  }
+
+  @Nested
+  class Weigh {
+    @Test
+    void should_Account_Entry_Overhead_By_Fields_Of_Its_Objects() {
+      // given
+      long mapNodeAndSlots = 32 + 8;
+
+      // when
+      long actual =
+          shallowSize(Key.class)
+              + shallowSize(Value.class)
+              + shallowSize(BoundedStorageEngine.Node.class)
+              + mapNodeAndSlots;
+
+      // then
+      assertThat(actual).isEqualTo(BoundedStorageEngine.ENTRY_OVERHEAD);
+    }
+  }
+
+  private static Key key(String key) {
+    return new Key(KeyType.UTF8, key.getBytes());
+  }
+
+  // Size of an instance with compressed references and a 12 byte header, the fields packed with no
+  // gaps but the padding to 8 bytes
+  private static long shallowSize(Class<?> type) {
+    long size = 12;
+    for (Field field : type.getDeclaredFields()) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      Class<?> fieldType = field.getType();
+      if (fieldType == long.class || fieldType == double.class) {
+        size += 8;
+      } else if (fieldType == boolean.class || fieldType == byte.class) {
+        size += 1;
+      } else if (fieldType == short.class || fieldType == char.class) {
+        size += 2;
+      } else {
+        size += 4; // int, float or a reference
+      }
+    }
+    return (size + 7) & -8;
+  }
+}
@@ -2,7 +2,11 @@ package io.seriput.server.core;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
 
+import io.seriput.server.core.BoundedStorageEngine.Eviction;
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -31,6 +35,22 @@ final class CacheTest {
       assertThat(actual).isEqualTo(value);
     }
 
+    @Test
+    void should_Return_Value_Stored_By_Given_Buffer_View_Key() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      underTest.put(key, value);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+      buffer.put("xx".getBytes()).put("user:1".getBytes());
+
+      // when
+      var actual = underTest.get(Key.view(KeyType.UTF8, buffer, 2, 6));
+
+      // then
+      assertThat(actual).isEqualTo(value);
+    }
+
     @Test
     void should_Return_Null_When_NoValue_Stored_By_Given_Key() {
       // given
@@ -129,4 +149,103 @@ final class CacheTest {
       assertThatThrownBy(() -> underTest.delete(key)).hasMessage("key may not be null!");
     }
   }
+
+  @Nested
+  class Expiry {
+    @Test
+    void should_Return_Null_When_Value_Has_Expired() {
+      // given
+      var metrics = new CacheMetrics();
+      var cache = new Cache(new HeapStorageEngine(), metrics, Duration.ZERO);
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      cache.put(key, value, 500);
+
+      // when
+      var beforeExpiry = cache.get(key);
+      await().atMost(Duration.ofSeconds(5)).until(() -> cache.get(key) == null);
+
+      // then
+      assertThat(beforeExpiry.bytes()).isEqualTo(value.bytes());
+      assertThat(metrics.expirations()).isEqualTo(1);
+      cache.close();
+    }
+
+    @Test
+    void should_Sweep_Expired_Value_Which_Is_Never_Read() {
+      // given
+      var metrics = new CacheMetrics();
+      var engine = new HeapStorageEngine();
+      var cache = new Cache(engine, metrics, Duration.ofMillis(10));
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+
+      // when
+      cache.put(key, value, 50);
+
+      // then
+      await().atMost(Duration.ofSeconds(5)).until(() -> engine.get(key) == null);
+      assertThat(metrics.expirations()).isEqualTo(1);
+      cache.close();
+    }
+
+    @Test
+    void should_Keep_Value_Put_Again_Without_Ttl() {
+      // given
+      var cache = new Cache(new HeapStorageEngine(), new CacheMetrics(), Duration.ofMillis(10));
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      cache.put(key, value, 50);
+
+      // when
+      cache.put(key, value);
+
+      // then
+      await()
+          .during(Duration.ofMillis(1_500))
+          .atMost(Duration.ofSeconds(3))
+          .until(() -> value.equals(cache.get(key)));
+      cache.close();
+    }
+
+    @Test
+    void should_Keep_Single_Timer_When_Key_Is_Put_Again_With_Ttl() {
+      // given
+      var cache = new Cache(new HeapStorageEngine(), new CacheMetrics(), Duration.ofMillis(10));
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+
+      // when
+      for (int i = 0; i < 1_000; i++) {
+        cache.put(key, value, 60_000);
+      }
+      int afterPuts = cache.scheduledTimers();
+      cache.delete(key);
+
+      // then
+      assertThat(afterPuts).isEqualTo(1);
+      assertThat(cache.scheduledTimers()).isZero();
+      cache.close();
+    }
+
+    @Test
+    void should_Cancel_Timers_Of_Values_Evicted_By_Engine() {
+      // given
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      long entrySize =
+          BoundedStorageEngine.weigh(new Key(KeyType.UTF8, "user:0".getBytes()), value);
+      var engine = new BoundedStorageEngine(3 * entrySize, Eviction.LRU, new CacheMetrics());
+      var cache = new Cache(engine, new CacheMetrics(), Duration.ofMillis(10));
+
+      // when
+      for (int i = 0; i < 1_000; i++) {
+        cache.put(new Key(KeyType.UTF8, ("user:" + i).getBytes()), value, 3_600_000);
+      }
+
+      // then
+      assertThat(cache.scheduledTimers()).isEqualTo(3);
+      assertThat(cache.get(new Key(KeyType.UTF8, "user:999".getBytes()))).isNotNull();
+      cache.close();
+    }
+  }
 }
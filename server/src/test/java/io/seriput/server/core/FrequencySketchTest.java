@@ -0,0 +1,56 @@
+package io.seriput.server.core;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+final class FrequencySketchTest {
+  @Test
+  void should_Estimate_Frequency_Of_Incremented_Key() {
+    // given
+    var underTest = new FrequencySketch();
+    underTest.ensureCapacity(1_024);
+
+    // when
+    for (int i = 0; i < 5; i++) {
+      underTest.increment(42);
+    }
+
+    // then
+    assertThat(underTest.frequency(42)).isEqualTo(5);
+    assertThat(underTest.frequency(43)).isEqualTo(0);
+  }
+
+  @Test
+  void should_Cap_Frequency_At_15() {
+    // given
+    var underTest = new FrequencySketch();
+    underTest.ensureCapacity(1_024);
+
+    // when
+    for (int i = 0; i < 100; i++) {
+      underTest.increment(42);
+    }
+
+    // then
+    assertThat(underTest.frequency(42)).isEqualTo(15);
+  }
+
+  @Test
+  void should_Halve_Frequencies_When_Sample_Size_Reached() {
+    // given
+    var underTest = new FrequencySketch();
+    underTest.ensureCapacity(1_024);
+    for (int i = 0; i < 8; i++) {
+      underTest.increment(42);
+    }
+
+    // when
+    for (int i = 0; i < 10 * 1_024; i++) {
+      underTest.increment(i * 31 + 1_000_000);
+    }
+
+    // then
+    assertThat(underTest.frequency(42)).isLessThanOrEqualTo(4);
+  }
+}
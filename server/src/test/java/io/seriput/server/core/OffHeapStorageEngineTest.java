@@ -0,0 +1,302 @@
+package io.seriput.server.core;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+final class OffHeapStorageEngineTest {
+  private OffHeapStorageEngine underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new OffHeapStorageEngine();
+  }
+
+  @AfterEach
+  void tearDown() {
+    underTest.close();
+  }
+
+  @Nested
+  class Get {
+    @Test
+    void should_Return_Value_Stored_By_Given_Buffer_View_Key() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      underTest.put(key, value);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(16);
+      buffer.put("xx".getBytes()).put("user:1".getBytes());
+
+      // when
+      var actual = underTest.get(Key.view(KeyType.UTF8, buffer, 2, 6));
+
+      // then
+      assertThat(actual).isEqualTo(value);
+    }
+
+    @Test
+    void should_Return_Value_Stored_By_Given_Key_Bytes() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      underTest.put(key, value);
+      byte[] bytes = "xxuser:1".getBytes();
+
+      // when
+      var actual = underTest.get(KeyType.UTF8, bytes, 2, 6);
+
+      // then
+      assertThat(actual).isEqualTo(value);
+      assertThat(underTest.get(KeyType.UTF8, bytes, 1, 6)).isNull();
+    }
+
+    @Test
+    void should_Return_Value_Stored_By_Given_Key_Bytes_In_Direct_Buffer() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      underTest.put(key, value);
+      var buffer = ByteBuffer.allocateDirect(16).put("xxxxuser:1".getBytes()).flip().position(2);
+
+      // when
+      var actual = underTest.get(KeyType.UTF8, buffer, 4, 6);
+
+      // then
+      assertThat(actual).isEqualTo(value);
+      assertThat(underTest.get(KeyType.UTF8, buffer, 3, 6)).isNull();
+      assertThat(underTest.get(KeyType.UTF8, buffer.position(6), 4, 6)).isEqualTo(value);
+    }
+
+    @Test
+    void should_Return_Null_When_NoValue_Stored_By_Given_Key() {
+      // given
+      underTest.put(
+          new Key(KeyType.UTF8, "user:1".getBytes()),
+          new Value(ValueType.JSON_UTF8, "{}".getBytes()));
+
+      // when
+      var actual = underTest.get(new Key(KeyType.UTF8, "user:2".getBytes()));
+
+      // then
+      assertThat(actual).isNull();
+    }
+  }
+
+  @Nested
+  class Put {
+    @Test
+    void should_Replace_Value_Stored_By_Given_Key() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      underTest.put(key, new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\"}".getBytes()));
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Bob\",\"age\":30}".getBytes());
+
+      // when
+      underTest.put(key, value);
+
+      // then
+      assertThat(underTest.get(key)).isEqualTo(value);
+    }
+
+    @Test
+    void should_Store_Value_Larger_Than_Slab() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      byte[] bytes = new byte[SlabAllocator.SLAB_SIZE + 1];
+      Arrays.fill(bytes, (byte) 'a');
+      Value value = new Value(ValueType.JSON_UTF8, bytes);
+
+      // when
+      underTest.put(key, value);
+
+      // then
+      assertThat(underTest.get(key)).isEqualTo(value);
+    }
+
+    @Test
+    void should_Keep_All_Values_When_Index_Grows() {
+      // given
+      int count = 10_000;
+
+      // when
+      for (int i = 0; i < count; i++) {
+        underTest.put(
+            new Key(KeyType.UTF8, ("user:" + i).getBytes()),
+            new Value(ValueType.JSON_UTF8, ("{\"id\":" + i + "}").getBytes()));
+      }
+
+      // then
+      for (int i = 0; i < count; i++) {
+        var stored = underTest.get(new Key(KeyType.UTF8, ("user:" + i).getBytes()));
+        assertThat(stored)
+            .isEqualTo(new Value(ValueType.JSON_UTF8, ("{\"id\":" + i + "}").getBytes()));
+      }
+    }
+  }
+
+  @Nested
+  class Delete {
+    @Test
+    void should_Keep_Other_Values_When_Value_Deleted() {
+      // given
+      int count = 1_000;
+      for (int i = 0; i < count; i++) {
+        underTest.put(
+            new Key(KeyType.UTF8, ("user:" + i).getBytes()),
+            new Value(ValueType.JSON_UTF8, ("{\"id\":" + i + "}").getBytes()));
+      }
+
+      // when
+      for (int i = 0; i < count; i += 2) {
+        underTest.delete(new Key(KeyType.UTF8, ("user:" + i).getBytes()));
+      }
+
+      // then
+      for (int i = 0; i < count; i++) {
+        var stored = underTest.get(new Key(KeyType.UTF8, ("user:" + i).getBytes()));
+        assertThat(stored)
+            .isEqualTo(
+                i % 2 == 0
+                    ? null
+                    : new Value(ValueType.JSON_UTF8, ("{\"id\":" + i + "}").getBytes()));
+      }
+    }
+
+    @Test
+    void should_Return_Deleted_Value() {
+      // given
+      Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+      Value value = new Value(ValueType.JSON_UTF8, "{\"name\":\"Alice\",\"age\":30}".getBytes());
+      underTest.put(key, value);
+
+      // when
+      var actual = underTest.delete(key);
+
+      // then
+      assertThat(actual).isEqualTo(value);
+      assertThat(underTest.get(key)).isNull();
+    }
+  }
+
+  @Nested
+  class ConcurrentAccess {
+    // About 64 keys per segment, each resized a few times from its initial 16 slots
+    private static final int KEY_COUNT = 4_096;
+    // Ends with a put, every fourth version deletes the key
+    private static final int VERSION_COUNT = 63;
+    private static final int WRITER_COUNT = 2;
+    private static final int READER_COUNT = 4;
+
+    @Test
+    void should_Read_Old_Or_New_Value_While_Values_Are_Put_And_Deleted() throws Exception {
+      // given
+      // Last version of each key the writers are done with, 0 before its first put
+      var versions = new AtomicIntegerArray(KEY_COUNT);
+      var isWriting = new AtomicBoolean(true);
+      Queue<String> violations = new ConcurrentLinkedQueue<>();
+      var writers = new Thread[WRITER_COUNT];
+      for (int w = 0; w < WRITER_COUNT; w++) {
+        int writer = w;
+        writers[w] = new Thread(() -> write(writer, versions));
+      }
+      var readers = new Thread[READER_COUNT];
+      for (int r = 0; r < READER_COUNT; r++) {
+        readers[r] = new Thread(() -> read(versions, isWriting, violations));
+      }
+
+      // when
+      for (var reader : readers) {
+        reader.start();
+      }
+      for (var writer : writers) {
+        writer.start();
+      }
+      for (var writer : writers) {
+        writer.join();
+      }
+      isWriting.set(false);
+      for (var reader : readers) {
+        reader.join();
+      }
+
+      // then
+      assertThat(violations.peek()).isNull();
+      for (int i = 0; i < KEY_COUNT; i++) {
+        assertThat(underTest.get(key(i))).isEqualTo(valueOf(i, VERSION_COUNT));
+      }
+    }
+
+    // The deletes make the segments shift the slots back, and the freed chunks, all of a single
+    // size class, are taken by the keys of the other segments
+    private void write(int writer, AtomicIntegerArray versions) {
+      for (int version = 1; version <= VERSION_COUNT; version++) {
+        for (int i = writer; i < KEY_COUNT; i += WRITER_COUNT) {
+          if (isDeleted(version)) {
+            underTest.delete(key(i));
+          } else {
+            underTest.put(key(i), valueOf(i, version));
+          }
+          versions.set(i, version);
+        }
+      }
+    }
+
+    // A read overlapping a write may see the version being written, but none older than the last
+    // one written before it started
+    private void read(
+        AtomicIntegerArray versions, AtomicBoolean isWriting, Queue<String> violations) {
+      var random = ThreadLocalRandom.current();
+      while (isWriting.get()) {
+        int i = random.nextInt(KEY_COUNT);
+        int from = versions.get(i);
+        byte[] keyBytes = ("key:" + i).getBytes();
+        Value actual =
+            random.nextBoolean()
+                ? underTest.get(key(i))
+                : underTest.get(KeyType.UTF8, keyBytes, 0, keyBytes.length);
+        int to = Math.min(versions.get(i) + 1, VERSION_COUNT);
+        if (!isAnyOf(actual, i, from, to)) {
+          String read = actual == null ? null : new String(actual.bytes());
+          violations.add("key:" + i + " read " + read + " after version " + from);
+        }
+      }
+    }
+
+    private static boolean isAnyOf(Value actual, int i, int from, int to) {
+      for (int version = from; version <= to; version++) {
+        Value expected = version == 0 || isDeleted(version) ? null : valueOf(i, version);
+        if (Objects.equals(expected, actual)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private static boolean isDeleted(int version) {
+      return version % 4 == 0;
+    }
+
+    private static Key key(int i) {
+      return new Key(KeyType.UTF8, ("key:" + i).getBytes());
+    }
+
+    // Lengths vary by version but fit a single size class with the header and the key
+    private static Value valueOf(int i, int version) {
+      var json = new StringBuilder("{\"key\":" + i + ",\"version\":" + version + "}");
+      json.append(" ".repeat(version % 8));
+      return new Value(ValueType.JSON_UTF8, json.toString().getBytes());
+    }
+  }
+}
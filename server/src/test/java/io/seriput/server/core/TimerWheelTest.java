@@ -0,0 +1,119 @@
+package io.seriput.server.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+final class TimerWheelTest {
+  // Span of a bucket of the finest wheel, about a second
+  private static final long TICK_NANOS = 1L << 30;
+  private static final long STEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Key key = new Key(KeyType.UTF8, "user:1".getBytes());
+  private final List<Key> expired = new ArrayList<>();
+  private final TimerWheel underTest = new TimerWheel(0);
+
+  @Nested
+  final class Advance {
+    @Test
+    void should_Expire_Key_Once_Its_Time_Has_Passed() {
+      // given
+      underTest.schedule(key, TimeUnit.SECONDS.toNanos(3));
+
+      // when
+      underTest.advance(TimeUnit.SECONDS.toNanos(2), expired::add);
+      var beforeExpiry = List.copyOf(expired);
+      underTest.advance(TimeUnit.SECONDS.toNanos(3) + TICK_NANOS, expired::add);
+
+      // then
+      assertThat(beforeExpiry).isEmpty();
+      assertThat(expired).containsExactly(key);
+      assertThat(underTest.size()).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+        longs = {
+          90, // Minute wheel
+          2 * 60 * 60, // Hour wheel
+          2 * 24 * 60 * 60, // Day wheel
+          10 * 24 * 60 * 60 // Overflow bucket
+        })
+    void should_Expire_Key_Cascaded_From_Coarser_Wheels_At_Most_A_Tick_Late(long ttlSeconds) {
+      // given
+      long expiresAtNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+      underTest.schedule(key, expiresAtNanos);
+
+      // when
+      long actual = advanceUntilExpired(0, STEP_NANOS, expiresAtNanos + 2 * TICK_NANOS);
+
+      // then
+      assertThat(actual).isBetween(expiresAtNanos, expiresAtNanos + TICK_NANOS + STEP_NANOS);
+      assertThat(expired).containsExactly(key);
+    }
+
+    @Test
+    void should_Not_Expire_Key_Early_When_It_Lands_On_Current_Bucket_A_Lap_Ahead() {
+      // given
+      underTest.advance(TICK_NANOS / 2, expired::add);
+      // 63.75 ticks away on the finest wheel of 64 buckets, hashed onto the current bucket
+      long expiresAtNanos = 64 * TICK_NANOS + TICK_NANOS / 4;
+      underTest.schedule(key, expiresAtNanos);
+
+      // when
+      long actual =
+          advanceUntilExpired(TICK_NANOS / 2, TICK_NANOS / 8, expiresAtNanos + 2 * TICK_NANOS);
+
+      // then
+      assertThat(actual).isBetween(expiresAtNanos, expiresAtNanos + TICK_NANOS + TICK_NANOS / 8);
+    }
+  }
+
+  @Nested
+  final class Cancel {
+    @Test
+    void should_Not_Expire_Key_When_Its_Timer_Is_Cancelled() {
+      // given
+      var timer = underTest.schedule(key, TimeUnit.SECONDS.toNanos(3));
+
+      // when
+      underTest.cancel(timer);
+      underTest.advance(TimeUnit.SECONDS.toNanos(10), expired::add);
+
+      // then
+      assertThat(expired).isEmpty();
+      assertThat(underTest.size()).isZero();
+    }
+
+    @Test
+    void should_Ignore_Cancel_When_Timer_Has_Already_Expired() {
+      // given
+      var timer = underTest.schedule(key, TimeUnit.SECONDS.toNanos(1));
+      underTest.advance(TimeUnit.SECONDS.toNanos(3), expired::add);
+
+      // when
+      underTest.cancel(timer);
+
+      // then
+      assertThat(expired).containsExactly(key);
+      assertThat(underTest.size()).isZero();
+    }
+  }
+
+  // Advances the wheel step by step until a key expires, returns when it did or -1 if none did
+  private long advanceUntilExpired(long fromNanos, long stepNanos, long untilNanos) {
+    for (long nowNanos = fromNanos + stepNanos; nowNanos <= untilNanos; nowNanos += stepNanos) {
+      underTest.advance(nowNanos, expired::add);
+      if (!expired.isEmpty()) {
+        return nowNanos;
+      }
+    }
+    return -1;
+  }
+}
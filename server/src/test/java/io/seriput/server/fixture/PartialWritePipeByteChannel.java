@@ -3,13 +3,15 @@ package io.seriput.server.fixture;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.Pipe;
 
 /**
  * A {@link ByteChannel} implementation for testing one particular case which the OS send buffer is
  * full.
  */
-public final class PartialWritePipeByteChannel implements ByteChannel, AutoCloseable {
+public final class PartialWritePipeByteChannel
+    implements ByteChannel, GatheringByteChannel, AutoCloseable {
   private final int maxBytesPerWrite;
   private final Pipe.SinkChannel sink;
   private final Pipe.SourceChannel source;
@@ -25,11 +27,32 @@ public final class PartialWritePipeByteChannel implements ByteChannel, AutoClose
 
   @Override
   public int write(ByteBuffer src) throws IOException {
+    return write(src, this.maxBytesPerWrite);
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+    long written = 0;
+    for (int i = offset; i < offset + length && written < this.maxBytesPerWrite; i++) {
+      written += write(srcs[i], (int) (this.maxBytesPerWrite - written));
+      if (srcs[i].hasRemaining()) {
+        break;
+      }
+    }
+    return written;
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs) throws IOException {
+    return write(srcs, 0, srcs.length);
+  }
+
+  private int write(ByteBuffer src, int maxBytes) throws IOException {
     if (!src.hasRemaining()) {
       return 0;
     }
 
-    int bytesToWrite = Math.min(src.remaining(), this.maxBytesPerWrite);
+    int bytesToWrite = Math.min(src.remaining(), maxBytes);
     int originalLimit = src.limit();
     src.limit(src.position() + bytesToWrite);
     ByteBuffer temp = ByteBuffer.allocate(bytesToWrite);
@@ -3,10 +3,11 @@ package io.seriput.server.fixture;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.Pipe;
 
 /** A {@link ByteChannel} implementation for testing purposes. */
-public final class PipeByteChannel implements ByteChannel, AutoCloseable {
+public final class PipeByteChannel implements ByteChannel, GatheringByteChannel, AutoCloseable {
   private final Pipe.SinkChannel sink;
   private final Pipe.SourceChannel source;
 
@@ -23,6 +24,16 @@ public final class PipeByteChannel implements ByteChannel, AutoCloseable {
     return this.sink.write(src);
   }
 
+  @Override
+  public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+    return this.sink.write(srcs, offset, length);
+  }
+
+  @Override
+  public long write(ByteBuffer[] srcs) throws IOException {
+    return this.sink.write(srcs);
+  }
+
   @Override
   public int read(ByteBuffer dst) throws IOException {
     return this.source.read(dst);
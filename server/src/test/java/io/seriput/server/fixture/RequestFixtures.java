@@ -4,6 +4,7 @@ import io.seriput.common.HeapByteBufferAllocator;
 import io.seriput.common.serialization.request.KeyType;
 import io.seriput.common.serialization.request.RequestSerializer;
 import io.seriput.common.serialization.request.ValueType;
+import java.nio.ByteBuffer;
 import java.util.UUID;
 
 public final class RequestFixtures {
@@ -43,6 +44,21 @@ public final class RequestFixtures {
     return bufferArray;
   }
 
+  public static byte[] serializeHello(int version) {
+    var buffer = RequestSerializer.serializeHello(version);
+    var bufferArray = new byte[buffer.remaining()];
+    buffer.get(bufferArray);
+    return bufferArray;
+  }
+
+  /** Prefixes the given v1 frame with the given {@code requestId} as in protocol v2. */
+  public static byte[] tagged(int requestId, byte[] payload) {
+    return ByteBuffer.allocate(Integer.BYTES + payload.length)
+        .putInt(requestId)
+        .put(payload)
+        .array();
+  }
+
   public static String testKey() {
     return "user:" + UUID.randomUUID();
   }
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.common.primitives.Bytes;
 import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 import io.seriput.server.core.Key;
 import io.seriput.server.core.KeyType;
 import io.seriput.server.core.Value;
@@ -29,7 +30,7 @@ final class RequestDeserializerTest {
       buffer.flip();
 
       // when
-      int actual = RequestDeserializer.bodySize(buffer);
+      long actual = RequestDeserializer.bodySize(buffer);
 
       // then
       assertThat(actual).isEqualTo(8);
@@ -47,11 +48,29 @@ final class RequestDeserializerTest {
       buffer.flip();
 
       // when
-      int actual = RequestDeserializer.bodySize(buffer);
+      long actual = RequestDeserializer.bodySize(buffer);
 
       // then
       assertThat(actual).isEqualTo(0);
     }
+
+    @Test
+    void should_Return_Minus_One_When_A_Length_Is_Negative() {
+      // given
+      ByteBuffer buffer = ByteBuffer.allocate(RequestDeserializer.headerSize());
+      buffer.put(RequestOp.PUT.op());
+      buffer.put(KeyType.UTF8.typeId());
+      buffer.put(ValueType.JSON_UTF8.typeId());
+      buffer.putInt(-1);
+      buffer.putInt(5);
+      buffer.flip();
+
+      // when
+      long actual = RequestDeserializer.bodySize(buffer);
+
+      // then
+      assertThat(actual).isEqualTo(-1);
+    }
   }
 
   @Nested
@@ -72,7 +91,7 @@ final class RequestDeserializerTest {
               key);
 
       // when
-      Request actual = RequestDeserializer.deserialize(buffer);
+      Request actual = RequestDeserializer.deserialize(ByteBuffer.wrap(buffer));
 
       // then
       var expected = new GetRequest(new Key(KeyType.UTF8, key));
@@ -97,7 +116,7 @@ final class RequestDeserializerTest {
               value);
 
       // when
-      Request actual = RequestDeserializer.deserialize(buffer);
+      Request actual = RequestDeserializer.deserialize(ByteBuffer.wrap(buffer));
 
       // then
       var expected =
@@ -105,6 +124,58 @@ final class RequestDeserializerTest {
       assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    void should_Deserialize_Put_Ttl_Request() {
+      // given
+      byte[] key = "user:1".getBytes();
+      byte[] value = "{\"name\":\"Alice\",\"age\":30}".getBytes();
+      byte[] buffer =
+          Bytes.concat(
+              new byte[] {
+                RequestOp.PUT_TTL.op(), // op
+                KeyType.UTF8.typeId(), // keyType
+                ValueType.JSON_UTF8.typeId(), // valueType
+              },
+              Ints.toByteArray(key.length),
+              Ints.toByteArray(Long.BYTES + value.length),
+              key,
+              Longs.toByteArray(60_000),
+              value);
+
+      // when
+      Request actual = RequestDeserializer.deserialize(ByteBuffer.wrap(buffer));
+
+      // then
+      var expected =
+          new PutRequest(
+              new Key(KeyType.UTF8, key), new Value(ValueType.JSON_UTF8, value), 60_000);
+      assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void should_Throw_ProtocolViolationException_When_Put_Ttl_Request_Has_No_Positive_Ttl() {
+      // given
+      byte[] key = "user:1".getBytes();
+      byte[] buffer =
+          Bytes.concat(
+              new byte[] {
+                RequestOp.PUT_TTL.op(), KeyType.UTF8.typeId(), ValueType.JSON_UTF8.typeId()
+              },
+              Ints.toByteArray(key.length),
+              Ints.toByteArray(Long.BYTES),
+              key,
+              Longs.toByteArray(0));
+
+      // when
+      ProtocolViolationException thrown =
+          assertThrows(
+              ProtocolViolationException.class,
+              () -> RequestDeserializer.deserialize(ByteBuffer.wrap(buffer)));
+
+      // then
+      assertThat(thrown.getMessage()).isEqualTo("TTL must be positive: 0");
+    }
+
     @Test
     void should_Deserialize_Delete_Request() {
       // given
@@ -121,13 +192,107 @@ final class RequestDeserializerTest {
               key);
 
       // when
-      Request actual = RequestDeserializer.deserialize(buffer);
+      Request actual = RequestDeserializer.deserialize(ByteBuffer.wrap(buffer));
 
       // then
       var expected = new DeleteRequest(new Key(KeyType.UTF8, key));
       assertThat(actual).isEqualTo(expected);
     }
 
+    @Test
+    void should_Deserialize_Get_Request_In_Place_From_Direct_Buffer() {
+      // given
+      byte[] key = "user:1".getBytes();
+      byte[] frame =
+          Bytes.concat(
+              new byte[] {
+                RequestOp.GET.op(), // op
+                KeyType.UTF8.typeId(), // keyType
+                (byte) 0, // valueType, no value
+              },
+              Ints.toByteArray(key.length),
+              Ints.toByteArray(0),
+              key);
+      ByteBuffer buffer = ByteBuffer.allocateDirect(frame.length + 3);
+      buffer.put(new byte[3]).put(frame).flip().position(3); // Frame in the middle of the buffer
+
+      // when
+      Request actual = RequestDeserializer.deserialize(buffer);
+
+      // then
+      assertThat(actual).isEqualTo(new GetRequest(new Key(KeyType.UTF8, key)));
+      assertThat(((GetRequest) actual).key().bytes()).isNull(); // Not copied
+      assertThat(buffer.position()).isEqualTo(3);
+    }
+
+    @Test
+    void should_Copy_Put_Request_Out_Of_Given_Buffer() {
+      // given
+      byte[] key = "user:1".getBytes();
+      byte[] value = "{\"name\":\"Alice\",\"age\":30}".getBytes();
+      ByteBuffer buffer =
+          ByteBuffer.wrap(
+              Bytes.concat(
+                  new byte[] {
+                    RequestOp.PUT.op(), // op
+                    KeyType.UTF8.typeId(), // keyType
+                    ValueType.JSON_UTF8.typeId(), // valueType
+                  },
+                  Ints.toByteArray(key.length),
+                  Ints.toByteArray(value.length),
+                  key,
+                  value));
+
+      // when
+      Request actual = RequestDeserializer.deserialize(buffer);
+      buffer.put(RequestDeserializer.headerSize(), (byte) 'x'); // Buffer gets reused
+
+      // then
+      var expected =
+          new PutRequest(new Key(KeyType.UTF8, key), new Value(ValueType.JSON_UTF8, value));
+      assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void should_Deserialize_Hello_Request() {
+      // given
+      byte[] buffer =
+          Bytes.concat(
+              new byte[] {RequestOp.HELLO.op(), 0x00, 0x00},
+              Ints.toByteArray(0),
+              Ints.toByteArray(1),
+              new byte[] {RequestDeserializer.PROTOCOL_V2});
+
+      // when
+      Request actual = RequestDeserializer.deserialize(ByteBuffer.wrap(buffer));
+
+      // then
+      assertThat(actual).isEqualTo(new HelloRequest(RequestDeserializer.PROTOCOL_V2));
+      assertThat(RequestDeserializer.helloVersion(ByteBuffer.wrap(buffer)))
+          .isEqualTo(RequestDeserializer.PROTOCOL_V2);
+    }
+
+    @Test
+    void should_Throw_ProtocolViolationException_When_Hello_Request_Has_A_Key() {
+      // given
+      byte[] buffer =
+          Bytes.concat(
+              new byte[] {RequestOp.HELLO.op(), KeyType.UTF8.typeId(), 0x00},
+              Ints.toByteArray(1),
+              Ints.toByteArray(1),
+              new byte[] {'k', RequestDeserializer.PROTOCOL_V2});
+
+      // when
+      ProtocolViolationException thrown =
+          assertThrows(
+              ProtocolViolationException.class,
+              () -> RequestDeserializer.deserialize(ByteBuffer.wrap(buffer)));
+
+      // then
+      assertThat(thrown.getMessage()).isEqualTo("HELLO must have no key and a single byte value!");
+      assertThat(RequestDeserializer.helloVersion(ByteBuffer.wrap(buffer))).isEqualTo(-1);
+    }
+
     @Test
     void should_Throw_ProtocolViolationException_When_Given_Buffer_Is_Smaller_Than_Excepted() {
       // given
@@ -136,7 +301,8 @@ final class RequestDeserializerTest {
       // when
       ProtocolViolationException thrown =
           assertThrows(
-              ProtocolViolationException.class, () -> RequestDeserializer.deserialize(buffer));
+              ProtocolViolationException.class,
+              () -> RequestDeserializer.deserialize(ByteBuffer.wrap(buffer)));
 
       // then
       assertThat(thrown.getMessage()).isEqualTo("'buffer' too small: 10");
@@ -149,7 +315,7 @@ final class RequestDeserializerTest {
       byte[] buffer =
           Bytes.concat(
               new byte[] {
-                (byte) 0x4, // op, unknown
+                (byte) 0x5, // op, unknown
                 KeyType.UTF8.typeId(), // keyType
                 ValueType.JSON_UTF8.typeId() // valueType
               },
@@ -159,10 +325,11 @@ final class RequestDeserializerTest {
       // when
       ProtocolViolationException thrown =
           assertThrows(
-              ProtocolViolationException.class, () -> RequestDeserializer.deserialize(buffer));
+              ProtocolViolationException.class,
+              () -> RequestDeserializer.deserialize(ByteBuffer.wrap(buffer)));
 
       // then
-      assertThat(thrown.getMessage()).isEqualTo("Unknown request op: 4");
+      assertThat(thrown.getMessage()).isEqualTo("Unknown request op: 5");
       assertThat(thrown.getCause()).isNull();
     }
 
@@ -182,7 +349,8 @@ final class RequestDeserializerTest {
       // when
       ProtocolViolationException thrown =
           assertThrows(
-              ProtocolViolationException.class, () -> RequestDeserializer.deserialize(buffer));
+              ProtocolViolationException.class,
+              () -> RequestDeserializer.deserialize(ByteBuffer.wrap(buffer)));
 
       // then
       assertThat(thrown.getMessage()).isEqualTo("Unknown key type: 2");
@@ -205,7 +373,8 @@ final class RequestDeserializerTest {
       // when
       ProtocolViolationException thrown =
           assertThrows(
-              ProtocolViolationException.class, () -> RequestDeserializer.deserialize(buffer));
+              ProtocolViolationException.class,
+              () -> RequestDeserializer.deserialize(ByteBuffer.wrap(buffer)));
 
       // then
       assertThat(thrown.getMessage()).isEqualTo("Unknown value type: 2");